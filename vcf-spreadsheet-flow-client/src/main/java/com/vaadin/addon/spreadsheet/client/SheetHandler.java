@@ -69,6 +69,14 @@ public interface SheetHandler extends GroupingHandler {
     /** Number of defined rows in the spreadsheet */
     int getDefinedRows();
 
+    /**
+     * Heights of the defined rows in points, 0-based. Rows without a height
+     * of their own have the default height of the model.
+     *
+     * @return row height model
+     */
+    SparseSizeModel getRowSizes();
+
     int[] getColWidths();
 
     /**
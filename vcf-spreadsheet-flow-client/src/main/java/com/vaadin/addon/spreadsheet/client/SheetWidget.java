@@ -325,7 +325,10 @@ public class SheetWidget extends Panel {
     private int scrollViewWidth;
     private int ppi;
     private int defRowH = -1;
-    private int[] definedRowHeights;
+    /** row heights in pixels, 0-based */
+    private SparseSizeModel definedRowHeights = new SparseSizeModel(0, 0);
+    /** dense copy of the row heights, built on demand */
+    private int[] definedRowHeightsArray;
     private int topFrozenPanelHeight;
     private int leftFrozenPanelWidth;
 
@@ -722,12 +725,12 @@ public class SheetWidget extends Panel {
             // changed -> update styles and display more columns and/or rows if
             // necessary (scroll positions may have not changed)
 
-            int newFirstRowPosition = 1;
-            for (int i = 1; i < firstRowIndex; i++) {
-                newFirstRowPosition += getRowHeight(i);
-                if (i == verticalSplitPosition) {
-                    topFrozenPanelHeight = newFirstRowPosition;
-                }
+            int newFirstRowPosition = 1
+                    + (int) definedRowHeights.getOffset(firstRowIndex - 1);
+            if (verticalSplitPosition > 0
+                    && verticalSplitPosition < firstRowIndex) {
+                topFrozenPanelHeight = 1 + (int) definedRowHeights
+                        .getOffset(verticalSplitPosition);
             }
 
             int newLastRowPosition = newFirstRowPosition;
@@ -2222,14 +2225,30 @@ public class SheetWidget extends Panel {
     }
 
     private int calculateHeightForRows(int startIndex, int endIndex) {
-        int top = 0;
-        for (int i = startIndex; i <= endIndex; i++) {
-            float rowHeight = actionHandler.getRowHeight(i);
-            int rowHeightPX = convertPointsToPixel(rowHeight);
-            top += rowHeightPX;
-            definedRowHeights[i - 1] = rowHeightPX;
+        return (int) definedRowHeights.getSum(startIndex - 1, endIndex);
+    }
+
+    /**
+     * Converts the row heights of the action handler to pixels. Only the rows
+     * with a height of their own are converted, all the other rows share the
+     * default height.
+     */
+    private SparseSizeModel createRowHeightModel() {
+        final int maxRows = actionHandler.getMaxRows();
+        final SparseSizeModel rowSizes = actionHandler.getRowSizes();
+        final SparseSizeModel heights = new SparseSizeModel(maxRows,
+                convertPointsToPixel(rowSizes.getDefaultSize()));
+        for (int k = 0; k < rowSizes.getEntryCount(); k++) {
+            heights.setSize(rowSizes.getEntryIndex(k),
+                    convertPointsToPixel(rowSizes.getEntrySize(k)));
         }
-        return top;
+        final int defaultRowHeight = getDefaultRowHeight();
+        if (defaultRowHeight != heights.getDefaultSize()) {
+            for (int i = rowSizes.getCount(); i < maxRows; i++) {
+                heights.setSize(i, defaultRowHeight);
+            }
+        }
+        return heights;
     }
 
     private int calculateWidthForColumns(int startIndex, int endIndex) {
@@ -2301,11 +2320,8 @@ public class SheetWidget extends Panel {
     }
 
     private int calculateTopValueOfScrolledRows() {
-        int top = 0;
-        for (int i = 1; i < (firstRowIndex - verticalSplitPosition); i++) {
-            top += definedRowHeights[i - 1];
-        }
-        return top;
+        return (int) definedRowHeights
+                .getOffset(firstRowIndex - verticalSplitPosition - 1);
     }
 
     private void createRowStyles(List<String> rules, int startIndex,
@@ -2315,7 +2331,7 @@ public class SheetWidget extends Panel {
         Map<Integer, Integer> topMap = new HashMap<Integer, Integer>();
         for (int i = startIndex; i <= endIndex; i++) {
             StringBuilder sb = new StringBuilder();
-            int rowHeightPX = definedRowHeights[i - 1];
+            int rowHeightPX = (int) definedRowHeights.getSize(i - 1);
             sb.append(".").append(sheetId).append(" .sheet .row").append(i)
                     .append(", .").append(sheetId).append(">.resize-line.row")
                     .append(i).append(" { ").append(getRowDisplayString(i))
@@ -2376,7 +2392,8 @@ public class SheetWidget extends Panel {
 
     private void updateSheetStyles() {
         // create row rules (height + top offset)
-        definedRowHeights = new int[actionHandler.getMaxRows()];
+        definedRowHeights = createRowHeightModel();
+        definedRowHeightsArray = null;
         topFrozenPanelHeight = 0;
         float topFrozenPanelHeightPx = 0;
         if (verticalSplitPosition > 0) {
@@ -2850,16 +2867,17 @@ public class SheetWidget extends Panel {
                 + actionHandler.getColWidthActual(firstColumnIndex);
         int rowBufferSize = actionHandler.getRowBufferSize();
         if (firstRowPosition < (scrollTop - rowBufferSize)) {
-            do {
-                if (firstRowIndex >= actionHandler.getDefinedRows()) {
-                    firstRowPosition += getDefaultRowHeight();
-                } else {
-                    // firstRowPosition += convertPointsToPixel(actionHandler
-                    // .getRowHeight(firstRowIndex));
-                    firstRowPosition += getRowHeight(firstRowIndex);
-                }
-                firstRowIndex++;
-            } while (firstRowPosition < (scrollTop - rowBufferSize));
+            // the first row that ends at or after the top bound, at least one
+            // row forward
+            final double start = definedRowHeights
+                    .getOffset(firstRowIndex - 1);
+            final double bound = scrollTop - rowBufferSize - firstRowPosition
+                    + start;
+            final int lastSkipped = Math.max(firstRowIndex,
+                    definedRowHeights.getIndexAt(bound - 0.5) + 1);
+            firstRowPosition += (int) (definedRowHeights.getOffset(lastSkipped)
+                    - start);
+            firstRowIndex = lastSkipped + 1;
         }
         lastRowIndex = firstRowIndex;
         lastRowPosition = firstRowPosition + getRowHeight(lastRowIndex);
@@ -4339,15 +4357,18 @@ public class SheetWidget extends Panel {
     private int getRowHeight(int row) {
         if (actionHandler.isRowHidden(row)) {
             return 0;
-        } else if (row >= definedRowHeights.length) {
+        } else if (row > definedRowHeights.getCount()) {
             return getDefaultRowHeight();
         } else {
-            return definedRowHeights[row - 1];
+            return (int) definedRowHeights.getSize(row - 1);
         }
     }
 
     public int[] getRowHeights() {
-        return definedRowHeights;
+        if (definedRowHeightsArray == null) {
+            definedRowHeightsArray = definedRowHeights.toIntArray();
+        }
+        return definedRowHeightsArray;
     }
 
     /**
@@ -5535,10 +5556,8 @@ public class SheetWidget extends Panel {
         final int topRowIndex = getTopVisibleRowIndex();
         if (row < topRowIndex && row > verticalSplitPosition) {
             // scroll up until row is visible (+ 1 cell extra)
-            int scroll = 0;
-            for (int i = topRowIndex - 1; i >= row - 1 && i > 0; i--) {
-                scroll += getRowHeight(i);
-            }
+            int scroll = calculateHeightForRows(Math.max(1, row - 1),
+                    topRowIndex - 1);
             final int result = sheet.getScrollTop() - scroll;
             sheet.setScrollTop(result > 0 ? result : 0);
             if (row <= firstRowIndex
@@ -5549,12 +5568,9 @@ public class SheetWidget extends Panel {
             final int bottomRowIndex = getBottomVisibleRowIndex();
             if (row > bottomRowIndex) {
                 // scroll down until row is visible (+1 cell extra)
-                int scroll = 0;
                 final int maximumRows = actionHandler.getMaxRows();
-                for (int i = bottomRowIndex + 1; i <= row + 1
-                        && i <= maximumRows; i++) {
-                    scroll += getRowHeight(i);
-                }
+                int scroll = calculateHeightForRows(bottomRowIndex + 1,
+                        Math.min(row + 1, maximumRows));
                 sheet.setScrollTop(sheet.getScrollTop() + scroll);
                 if (row >= lastRowIndex
                         || scroll > (actionHandler.getRowBufferSize() / 2)) {
@@ -5651,10 +5667,8 @@ public class SheetWidget extends Panel {
         if (actOnTopEdge) {
             if (row1 < topRowIndex) {
                 // scroll up until the row1 come visible
-                int scroll = 0;
-                for (int i = topRowIndex - 1; i >= row1 - 1 && i > 0; i--) {
-                    scroll += getRowHeight(i);
-                }
+                int scroll = calculateHeightForRows(Math.max(1, row1 - 1),
+                        topRowIndex - 1);
                 final int result = sheet.getScrollTop() - scroll;
                 sheet.setScrollTop(result > 0 ? result : 0);
                 if (row1 <= firstRowIndex
@@ -5663,12 +5677,9 @@ public class SheetWidget extends Panel {
                 }
             } else if (row1 > bottomRowIndex) {
                 // scroll down until row1 is visible
-                int scroll = 0;
                 final int maximumRows = actionHandler.getMaxRows();
-                for (int i = bottomRowIndex + 1; i <= row1 + 1
-                        && i <= maximumRows; i++) {
-                    scroll += getRowHeight(i);
-                }
+                int scroll = calculateHeightForRows(bottomRowIndex + 1,
+                        Math.min(row1 + 1, maximumRows));
                 sheet.setScrollTop(sheet.getScrollTop() + scroll);
                 if (row1 >= lastRowIndex
                         || scroll > (actionHandler.getRowBufferSize() / 2)) {
@@ -5678,12 +5689,9 @@ public class SheetWidget extends Panel {
         } else {
             if (row2 > bottomRowIndex) {
                 // scroll down until row2 is visible
-                int scroll = 0;
                 final int maximumRows = actionHandler.getMaxRows();
-                for (int i = bottomRowIndex + 1; i <= row2 + 1
-                        && i <= maximumRows; i++) {
-                    scroll += getRowHeight(i);
-                }
+                int scroll = calculateHeightForRows(bottomRowIndex + 1,
+                        Math.min(row2 + 1, maximumRows));
                 sheet.setScrollTop(sheet.getScrollTop() + scroll);
                 if (row2 >= lastRowIndex
                         || scroll > (actionHandler.getRowBufferSize() / 2)) {
@@ -5691,10 +5699,8 @@ public class SheetWidget extends Panel {
                 }
             } else if (row2 < topRowIndex) {
                 // scroll up until the row2 come visible
-                int scroll = 0;
-                for (int i = topRowIndex - 1; i >= row2 - 1 && i > 0; i--) {
-                    scroll += getRowHeight(i);
-                }
+                int scroll = calculateHeightForRows(Math.max(1, row2 - 1),
+                        topRowIndex - 1);
                 final int result = sheet.getScrollTop() - scroll;
                 sheet.setScrollTop(result > 0 ? result : 0);
                 if (row2 <= firstRowIndex
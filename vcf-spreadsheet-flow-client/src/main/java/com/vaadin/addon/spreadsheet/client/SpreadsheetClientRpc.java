@@ -54,4 +54,16 @@ public interface SpreadsheetClientRpc extends ClientRpc {
     void refreshCellStyles();
 
     void editCellComment(int col, int row);
+
+    /**
+     * Patches the row heights and hidden rows. The ranges are
+     * <code>[first, last, height]</code> triples, indexes 1-based.
+     */
+    void updateHiddenRows(float[] ranges);
+
+    /**
+     * Patches the column widths and hidden columns. The ranges are
+     * <code>[first, last, width]</code> triples, indexes 1-based.
+     */
+    void updateHiddenColumns(float[] ranges);
 }
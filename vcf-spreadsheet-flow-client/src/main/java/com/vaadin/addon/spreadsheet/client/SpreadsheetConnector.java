@@ -160,6 +160,36 @@ public class SpreadsheetConnector extends AbstractHasComponentsConnector
         public void editCellComment(int col, int row) {
             getWidget().editCellComment(col, row);
         }
+
+        @Override
+        public void updateHiddenRows(float[] ranges) {
+            SpreadsheetWidget widget = getWidget();
+            widget.updateHiddenRows(ranges);
+            // keep the encoded sizes in the state in sync with the server,
+            // later size deltas are based on them
+            final SparseSizeModel rowSizes = SparseSizeModel
+                    .decode(getState().rowH);
+            SpreadsheetWidget.applySizeRanges(rowSizes, ranges);
+            getState().rowH = rowSizes.encode();
+            getState().hiddenRowIndexes = new ArrayList<Integer>(
+                    widget.hiddenRowIndexes);
+            widget.relayoutSheet();
+            widget.updateMergedRegions(getState().mergedRegions);
+        }
+
+        @Override
+        public void updateHiddenColumns(float[] ranges) {
+            SpreadsheetWidget widget = getWidget();
+            widget.updateHiddenColumns(ranges);
+            final SparseSizeModel columnSizes = SparseSizeModel
+                    .decode(getState().colW);
+            SpreadsheetWidget.applySizeRanges(columnSizes, ranges);
+            getState().colW = columnSizes.encodeAsInts();
+            getState().hiddenColumnIndexes = new ArrayList<Integer>(
+                    widget.hiddenColumnIndexes);
+            widget.relayoutSheet();
+            widget.updateMergedRegions(getState().mergedRegions);
+        }
     };
 
     private final ElementResizeListener elementResizeListener = new ElementResizeListener() {
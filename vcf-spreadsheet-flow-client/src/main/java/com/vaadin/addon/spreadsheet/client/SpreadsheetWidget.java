@@ -31,6 +31,7 @@ import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.Widget;
 import com.vaadin.addon.spreadsheet.client.MergedRegionUtil.MergedRegionContainer;
+import com.vaadin.addon.spreadsheet.client.MergedRegionUtil.MergedRegionIndex;
 import com.vaadin.addon.spreadsheet.client.SheetTabSheet.SheetTabSheetHandler;
 import com.vaadin.addon.spreadsheet.client.SpreadsheetConnector.CommsTrigger;
 import com.vaadin.addon.spreadsheet.shared.GroupingData;
@@ -103,8 +104,10 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
     private float defRowH;
     private int defColW;
 
-    private float[] rowH;
-    private int[] colW;
+    private SparseSizeModel rowH = new SparseSizeModel(0, 0);
+    private SparseSizeModel colW = new SparseSizeModel(0, 0);
+    /** dense copy of the column widths, built on demand */
+    private int[] colWidths;
 
     /** 1-based */
     private int activeSheetIndex;
@@ -144,32 +147,19 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
      */
     private boolean okToSendCellProtectRpc = true;
 
+    private final MergedRegionIndex mergedRegionIndex = new MergedRegionIndex();
+
     @SuppressWarnings("serial")
     MergedRegionContainer mergedRegionContainer = new MergedRegionContainer() {
 
         @Override
         public MergedRegion getMergedRegionStartingFrom(int column, int row) {
-            if (mergedRegions != null) {
-                for (MergedRegion region : mergedRegions) {
-                    if (region.col1 == column && region.row1 == row) {
-                        return region;
-                    }
-                }
-            }
-            return null;
+            return mergedRegionIndex.getMergedRegionStartingFrom(column, row);
         }
 
         @Override
         public MergedRegion getMergedRegion(int column, int row) {
-            if (mergedRegions != null) {
-                for (MergedRegion region : mergedRegions) {
-                    if (region.col1 <= column && region.row1 <= row
-                            && region.col2 >= column && region.row2 >= row) {
-                        return region;
-                    }
-                }
-            }
-            return null;
+            return mergedRegionIndex.getMergedRegion(column, row);
         }
     };
     private CommsTrigger commsTrigger;
@@ -522,6 +512,8 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
                     SpreadsheetWidget.this.mergedRegions = new ArrayList<MergedRegion>(
                             mergedRegions);
                 }
+                mergedRegionIndex
+                        .setRegions(SpreadsheetWidget.this.mergedRegions);
             }
         });
     }
@@ -529,7 +521,9 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
     private void clearMergedRegions() {
         if (mergedRegions != null) {
             while (0 < mergedRegions.size()) {
-                sheetWidget.removeMergedRegion(mergedRegions.remove(0), 0);
+                MergedRegion region = mergedRegions.remove(0);
+                mergedRegionIndex.remove(region);
+                sheetWidget.removeMergedRegion(region, 0);
             }
         }
     }
@@ -1433,7 +1427,7 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
                     hiddenRowIndexes.add(index);
                 }
             }
-            rowH[index - 1] = size;
+            rowH.setSize(index - 1, size);
         }
         sheetWidget.relayoutSheet(false);
         if (mergedRegions != null) {
@@ -1459,8 +1453,9 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
                     hiddenColumnIndexes.add(index);
                 }
             }
-            colW[index - 1] = size;
+            colW.setSize(index - 1, size);
         }
+        colWidths = null;
         sheetWidget.relayoutSheet(false);
         if (mergedRegions != null) {
             for (MergedRegion region : mergedRegions) {
@@ -1571,12 +1566,23 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
         sheetWidget.setRowGroupingData(data);
     }
 
+    /**
+     * @param rowH
+     *            row heights in points, encoded with
+     *            {@link SparseSizeModel#encode()}
+     */
     public void setRowH(float[] rowH) {
-        this.rowH = rowH;
+        this.rowH = SparseSizeModel.decode(rowH);
     }
 
+    /**
+     * @param colW
+     *            column widths in pixels, encoded with
+     *            {@link SparseSizeModel#encodeAsInts()}
+     */
     public void setColW(int[] colW) {
-        this.colW = colW;
+        this.colW = SparseSizeModel.decode(colW);
+        colWidths = null;
     }
 
     public void setDefRowH(float defRowH) {
@@ -1729,6 +1735,78 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
         this.hiddenRowIndexes = new ArrayList<Integer>(hiddenRowIndexes);
     }
 
+    /**
+     * Applies a row visibility diff sent by the server. The diff consists of
+     * <code>[first, last, height]</code> triples of 1-based row indexes, a
+     * zero height marks the rows hidden.
+     *
+     * @param ranges
+     *            range encoded row visibility changes
+     */
+    public void updateHiddenRows(float[] ranges) {
+        Set<Integer> hidden = hiddenRowIndexes == null ? new HashSet<Integer>()
+                : new HashSet<Integer>(hiddenRowIndexes);
+        applySizeRanges(rowH, ranges);
+        for (int i = 0; i + 2 < ranges.length; i += 3) {
+            final int last = (int) ranges[i + 1];
+            final float height = ranges[i + 2];
+            for (int row = (int) ranges[i]; row <= last; row++) {
+                if (height == 0) {
+                    hidden.add(row);
+                } else {
+                    hidden.remove(row);
+                }
+            }
+        }
+        hiddenRowIndexes = new ArrayList<Integer>(hidden);
+    }
+
+    /**
+     * Applies a column visibility diff sent by the server. The diff consists
+     * of <code>[first, last, width]</code> triples of 1-based column indexes,
+     * a zero width marks the columns hidden.
+     *
+     * @param ranges
+     *            range encoded column visibility changes
+     */
+    public void updateHiddenColumns(float[] ranges) {
+        Set<Integer> hidden = hiddenColumnIndexes == null
+                ? new HashSet<Integer>()
+                : new HashSet<Integer>(hiddenColumnIndexes);
+        applySizeRanges(colW, ranges);
+        colWidths = null;
+        for (int i = 0; i + 2 < ranges.length; i += 3) {
+            final int last = (int) ranges[i + 1];
+            final int width = (int) ranges[i + 2];
+            for (int col = (int) ranges[i]; col <= last; col++) {
+                if (width == 0) {
+                    hidden.add(col);
+                } else {
+                    hidden.remove(col);
+                }
+            }
+        }
+        hiddenColumnIndexes = new ArrayList<Integer>(hidden);
+    }
+
+    /**
+     * Sets the sizes of the given <code>[first, last, size]</code> triples of
+     * 1-based indexes to the given model.
+     *
+     * @param model
+     *            target size model
+     * @param ranges
+     *            range encoded sizes
+     */
+    static void applySizeRanges(SparseSizeModel model, float[] ranges) {
+        for (int i = 0; i + 2 < ranges.length; i += 3) {
+            final int last = (int) ranges[i + 1];
+            for (int index = (int) ranges[i]; index <= last; index++) {
+                model.setSize(index - 1, ranges[i + 2]);
+            }
+        }
+    }
+
     public void setCellComments(HashMap<String, String> cellComments,
             HashMap<String, String> cellCommentAuthors) {
         sheetWidget.setCellComments(cellComments, cellCommentAuthors);
@@ -1760,8 +1838,8 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
     @Override
     public float getRowHeight(int row) {
         // doesn't take hidden rows into account! (but height is 0 for those)
-        if (rowH.length >= row) {
-            return rowH[row - 1];
+        if (row > 0 && rowH.getCount() >= row) {
+            return rowH.getSize(row - 1);
         } else {
             return defRowH;
         }
@@ -1770,8 +1848,8 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
     @Override
     public int getColWidth(int col) {
         // doesn't take hidden columns into account! (but width is 0 for those)
-        if (col > 0 && colW.length >= col) {
-            return colW[col - 1];
+        if (col > 0 && colW.getCount() >= col) {
+            return (int) colW.getSize(col - 1);
         } else {
             return defColW;
         }
@@ -1805,12 +1883,20 @@ public class SpreadsheetWidget extends Composite implements SheetHandler,
 
     @Override
     public int getDefinedRows() {
-        return rowH.length;
+        return rowH.getCount();
+    }
+
+    @Override
+    public SparseSizeModel getRowSizes() {
+        return rowH;
     }
 
     @Override
     public int[] getColWidths() {
-        return colW;
+        if (colWidths == null) {
+            colWidths = colW.toIntArray();
+        }
+        return colWidths;
     }
 
     @Override
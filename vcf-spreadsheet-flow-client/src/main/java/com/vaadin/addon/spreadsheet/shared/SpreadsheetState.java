@@ -53,8 +53,10 @@ public class SpreadsheetState extends TabIndexState {
     @DelegateToWidget
     public int defColW;
 
+    /** row heights in points, encoded by SparseSizeModel */
     @DelegateToWidget
     public float[] rowH;
+    /** column widths in pixels, encoded by SparseSizeModel */
     @DelegateToWidget
     public int[] colW;
 
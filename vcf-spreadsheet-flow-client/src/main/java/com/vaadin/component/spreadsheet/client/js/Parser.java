@@ -111,6 +111,161 @@ public class Parser {
         return parseArrayJstype(raw, () -> new SpreadsheetActionDetails());
     }
 
+    /**
+     * Applies array splices of <code>[start, deleteCount, [values]]</code>
+     * sent by the server. Splices that keep the array length are applied in
+     * place.
+     */
+    public static float[] applyArrayFloatDelta(float[] current, String raw) {
+        float[] result = current == null ? new float[0] : current;
+        JsonArray splices = JsonUtil.parse(raw);
+        for (int i = 0; i < splices.length(); i++) {
+            JsonArray splice = splices.getArray(i);
+            int start = (int) splice.getNumber(0);
+            int deleteCount = (int) splice.getNumber(1);
+            JsonArray values = splice.getArray(2);
+            if (values.length() != deleteCount) {
+                float[] resized = new float[result.length - deleteCount
+                        + values.length()];
+                System.arraycopy(result, 0, resized, 0, start);
+                System.arraycopy(result, start + deleteCount, resized,
+                        start + values.length(),
+                        result.length - start - deleteCount);
+                result = resized;
+            }
+            for (int j = 0; j < values.length(); j++) {
+                result[start + j] = (float) values.getNumber(j);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see #applyArrayFloatDelta(float[], String)
+     */
+    public static int[] applyArrayIntDelta(int[] current, String raw) {
+        int[] result = current == null ? new int[0] : current;
+        JsonArray splices = JsonUtil.parse(raw);
+        for (int i = 0; i < splices.length(); i++) {
+            JsonArray splice = splices.getArray(i);
+            int start = (int) splice.getNumber(0);
+            int deleteCount = (int) splice.getNumber(1);
+            JsonArray values = splice.getArray(2);
+            if (values.length() != deleteCount) {
+                int[] resized = new int[result.length - deleteCount
+                        + values.length()];
+                System.arraycopy(result, 0, resized, 0, start);
+                System.arraycopy(result, start + deleteCount, resized,
+                        start + values.length(),
+                        result.length - start - deleteCount);
+                result = resized;
+            }
+            for (int j = 0; j < values.length(); j++) {
+                result[start + j] = (int) values.getNumber(j);
+            }
+        }
+        return result;
+    }
+
+    public static ArrayList<String> applyArraylistStringDelta(
+            List<String> current, String raw) {
+        return applyListDelta(current, raw, Object::toString);
+    }
+
+    public static ArrayList<Integer> applyArraylistIntegerDelta(
+            List<Integer> current, String raw) {
+        return applyListDelta(current, raw, o -> (int) toDouble(o));
+    }
+
+    /**
+     * Applies a map delta of removed keys and put key-value pairs sent by the
+     * server.
+     */
+    public static HashMap<Integer, String> applyMapIntegerStringDelta(
+            HashMap<Integer, String> current, String raw) {
+        return applyMapDelta(current, raw, Integer::valueOf,
+                Object::toString);
+    }
+
+    public static HashMap<Integer, Integer> applyMapIntegerIntegerDelta(
+            HashMap<Integer, Integer> current, String raw) {
+        return applyMapDelta(current, raw, Integer::valueOf,
+                o -> (int) toDouble(o));
+    }
+
+    public static HashMap<String, String> applyMapStringStringDelta(
+            HashMap<String, String> current, String raw) {
+        return applyMapDelta(current, raw, key -> key, Object::toString);
+    }
+
+    /**
+     * Applies a set delta of removed and added values sent by the server.
+     */
+    public static Set<String> applySetStringDelta(Set<String> current,
+            String raw) {
+        HashSet<String> result = current == null ? new HashSet<>()
+                : new HashSet<>(current);
+        JsonObject delta = JsonUtil.parse(raw);
+        if (delta.hasKey("remove")) {
+            JsonArray remove = delta.getArray("remove");
+            for (int i = 0; i < remove.length(); i++) {
+                result.remove(remove.getString(i));
+            }
+        }
+        if (delta.hasKey("add")) {
+            JsonArray add = delta.getArray("add");
+            for (int i = 0; i < add.length(); i++) {
+                result.add(add.getString(i));
+            }
+        }
+        return result;
+    }
+
+    private static <T> ArrayList<T> applyListDelta(List<T> current,
+            String raw, Function<Object, T> jsToJava) {
+        ArrayList<T> result = current == null ? new ArrayList<>()
+                : new ArrayList<>(current);
+        JsonArray splices = JsonUtil.parse(raw);
+        for (int i = 0; i < splices.length(); i++) {
+            JsonArray splice = splices.getArray(i);
+            int start = (int) splice.getNumber(0);
+            int deleteCount = (int) splice.getNumber(1);
+            JsonArray values = splice.getArray(2);
+            result.subList(start, start + deleteCount).clear();
+            ArrayList<T> inserted = new ArrayList<>();
+            for (int j = 0; j < values.length(); j++) {
+                Object val = values.get(j);
+                inserted.add(jsToJava.apply(val));
+            }
+            result.addAll(start, inserted);
+        }
+        return result;
+    }
+
+    private static <I, T> HashMap<I, T> applyMapDelta(HashMap<I, T> current,
+            String raw, Function<String, I> strToKey,
+            Function<Object, T> jsToJava) {
+        HashMap<I, T> result = current == null ? new HashMap<>()
+                : new HashMap<>(current);
+        JsonObject delta = JsonUtil.parse(raw);
+        if (delta.hasKey("remove")) {
+            JsonArray remove = delta.getArray("remove");
+            for (int i = 0; i < remove.length(); i++) {
+                result.remove(strToKey.apply(remove.getString(i)));
+            }
+        }
+        if (delta.hasKey("put")) {
+            JsonArray put = delta.getArray("put");
+            for (int i = 0; i < put.length(); i++) {
+                JsonArray entry = put.getArray(i);
+                Object val = entry.get(1);
+                result.put(strToKey.apply(entry.getString(0)),
+                        jsToJava.apply(val));
+            }
+        }
+        return result;
+    }
+
     private static <T> Set<T> parseSet(String raw,
             Function<Object, T> jsToJava) {
         return new HashSet<T>(parseArray(raw, jsToJava));
@@ -575,6 +575,84 @@ public class SpreadsheetJsApi {
         spreadsheetConnector.onStateChanged(event);
     }
 
+    /**
+     * Applies a delta sent by the server to the given state property and
+     * notifies the connector as if the whole property had been updated.
+     *
+     * @param propertyName
+     *            name of the state property
+     * @param delta
+     *            JSON encoded delta
+     */
+    public void applyPropertyDelta(String propertyName, String delta) {
+        SpreadsheetState state = getState();
+        switch (propertyName) {
+        case "rowH":
+            state.rowH = Parser.applyArrayFloatDelta(state.rowH, delta);
+            break;
+        case "colW":
+            state.colW = Parser.applyArrayIntDelta(state.colW, delta);
+            break;
+        case "cellStyleToCSSStyle":
+            state.cellStyleToCSSStyle = Parser.applyMapIntegerStringDelta(
+                    state.cellStyleToCSSStyle, delta);
+            break;
+        case "rowIndexToStyleIndex":
+            state.rowIndexToStyleIndex = Parser.applyMapIntegerIntegerDelta(
+                    state.rowIndexToStyleIndex, delta);
+            break;
+        case "columnIndexToStyleIndex":
+            state.columnIndexToStyleIndex = Parser
+                    .applyMapIntegerIntegerDelta(state.columnIndexToStyleIndex,
+                            delta);
+            break;
+        case "shiftedCellBorderStyles":
+            state.shiftedCellBorderStyles = Parser.applyArraylistStringDelta(
+                    state.shiftedCellBorderStyles, delta);
+            break;
+        case "conditionalFormattingStyles":
+            state.conditionalFormattingStyles = Parser
+                    .applyMapIntegerStringDelta(
+                            state.conditionalFormattingStyles, delta);
+            break;
+        case "hiddenColumnIndexes":
+            state.hiddenColumnIndexes = Parser.applyArraylistIntegerDelta(
+                    state.hiddenColumnIndexes, delta);
+            break;
+        case "hiddenRowIndexes":
+            state.hiddenRowIndexes = Parser.applyArraylistIntegerDelta(
+                    state.hiddenRowIndexes, delta);
+            break;
+        case "cellComments":
+            state.cellComments = Parser
+                    .applyMapStringStringDelta(state.cellComments, delta);
+            break;
+        case "cellCommentAuthors":
+            state.cellCommentAuthors = Parser.applyMapStringStringDelta(
+                    state.cellCommentAuthors, delta);
+            break;
+        case "visibleCellComments":
+            state.visibleCellComments = Parser.applyArraylistStringDelta(
+                    state.visibleCellComments, delta);
+            break;
+        case "invalidFormulaCells":
+            state.invalidFormulaCells = Parser
+                    .applySetStringDelta(state.invalidFormulaCells, delta);
+            break;
+        case "cellKeysToEditorIdMap":
+            state.cellKeysToEditorIdMap = Parser.applyMapStringStringDelta(
+                    state.cellKeysToEditorIdMap, delta);
+            break;
+        case "componentIDtoCellKeysMap":
+            state.componentIDtoCellKeysMap = Parser.applyMapStringStringDelta(
+                    state.componentIDtoCellKeysMap, delta);
+            break;
+        default:
+            return;
+        }
+        notifyStateChanges(new String[] { propertyName }, false);
+    }
+
     /* CLIENT RPC METHODS */
 
     public void updateBottomRightCellValues(String cellData) {
@@ -628,6 +706,16 @@ public class SpreadsheetJsApi {
                 .cellsUpdated(Parser.parseArraylistOfCellData(cellData));
     }
 
+    public void updateHiddenRows(String ranges) {
+        getClientRpcInstance()
+                .updateHiddenRows(Parser.parseArrayFloat(ranges));
+    }
+
+    public void updateHiddenColumns(String ranges) {
+        getClientRpcInstance()
+                .updateHiddenColumns(Parser.parseArrayFloat(ranges));
+    }
+
     public void refreshCellStyles() {
         Scheduler.get().scheduleDeferred(() -> {
             getClientRpcInstance().refreshCellStyles();
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellAddress;
+
+/**
+ * Index of the cell comments of a sheet, read once from the comments of the
+ * sheet. Finding the comments of an area doesn't need to look up every cell
+ * of it, which on XSSF searches the comments table for each cell.
+ * <p>
+ * The comments are ordered by row and then by column. The index must be
+ * rebuilt when comments are added to or removed from the sheet.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+class CellCommentIndex implements Serializable {
+
+    private final TreeMap<Long, Comment> comments = new TreeMap<Long, Comment>();
+
+    /**
+     * Creates a new index of the comments of the given sheet.
+     *
+     * @param sheet
+     *            Sheet to index
+     */
+    CellCommentIndex(Sheet sheet) {
+        for (Map.Entry<CellAddress, ? extends Comment> entry : sheet
+                .getCellComments().entrySet()) {
+            comments.put(key(entry.getKey().getRow(),
+                    entry.getKey().getColumn()), entry.getValue());
+        }
+    }
+
+    /**
+     * Returns the comments of the cells in the given area.
+     *
+     * @param firstRow
+     *            Index of the first row, 0-based
+     * @param firstColumn
+     *            Index of the first column, 0-based
+     * @param lastRow
+     *            Index of the last row, 0-based
+     * @param lastColumn
+     *            Index of the last column, 0-based
+     * @return the comments in row order
+     */
+    List<Comment> getComments(int firstRow, int firstColumn, int lastRow,
+            int lastColumn) {
+        final List<Comment> result = new ArrayList<Comment>();
+        if (firstRow > lastRow || firstColumn > lastColumn) {
+            return result;
+        }
+        for (Map.Entry<Long, Comment> entry : comments
+                .subMap(key(firstRow, 0), key(lastRow + 1, 0)).entrySet()) {
+            final int column = (int) (long) entry.getKey();
+            if (column >= firstColumn && column <= lastColumn) {
+                result.add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of comments in the sheet
+     */
+    int size() {
+        return comments.size();
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | column;
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A set of cell coordinates backed by a primitive open addressing hash table.
+ * <p>
+ * Each coordinate is packed into a single long as {@code (row << 20) | col},
+ * so adding, querying and removing cells does not allocate. This replaces the
+ * {@code "col3 row7"} string keys that were previously used for tracking which
+ * cells have been sent to the client.
+ * <p>
+ * Coordinates are non-negative; the Spreadsheet uses 1-based indexes for the
+ * client side cache. Columns must fit into 20 bits, which covers the 16384
+ * columns of the XLSX format.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+public final class CellCoordinateSet implements Serializable {
+
+    /**
+     * Callback for iterating the coordinates in a {@link CellCoordinateSet}.
+     */
+    @FunctionalInterface
+    public interface CoordinateConsumer {
+        /**
+         * Called for each visited coordinate.
+         *
+         * @param col
+         *            Column index
+         * @param row
+         *            Row index
+         */
+        void accept(int col, int row);
+    }
+
+    private static final int COL_BITS = 20;
+    private static final long COL_MASK = (1L << COL_BITS) - 1;
+    private static final long EMPTY = -1L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * Creates a new empty set.
+     */
+    public CellCoordinateSet() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Packs the given coordinates into a single long key.
+     *
+     * @param col
+     *            Column index
+     * @param row
+     *            Row index
+     * @return Packed key
+     */
+    public static long pack(int col, int row) {
+        return ((long) row << COL_BITS) | (col & COL_MASK);
+    }
+
+    /**
+     * Returns the column index of the given packed key.
+     *
+     * @param key
+     *            Packed key, see {@link #pack(int, int)}
+     * @return Column index
+     */
+    public static int getCol(long key) {
+        return (int) (key & COL_MASK);
+    }
+
+    /**
+     * Returns the row index of the given packed key.
+     *
+     * @param key
+     *            Packed key, see {@link #pack(int, int)}
+     * @return Row index
+     */
+    public static int getRow(long key) {
+        return (int) (key >>> COL_BITS);
+    }
+
+    /**
+     * Adds the given coordinates to this set.
+     *
+     * @param col
+     *            Column index
+     * @param row
+     *            Row index
+     * @return <code>true</code> if the set did not already contain the
+     *         coordinates
+     */
+    public boolean add(int col, int row) {
+        return addKey(pack(col, row));
+    }
+
+    /**
+     * Checks whether this set contains the given coordinates.
+     *
+     * @param col
+     *            Column index
+     * @param row
+     *            Row index
+     * @return <code>true</code> if the coordinates are in the set
+     */
+    public boolean contains(int col, int row) {
+        final long key = pack(col, row);
+        final int mask = table.length - 1;
+        int i = indexFor(key, mask);
+        long current;
+        while ((current = table[i]) != EMPTY) {
+            if (current == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given coordinates from this set.
+     *
+     * @param col
+     *            Column index
+     * @param row
+     *            Row index
+     * @return <code>true</code> if the coordinates were in the set
+     */
+    public boolean remove(int col, int row) {
+        final long key = pack(col, row);
+        final int mask = table.length - 1;
+        int i = indexFor(key, mask);
+        long current;
+        while ((current = table[i]) != EMPTY) {
+            if (current == key) {
+                deleteSlot(i);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all coordinates whose row is within the given bounds.
+     *
+     * @param firstRow
+     *            First row to remove, inclusive
+     * @param lastRow
+     *            Last row to remove, inclusive
+     * @param removed
+     *            Callback notified of each removed coordinate, may be
+     *            <code>null</code>
+     * @return the number of removed coordinates
+     */
+    public int removeRows(int firstRow, int lastRow, CoordinateConsumer removed) {
+        if (size == 0 || firstRow > lastRow) {
+            return 0;
+        }
+        int count = 0;
+        final long[] old = table;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int row = getRow(key);
+                if (row >= firstRow && row <= lastRow) {
+                    count++;
+                    if (removed != null) {
+                        removed.accept(getCol(key), row);
+                    }
+                }
+            }
+        }
+        if (count > 0) {
+            rebuild(old, firstRow, lastRow, -1);
+        }
+        return count;
+    }
+
+    /**
+     * Removes all coordinates in the given column.
+     *
+     * @param col
+     *            Column index
+     * @return the number of removed coordinates
+     */
+    public int removeColumn(int col) {
+        if (size == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (long key : table) {
+            if (key != EMPTY && getCol(key) == col) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            rebuild(table, 1, 0, col);
+        }
+        return count;
+    }
+
+    /**
+     * Calls the given consumer for each coordinate in this set. The iteration
+     * order is undefined. The set must not be modified during iteration.
+     *
+     * @param consumer
+     *            Callback to call for each coordinate
+     */
+    public void forEach(CoordinateConsumer consumer) {
+        for (long key : table) {
+            if (key != EMPTY) {
+                consumer.accept(getCol(key), getRow(key));
+            }
+        }
+    }
+
+    /**
+     * Adds all the coordinates of the given set to this set.
+     *
+     * @param other
+     *            Set to copy coordinates from
+     */
+    public void addAll(CellCoordinateSet other) {
+        for (long key : other.table) {
+            if (key != EMPTY) {
+                addKey(key);
+            }
+        }
+    }
+
+    /**
+     * @return the number of coordinates in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return <code>true</code> if this set contains no coordinates
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all coordinates from this set. Large tables are shrunk back to
+     * the initial capacity.
+     */
+    public void clear() {
+        if (table.length > MIN_CAPACITY * 64) {
+            allocate(MIN_CAPACITY);
+        } else {
+            Arrays.fill(table, EMPTY);
+        }
+        size = 0;
+    }
+
+    private boolean addKey(long key) {
+        final int mask = table.length - 1;
+        int i = indexFor(key, mask);
+        long current;
+        while ((current = table[i]) != EMPTY) {
+            if (current == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        if (++size > resizeThreshold) {
+            long[] old = table;
+            allocate(table.length * 2);
+            size = 0;
+            for (long k : old) {
+                if (k != EMPTY) {
+                    insertNew(k);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-inserts the keys of the given table, skipping rows within
+     * {@code [skipFirstRow, skipLastRow]} and the given column.
+     */
+    private void rebuild(long[] old, int skipFirstRow, int skipLastRow,
+            int skipCol) {
+        allocate(old.length);
+        size = 0;
+        for (long key : old) {
+            if (key == EMPTY) {
+                continue;
+            }
+            int row = getRow(key);
+            if (row >= skipFirstRow && row <= skipLastRow
+                    || getCol(key) == skipCol) {
+                continue;
+            }
+            insertNew(key);
+        }
+    }
+
+    private void insertNew(long key) {
+        final int mask = table.length - 1;
+        int i = indexFor(key, mask);
+        while (table[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        size++;
+    }
+
+    /**
+     * Removes the entry at the given slot and shifts back any following
+     * entries of the same probe sequence, so no tombstones are needed.
+     */
+    private void deleteSlot(int slot) {
+        final int mask = table.length - 1;
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long key = table[i];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = indexFor(key, mask);
+            // move the entry if its home slot is not in (gap, i]
+            if (gap <= i ? (home <= gap || home > i)
+                    : (home <= gap && home > i)) {
+                table[gap] = key;
+                gap = i;
+            }
+        }
+        table[gap] = EMPTY;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        resizeThreshold = capacity / 2;
+    }
+
+    private static int indexFor(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.vaadin.flow.component.spreadsheet.client.CellData;
+
+/**
+ * A cache of the cell data created for the cells of the active sheet, keyed
+ * by cell coordinates. Used by {@link CellValueManager}, so that cells that
+ * are sent to the client again, e.g. when scrolling back to an area the
+ * client has dropped from its cache, don't need to be formatted again.
+ * <p>
+ * Each entry is stamped with the {@link CellStyleMetadata} entry of the cell
+ * style and the version of the metadata table it was created with, an entry
+ * with a different stamp is treated as missing. This way changing a cell
+ * style, or the style of a cell, makes the cached data of the cells having
+ * the style out of date without visiting them. Changed values must be
+ * removed with {@link #remove(int, int)}. The least recently used entries
+ * are evicted when the estimated memory use of the entries exceeds the
+ * memory budget. A budget of zero disables the cache.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+final class CellRenderCache implements Serializable {
+
+    /**
+     * Estimated size of an entry in bytes, excluding the strings of the cell
+     * data: the cell data, the entry, the key and the map entry.
+     */
+    private static final int ENTRY_SIZE = 160;
+    /** Estimated size of a string in bytes, excluding the characters */
+    private static final int STRING_SIZE = 40;
+
+    /**
+     * Cached cell data. Immutable.
+     */
+    private static final class Entry implements Serializable {
+        private final CellData cellData;
+        private final CellStyleMetadata.Entry style;
+        private final int version;
+        private final long size;
+
+        Entry(CellData cellData, CellStyleMetadata.Entry style, int version) {
+            this.cellData = cellData;
+            this.style = style;
+            this.version = version;
+            size = ENTRY_SIZE + sizeOf(cellData.value)
+                    + sizeOf(cellData.formulaValue)
+                    + sizeOf(cellData.originalValue)
+                    + sizeOf(cellData.cellStyle) + sizeOf(cellData.textColor);
+        }
+
+        private static long sizeOf(String s) {
+            return s == null ? 0 : STRING_SIZE + 2L * s.length();
+        }
+    }
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(
+            16, 0.75f, true);
+
+    private long memoryBudget;
+    private long memoryUsage;
+
+    /**
+     * @return <code>true</code> if the memory budget is not zero
+     */
+    boolean isEnabled() {
+        return memoryBudget > 0;
+    }
+
+    /**
+     * @return the memory budget in bytes
+     */
+    long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the memory budget, evicting entries if needed.
+     *
+     * @param memoryBudget
+     *            Estimated memory use the entries may have in bytes, 0 to
+     *            disable the cache
+     */
+    void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = Math.max(0, memoryBudget);
+        evict();
+    }
+
+    /**
+     * @return the estimated memory use of the entries in bytes
+     */
+    long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * @return the number of cached cells
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param col
+     *            Column index, 1-based
+     * @param row
+     *            Row index, 1-based
+     * @param style
+     *            Current metadata of the style of the cell
+     * @param version
+     *            Current version of the style metadata table
+     * @return the cached cell data, or <code>null</code> if not cached with
+     *         the given style and version
+     */
+    CellData get(int col, int row, CellStyleMetadata.Entry style,
+            int version) {
+        final Long key = key(col, row);
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.style != style || entry.version != version) {
+            memoryUsage -= entries.remove(key).size;
+            return null;
+        }
+        return entry.cellData;
+    }
+
+    /**
+     * @param col
+     *            Column index, 1-based
+     * @param row
+     *            Row index, 1-based
+     * @param style
+     *            Metadata of the style the cell data was created with
+     * @param version
+     *            Version of the style metadata table
+     * @param cellData
+     *            Cell data of the cell, must not be modified afterwards
+     */
+    void put(int col, int row, CellStyleMetadata.Entry style, int version,
+            CellData cellData) {
+        if (!isEnabled()) {
+            return;
+        }
+        final Entry entry = new Entry(cellData, style, version);
+        final Entry old = entries.put(key(col, row), entry);
+        if (old != null) {
+            memoryUsage -= old.size;
+        }
+        memoryUsage += entry.size;
+        evict();
+    }
+
+    /**
+     * @param col
+     *            Column index, 1-based
+     * @param row
+     *            Row index, 1-based
+     */
+    void remove(int col, int row) {
+        final Entry entry = entries.remove(key(col, row));
+        if (entry != null) {
+            memoryUsage -= entry.size;
+        }
+    }
+
+    /**
+     * Removes the cells of the given rows.
+     *
+     * @param firstRow
+     *            Index of the first row, 1-based
+     * @param lastRow
+     *            Index of the last row, 1-based
+     */
+    void removeRows(int firstRow, int lastRow) {
+        final Iterator<Map.Entry<Long, Entry>> i = entries.entrySet()
+                .iterator();
+        while (i.hasNext()) {
+            final Map.Entry<Long, Entry> e = i.next();
+            final int row = (int) (e.getKey() >>> 32);
+            if (row >= firstRow && row <= lastRow) {
+                memoryUsage -= e.getValue().size;
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the cells of the given column.
+     *
+     * @param col
+     *            Column index, 1-based
+     */
+    void removeColumn(int col) {
+        final Iterator<Map.Entry<Long, Entry>> i = entries.entrySet()
+                .iterator();
+        while (i.hasNext()) {
+            final Map.Entry<Long, Entry> e = i.next();
+            if (e.getKey().intValue() == col) {
+                memoryUsage -= e.getValue().size;
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached cells.
+     */
+    void clear() {
+        entries.clear();
+        memoryUsage = 0;
+    }
+
+    private void evict() {
+        final Iterator<Entry> i = entries.values().iterator();
+        while (memoryUsage > memoryBudget && i.hasNext()) {
+            memoryUsage -= i.next().size;
+            i.remove();
+        }
+    }
+
+    private static Long key(int col, int row) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
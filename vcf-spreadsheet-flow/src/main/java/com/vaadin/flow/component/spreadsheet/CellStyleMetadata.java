@@ -0,0 +1,270 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.poi.ss.format.VCellFormat;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+
+/**
+ * The formatting metadata of the cell styles of the workbook of a
+ * {@link Spreadsheet}, indexed by cell style index. Used by
+ * {@link CellValueManager} and {@link CustomDataFormatter}, so that the data
+ * format of a style is inspected and parsed once instead of for every cell.
+ * <p>
+ * The entries are read from the styles when first needed.
+ * {@link SpreadsheetStyleFactory} clears the table when the workbook styles
+ * are reloaded and forgets the entry of a style when the style is updated.
+ * Styles may also be changed in place through POI, so an entry is checked
+ * against the data format, alignment and wrapping of the style before it is
+ * used, and read again if they differ. An entry is replaced by a new
+ * instance when its style changes, so data derived from an entry is up to
+ * date as long as the style has the same entry and the version of the table,
+ * see {@link #getVersion()}, hasn't changed.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+final class CellStyleMetadata implements Serializable {
+
+    /**
+     * The formatting metadata of one cell style.
+     */
+    static final class Entry implements Serializable {
+        private final String styleClass;
+        private final String rightAlignedStyleClass;
+        private final HorizontalAlignment alignment;
+        private final boolean wrapText;
+        private final short dataFormat;
+        private final String dataFormatString;
+        private final String[] dataFormatParts;
+        private final boolean general;
+        private final boolean generalSection;
+        private final boolean percentage;
+        private final boolean dateFormat;
+        private Float widthRatio;
+
+        private Locale cellFormatLocale;
+        private VCellFormat cellFormat;
+
+        /**
+         * Reads the metadata of the given cell style.
+         *
+         * @param cellStyle
+         *            Cell style, not <code>null</code>
+         */
+        Entry(CellStyle cellStyle) {
+            styleClass = "cs" + cellStyle.getIndex();
+            rightAlignedStyleClass = styleClass + " r";
+            alignment = cellStyle.getAlignment();
+            wrapText = cellStyle.getWrapText();
+            dataFormat = cellStyle.getDataFormat();
+            dataFormatString = cellStyle.getDataFormatString();
+            general = "General".equals(dataFormatString);
+            generalSection = dataFormatString != null
+                    && dataFormatString.contains("General");
+            percentage = dataFormatString != null
+                    && dataFormatString.contains("%");
+            dateFormat = DateUtil.isADateFormat(dataFormat, dataFormatString);
+            dataFormatParts = dataFormatString == null || general ? null
+                    : dataFormatString.split(";", -1);
+        }
+
+        /**
+         * @param cellStyle
+         *            Cell style the entry was read from
+         * @return <code>true</code> if the data format, alignment and
+         *         wrapping of the style haven't changed since the entry was
+         *         read
+         */
+        boolean isUpToDate(CellStyle cellStyle) {
+            return dataFormat == cellStyle.getDataFormat()
+                    && alignment == cellStyle.getAlignment()
+                    && wrapText == cellStyle.getWrapText();
+        }
+
+        /**
+         * @return the client side style class of the cells, e.g.
+         *         <code>cs3</code>
+         */
+        String getStyleClass() {
+            return styleClass;
+        }
+
+        /**
+         * @return the style class of the right aligned cells, e.g.
+         *         <code>cs3 r</code>
+         */
+        String getRightAlignedStyleClass() {
+            return rightAlignedStyleClass;
+        }
+
+        HorizontalAlignment getAlignment() {
+            return alignment;
+        }
+
+        boolean isWrapText() {
+            return wrapText;
+        }
+
+        /**
+         * @return the data format string, may be <code>null</code>
+         */
+        String getDataFormatString() {
+            return dataFormatString;
+        }
+
+        /**
+         * @return the parts of the data format separated by <code>;</code>,
+         *         or <code>null</code> if the format is General
+         */
+        String[] getDataFormatParts() {
+            return dataFormatParts;
+        }
+
+        /**
+         * @return <code>true</code> if the data format is General
+         */
+        boolean isGeneral() {
+            return general;
+        }
+
+        /**
+         * @return <code>true</code> if the data format has a General part
+         */
+        boolean hasGeneralSection() {
+            return generalSection;
+        }
+
+        /**
+         * @return <code>true</code> if the data format is a percentage
+         */
+        boolean isPercentage() {
+            return percentage;
+        }
+
+        /**
+         * @return <code>true</code> if numbers are formatted as dates, see
+         *         {@link DateUtil#isADateFormat(int, String)}
+         */
+        boolean isDateFormat() {
+            return dateFormat;
+        }
+
+        /**
+         * @return the average character width of the style measured by the
+         *         client, or <code>null</code> if not known
+         */
+        Float getWidthRatio() {
+            return widthRatio;
+        }
+
+        /**
+         * Gets the parsed data format for the given locale, parsing it only
+         * when the locale changes.
+         *
+         * @param locale
+         *            Locale of the format
+         * @return the parsed data format
+         */
+        VCellFormat getCellFormat(Locale locale) {
+            if (cellFormat == null
+                    || !Objects.equals(cellFormatLocale, locale)) {
+                cellFormat = VCellFormat.getInstance(locale, dataFormatString);
+                cellFormatLocale = locale;
+            }
+            return cellFormat;
+        }
+    }
+
+    private Entry[] entries = new Entry[0];
+    private Map<Integer, Float> widthRatios = new HashMap<Integer, Float>();
+    private int version;
+
+    /**
+     * Gets the version of the table, which changes when the width ratios
+     * change or all entries are cleared.
+     *
+     * @return the current version
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the metadata of the given cell style, reading it from the style if
+     * needed.
+     *
+     * @param cellStyle
+     *            Cell style, not <code>null</code>
+     * @return the metadata of the style
+     */
+    Entry get(CellStyle cellStyle) {
+        final int index = cellStyle.getIndex() & 0xFFFF;
+        if (index >= entries.length) {
+            entries = Arrays.copyOf(entries,
+                    Math.max(index + 1, entries.length * 2));
+        }
+        Entry entry = entries[index];
+        if (entry == null || !entry.isUpToDate(cellStyle)) {
+            entry = new Entry(cellStyle);
+            entry.widthRatio = widthRatios.get(index);
+            entries[index] = entry;
+        }
+        return entry;
+    }
+
+    /**
+     * Sets the average character widths of the styles measured by the client.
+     *
+     * @param widthRatios
+     *            Width ratios by cell style index
+     */
+    void setWidthRatios(Map<Integer, Float> widthRatios) {
+        this.widthRatios = widthRatios == null ? new HashMap<Integer, Float>()
+                : widthRatios;
+        version++;
+        for (int index = 0; index < entries.length; index++) {
+            if (entries[index] != null) {
+                entries[index].widthRatio = this.widthRatios.get(index);
+            }
+        }
+    }
+
+    /**
+     * Forgets the metadata of the given cell style. Must be called when the
+     * style has changed.
+     *
+     * @param cellStyleIndex
+     *            Index of the changed style
+     */
+    void cellStyleChanged(short cellStyleIndex) {
+        final int index = cellStyleIndex & 0xFFFF;
+        if (index < entries.length) {
+            entries[index] = null;
+        }
+    }
+
+    /**
+     * Forgets the metadata of all cell styles, e.g. when the workbook is
+     * changed.
+     */
+    void clear() {
+        Arrays.fill(entries, null);
+        version++;
+    }
+}
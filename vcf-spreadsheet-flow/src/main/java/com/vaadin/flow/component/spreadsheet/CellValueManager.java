@@ -18,16 +18,14 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.apache.poi.hssf.model.InternalSheet;
 import org.apache.poi.hssf.record.RecordBase;
@@ -80,6 +78,9 @@ public class CellValueManager implements Serializable {
      */
     private static final String EXCEL_FORMULA_BAR_DECIMAL_FORMAT = "###.################";
     private static final String ZERO_AS_STRING = "0";
+    /** Matches the minus sign of a negative value formatted as zero */
+    private static final Pattern NEGATIVE_ZERO = Pattern
+            .compile("-(?=0(.0*)?$)");
 
     private short hyperlinkStyleIndex = -1;
 
@@ -91,24 +92,37 @@ public class CellValueManager implements Serializable {
     private CellValueHandler customCellValueHandler;
     private CellDeletionHandler customCellDeletionHandler;
 
-    private DataFormatter formatter = new CustomDataFormatter();
+    private DataFormatter formatter;
 
-    /** Cell keys that have values sent to client side and are cached there. */
-    private final HashSet<String> sentCells = new HashSet<String>();
     /**
-     * Formula cell keys that have values sent to client side and are cached
+     * Cells (1-based) that have values sent to client side and are cached
      * there.
      */
-    private final HashSet<String> sentFormulaCells = new HashSet<String>();
+    private final CellCoordinateSet sentCells = new CellCoordinateSet();
+    /**
+     * Formula cells (1-based) that have values sent to client side and are
+     * cached there.
+     */
+    private final CellCoordinateSet sentFormulaCells = new CellCoordinateSet();
     /** */
     private final HashSet<CellData> removedCells = new HashSet<CellData>();
-    /** */
-    private final HashSet<String> markedCells = new HashSet<String>();
+    /** Cells (1-based) that should be updated on the next update round. */
+    private final CellCoordinateSet markedCells = new CellCoordinateSet();
+    /**
+     * Whether all sent formula cells should be updated on the next update
+     * round, regardless of the formula dependencies.
+     */
+    private boolean allFormulaCellsMarked;
 
     private HashSet<CellReference> changedFormulaCells = new HashSet<CellReference>();
 
     private boolean topLeftCellsLoaded;
-    private HashMap<Integer, Float> cellStyleWidthRatioMap;
+
+    /**
+     * Cell data created for the cells of the active sheet, reused when the
+     * cells are sent again. Disabled by default.
+     */
+    private final CellRenderCache renderCache = new CellRenderCache();
 
     private FormulaFormatter formulaFormatter = new FormulaFormatter();
 
@@ -118,6 +132,8 @@ public class CellValueManager implements Serializable {
             EXCEL_FORMULA_BAR_DECIMAL_FORMAT);
     private DecimalFormatSymbols localeDecimalSymbols = DecimalFormatSymbols
             .getInstance();
+    private Pattern onlyNumbersPattern = createOnlyNumbersPattern(
+            localeDecimalSymbols);
 
     /**
      * Creates a new CellValueManager and ties it to the given Spreadsheet.
@@ -127,6 +143,8 @@ public class CellValueManager implements Serializable {
      */
     public CellValueManager(Spreadsheet spreadsheet) {
         this.spreadsheet = spreadsheet;
+        formatter = new CustomDataFormatter(
+                spreadsheet.getCellStyleMetadata());
 
         UI current = UI.getCurrent();
         if (current != null) {
@@ -139,13 +157,15 @@ public class CellValueManager implements Serializable {
     }
 
     /**
-     * Clears all cached data.
+     * Clears all cached data. The render cache is kept, see
+     * {@link #clearRenderCache()}.
      */
     public void clearCachedContent() {
         markedCells.clear();
         sentCells.clear();
         removedCells.clear();
         sentFormulaCells.clear();
+        allFormulaCellsMarked = false;
         hyperlinkStyleIndex = -1;
         topLeftCellsLoaded = false;
     }
@@ -156,6 +176,59 @@ public class CellValueManager implements Serializable {
 
     public void setDataFormatter(DataFormatter dataFormatter) {
         formatter = dataFormatter;
+        renderCache.clear();
+    }
+
+    /**
+     * Sets the memory budget of the render cache, which keeps the data
+     * created for the cells of the active sheet so that cells that are sent
+     * to the client again, e.g. when scrolling back to an area, don't need to
+     * be formatted again. Formula cells and cells with conditional formatting
+     * are not cached. The least recently used cells are evicted when the
+     * estimated memory use of the cache exceeds the budget.
+     * <p>
+     * The cache is disabled by default. When it is enabled, changes made to
+     * the cells through the POI API must be reported with e.g.
+     * {@link Spreadsheet#refreshCells(Cell...)} or
+     * {@link Spreadsheet#refreshAllCellValues()}, otherwise the old values may
+     * be shown even after the cells are loaded again.
+     *
+     * @param bytes
+     *            Estimated memory use the cached cells may have in bytes, 0
+     *            to disable the cache
+     */
+    public void setRenderCacheMemoryBudget(long bytes) {
+        renderCache.setMemoryBudget(bytes);
+    }
+
+    /**
+     * Gets the memory budget of the render cache.
+     *
+     * @return the budget in bytes, 0 if the cache is disabled
+     * @see #setRenderCacheMemoryBudget(long)
+     */
+    public long getRenderCacheMemoryBudget() {
+        return renderCache.getMemoryBudget();
+    }
+
+    /**
+     * Gets the estimated memory use of the cells in the render cache.
+     *
+     * @return the estimated memory use in bytes
+     * @see #setRenderCacheMemoryBudget(long)
+     */
+    public long getRenderCacheMemoryUsage() {
+        return renderCache.getMemoryUsage();
+    }
+
+    /**
+     * Removes all cells from the render cache, so that they are formatted
+     * again when they are sent to the client.
+     *
+     * @see #setRenderCacheMemoryBudget(long)
+     */
+    public void clearRenderCache() {
+        renderCache.clear();
     }
 
     public DecimalFormat getOriginalValueDecimalFormat() {
@@ -163,11 +236,14 @@ public class CellValueManager implements Serializable {
     }
 
     protected void updateLocale(Locale locale) {
-        formatter = new CustomDataFormatter(locale);
+        formatter = new CustomDataFormatter(locale,
+                spreadsheet.getCellStyleMetadata());
         localeDecimalSymbols = DecimalFormatSymbols.getInstance(locale);
+        onlyNumbersPattern = createOnlyNumbersPattern(localeDecimalSymbols);
         originalValueDecimalFormat = new DecimalFormat(
                 EXCEL_FORMULA_BAR_DECIMAL_FORMAT, localeDecimalSymbols);
         cellValueFormatter.setLocaleDecimalSymbols(localeDecimalSymbols);
+        renderCache.clear();
     }
 
     /**
@@ -214,32 +290,32 @@ public class CellValueManager implements Serializable {
         CellData cellData = new CellData();
         cellData.row = cell.getRowIndex() + 1;
         cellData.col = cell.getColumnIndex() + 1;
-        CellStyle cellStyle = cell.getCellStyle();
-        cellData.cellStyle = "cs" + cellStyle.getIndex();
+        final CellStyle cellStyle = cell.getCellStyle();
+        final CellStyleMetadata.Entry style = getCellStyleMetadata(cellStyle);
+        cellData.cellStyle = style.getStyleClass();
         cellData.locked = spreadsheet.isCellLocked(cell);
         try {
-            if (!spreadsheet.isCellHidden(cell)) {
-                if (cell.getCellType() == CellType.FORMULA) {
-                    cellData.formulaValue = formulaFormatter
-                            .reFormatFormulaValue(cell.getCellFormula(),
-                                    spreadsheet.getLocale());
-                    try {
-                        String oldValue = getCachedFormulaCellValue(cell);
-                        String newValue = formatter.formatCellValue(cell,
-                                getFormulaEvaluator(),
-                                getConditionalFormattingEvaluator());
-                        if (!newValue.equals(oldValue)) {
-                            changedFormulaCells.add(new CellReference(cell));
-                        }
-                    } catch (RuntimeException rte) {
-                        // Apache POI throws RuntimeExceptions for an invalid
-                        // formula from POI model
-                        String formulaValue = cell.getCellFormula();
-                        cell.setCellValue(formulaValue);
-                        spreadsheet.markInvalidFormula(
-                                cell.getColumnIndex() + 1,
-                                cell.getRowIndex() + 1);
+            final boolean hidden = spreadsheet.isCellHidden(cell);
+            String formattedCellValue = null;
+            if (!hidden && cell.getCellType() == CellType.FORMULA) {
+                cellData.formulaValue = formulaFormatter.reFormatFormulaValue(
+                        cell.getCellFormula(), spreadsheet.getLocale());
+                try {
+                    String oldValue = getCachedFormulaCellValue(cell);
+                    formattedCellValue = formatter.formatCellValue(cell,
+                            getFormulaEvaluator(),
+                            getConditionalFormattingEvaluator());
+                    if (!formattedCellValue.equals(oldValue)) {
+                        changedFormulaCells.add(new CellReference(cell));
                     }
+                } catch (RuntimeException rte) {
+                    // Apache POI throws RuntimeExceptions for an invalid
+                    // formula from POI model
+                    formattedCellValue = null;
+                    String formulaValue = cell.getCellFormula();
+                    cell.setCellValue(formulaValue);
+                    spreadsheet.markInvalidFormula(cell.getColumnIndex() + 1,
+                            cell.getRowIndex() + 1);
                 }
             }
 
@@ -251,102 +327,96 @@ public class CellValueManager implements Serializable {
                 }
             }
 
-            if (cell.getCellStyle().getDataFormatString().contains("%")) {
-                cellData.isPercentage = true;
+            cellData.isPercentage = style.isPercentage();
+
+            // the formula cells are formatted only once, above
+            if (formattedCellValue == null) {
+                formattedCellValue = formatter.formatCellValue(cell,
+                        getFormulaEvaluator(),
+                        getConditionalFormattingEvaluator());
             }
 
-            String formattedCellValue = formatter.formatCellValue(cell,
-                    getFormulaEvaluator(), getConditionalFormattingEvaluator());
+            // an invalid formula has been replaced with a string above
+            final CellType cellType = cell.getCellType();
+            final boolean isNumeric = cellType == CellType.NUMERIC;
+            final boolean isFormula = cellType == CellType.FORMULA;
+            final boolean isDate = isNumeric && style.isDateFormat()
+                    && DateUtil.isValidExcelDate(cell.getNumericCellValue());
 
-            if (!spreadsheet.isCellHidden(cell)) {
-                if (cell.getCellType() == CellType.FORMULA
-                        || cell.getCellType() == CellType.NUMERIC) {
-                    formattedCellValue = formattedCellValue
-                            .replaceAll("^-(?=0(.0*)?$)", "");
-                }
+            if (!hidden && (isFormula || isNumeric)) {
+                formattedCellValue = removeNegativeZeroSign(
+                        formattedCellValue);
             }
             if (spreadsheet.isMarkedAsInvalidFormula(cellData.col,
                     cellData.row)) {
                 // The prefix '=' or '+' should not be included in formula value
-                if (cell.getStringCellValue().charAt(0) == '+'
-                        || cell.getStringCellValue().charAt(0) == '=') {
-                    cellData.formulaValue = cell.getStringCellValue()
-                            .substring(1);
+                final String stringCellValue = cell.getStringCellValue();
+                if (stringCellValue.charAt(0) == '+'
+                        || stringCellValue.charAt(0) == '=') {
+                    cellData.formulaValue = stringCellValue.substring(1);
                 }
                 formattedCellValue = "#VALUE!";
             }
 
             if (formattedCellValue != null && !formattedCellValue.isEmpty()
                     || cellStyle.getIndex() != 0) {
+                final boolean isNonHyperlinkFormula = isFormula
+                        && !cell.getCellFormula().startsWith("HYPERLINK");
+                final boolean isStringFormula = isFormula && cell
+                        .getCachedFormulaResultType() == CellType.STRING;
                 // if the cell is not wrapping text, and is of type numeric or
                 // formula (but not date), calculate if formatted cell value
                 // fits the column width and possibly use scientific notation.
                 cellData.value = formattedCellValue;
                 cellData.needsMeasure = false;
-                if (!cellStyle.getWrapText()
-                        && (!SpreadsheetUtil.cellContainsDate(cell)
-                                && cell.getCellType() == CellType.NUMERIC
-                                || cell.getCellType() == CellType.STRING
-                                || (cell.getCellType() == CellType.FORMULA
-                                        && !cell.getCellFormula()
-                                                .startsWith("HYPERLINK")))) {
-                    if (!doesValueFit(cell, formattedCellValue)) {
-                        if (valueContainsOnlyNumbers(formattedCellValue)
-                                && isGenerallCell(cell)) {
+                if (!style.isWrapText() && (isNumeric && !isDate
+                        || cellType == CellType.STRING
+                        || isNonHyperlinkFormula)) {
+                    if (!doesValueFit(cell, style, formattedCellValue)) {
+                        if (isNumeric && style.hasGeneralSection()
+                                && valueContainsOnlyNumbers(
+                                        formattedCellValue)) {
                             cellData.value = cellValueFormatter
                                     .getScientificNotationStringForNumericCell(
                                             cell.getNumericCellValue(),
                                             formattedCellValue,
-                                            cellStyleWidthRatioMap.get(
-                                                    (int) cell.getCellStyle()
-                                                            .getIndex()),
+                                            style.getWidthRatio(),
                                             getCellWidth(cell) - 10);
-                        } else if (cell.getCellType() != CellType.STRING
-                                && (cell.getCellType() == CellType.FORMULA
-                                        && cell.getCachedFormulaResultType() != CellType.STRING)) {
+                        } else if (isFormula && !isStringFormula) {
                             cellData.needsMeasure = true;
                         }
                     }
                 }
 
-                if (cellStyle.getAlignment() == HorizontalAlignment.RIGHT) {
-                    cellData.cellStyle = cellData.cellStyle + " r";
-                } else if (cellStyle
-                        .getAlignment() == HorizontalAlignment.GENERAL) {
-                    if (SpreadsheetUtil.cellContainsDate(cell)
-                            || cell.getCellType() == CellType.NUMERIC
-                            || (cell.getCellType() == CellType.FORMULA
-                                    && !cell.getCellFormula()
-                                            .startsWith("HYPERLINK")
-                                    && !(cell
-                                            .getCachedFormulaResultType() == CellType.STRING))) {
-                        cellData.cellStyle = cellData.cellStyle + " r";
-                    }
+                if (style.getAlignment() == HorizontalAlignment.RIGHT
+                        || style.getAlignment() == HorizontalAlignment.GENERAL
+                                && (isNumeric || isNonHyperlinkFormula
+                                        && !isStringFormula)) {
+                    cellData.cellStyle = style.getRightAlignedStyleClass();
                 }
-
             }
 
             // conditional formatting might be applied even if there isn't a
             // value (such as borders for the cell to the right)
             Set<Integer> cellFormattingIndexes = spreadsheet
                     .getConditionalFormatter().getCellFormattingIndex(cell);
-            if (cellFormattingIndexes != null) {
-
+            if (cellFormattingIndexes != null
+                    && !cellFormattingIndexes.isEmpty()) {
+                final StringBuilder styleClasses = new StringBuilder(
+                        cellData.cellStyle);
                 for (Integer i : cellFormattingIndexes) {
-                    cellData.cellStyle = cellData.cellStyle + " cf" + i;
+                    styleClasses.append(" cf").append(i);
                 }
-
-                markedCells.add(SpreadsheetUtil.toKey(cell));
+                cellData.cellStyle = styleClasses.toString();
             }
 
-            if (cell.getCellType() == CellType.NUMERIC
-                    && DateUtil.isCellDateFormatted(cell)) {
+            if (isDate) {
                 cellData.originalValue = cellData.value;
             } else {
                 cellData.originalValue = getOriginalCellValue(cell);
             }
 
-            handleIsDisplayZeroPreference(cell, cellData);
+            handleIsDisplayZeroPreference(cell, cellType, cellData);
         } catch (RuntimeException rte) {
             LOGGER.trace(rte.getMessage(), rte);
             cellData.value = "#VALUE!";
@@ -355,6 +425,59 @@ public class CellValueManager implements Serializable {
         return cellData;
     }
 
+    /**
+     * Gets the cell data for the given cell from the render cache, or creates
+     * it with {@link #createCellDataForCell(Cell)}.
+     *
+     * @param cell
+     *            Target cell
+     * @param cacheable
+     *            <code>false</code> if the cell data may change without the
+     *            cell being updated, e.g. because of conditional formatting
+     * @return the cell data
+     */
+    private CellData getCellData(Cell cell, boolean cacheable) {
+        // the values of formula cells depend on other cells
+        if (!cacheable || !renderCache.isEnabled()
+                || cell.getCellType() == CellType.FORMULA) {
+            return createCellDataForCell(cell);
+        }
+        final int col = cell.getColumnIndex() + 1;
+        final int row = cell.getRowIndex() + 1;
+        final CellStyleMetadata metadata = spreadsheet.getCellStyleMetadata();
+        final CellStyleMetadata.Entry style = metadata
+                .get(cell.getCellStyle());
+        CellData cellData = renderCache.get(col, row, style,
+                metadata.getVersion());
+        if (cellData == null) {
+            cellData = createCellDataForCell(cell);
+            // an invalid formula may have been replaced with a string
+            if (cellData != null && cell.getCellType() != CellType.FORMULA
+                    && !spreadsheet.isMarkedAsInvalidFormula(col, row)) {
+                renderCache.put(col, row, style, metadata.getVersion(),
+                        cellData);
+            }
+        }
+        return cellData;
+    }
+
+    /**
+     * Removes the minus sign of a negative value that is formatted as zero,
+     * e.g. "-0" or "-0.00".
+     */
+    private static String removeNegativeZeroSign(String formattedValue) {
+        if (formattedValue.startsWith("-0")
+                && NEGATIVE_ZERO.matcher(formattedValue).lookingAt()) {
+            return formattedValue.substring(1);
+        }
+        return formattedValue;
+    }
+
+    private CellStyleMetadata.Entry getCellStyleMetadata(
+            CellStyle cellStyle) {
+        return spreadsheet.getCellStyleMetadata().get(cellStyle);
+    }
+
     private void setLeadingQuoteStyle(Cell cell, boolean leadingQuote) {
         if (cell instanceof XSSFCell) {
             ((XSSFCell) cell).getCellStyle().getCoreXf()
@@ -362,9 +485,10 @@ public class CellValueManager implements Serializable {
         }
     }
 
-    private void handleIsDisplayZeroPreference(Cell cell, CellData cellData) {
-        boolean isCellNumeric = cell.getCellType() == CellType.NUMERIC;
-        boolean isCellFormula = cell.getCellType() == CellType.FORMULA;
+    private void handleIsDisplayZeroPreference(Cell cell, CellType cellType,
+            CellData cellData) {
+        boolean isCellNumeric = cellType == CellType.NUMERIC;
+        boolean isCellFormula = cellType == CellType.FORMULA;
         boolean isApplicableCellType = isCellNumeric || isCellFormula;
 
         boolean displayZeroAsBlank = !cell.getSheet().isDisplayZeros();
@@ -375,16 +499,6 @@ public class CellValueManager implements Serializable {
         }
     }
 
-    /**
-     * Check if the given cell is a numeric cell, and specifically the data
-     * format is "General". In Excel and Spreadsheet this is the default type
-     * for cells.
-     */
-    private boolean isGenerallCell(Cell cell) {
-        return cell.getCellType() == CellType.NUMERIC && cell.getCellStyle()
-                .getDataFormatString().contains("General");
-    }
-
     public String getOriginalCellValue(Cell cell) {
         if (cell == null) {
             return "";
@@ -395,7 +509,8 @@ public class CellValueManager implements Serializable {
         case FORMULA:
             return cell.getCellFormula();
         case NUMERIC:
-            if (DateUtil.isCellDateFormatted(cell)) {
+            if (getCellStyleMetadata(cell.getCellStyle()).isDateFormat()
+                    && DateUtil.isValidExcelDate(cell.getNumericCellValue())) {
                 Date dateCellValue = cell.getDateCellValue();
                 if (dateCellValue != null) {
                     return new SimpleDateFormat().format(dateCellValue);
@@ -422,13 +537,18 @@ public class CellValueManager implements Serializable {
     }
 
     private boolean valueContainsOnlyNumbers(String value) {
-        return value.matches("^-?\\d+("
-                + localeDecimalSymbols.getDecimalSeparator() + "\\d+)?$");
+        return onlyNumbersPattern.matcher(value).matches();
+    }
+
+    private static Pattern createOnlyNumbersPattern(
+            DecimalFormatSymbols decimalSymbols) {
+        return Pattern.compile("^-?\\d+(" + decimalSymbols.getDecimalSeparator()
+                + "\\d+)?$");
     }
 
-    private boolean doesValueFit(Cell cell, String value) {
-        Float r = cellStyleWidthRatioMap
-                .get((int) cell.getCellStyle().getIndex());
+    private boolean doesValueFit(Cell cell, CellStyleMetadata.Entry style,
+            String value) {
+        Float r = style.getWidthRatio();
         if (r == null) {
             return true;
         }
@@ -454,13 +574,13 @@ public class CellValueManager implements Serializable {
                 int w = 0;
                 for (int c = range.getFirstColumn(); c <= range
                         .getLastColumn(); c++) {
-                    w += spreadsheet.getColW()[c];
+                    w += (int) spreadsheet.getColW().getSize(c);
                 }
                 return w;
             }
         }
         // if we get here, cell is not in a merged region
-        return spreadsheet.getColW()[cell.getColumnIndex()];
+        return (int) spreadsheet.getColW().getSize(cell.getColumnIndex());
     }
 
     /**
@@ -522,7 +642,18 @@ public class CellValueManager implements Serializable {
      *            Cell to mark for updates
      */
     protected void markCellForUpdate(Cell cell) {
-        markedCells.add(SpreadsheetUtil.toKey(cell));
+        markedCells.add(cell.getColumnIndex() + 1, cell.getRowIndex() + 1);
+        renderCache.remove(cell.getColumnIndex() + 1, cell.getRowIndex() + 1);
+        spreadsheet.getFormulaDependencyGraph().update(cell);
+    }
+
+    /**
+     * Marks all formula cells cached on the client side for update on next
+     * call to {@link #updateMarkedCellValues()}. Should be used when the
+     * changed cells can't be tracked, e.g. when rows have been shifted.
+     */
+    protected void markAllFormulaCellsForUpdate() {
+        allFormulaCellsMarked = true;
     }
 
     /**
@@ -545,24 +676,41 @@ public class CellValueManager implements Serializable {
      *            Cell to mark for removal
      */
     protected void markCellForRemove(Cell cell) {
-        String cellKey = SpreadsheetUtil.toKey(cell);
         CellData cd = new CellData();
         cd.col = cell.getColumnIndex() + 1;
         cd.row = cell.getRowIndex() + 1;
         removedCells.add(cd);
-        clearCellCache(cellKey);
+        clearCellCache(cd.col, cd.row);
+        renderCache.remove(cd.col, cd.row);
+        spreadsheet.getFormulaDependencyGraph().remove(cell);
+    }
+
+    /**
+     * Clears the cell at the given coordinates from the cache
+     *
+     * @param col
+     *            Column index of target cell, 1-based
+     * @param row
+     *            Row index of target cell, 1-based
+     */
+    protected void clearCellCache(int col, int row) {
+        if (!sentCells.remove(col, row)) {
+            sentFormulaCells.remove(col, row);
+        }
     }
 
     /**
      * Clears the cell with the given key from the cache
      *
      * @param cellKey
-     *            Key of target cell
+     *            Key of target cell, see
+     *            {@link SpreadsheetUtil#toKey(int, int)}
+     * @deprecated use {@link #clearCellCache(int, int)}
      */
+    @Deprecated
     protected void clearCellCache(String cellKey) {
-        if (!sentCells.remove(cellKey)) {
-            sentFormulaCells.remove(cellKey);
-        }
+        clearCellCache(SpreadsheetUtil.getColumnIndexFromKey(cellKey),
+                SpreadsheetUtil.getRowFromKey(cellKey));
     }
 
     /**
@@ -628,11 +776,8 @@ public class CellValueManager implements Serializable {
                 } else {
                     // modify existing cell, possibly switch type
                     formattedCellValue = getFormattedCellValue(cell);
-                    final String key = SpreadsheetUtil.toKey(col, row);
                     oldCellType = cell.getCellType();
-                    if (!sentCells.remove(key)) {
-                        sentFormulaCells.remove(key);
-                    }
+                    clearCellCache(col, row);
 
                     // Old value was hyperlink => needs refresh
                     if (cell.getCellType() == CellType.FORMULA
@@ -655,6 +800,7 @@ public class CellValueManager implements Serializable {
                                 && !newFormula.equals(cell.getCellFormula()));
                         cell.setCellFormula(newFormula);
                         getFormulaEvaluator().notifySetFormula(cell);
+                        spreadsheet.hydrateFormulaPrecedents(cell);
                         if (value.startsWith("=HYPERLINK(")
                                 && cell.getCellStyle()
                                         .getIndex() != hyperlinkStyleIndex) {
@@ -701,7 +847,7 @@ public class CellValueManager implements Serializable {
                         }
 
                         if (cs.getDataFormatString() != null
-                                && !cs.getDataFormatString().contains("%")) {
+                                && !getCellStyleMetadata(cs).isPercentage()) {
                             cs.setDataFormat(workbook.createDataFormat()
                                     .getFormat(spreadsheet
                                             .getDefaultPercentageFormat()));
@@ -1119,30 +1265,39 @@ public class CellValueManager implements Serializable {
         Workbook workbook = spreadsheet.getWorkbook();
         final Sheet activeSheet = workbook
                 .getSheetAt(workbook.getActiveSheetIndex());
-        Map<String, String> componentIDtoCellKeysMap = spreadsheet
-                .getComponentIDtoCellKeysMap();
-        @SuppressWarnings("unchecked")
-        final Collection<String> customComponentCells = (Collection<String>) (componentIDtoCellKeysMap == null
-                ? Collections.emptyList()
-                : componentIDtoCellKeysMap.values());
+        final CellCoordinateSet customComponentCells = getCustomComponentCells();
+        final ConditionalFormatter conditionalFormatter = spreadsheet
+                .getConditionalFormatter();
         for (int r = firstRow - 1; r < lastRow; r++) {
             Row row = activeSheet.getRow(r);
-            if (row != null && row.getLastCellNum() != -1
+            // empty cells may get conditional formatting, so formatted rows
+            // are always gone through
+            final boolean formattedRow = conditionalFormatter
+                    .hasRulesForRow(r);
+            if (formattedRow || row != null && row.getLastCellNum() != -1
                     && row.getLastCellNum() >= firstColumn) {
                 for (int c = firstColumn - 1; c < lastColumn; c++) {
-                    final String key = SpreadsheetUtil.toKey(c + 1, r + 1);
-                    if (!customComponentCells.contains(key)
-                            && !sentCells.contains(key)
-                            && !sentFormulaCells.contains(key)) {
-                        Cell cell = row.getCell(c);
+                    // sent cells are sent again if their formatting has changed
+                    if (!customComponentCells.contains(c + 1, r + 1)
+                            && ((!sentCells.contains(c + 1, r + 1)
+                                    && !sentFormulaCells.contains(c + 1, r + 1))
+                                    || conditionalFormatter
+                                            .removeChangedFormattingCell(c + 1,
+                                                    r + 1))) {
+                        // conditional formatting is evaluated only for the
+                        // cells that are sent
+                        Cell cell = formattedRow
+                                ? conditionalFormatter.getCellForLoading(r, c)
+                                : row.getCell(c);
                         if (cell != null) {
-                            final CellData cd = createCellDataForCell(cell);
+                            final CellData cd = getCellData(cell,
+                                    !formattedRow);
                             if (cd != null) {
                                 CellType cellType = cell.getCellType();
                                 if (cellType == CellType.FORMULA) {
-                                    sentFormulaCells.add(key);
+                                    sentFormulaCells.add(c + 1, r + 1);
                                 } else {
-                                    sentCells.add(key);
+                                    sentCells.add(c + 1, r + 1);
                                 }
                                 cellData.add(cd);
                             }
@@ -1154,6 +1309,25 @@ public class CellValueManager implements Serializable {
         return cellData;
     }
 
+    /**
+     * Collects the cells that currently contain a custom component, these are
+     * not sent as values to the client.
+     *
+     * @return set of 1-based cell coordinates
+     */
+    private CellCoordinateSet getCustomComponentCells() {
+        final CellCoordinateSet cells = new CellCoordinateSet();
+        Map<String, String> componentIDtoCellKeysMap = spreadsheet
+                .getComponentIDtoCellKeysMap();
+        if (componentIDtoCellKeysMap != null) {
+            for (String key : componentIDtoCellKeysMap.values()) {
+                cells.add(SpreadsheetUtil.getColumnIndexFromKey(key),
+                        SpreadsheetUtil.getRowFromKey(key));
+            }
+        }
+        return cells;
+    }
+
     /**
      * Method for updating the spreadsheet client side visible cells and cached
      * data correctly.
@@ -1166,64 +1340,67 @@ public class CellValueManager implements Serializable {
     /**
      * Method for updating cells that are marked for update and formula cells.
      *
-     * Iterates over the whole sheet (existing rows and columns) and updates
-     * client side cache for all sent formula cells, and cells that have been
-     * marked for updating.
+     * Updates client side cache for cells with conditional formatting, cells
+     * that have been marked for updating and the sent formula cells that
+     * depend on them. Other cells of the sheet can't have changed, so they are
+     * not visited.
      *
      */
     protected void updateMarkedCellValues() {
         final ArrayList<CellData> updatedCellData = new ArrayList<CellData>();
-        Sheet sheet = spreadsheet.getActiveSheet();
+        final Sheet sheet = spreadsheet.getActiveSheet();
         // it is unnecessary to worry about having custom components in the cell
         // because the client side handles it -> it will not replace a custom
         // component with a cell value
 
-        // update all cached formula cell values on client side, because they
-        // might have changed. also make sure all marked cells are updated
-        Iterator<Row> rows = sheet.rowIterator();
-        while (rows.hasNext()) {
-            final Row r = rows.next();
-            final Iterator<Cell> cells = r.cellIterator();
-            while (cells.hasNext()) {
-                final Cell cell = cells.next();
-                int rowIndex = cell.getRowIndex();
-                int columnIndex = cell.getColumnIndex();
-                final String key = SpreadsheetUtil.toKey(columnIndex + 1,
-                        rowIndex + 1);
-
-                // Mark for update if there are formatting rules.
-                if (spreadsheet.getConditionalFormatter()
-                        .getCellFormattingIndex(cell) != null) {
-                    markedCells.add(key);
+        // Mark for update if the conditional formatting has changed.
+        final CellCoordinateSet dirtyCells = new CellCoordinateSet();
+        dirtyCells.addAll(markedCells);
+        spreadsheet.getConditionalFormatter()
+                .collectChangedFormattingCells(dirtyCells);
+
+        // update the cached formula cell values on client side that depend on
+        // the changed cells. also make sure all marked cells are updated
+        final CellCoordinateSet updateCandidates = new CellCoordinateSet();
+        updateCandidates.addAll(dirtyCells);
+        final CellCoordinateSet changedCells = new CellCoordinateSet();
+        if (collectChangedCells(changedCells)) {
+            changedCells.forEach((col, row) -> {
+                if (sentFormulaCells.contains(col, row)) {
+                    updateCandidates.add(col, row);
                 }
-
-                // update formula cells
-                if (cell.getCellType() == CellType.FORMULA) {
-                    if (sentFormulaCells.contains(key)
-                            || markedCells.contains(key)) {
-                        CellData cd = createCellDataForCell(cell);
-                        if (cd == null) {
-                            // in case the formula cell value has changed to
-                            // null or
-                            // empty; this case is probably quite rare, formula
-                            // cell
-                            // pointing to a cell that was removed or had its
-                            // value
-                            // cleared ???
-                            cd = new CellData();
-                            cd.col = columnIndex + 1;
-                            cd.row = rowIndex + 1;
-                            cd.cellStyle = "" + cell.getCellStyle().getIndex();
-                        }
-                        sentFormulaCells.add(key);
-                        updatedCellData.add(cd);
-                    }
-                } else if (markedCells.contains(key)) {
-                    sentCells.add(key);
-                    updatedCellData.add(createCellDataForCell(cell));
+            });
+        } else {
+            updateCandidates.addAll(sentFormulaCells);
+        }
+        allFormulaCellsMarked = false;
+        updateCandidates.forEach((col, row) -> {
+            final Row r = sheet.getRow(row - 1);
+            final Cell cell = r == null ? null : r.getCell(col - 1);
+            if (cell == null) {
+                return;
+            }
+            // update formula cells
+            if (cell.getCellType() == CellType.FORMULA) {
+                CellData cd = createCellDataForCell(cell);
+                if (cd == null) {
+                    // in case the formula cell value has changed to null or
+                    // empty; this case is probably quite rare, formula cell
+                    // pointing to a cell that was removed or had its value
+                    // cleared ???
+                    cd = new CellData();
+                    cd.col = col;
+                    cd.row = row;
+                    cd.cellStyle = "" + cell.getCellStyle().getIndex();
                 }
+                sentFormulaCells.add(col, row);
+                updatedCellData.add(cd);
+            } else if (dirtyCells.contains(col, row)) {
+                sentCells.add(col, row);
+                updatedCellData.add(getCellData(cell, !spreadsheet
+                        .getConditionalFormatter().hasRulesForRow(row - 1)));
             }
-        }
+        });
         if (!changedFormulaCells.isEmpty()) {
             fireFormulaValueChangeEvent(changedFormulaCells);
             changedFormulaCells = new HashSet<CellReference>();
@@ -1238,6 +1415,32 @@ public class CellValueManager implements Serializable {
         removedCells.clear();
     }
 
+    /**
+     * Adds the cells that have been marked as updated or removed since the
+     * last update, and the formula cells depending on them, to the given set.
+     *
+     * @param target
+     *            Set to add the 1-based cell coordinates to
+     * @return <code>false</code> if the changed cells can't be tracked and any
+     *         cell may have changed, <code>true</code> otherwise
+     */
+    boolean collectChangedCells(CellCoordinateSet target) {
+        final FormulaDependencyGraph dependencyGraph = spreadsheet
+                .getFormulaDependencyGraph();
+        if (allFormulaCellsMarked || !dependencyGraph.isEnabled()) {
+            return false;
+        }
+        final CellCoordinateSet changedCells = new CellCoordinateSet();
+        changedCells.addAll(markedCells);
+        for (CellData cd : removedCells) {
+            changedCells.add(cd.col, cd.row);
+        }
+        target.addAll(changedCells);
+        target.addAll(dependencyGraph.getDependentFormulaCells(
+                spreadsheet.getActiveSheetPOIIndex(), changedCells));
+        return true;
+    }
+
     /**
      * Makes sure the next {@link Spreadsheet#updateMarkedCells()} call will
      * clear all removed rows from client cache.
@@ -1248,31 +1451,45 @@ public class CellValueManager implements Serializable {
      *            Index of the ending row, 1-based
      */
     protected void updateDeletedRowsInClientCache(int startRow, int endRow) {
-        for (int i = startRow; i <= endRow; i++) {
-            String rowKey = "row" + i;
-            for (Iterator<String> iterator = sentCells.iterator(); iterator
-                    .hasNext();) {
-                String key = iterator.next();
-                if (key.endsWith(rowKey)) {
-                    iterator.remove();
-                    CellData cd = new CellData();
-                    cd.col = SpreadsheetUtil.getColumnIndexFromKey(key);
-                    cd.row = i;
-                    removedCells.add(cd);
-                }
-            }
-            for (Iterator<String> iterator = sentFormulaCells
-                    .iterator(); iterator.hasNext();) {
-                String key = iterator.next();
-                if (key.endsWith(rowKey)) {
-                    iterator.remove();
-                    CellData cd = new CellData();
-                    cd.col = SpreadsheetUtil.getColumnIndexFromKey(key);
-                    cd.row = i;
-                    removedCells.add(cd);
-                }
-            }
+        final CellCoordinateSet.CoordinateConsumer markRemoved = (col,
+                row) -> {
+            CellData cd = new CellData();
+            cd.col = col;
+            cd.row = row;
+            removedCells.add(cd);
+        };
+        sentCells.removeRows(startRow, endRow, markRemoved);
+        sentFormulaCells.removeRows(startRow, endRow, markRemoved);
+        renderCache.removeRows(startRow, endRow);
+    }
+
+    /**
+     * Updates the client side cache after rows have been shifted. The cached
+     * cells of the affected rows are cleared, so that they are sent again as
+     * they are loaded, and the given cached formula cells are marked for
+     * update on the next {@link Spreadsheet#updateMarkedCells()} call. Other
+     * cached cells keep their values.
+     *
+     * @param firstRow
+     *            Index of the first affected row, 1-based
+     * @param lastRow
+     *            Index of the last affected row, 1-based
+     * @param dependentFormulaCells
+     *            Formula cells (1-based) that depend on the affected rows, or
+     *            <code>null</code> to update all cached formula cells
+     */
+    protected void updateShiftedRowsInClientCache(int firstRow, int lastRow,
+            CellCoordinateSet dependentFormulaCells) {
+        updateDeletedRowsInClientCache(firstRow, lastRow);
+        if (dependentFormulaCells == null) {
+            markAllFormulaCellsForUpdate();
+            return;
         }
+        dependentFormulaCells.forEach((col, row) -> {
+            if (sentFormulaCells.contains(col, row)) {
+                markedCells.add(col, row);
+            }
+        });
     }
 
     /**
@@ -1295,17 +1512,17 @@ public class CellValueManager implements Serializable {
         final Workbook workbook = spreadsheet.getWorkbook();
         final Sheet activeSheet = workbook
                 .getSheetAt(workbook.getActiveSheetIndex());
+        spreadsheet.hydrateRows(activeSheet, firstRow - 1, lastRow - 1);
         for (int i = firstRow - 1; i < lastRow; i++) {
             Row row = activeSheet.getRow(i);
             if (row != null) {
                 for (int j = firstColumn - 1; j < lastColumn; j++) {
                     Cell cell = row.getCell(j);
                     if (cell != null) {
-                        final String key = SpreadsheetUtil.toKey(j + 1, i + 1);
                         if (cell.getCellType() == CellType.FORMULA) {
-                            sentFormulaCells.remove(key);
+                            sentFormulaCells.remove(j + 1, i + 1);
                         } else {
-                            sentCells.remove(key);
+                            sentCells.remove(j + 1, i + 1);
                         }
                         if (cell.getHyperlink() != null) {
                             removeHyperlink(cell, activeSheet);
@@ -1326,10 +1543,11 @@ public class CellValueManager implements Serializable {
                             cd.row = i + 1;
                             removedCells.add(cd);
                         } else {
-                            markedCells.add(key);
+                            markedCells.add(j + 1, i + 1);
                         }
                         cell.setCellValue((String) null);
                         getFormulaEvaluator().notifyUpdateCell(cell);
+                        spreadsheet.getFormulaDependencyGraph().update(cell);
 
                         spreadsheet.removeInvalidFormulaMark(
                                 cell.getColumnIndex() + 1,
@@ -1356,6 +1574,7 @@ public class CellValueManager implements Serializable {
         final Workbook workbook = spreadsheet.getWorkbook();
         final Sheet activeSheet = workbook
                 .getSheetAt(workbook.getActiveSheetIndex());
+        spreadsheet.hydrateRows(activeSheet, rowIndex - 1, rowIndex - 1);
         final Row row = activeSheet.getRow(rowIndex - 1);
         if (row != null) {
             final Cell cell = row.getCell(colIndex - 1);
@@ -1363,17 +1582,16 @@ public class CellValueManager implements Serializable {
                 CellData cd = new CellData();
                 cd.col = colIndex;
                 cd.row = rowIndex;
-                final String key = SpreadsheetUtil.toKey(colIndex, rowIndex);
                 if (clearRemovedCellStyle
                         || cell.getCellStyle().getIndex() == 0) {
                     removedCells.add(cd);
                 } else {
-                    markedCells.add(key);
+                    markedCells.add(colIndex, rowIndex);
                 }
                 if (cell.getCellType() == CellType.FORMULA) {
-                    sentFormulaCells.remove(key);
+                    sentFormulaCells.remove(colIndex, rowIndex);
                 } else {
-                    sentCells.remove(key);
+                    sentCells.remove(colIndex, rowIndex);
                 }
                 // POI (3.9) doesn't have a method for removing a hyperlink !!!
                 if (cell.getHyperlink() != null) {
@@ -1387,6 +1605,7 @@ public class CellValueManager implements Serializable {
                 }
                 cell.setCellValue((String) null);
                 getFormulaEvaluator().notifyUpdateCell(cell);
+                spreadsheet.getFormulaDependencyGraph().update(cell);
 
                 spreadsheet.removeInvalidFormulaMark(cell.getColumnIndex() + 1,
                         cell.getRowIndex() + 1);
@@ -1446,7 +1665,8 @@ public class CellValueManager implements Serializable {
      */
     public void onCellStyleWidthRatioUpdate(
             HashMap<Integer, Float> cellStyleWidthRatioMap) {
-        this.cellStyleWidthRatioMap = cellStyleWidthRatioMap;
+        spreadsheet.getCellStyleMetadata()
+                .setWidthRatios(cellStyleWidthRatioMap);
     }
 
     /**
@@ -1456,21 +1676,9 @@ public class CellValueManager implements Serializable {
      *            Index of target column, 1-based
      */
     public void clearCacheForColumn(int indexColumn) {
-        final String columnKey = "col" + indexColumn + " r";
-        for (Iterator<String> iterator = sentCells.iterator(); iterator
-                .hasNext();) {
-            String key = iterator.next();
-            if (key.startsWith(columnKey)) {
-                iterator.remove();
-            }
-        }
-        for (Iterator<String> iterator = sentFormulaCells.iterator(); iterator
-                .hasNext();) {
-            String key = iterator.next();
-            if (key.startsWith(columnKey)) {
-                iterator.remove();
-            }
-        }
+        sentCells.removeColumn(indexColumn);
+        sentFormulaCells.removeColumn(indexColumn);
+        // the width of the column affects how the values are shown
+        renderCache.removeColumn(indexColumn);
     }
-
 }
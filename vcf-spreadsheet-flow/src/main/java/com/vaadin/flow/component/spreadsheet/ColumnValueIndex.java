@@ -0,0 +1,160 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Index of the distinct formatted values within a single column range of a
+ * sheet. Each value is mapped to a bitmap of the rows containing it, so that
+ * filters can be evaluated with bitmap operations instead of re-reading and
+ * formatting the cells.
+ * <p>
+ * Bit {@code i} of the bitmaps corresponds to row {@code firstRow + i} of the
+ * range. The index is built lazily and must be invalidated when any cell of
+ * the range changes.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+class ColumnValueIndex implements Serializable {
+
+    private final Spreadsheet spreadsheet;
+    private final Sheet sheet;
+    private final CellRangeAddress range;
+
+    private Map<String, BitSet> valueToRows;
+    private boolean hasFormulaCells;
+
+    /**
+     * Creates a new index for the first column of the given range.
+     *
+     * @param spreadsheet
+     *            Spreadsheet used for formatting the cell values
+     * @param sheet
+     *            Sheet containing the range
+     * @param range
+     *            Range to index, only the first column is used
+     */
+    ColumnValueIndex(Spreadsheet spreadsheet, Sheet sheet,
+            CellRangeAddress range) {
+        this.spreadsheet = spreadsheet;
+        this.sheet = sheet;
+        this.range = range;
+    }
+
+    /**
+     * @return the number of rows in the indexed range
+     */
+    int getRowCount() {
+        return range.getLastRow() - range.getFirstRow() + 1;
+    }
+
+    /**
+     * @return all distinct formatted values within the range
+     */
+    Set<String> getValues() {
+        return Collections.unmodifiableSet(getValueToRows().keySet());
+    }
+
+    /**
+     * Returns the rows containing the given value. The returned bitmap must not
+     * be modified.
+     *
+     * @param value
+     *            Formatted cell value
+     * @return rows containing the value, relative to the first row of the
+     *         range
+     */
+    BitSet getRows(String value) {
+        BitSet rows = getValueToRows().get(value);
+        return rows == null ? new BitSet() : rows;
+    }
+
+    /**
+     * Returns the rows containing any of the given values.
+     *
+     * @param values
+     *            Formatted cell values
+     * @return new bitmap of the rows containing the values, relative to the
+     *         first row of the range
+     */
+    BitSet getRows(Collection<String> values) {
+        final Map<String, BitSet> index = getValueToRows();
+        final BitSet rows = new BitSet(getRowCount());
+        for (String value : values) {
+            BitSet valueRows = index.get(value);
+            if (valueRows != null) {
+                rows.or(valueRows);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Invalidates the index if the given cell affects the indexed values. Any
+     * change invalidates an index over formula cells, since those may depend
+     * on the changed cell.
+     *
+     * @param changedSheet
+     *            Sheet of the changed cell
+     * @param row
+     *            Row index, 0-based
+     * @param col
+     *            Column index, 0-based
+     */
+    void cellChanged(Sheet changedSheet, int row, int col) {
+        if (valueToRows != null && (hasFormulaCells || sheet
+                .equals(changedSheet) && range.isInRange(row, col))) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Drops the index. It is rebuilt on next use.
+     */
+    void invalidate() {
+        valueToRows = null;
+    }
+
+    private Map<String, BitSet> getValueToRows() {
+        if (valueToRows == null) {
+            build();
+        }
+        return valueToRows;
+    }
+
+    private void build() {
+        final Map<String, BitSet> index = new HashMap<>();
+        final int firstRow = range.getFirstRow();
+        final int column = range.getFirstColumn();
+        hasFormulaCells = false;
+        spreadsheet.hydrateRows(sheet, firstRow, range.getLastRow());
+        for (int r = firstRow; r <= range.getLastRow(); r++) {
+            Cell cell = spreadsheet.getCell(r, column, sheet);
+            if (cell != null && cell.getCellType() == CellType.FORMULA) {
+                hasFormulaCells = true;
+            }
+            index.computeIfAbsent(spreadsheet.getCellValue(cell),
+                    value -> new BitSet()).set(r - firstRow);
+        }
+        valueToRows = index;
+    }
+}
@@ -0,0 +1,525 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.FormulaParser;
+import org.apache.poi.ss.formula.FormulaRenderer;
+import org.apache.poi.ss.formula.FormulaType;
+import org.apache.poi.ss.formula.SharedFormula;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compact column oriented storage for the cells of one worksheet, filled while
+ * streaming the worksheet XML and used for creating the POI cells of a row
+ * only when the row is needed.
+ * <p>
+ * Each cell takes a fixed amount of primitive array slots instead of the POI
+ * cell and XML bean objects. Cells are stored row by row, in the order of the
+ * worksheet XML; {@link #finish()} must be called after the last cell has
+ * been added.
+ * <p>
+ * All row and column indexes used by this class are 0-based.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+class ColumnarCellStore implements Serializable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ColumnarCellStore.class);
+
+    static final byte BLANK = 0;
+    static final byte NUMERIC = 1;
+    static final byte SHARED_STRING = 2;
+    static final byte STRING = 3;
+    static final byte BOOLEAN = 4;
+    static final byte ERROR = 5;
+
+    /** Flag for formula cells, the other bits tell the cached result type. */
+    static final byte FORMULA = 0x10;
+    /**
+     * Flag for cells using the shared formula of another cell, the formula
+     * index is the shared formula index of the worksheet.
+     */
+    static final byte SHARED_FORMULA = 0x20;
+
+    private static final byte VALUE_TYPE_MASK = 0x0F;
+
+    /**
+     * The master cell of a shared formula.
+     */
+    private static final class SharedFormulaMaster implements Serializable {
+        private final int row;
+        private final int column;
+        private final String formula;
+
+        private SharedFormulaMaster(int row, int column, String formula) {
+            this.row = row;
+            this.column = column;
+            this.formula = formula;
+        }
+    }
+
+    private int rowCount;
+    private int[] rowIndexes = new int[16];
+    private int[] rowStarts = new int[17];
+
+    private int cellCount;
+    private int[] columns = new int[64];
+    private byte[] types = new byte[64];
+    private int[] styles = new int[64];
+    private double[] numbers = new double[64];
+    private int[] texts = new int[64];
+    private int[] formulas = new int[64];
+
+    private final List<String> strings = new ArrayList<>();
+    private transient Map<String, Integer> stringIds = new HashMap<>();
+    private final Map<Integer, SharedFormulaMaster> sharedFormulas = new HashMap<>();
+
+    private int columnCount;
+
+    /**
+     * Starts a new row. Following cells are added to it.
+     *
+     * @param rowIndex
+     *            Index of the row
+     */
+    void startRow(int rowIndex) {
+        if (rowCount == rowIndexes.length) {
+            rowIndexes = Arrays.copyOf(rowIndexes, rowCount * 2);
+            rowStarts = Arrays.copyOf(rowStarts, rowCount * 2 + 1);
+        }
+        rowIndexes[rowCount] = rowIndex;
+        rowStarts[rowCount] = cellCount;
+        rowCount++;
+    }
+
+    /**
+     * Adds a cell to the current row.
+     *
+     * @param column
+     *            Column index of the cell
+     * @param type
+     *            Value type of the cell, possibly combined with
+     *            {@link #FORMULA} or {@link #SHARED_FORMULA}
+     * @param style
+     *            Index of the cell style
+     * @param number
+     *            Numeric or boolean (1 or 0) value
+     * @param text
+     *            Index of the string value, see {@link #addString(String)}, or
+     *            the shared string index. -1 if none.
+     * @param formula
+     *            Index of the formula, see {@link #addString(String)}, or the
+     *            shared formula index. -1 if none.
+     */
+    void addCell(int column, byte type, int style, double number, int text,
+            int formula) {
+        if (cellCount == columns.length) {
+            int capacity = cellCount + (cellCount >> 1);
+            columns = Arrays.copyOf(columns, capacity);
+            types = Arrays.copyOf(types, capacity);
+            styles = Arrays.copyOf(styles, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            formulas = Arrays.copyOf(formulas, capacity);
+        }
+        columns[cellCount] = column;
+        types[cellCount] = type;
+        styles[cellCount] = style;
+        numbers[cellCount] = number;
+        texts[cellCount] = text;
+        formulas[cellCount] = formula;
+        cellCount++;
+        if (column >= columnCount) {
+            columnCount = column + 1;
+        }
+    }
+
+    /**
+     * Adds a string value or formula to the store. Equal strings are stored
+     * only once.
+     *
+     * @param string
+     *            String to add
+     * @return index of the string
+     */
+    int addString(String string) {
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = strings.size();
+            strings.add(string);
+            stringIds.put(string, id);
+        }
+        return id;
+    }
+
+    /**
+     * Registers the formula of a shared formula master cell.
+     *
+     * @param index
+     *            Shared formula index of the worksheet
+     * @param row
+     *            Row index of the first cell of the shared formula range
+     * @param column
+     *            Column index of the first cell of the shared formula range
+     * @param formula
+     *            Formula of the master cell
+     */
+    void addSharedFormula(int index, int row, int column, String formula) {
+        sharedFormulas.put(index,
+                new SharedFormulaMaster(row, column, formula));
+    }
+
+    /**
+     * Trims the arrays and makes sure the rows are in ascending order. Must be
+     * called after all cells have been added.
+     */
+    void finish() {
+        rowStarts[rowCount] = cellCount;
+        boolean sorted = true;
+        for (int i = 1; i < rowCount && sorted; i++) {
+            sorted = rowIndexes[i - 1] < rowIndexes[i];
+        }
+        if (!sorted) {
+            sortRows();
+        }
+        rowIndexes = Arrays.copyOf(rowIndexes, rowCount);
+        rowStarts = Arrays.copyOf(rowStarts, rowCount + 1);
+        columns = Arrays.copyOf(columns, cellCount);
+        types = Arrays.copyOf(types, cellCount);
+        styles = Arrays.copyOf(styles, cellCount);
+        numbers = Arrays.copyOf(numbers, cellCount);
+        texts = Arrays.copyOf(texts, cellCount);
+        formulas = Arrays.copyOf(formulas, cellCount);
+        stringIds = null;
+    }
+
+    private void sortRows() {
+        Integer[] order = new Integer[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> rowIndexes[i]));
+        int[] sortedIndexes = new int[rowCount];
+        int[] sortedStarts = new int[rowCount + 1];
+        int[] from = new int[cellCount];
+        int cell = 0;
+        for (int i = 0; i < rowCount; i++) {
+            int row = order[i];
+            sortedIndexes[i] = rowIndexes[row];
+            sortedStarts[i] = cell;
+            for (int c = rowStarts[row]; c < rowStarts[row + 1]; c++) {
+                from[cell++] = c;
+            }
+        }
+        sortedStarts[rowCount] = cellCount;
+        rowIndexes = sortedIndexes;
+        rowStarts = sortedStarts;
+        columns = reorder(columns, from);
+        styles = reorder(styles, from);
+        texts = reorder(texts, from);
+        formulas = reorder(formulas, from);
+        byte[] sortedTypes = new byte[cellCount];
+        double[] sortedNumbers = new double[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            sortedTypes[i] = types[from[i]];
+            sortedNumbers[i] = numbers[from[i]];
+        }
+        types = sortedTypes;
+        numbers = sortedNumbers;
+    }
+
+    private int[] reorder(int[] values, int[] from) {
+        int[] sorted = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            sorted[i] = values[from[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * @return the number of rows with cells
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of stored cells
+     */
+    int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @return index of the last column with a cell, plus one
+     */
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @param block
+     *            Position of the row in the store
+     * @return index of the row at the given position
+     */
+    int getRowIndex(int block) {
+        return rowIndexes[block];
+    }
+
+    /**
+     * Finds the position of the first stored row at or after the given row.
+     *
+     * @param rowIndex
+     *            Row index
+     * @return position of the row, {@link #getRowCount()} if there is none
+     */
+    int findRow(int rowIndex) {
+        int index = Arrays.binarySearch(rowIndexes, 0, rowCount, rowIndex);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /**
+     * @return approximate heap size of the store in bytes
+     */
+    long getEstimatedSize() {
+        long size = rowIndexes.length * 4L + rowStarts.length * 4L;
+        size += columns.length * 24L;
+        size += types.length;
+        for (String string : strings) {
+            size += 40 + string.length() * 2L;
+        }
+        return size;
+    }
+
+    /**
+     * Creates the stored cells of a row into the given POI row. Cells that
+     * already exist in the row are not overwritten.
+     *
+     * @param block
+     *            Position of the row in the store
+     * @param row
+     *            Target row
+     * @param evaluationWorkbook
+     *            Workbook used for resolving shared formulas
+     * @param sheetIndex
+     *            POI index of the sheet of the row
+     * @param createdCells
+     *            List to add the created cells to
+     * @param formulaCells
+     *            List to add the created formula cells to
+     */
+    void hydrate(int block, XSSFRow row,
+            XSSFEvaluationWorkbook evaluationWorkbook, int sheetIndex,
+            List<XSSFCell> createdCells, List<XSSFCell> formulaCells) {
+        for (int i = rowStarts[block]; i < rowStarts[block + 1]; i++) {
+            if (row.getCell(columns[i]) != null) {
+                continue;
+            }
+            XSSFCell cell = row.createCell(columns[i]);
+            CTCell ctCell = cell.getCTCell();
+            if (styles[i] > 0) {
+                ctCell.setS(styles[i]);
+            }
+            String formula = getFormula(i, rowIndexes[block],
+                    evaluationWorkbook, sheetIndex, null);
+            if (formula != null) {
+                ctCell.addNewF().setStringValue(formula);
+                formulaCells.add(cell);
+            }
+            setValue(ctCell, i);
+            createdCells.add(cell);
+        }
+    }
+
+    private void setValue(CTCell ctCell, int i) {
+        switch (types[i] & VALUE_TYPE_MASK) {
+        case NUMERIC:
+            ctCell.setV(Double.toString(numbers[i]));
+            break;
+        case SHARED_STRING:
+            ctCell.setT(STCellType.S);
+            ctCell.setV(Integer.toString(texts[i]));
+            break;
+        case STRING:
+            if (ctCell.isSetF()) {
+                ctCell.setT(STCellType.STR);
+                ctCell.setV(strings.get(texts[i]));
+            } else {
+                ctCell.setT(STCellType.INLINE_STR);
+                ctCell.addNewIs().setT(strings.get(texts[i]));
+            }
+            break;
+        case BOOLEAN:
+            ctCell.setT(STCellType.B);
+            ctCell.setV(numbers[i] != 0 ? "1" : "0");
+            break;
+        case ERROR:
+            ctCell.setT(STCellType.E);
+            ctCell.setV(strings.get(texts[i]));
+            break;
+        default:
+            // blank
+        }
+    }
+
+    /**
+     * Writes the stored cells of a row as worksheet XML cell elements.
+     *
+     * @param block
+     *            Position of the row in the store
+     * @param writer
+     *            Writer positioned inside the row element
+     * @param prefix
+     *            Prefix of the element names, including the colon, or an
+     *            empty string
+     * @param evaluationWorkbook
+     *            Workbook used for resolving shared formulas
+     * @param sheetIndex
+     *            POI index of the sheet of the row
+     * @param parsedSharedFormulas
+     *            Cache of the parsed shared formulas, reused between the rows
+     * @throws XMLStreamException
+     *             If writing fails
+     */
+    void writeCells(int block, XMLStreamWriter writer, String prefix,
+            XSSFEvaluationWorkbook evaluationWorkbook, int sheetIndex,
+            Map<Integer, Ptg[]> parsedSharedFormulas)
+            throws XMLStreamException {
+        int rowIndex = rowIndexes[block];
+        String row = Integer.toString(rowIndex + 1);
+        for (int i = rowStarts[block]; i < rowStarts[block + 1]; i++) {
+            writer.writeStartElement(prefix + "c");
+            writer.writeAttribute("r",
+                    CellReference.convertNumToColString(columns[i]) + row);
+            if (styles[i] > 0) {
+                writer.writeAttribute("s", Integer.toString(styles[i]));
+            }
+            String formula = getFormula(i, rowIndex, evaluationWorkbook,
+                    sheetIndex, parsedSharedFormulas);
+            String type = null;
+            String value = null;
+            switch (types[i] & VALUE_TYPE_MASK) {
+            case NUMERIC:
+                value = Double.toString(numbers[i]);
+                break;
+            case SHARED_STRING:
+                type = "s";
+                value = Integer.toString(texts[i]);
+                break;
+            case STRING:
+                type = formula != null ? "str" : "inlineStr";
+                value = strings.get(texts[i]);
+                break;
+            case BOOLEAN:
+                type = "b";
+                value = numbers[i] != 0 ? "1" : "0";
+                break;
+            case ERROR:
+                type = "e";
+                value = strings.get(texts[i]);
+                break;
+            default:
+                // blank
+            }
+            if (type != null) {
+                writer.writeAttribute("t", type);
+            }
+            if (formula != null) {
+                writeElement(writer, prefix + "f", formula);
+            }
+            if ("inlineStr".equals(type)) {
+                writer.writeStartElement(prefix + "is");
+                writer.writeStartElement(prefix + "t");
+                if (!value.equals(value.trim())) {
+                    writer.writeAttribute("xml:space", "preserve");
+                }
+                writer.writeCharacters(value);
+                writer.writeEndElement();
+                writer.writeEndElement();
+            } else if (value != null) {
+                writeElement(writer, prefix + "v", value);
+            }
+            writer.writeEndElement();
+        }
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String name,
+            String text) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+
+    private String getFormula(int i, int row,
+            XSSFEvaluationWorkbook evaluationWorkbook, int sheetIndex,
+            Map<Integer, Ptg[]> parsedSharedFormulas) {
+        if ((types[i] & FORMULA) != 0) {
+            return strings.get(formulas[i]);
+        } else if ((types[i] & SHARED_FORMULA) != 0) {
+            return convertSharedFormula(formulas[i], row, columns[i],
+                    evaluationWorkbook, sheetIndex, parsedSharedFormulas);
+        }
+        return null;
+    }
+
+    /**
+     * Converts the formula of a shared formula master cell to the formula of
+     * the given cell, the same way POI does when reading a worksheet.
+     */
+    private String convertSharedFormula(int index, int row, int column,
+            XSSFEvaluationWorkbook evaluationWorkbook, int sheetIndex,
+            Map<Integer, Ptg[]> parsedSharedFormulas) {
+        SharedFormulaMaster master = sharedFormulas.get(index);
+        if (master == null) {
+            return null;
+        }
+        try {
+            Ptg[] ptgs = parsedSharedFormulas == null ? null
+                    : parsedSharedFormulas.get(index);
+            if (ptgs == null) {
+                ptgs = FormulaParser.parse(master.formula, evaluationWorkbook,
+                        FormulaType.CELL, sheetIndex, master.row);
+                if (parsedSharedFormulas != null) {
+                    parsedSharedFormulas.put(index, ptgs);
+                }
+            }
+            Ptg[] converted = new SharedFormula(SpreadsheetVersion.EXCEL2007)
+                    .convertSharedFormulas(ptgs, row - master.row,
+                            column - master.column);
+            return FormulaRenderer.toFormulaString(evaluationWorkbook,
+                    converted);
+        } catch (RuntimeException e) {
+            // keep only the cached value of a formula POI can't parse
+            LOGGER.trace(e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -11,6 +11,7 @@ package com.vaadin.flow.component.spreadsheet;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -24,6 +25,7 @@ import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.formula.FormulaParser;
 import org.apache.poi.ss.formula.FormulaType;
 import org.apache.poi.ss.formula.WorkbookEvaluatorUtil;
+import org.apache.poi.ss.formula.WorkbookEvaluatorUtil.SharedEvaluationCache;
 import org.apache.poi.ss.formula.eval.BoolEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
 import org.apache.poi.ss.formula.eval.NotImplementedException;
@@ -31,7 +33,10 @@ import org.apache.poi.ss.formula.eval.NumberEval;
 import org.apache.poi.ss.formula.eval.NumericValueEval;
 import org.apache.poi.ss.formula.eval.StringEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.OperandPtg;
 import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
 import org.apache.poi.ss.formula.ptg.RefPtgBase;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
@@ -87,16 +92,65 @@ public class ConditionalFormatter implements Serializable {
      */
     private static String BORDER_STYLE_DEFAULT = "1pt solid #d6d6d6;";
 
+    /**
+     * Rows and columns around the visible area that are evaluated before they
+     * are scrolled into view.
+     */
+    private static final int ROW_BUFFER = 50;
+    private static final int COLUMN_BUFFER = 10;
+
+    private static final char SIGNATURE_SEPARATOR = ';';
+
     private Spreadsheet spreadsheet;
 
     /**
-     * Cache of styles for each cell. One cell may have several styles.
+     * Cache of styles for each cell, keyed by the packed 1-based cell
+     * coordinates (see {@link CellCoordinateSet#pack(int, int)}). One cell may
+     * have several styles.
      */
-    private Map<String, Set<Integer>> cellToIndex = new HashMap<String, Set<Integer>>();
+    private Map<Long, Set<Integer>> cellToIndex = new HashMap<Long, Set<Integer>>();
 
     private Map<ConditionalFormatting, Integer> topBorders = new HashMap<ConditionalFormatting, Integer>();
     private Map<ConditionalFormatting, Integer> leftBorders = new HashMap<ConditionalFormatting, Integer>();
 
+    /**
+     * The rules of the active sheet in evaluation order, <code>null</code>
+     * until the rules have been created.
+     */
+    private List<CompiledRule> compiledRules;
+
+    /**
+     * Index of the ranges of {@link #compiledRules}, <code>null</code> if there
+     * are no rules.
+     */
+    private RuleRangeIndex ruleRanges;
+
+    /**
+     * Identifies the sheet and the rules {@link #compiledRules} were compiled
+     * from.
+     */
+    private String rulesSignature;
+
+    /**
+     * Parsed rule formulas of the active sheet, keyed by the formula text.
+     */
+    private final Map<String, CompiledFormula> compiledFormulas = new HashMap<String, CompiledFormula>();
+
+    /**
+     * Cache shared by the formula evaluations of the ongoing matcher pass,
+     * <code>null</code> outside of a pass.
+     */
+    private SharedEvaluationCache evaluationCache;
+
+    /** Cells (1-based) for which all rules have been evaluated. */
+    private final CellCoordinateSet evaluatedCells = new CellCoordinateSet();
+
+    /**
+     * Evaluated cells (1-based) whose formatting has changed after the first
+     * evaluation.
+     */
+    private final CellCoordinateSet changedFormattingCells = new CellCoordinateSet();
+
     protected ColorConverter colorConverter;
 
     /**
@@ -119,6 +173,9 @@ public class ConditionalFormatter implements Serializable {
     /**
      * Each cell can have multiple matching rules, hence a collection. Order
      * doesn't matter here, CSS is applied in correct order on the client side.
+     * <p>
+     * The rules are evaluated for the cell on demand if the cell hasn't been
+     * evaluated yet.
      *
      * @param cell
      *            Target cell
@@ -126,21 +183,145 @@ public class ConditionalFormatter implements Serializable {
      *         names)
      */
     public Set<Integer> getCellFormattingIndex(Cell cell) {
-        Set<Integer> index = cellToIndex.get(SpreadsheetUtil.toKey(cell));
+        if (ruleRanges != null
+                && ruleRanges.coversRowOrNext(cell.getRowIndex())) {
+            // the borders of the cell depend on the cells to the right and
+            // below, so they are needed too
+            evaluateArea(cell.getRowIndex(), cell.getColumnIndex(),
+                    cell.getRowIndex() + 1, cell.getColumnIndex() + 1,
+                    false);
+        }
+        Set<Integer> index = cellToIndex.get(toKey(cell));
         return index;
     }
 
+    /**
+     * Checks if conditional formatting rules may apply to the cells of the
+     * given row, including borders from the rules of the row below.
+     *
+     * @param row
+     *            Row index, 0-based
+     * @return <code>true</code> if the row may have formatted cells
+     */
+    boolean hasRulesForRow(int row) {
+        return ruleRanges != null && ruleRanges.coversRowOrNext(row);
+    }
+
+    /**
+     * Gets the cell at the given position for sending it to the client, with
+     * the conditional formatting of the cell evaluated. Empty cells may have
+     * formatting too, so missing cells covered by the rules are created when
+     * they are near the visible area.
+     *
+     * @param row
+     *            Row index, 0-based
+     * @param col
+     *            Column index, 0-based
+     * @return the cell, or <code>null</code> if there is no cell and it
+     *         doesn't need to be created
+     */
+    Cell getCellForLoading(int row, int col) {
+        if (!hasRulesForRow(row) || !isNearViewport(row, col)) {
+            return spreadsheet.getCell(row, col);
+        }
+        // the borders of the cell depend on the cells to the right and below
+        createCoveredCell(row, col);
+        createCoveredCell(row, col + 1);
+        createCoveredCell(row + 1, col);
+        evaluateArea(row, col, row + 1, col + 1, true);
+        Cell cell = spreadsheet.getCell(row, col);
+        if (cell == null && cellToIndex
+                .containsKey(CellCoordinateSet.pack(col + 1, row + 1))) {
+            // gets a border from the cell to the right or below
+            cell = spreadsheet.createCell(row, col, "");
+        }
+        return cell;
+    }
+
+    private void createCoveredCell(int row, int col) {
+        if (!evaluatedCells.contains(col + 1, row + 1)
+                && ruleRanges.covers(row, col)
+                && spreadsheet.getCell(row, col) == null) {
+            spreadsheet.createCell(row, col, "");
+        }
+    }
+
+    private boolean isNearViewport(int row, int col) {
+        return isNear(row + 1, spreadsheet.getFirstRow(),
+                spreadsheet.getLastRow(), spreadsheet.getLastFrozenRow(),
+                ROW_BUFFER)
+                && isNear(col + 1, spreadsheet.getFirstColumn(),
+                        spreadsheet.getLastColumn(),
+                        spreadsheet.getLastFrozenColumn(), COLUMN_BUFFER);
+    }
+
+    /**
+     * @return <code>true</code> if the 1-based index is within the buffer
+     *         around the visible indexes, in a frozen pane, or if nothing is
+     *         visible yet
+     */
+    private static boolean isNear(int index, int first, int last, int frozen,
+            int buffer) {
+        return first < 1 || index <= frozen
+                || (index >= first - buffer && index <= last + buffer);
+    }
+
+    /**
+     * Adds the coordinates (1-based) of the cells whose conditional formatting
+     * has changed since they were evaluated to the given set, and forgets the
+     * changes.
+     *
+     * @param target
+     *            Set to add the cells to
+     */
+    void collectChangedFormattingCells(CellCoordinateSet target) {
+        target.addAll(changedFormattingCells);
+        changedFormattingCells.clear();
+    }
+
+    /**
+     * Checks if the conditional formatting of the given cell has changed
+     * since it was evaluated, and forgets the change.
+     *
+     * @param col
+     *            Column index, 1-based
+     * @param row
+     *            Row index, 1-based
+     * @return <code>true</code> if the formatting of the cell has changed
+     */
+    boolean removeChangedFormattingCell(int col, int row) {
+        return changedFormattingCells.remove(col, row);
+    }
+
+    private static long toKey(Cell cell) {
+        return CellCoordinateSet.pack(cell.getColumnIndex() + 1,
+                cell.getRowIndex() + 1);
+    }
+
     /**
      * Creates the necessary CSS rules and runs evaluations on all affected
      * cells.
+     * <p>
+     * The rules are compiled only when they have changed. Otherwise only the
+     * cells affected by the changed cell values are evaluated again. The rules
+     * are evaluated for the cells currently visible, other cells are evaluated
+     * when they are loaded, see {@link #getCellForLoading(int, int)}.
      */
     public void createConditionalFormatterRules() {
+        SheetConditionalFormatting cfs = spreadsheet.getActiveSheet()
+                .getSheetConditionalFormatting();
+
+        final String signature = getRulesSignature(cfs);
+        if (compiledRules != null && signature.equals(rulesSignature)) {
+            updateChangedCells();
+            return;
+        }
 
         // make sure old styles are cleared
         if (cellToIndex != null) {
-            for (String key : cellToIndex.keySet()) {
-                int col = SpreadsheetUtil.getColumnIndexFromKey(key) - 1;
-                int row = SpreadsheetUtil.getRowFromKey(key) - 1;
+            for (Long key : cellToIndex.keySet()) {
+                int col = CellCoordinateSet.getCol(key) - 1;
+                int row = CellCoordinateSet.getRow(key) - 1;
                 Cell cell = spreadsheet.getCell(row, col);
                 if (cell != null) {
                     spreadsheet.markCellAsUpdated(cell, true);
@@ -148,14 +329,24 @@ public class ConditionalFormatter implements Serializable {
             }
         }
 
+        // cells that the client may already have, evaluated again below
+        final CellCoordinateSet previouslyEvaluated = new CellCoordinateSet();
+        if (rulesSignature != null && rulesSignature
+                .startsWith(getSheetSignature() + SIGNATURE_SEPARATOR)) {
+            previouslyEvaluated.addAll(evaluatedCells);
+        }
+
         cellToIndex.clear();
         topBorders.clear();
         leftBorders.clear();
+        compiledFormulas.clear();
+        evaluatedCells.clear();
+        changedFormattingCells.clear();
+        compiledRules = new ArrayList<CompiledRule>();
+        ruleRanges = null;
+        rulesSignature = signature;
         HashMap<Integer, String> conditionalFormattingStyles = new HashMap<>();
 
-        SheetConditionalFormatting cfs = spreadsheet.getActiveSheet()
-                .getSheetConditionalFormatting();
-
         if (cfs instanceof HSSFSheetConditionalFormatting) {
             // disable formatting for HSSF, since formulas are read incorrectly
             // and we would return incorrect results.
@@ -245,8 +436,10 @@ public class ConditionalFormatter implements Serializable {
 
                 conditionalFormattingStyles.put(cssIndex, css.toString());
 
-                // check actual cells
-                runCellMatcher(cf, rule, cssIndex);
+                // cells are checked when they are needed
+                compiledRules.add(new CompiledRule(cf, rule, cssIndex,
+                        leftBorders.get(cf), topBorders.get(cf),
+                        getReferenceOffsets(cf, rule)));
 
                 // stop here if defined in rules
                 if (stopHere(rule)) {
@@ -256,6 +449,395 @@ public class ConditionalFormatter implements Serializable {
         }
 
         spreadsheet.setConditionalFormattingStyles(conditionalFormattingStyles);
+
+        if (!compiledRules.isEmpty()) {
+            ruleRanges = new RuleRangeIndex(compiledRules);
+        }
+        evaluateVisibleCells();
+        evaluateCells(previouslyEvaluated);
+        // the client has these cells without the new formatting
+        for (Long key : cellToIndex.keySet()) {
+            int col = CellCoordinateSet.getCol(key);
+            int row = CellCoordinateSet.getRow(key);
+            if (previouslyEvaluated.contains(col, row)) {
+                Cell cell = spreadsheet.getCell(row - 1, col - 1);
+                if (cell != null) {
+                    spreadsheet.markCellAsUpdated(cell, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the evaluation results of all cells, e.g. when cell values may
+     * have been changed without marking the cells as updated. The rules are
+     * compiled again on the next call to
+     * {@link #createConditionalFormatterRules()}.
+     */
+    void invalidate() {
+        rulesSignature = null;
+        cellToIndex.clear();
+        evaluatedCells.clear();
+        changedFormattingCells.clear();
+        if (compiledRules != null) {
+            for (CompiledRule compiled : compiledRules) {
+                compiled.matches.clear();
+            }
+        }
+    }
+
+    /**
+     * Evaluates the rules for the visible cells, creating the missing cells
+     * covered by the rules.
+     */
+    private void evaluateVisibleCells() {
+        final int firstRow = spreadsheet.getFirstRow();
+        final int firstColumn = spreadsheet.getFirstColumn();
+        if (ruleRanges == null || firstRow < 1 || firstColumn < 1) {
+            // nothing loaded yet
+            return;
+        }
+        // 0-based, with one more row and column as the borders of the cells
+        // depend on them
+        final int lastRow = spreadsheet.getLastRow();
+        final int lastColumn = spreadsheet.getLastColumn();
+        final int frozenRows = spreadsheet.getLastFrozenRow();
+        final int frozenColumns = spreadsheet.getLastFrozenColumn();
+        if (frozenRows > 0 && frozenColumns > 0) {
+            evaluateArea(0, 0, frozenRows, frozenColumns, true);
+        }
+        if (frozenRows > 0) {
+            evaluateArea(0, firstColumn - 1, frozenRows, lastColumn, true);
+        }
+        if (frozenColumns > 0) {
+            evaluateArea(firstRow - 1, 0, lastRow, frozenColumns, true);
+        }
+        evaluateArea(firstRow - 1, firstColumn - 1, lastRow, lastColumn, true);
+    }
+
+    /**
+     * Evaluates the rules for the cells of the given area that haven't been
+     * evaluated yet.
+     *
+     * @param createCells
+     *            <code>true</code> to create the missing cells of the rule
+     *            ranges, <code>false</code> to skip them
+     */
+    private void evaluateArea(int firstRow, int firstColumn, int lastRow,
+            int lastColumn, boolean createCells) {
+        final boolean pass = startPass();
+        try {
+            evaluateAreaInPass(firstRow, firstColumn, lastRow, lastColumn,
+                    createCells);
+        } finally {
+            endPass(pass);
+        }
+    }
+
+    private void evaluateAreaInPass(int firstRow, int firstColumn,
+            int lastRow, int lastColumn, boolean createCells) {
+        final CellCoordinateSet evaluated = new CellCoordinateSet();
+        final List<CompiledRule> rules = new ArrayList<CompiledRule>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (!ruleRanges.coversRow(row)) {
+                continue;
+            }
+            for (int col = firstColumn; col <= lastColumn; col++) {
+                if (evaluatedCells.contains(col + 1, row + 1)) {
+                    continue;
+                }
+                rules.clear();
+                ruleRanges.collectRules(row, col, rules);
+                if (rules.isEmpty()) {
+                    continue;
+                }
+                Cell cell = spreadsheet.getCell(row, col);
+                if (cell == null) {
+                    if (!createCells) {
+                        continue;
+                    }
+                    cell = createEmptyCell(row, col);
+                }
+                evaluated.add(col + 1, row + 1);
+                for (CompiledRule compiled : rules) {
+                    evaluate(compiled, cell);
+                }
+            }
+        }
+        if (!evaluated.isEmpty()) {
+            evaluatedCells.addAll(evaluated);
+            updateCellIndexes(evaluated, evaluated, createCells);
+        }
+    }
+
+    /**
+     * Evaluates the rules for the given existing cells that haven't been
+     * evaluated yet.
+     */
+    private void evaluateCells(CellCoordinateSet cells) {
+        if (ruleRanges == null) {
+            return;
+        }
+        final CellCoordinateSet evaluated = new CellCoordinateSet();
+        final List<CompiledRule> rules = new ArrayList<CompiledRule>();
+        final boolean pass = startPass();
+        try {
+            cells.forEach((col, row) -> {
+                if (evaluatedCells.contains(col, row)) {
+                    return;
+                }
+                final Cell cell = spreadsheet.getCell(row - 1, col - 1);
+                if (cell == null) {
+                    return;
+                }
+                rules.clear();
+                ruleRanges.collectRules(row - 1, col - 1, rules);
+                for (CompiledRule compiled : rules) {
+                    evaluated.add(col, row);
+                    evaluate(compiled, cell);
+                }
+            });
+        } finally {
+            endPass(pass);
+        }
+        if (!evaluated.isEmpty()) {
+            evaluatedCells.addAll(evaluated);
+            updateCellIndexes(evaluated, evaluated, true);
+        }
+    }
+
+    /**
+     * Evaluates the rules again for the evaluated cells that may be affected
+     * by the cells changed since the last update: the changed cells
+     * themselves, the formula cells depending on them and the cells whose
+     * rule formulas reference any of those.
+     */
+    private void updateChangedCells() {
+        if (compiledRules.isEmpty() || evaluatedCells.isEmpty()) {
+            return;
+        }
+        final CellCoordinateSet changedCells = new CellCoordinateSet();
+        final boolean tracked = spreadsheet.getCellValueManager()
+                .collectChangedCells(changedCells);
+        final CellCoordinateSet updated = new CellCoordinateSet();
+        final boolean pass = startPass();
+        try {
+            updateRules(changedCells, tracked, updated);
+        } finally {
+            endPass(pass);
+        }
+        if (!updated.isEmpty()) {
+            updateCellIndexes(updated, null, true);
+        }
+    }
+
+    private void updateRules(CellCoordinateSet changedCells, boolean tracked,
+            CellCoordinateSet updated) {
+        for (CompiledRule compiled : compiledRules) {
+            final CellCoordinateSet targets = new CellCoordinateSet();
+            if (!tracked || compiled.referenceOffsets == null) {
+                evaluatedCells.forEach((col, row) -> {
+                    if (compiled.isInRange(row - 1, col - 1)) {
+                        targets.add(col, row);
+                    }
+                });
+            } else {
+                final int[] offsets = compiled.referenceOffsets;
+                changedCells.forEach((col, row) -> {
+                    addTarget(compiled, targets, col, row);
+                    for (int i = 0; i < offsets.length; i += 2) {
+                        addTarget(compiled, targets, col - offsets[i],
+                                row - offsets[i + 1]);
+                    }
+                });
+            }
+            targets.forEach((col, row) -> {
+                final Cell cell = spreadsheet.getCell(row - 1, col - 1);
+                final boolean matched = compiled.matches.contains(col, row);
+                if (cell == null) {
+                    if (matched) {
+                        compiled.matches.remove(col, row);
+                        updated.add(col, row);
+                    }
+                } else if (evaluate(compiled, cell) != matched) {
+                    updated.add(col, row);
+                }
+            });
+        }
+    }
+
+    private void addTarget(CompiledRule compiled, CellCoordinateSet targets,
+            int col, int row) {
+        if (evaluatedCells.contains(col, row)
+                && compiled.isInRange(row - 1, col - 1)) {
+            targets.add(col, row);
+        }
+    }
+
+    /**
+     * Evaluates the given rule for the given cell and stores the result.
+     *
+     * @return <code>true</code> if the rule matches the cell
+     */
+    private boolean evaluate(CompiledRule compiled, Cell cell) {
+        final int col = cell.getColumnIndex();
+        final int row = cell.getRowIndex();
+        if (matches(cell, compiled.rule, col - compiled.firstColumn,
+                row - compiled.firstRow)) {
+            compiled.matches.add(col + 1, row + 1);
+            return true;
+        }
+        compiled.matches.remove(col + 1, row + 1);
+        return false;
+    }
+
+    /**
+     * Updates {@link #cellToIndex} for the given cells and the cells to the
+     * left and above them, whose borders depend on the given cells.
+     *
+     * @param cells
+     *            Cells (1-based) whose rule matches have changed
+     * @param newCells
+     *            Cells (1-based) evaluated for the first time, the client
+     *            doesn't have their formatting yet. May be <code>null</code>.
+     * @param createCells
+     *            <code>true</code> to create missing cells that get formatting
+     */
+    private void updateCellIndexes(CellCoordinateSet cells,
+            CellCoordinateSet newCells, boolean createCells) {
+        final CellCoordinateSet affected = new CellCoordinateSet();
+        cells.forEach((col, row) -> {
+            affected.add(col, row);
+            if (col > 1) {
+                affected.add(col - 1, row);
+            }
+            if (row > 1) {
+                affected.add(col, row - 1);
+            }
+        });
+        affected.forEach((col, row) -> {
+            final Set<Integer> index = getMatchingIndexes(col, row);
+            final long key = CellCoordinateSet.pack(col, row);
+            final Set<Integer> previous = index.isEmpty()
+                    ? cellToIndex.remove(key)
+                    : cellToIndex.put(key, index);
+            if (index.equals(previous == null ? Collections.emptySet()
+                    : previous)) {
+                return;
+            }
+            if (!index.isEmpty() && createCells
+                    && spreadsheet.getCell(row - 1, col - 1) == null) {
+                // the cell needs to exist to be sent to the client
+                spreadsheet.createCell(row - 1, col - 1, "");
+            }
+            if (evaluatedCells.contains(col, row)
+                    && (newCells == null || !newCells.contains(col, row))) {
+                changedFormattingCells.add(col, row);
+            }
+        });
+    }
+
+    private Set<Integer> getMatchingIndexes(int col, int row) {
+        final Set<Integer> index = new HashSet<Integer>();
+        for (CompiledRule compiled : compiledRules) {
+            if (compiled.matches.contains(col, row)) {
+                index.add(compiled.cssIndex);
+            }
+            // if the rule contains borders, the cell gets the left border of
+            // the cell to the right and the top border of the cell below
+            if (compiled.leftBorderIndex != null
+                    && compiled.matches.contains(col + 1, row)) {
+                index.add(compiled.leftBorderIndex);
+            }
+            if (compiled.topBorderIndex != null
+                    && compiled.matches.contains(col, row + 1)) {
+                index.add(compiled.topBorderIndex);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Resolves the offsets of the cells the formulas of the rule reference,
+     * relative to the first cell of the formatting. The rule then needs to be
+     * evaluated again for a cell only if the cell itself or a cell at one of
+     * the offsets from it changes.
+     *
+     * @return <code>[column0, row0, column1, row1, ...]</code>, or
+     *         <code>null</code> if the formulas reference cells that can't be
+     *         resolved to a single offset, e.g. ranges, names or absolute
+     *         references, and the rule needs to be evaluated again on every
+     *         change
+     */
+    private int[] getReferenceOffsets(ConditionalFormatting cf,
+            ConditionalFormattingRule rule) {
+        final String formula = rule.getFormula1();
+        if (formula == null || formula.isEmpty()
+                || !(rule instanceof XSSFConditionalFormattingRule)) {
+            return new int[0];
+        }
+        final CellRangeAddress origin = cf.getFormattingRanges()[0];
+        final Ptg[] ptgs;
+        try {
+            ptgs = getCompiledFormula(formula).ptgs;
+        } catch (RuntimeException e) {
+            LOGGER.trace(e.getMessage(), e);
+            return null;
+        }
+        final List<Integer> offsets = new ArrayList<Integer>();
+        for (Ptg ptg : ptgs) {
+            if (ptg instanceof RefPtg) {
+                RefPtg ref = (RefPtg) ptg;
+                if (!ref.isColRelative() || !ref.isRowRelative()) {
+                    return null;
+                }
+                offsets.add(ref.getColumn() - origin.getFirstColumn());
+                offsets.add(ref.getRow() - origin.getFirstRow());
+            } else if (ptg instanceof OperandPtg) {
+                return null;
+            } else if (ptg instanceof AbstractFunctionPtg
+                    && FormulaDependencyGraph.VOLATILE_FUNCTIONS.contains(
+                            ((AbstractFunctionPtg) ptg).getName())) {
+                return null;
+            }
+        }
+        final int[] result = new int[offsets.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = offsets.get(i);
+        }
+        return result;
+    }
+
+    private String getSheetSignature() {
+        return spreadsheet.getActiveSheetIndex() + ":"
+                + spreadsheet.getActiveSheet().getSheetName();
+    }
+
+    /**
+     * @return a string that changes when the formattings or rules of the
+     *         sheet change
+     */
+    private String getRulesSignature(SheetConditionalFormatting cfs) {
+        final StringBuilder signature = new StringBuilder(getSheetSignature());
+        signature.append(SIGNATURE_SEPARATOR);
+        if (cfs instanceof HSSFSheetConditionalFormatting) {
+            return signature.toString();
+        }
+        for (int i = 0; i < cfs.getNumConditionalFormattings(); i++) {
+            ConditionalFormatting cf = cfs.getConditionalFormattingAt(i);
+            for (CellRangeAddress cra : cf.getFormattingRanges()) {
+                signature.append(cra.formatAsString()).append(',');
+            }
+            for (int r = 0; r < cf.getNumberOfRules(); r++) {
+                Object ctRule = getFieldValWithReflection(cf.getRule(r),
+                        "_cfRule");
+                signature.append(ctRule instanceof CTCfRule
+                        ? ((CTCfRule) ctRule).xmlText()
+                        : String.valueOf(ctRule));
+            }
+            signature.append(SIGNATURE_SEPARATOR);
+        }
+        return signature.toString();
     }
 
     /**
@@ -520,9 +1102,12 @@ public class ConditionalFormatter implements Serializable {
     }
 
     /**
-     * Goes through the cells specified in the given formatting, and checks if
-     * each rule matches. Style ids from resulting matches are put in
+     * Goes through all cells specified in the given formatting, and checks if
+     * the rule matches. Style ids from resulting matches are put in
      * {@link #cellToIndex}.
+     * <p>
+     * Normally the rules are evaluated only for the cells that are loaded, this
+     * method can be used to evaluate a rule for all of its cells at once.
      *
      * @param cf
      *            {@link ConditionalFormatting} that specifies the affected
@@ -535,80 +1120,70 @@ public class ConditionalFormatter implements Serializable {
      */
     protected void runCellMatcher(ConditionalFormatting cf,
             ConditionalFormattingRule rule, int classNameIndex) {
-        final int firstColumn = cf.getFormattingRanges()[0].getFirstColumn();
-        final int firstRow = cf.getFormattingRanges()[0].getFirstRow();
-        for (CellRangeAddress cra : cf.getFormattingRanges()) {
-
-            for (int row = cra.getFirstRow(); row <= cra.getLastRow(); row++) {
-                for (int col = cra.getFirstColumn(); col <= cra
-                        .getLastColumn(); col++) {
-
-                    Cell cell = spreadsheet.getCell(row, col);
-                    if (cell == null) {
-                        cell = spreadsheet.createCell(row, col, "");
-                    }
-                    if (matches(cell, rule, col - firstColumn,
-                            row - firstRow)) {
-                        Set<Integer> list = cellToIndex
-                                .get(SpreadsheetUtil.toKey(cell));
-                        if (list == null) {
-                            list = new HashSet<Integer>();
-                            cellToIndex.put(SpreadsheetUtil.toKey(cell), list);
-                        }
-                        list.add(classNameIndex);
-
-                        // if the rule contains borders, we need to add styles
-                        // to other cells too
-                        if (leftBorders.containsKey(cf)) {
-                            int ruleIndex = leftBorders.get(cf);
-
-                            // left border for col 0 isn't rendered
-                            if (col != 0) {
-                                Cell cellToLeft = spreadsheet.getCell(row,
-                                        col - 1);
-                                if (cellToLeft == null) {
-                                    cellToLeft = spreadsheet.createCell(row,
-                                            col - 1, "");
-                                }
-                                list = cellToIndex
-                                        .get(SpreadsheetUtil.toKey(cellToLeft));
-                                if (list == null) {
-                                    list = new HashSet<Integer>();
-                                    cellToIndex.put(
-                                            SpreadsheetUtil.toKey(cellToLeft),
-                                            list);
-                                }
-                                list.add(ruleIndex);
-                            }
-                        }
-                        if (topBorders.containsKey(cf)) {
-                            int ruleIndex = topBorders.get(cf);
-
-                            // top border for row 0 isn't rendered
-                            if (row != 0) {
-                                Cell cellOnTop = spreadsheet.getCell(row - 1,
-                                        col);
-                                if (cellOnTop == null) {
-                                    cellOnTop = spreadsheet.createCell(row - 1,
-                                            col, "");
-                                }
-                                list = cellToIndex
-                                        .get(SpreadsheetUtil.toKey(cellOnTop));
-                                if (list == null) {
-                                    list = new HashSet<Integer>();
-                                    cellToIndex.put(
-                                            SpreadsheetUtil.toKey(cellOnTop),
-                                            list);
+        if (compiledRules == null) {
+            return;
+        }
+        // POI creates new formatting and rule objects on each call, so the
+        // class name index identifies the rule
+        for (CompiledRule compiled : compiledRules) {
+            if (compiled.cssIndex == classNameIndex) {
+                final CellCoordinateSet evaluated = new CellCoordinateSet();
+                final boolean pass = startPass();
+                try {
+                    for (CellRangeAddress cra : compiled.ranges) {
+                        for (int row = cra.getFirstRow(); row <= cra
+                                .getLastRow(); row++) {
+                            for (int col = cra.getFirstColumn(); col <= cra
+                                    .getLastColumn(); col++) {
+                                Cell cell = spreadsheet.getCell(row, col);
+                                if (cell == null) {
+                                    cell = createEmptyCell(row, col);
                                 }
-                                list.add(ruleIndex);
+                                evaluate(compiled, cell);
+                                evaluated.add(col + 1, row + 1);
                             }
                         }
                     }
+                } finally {
+                    endPass(pass);
                 }
+                updateCellIndexes(evaluated, null, true);
             }
         }
     }
 
+    /**
+     * Starts a matcher pass, during which the evaluations share the values of
+     * the cells referenced by the rule formulas. Cell values must not change
+     * during the pass, except for creating empty cells with
+     * {@link #createEmptyCell(int, int)}.
+     *
+     * @return <code>true</code> if a new pass was started,
+     *         <code>false</code> if a pass is already ongoing
+     */
+    private boolean startPass() {
+        if (evaluationCache != null) {
+            return false;
+        }
+        evaluationCache = new SharedEvaluationCache();
+        return true;
+    }
+
+    private void endPass(boolean started) {
+        if (started) {
+            evaluationCache = null;
+        }
+    }
+
+    private Cell createEmptyCell(int row, int col) {
+        final Cell cell = spreadsheet.createCell(row, col, "");
+        if (evaluationCache != null) {
+            // the cache may have the cell as blank
+            evaluationCache = new SharedEvaluationCache();
+        }
+        return cell;
+    }
+
     /**
      * Checks if the given cell value matches the given conditional formatting
      * rule.
@@ -699,28 +1274,31 @@ public class ConditionalFormatter implements Serializable {
 
     private ValueEval getValueEvalFromFormula(String formula, Cell cell,
             int deltaColumn, int deltaRow) {
-        // Parse formula and use deltas to get relative cell references to work
-        // (#18702)
-        Ptg[] ptgs = FormulaParser.parse(formula,
-                WorkbookEvaluatorUtil.getEvaluationWorkbook(spreadsheet),
-                FormulaType.CELL, spreadsheet.getActiveSheetIndex());
-
-        for (Ptg ptg : ptgs) {
-            // base class for cell reference "things"
-            if (ptg instanceof RefPtgBase) {
-                RefPtgBase ref = (RefPtgBase) ptg;
-                // re-calculate cell references
-                if (ref.isColRelative()) {
-                    ref.setColumn(ref.getColumn() + deltaColumn);
-                }
-                if (ref.isRowRelative()) {
-                    ref.setRow(ref.getRow() + deltaRow);
-                }
-            }
+        // Use deltas to get relative cell references to work (#18702)
+        Ptg[] ptgs = getCompiledFormula(formula).getPtgs(deltaColumn,
+                deltaRow);
+        if (evaluationCache != null) {
+            return WorkbookEvaluatorUtil.evaluate(spreadsheet, ptgs, cell,
+                    evaluationCache);
         }
         return WorkbookEvaluatorUtil.evaluate(spreadsheet, ptgs, cell);
     }
 
+    /**
+     * Parses the given rule formula, or gets it from the cache if it has been
+     * parsed already.
+     */
+    private CompiledFormula getCompiledFormula(String formula) {
+        CompiledFormula compiled = compiledFormulas.get(formula);
+        if (compiled == null) {
+            compiled = new CompiledFormula(FormulaParser.parse(formula,
+                    WorkbookEvaluatorUtil.getEvaluationWorkbook(spreadsheet),
+                    FormulaType.CELL, spreadsheet.getActiveSheetIndex()));
+            compiledFormulas.put(formula, compiled);
+        }
+        return compiled;
+    }
+
     /**
      * Checks if the given cell value matches a
      * {@link ConditionalFormattingRule} of <code>VALUE_IS</code> type. Covers
@@ -880,4 +1458,252 @@ public class ConditionalFormatter implements Serializable {
                 && isFormulaNumericType;
         return coherentString || coherentBoolean || coherentNumeric;
     }
+
+    /**
+     * A rule of the active sheet prepared for evaluation, with the cells it
+     * has been found to match.
+     */
+    private static class CompiledRule implements Serializable {
+
+        private final ConditionalFormatting cf;
+        private final ConditionalFormattingRule rule;
+        private final CellRangeAddress[] ranges;
+        private final int firstRow;
+        private final int firstColumn;
+
+        private final int cssIndex;
+        private final Integer leftBorderIndex;
+        private final Integer topBorderIndex;
+
+        /** see {@link ConditionalFormatter#getReferenceOffsets} */
+        private final int[] referenceOffsets;
+
+        /** matching cells, 1-based */
+        private final CellCoordinateSet matches = new CellCoordinateSet();
+
+        private CompiledRule(ConditionalFormatting cf,
+                ConditionalFormattingRule rule, int cssIndex,
+                Integer leftBorderIndex, Integer topBorderIndex,
+                int[] referenceOffsets) {
+            this.cf = cf;
+            this.rule = rule;
+            ranges = cf.getFormattingRanges();
+            firstRow = ranges[0].getFirstRow();
+            firstColumn = ranges[0].getFirstColumn();
+            this.cssIndex = cssIndex;
+            this.leftBorderIndex = leftBorderIndex;
+            this.topBorderIndex = topBorderIndex;
+            this.referenceOffsets = referenceOffsets;
+        }
+
+        /**
+         * @param row
+         *            0-based
+         * @param col
+         *            0-based
+         */
+        private boolean isInRange(int row, int col) {
+            for (CellRangeAddress cra : ranges) {
+                if (cra.isInRange(row, col)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Index of the ranges of the rules, for finding the rules that apply to a
+     * cell without going through all rules. Ranges are bucketed by column
+     * unless they are very wide, e.g. whole rows.
+     */
+    private static class RuleRangeIndex implements Serializable {
+
+        /** Ranges wider than this are not bucketed by column. */
+        private static final int MAX_BUCKETED_RANGE_WIDTH = 64;
+
+        private final Map<Integer, List<RuleRange>> columns = new HashMap<Integer, List<RuleRange>>();
+        private final List<RuleRange> wideRanges = new ArrayList<RuleRange>();
+
+        /**
+         * Sorted, non-overlapping <code>[first, last]</code> row intervals
+         * covered by any range
+         */
+        private final int[] rowIntervals;
+
+        private RuleRangeIndex(List<CompiledRule> rules) {
+            final List<int[]> rows = new ArrayList<int[]>();
+            for (CompiledRule compiled : rules) {
+                for (CellRangeAddress cra : compiled.ranges) {
+                    final RuleRange range = new RuleRange(compiled, cra);
+                    if (cra.getLastColumn() - cra
+                            .getFirstColumn() >= MAX_BUCKETED_RANGE_WIDTH) {
+                        wideRanges.add(range);
+                    } else {
+                        for (int col = cra.getFirstColumn(); col <= cra
+                                .getLastColumn(); col++) {
+                            columns.computeIfAbsent(col,
+                                    c -> new ArrayList<RuleRange>())
+                                    .add(range);
+                        }
+                    }
+                    rows.add(new int[] { cra.getFirstRow(), cra.getLastRow() });
+                }
+            }
+            rows.sort(Comparator.comparingInt(interval -> interval[0]));
+            final int[] merged = new int[rows.size() * 2];
+            int length = 0;
+            for (int[] interval : rows) {
+                if (length > 0 && interval[0] <= merged[length - 1] + 1) {
+                    merged[length - 1] = Math.max(merged[length - 1],
+                            interval[1]);
+                } else {
+                    merged[length++] = interval[0];
+                    merged[length++] = interval[1];
+                }
+            }
+            rowIntervals = Arrays.copyOf(merged, length);
+        }
+
+        /**
+         * @param row
+         *            0-based
+         * @return <code>true</code> if any range covers the row
+         */
+        private boolean coversRow(int row) {
+            int low = 0;
+            int high = rowIntervals.length / 2 - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (rowIntervals[mid * 2 + 1] < row) {
+                    low = mid + 1;
+                } else if (rowIntervals[mid * 2] > row) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean coversRowOrNext(int row) {
+            return coversRow(row) || coversRow(row + 1);
+        }
+
+        /**
+         * @return <code>true</code> if any range covers the cell
+         */
+        private boolean covers(int row, int col) {
+            if (!coversRow(row)) {
+                return false;
+            }
+            final List<RuleRange> bucket = columns.get(col);
+            if (bucket != null) {
+                for (RuleRange range : bucket) {
+                    if (range.range.isInRange(row, col)) {
+                        return true;
+                    }
+                }
+            }
+            for (RuleRange range : wideRanges) {
+                if (range.range.isInRange(row, col)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds the rules whose ranges cover the given cell to the given list.
+         *
+         * @param row
+         *            0-based
+         * @param col
+         *            0-based
+         */
+        private void collectRules(int row, int col,
+                List<CompiledRule> target) {
+            final List<RuleRange> bucket = columns.get(col);
+            if (bucket != null) {
+                for (RuleRange range : bucket) {
+                    addRule(range, row, col, target);
+                }
+            }
+            for (RuleRange range : wideRanges) {
+                addRule(range, row, col, target);
+            }
+        }
+
+        private static void addRule(RuleRange range, int row, int col,
+                List<CompiledRule> target) {
+            // a rule may have several overlapping ranges
+            if (range.range.isInRange(row, col)
+                    && !target.contains(range.rule)) {
+                target.add(range.rule);
+            }
+        }
+    }
+
+    private static class RuleRange implements Serializable {
+
+        private final CompiledRule rule;
+        private final CellRangeAddress range;
+
+        private RuleRange(CompiledRule rule, CellRangeAddress range) {
+            this.rule = rule;
+            this.range = range;
+        }
+    }
+
+    /**
+     * A parsed rule formula. The tokens are shared by all cells, only the
+     * relative cell references are copied and shifted for each cell.
+     */
+    private static class CompiledFormula implements Serializable {
+
+        private final Ptg[] ptgs;
+
+        /** indexes of the tokens that are relative cell references */
+        private final int[] relativeReferences;
+
+        private CompiledFormula(Ptg[] ptgs) {
+            this.ptgs = ptgs;
+            int count = 0;
+            final int[] references = new int[ptgs.length];
+            for (int i = 0; i < ptgs.length; i++) {
+                // base class for cell reference "things"
+                if (ptgs[i] instanceof RefPtgBase) {
+                    RefPtgBase ref = (RefPtgBase) ptgs[i];
+                    if (ref.isColRelative() || ref.isRowRelative()) {
+                        references[count++] = i;
+                    }
+                }
+            }
+            relativeReferences = Arrays.copyOf(references, count);
+        }
+
+        /**
+         * @return the tokens with the relative cell references moved by the
+         *         given amount
+         */
+        private Ptg[] getPtgs(int deltaColumn, int deltaRow) {
+            if (relativeReferences.length == 0
+                    || (deltaColumn == 0 && deltaRow == 0)) {
+                return ptgs;
+            }
+            final Ptg[] shifted = ptgs.clone();
+            for (int i : relativeReferences) {
+                RefPtgBase ref = (RefPtgBase) ptgs[i].copy();
+                // re-calculate cell references
+                if (ref.isColRelative()) {
+                    ref.setColumn(ref.getColumn() + deltaColumn);
+                }
+                if (ref.isRowRelative()) {
+                    ref.setRow(ref.getRow() + deltaRow);
+                }
+                shifted[i] = ref;
+            }
+            return shifted;
+        }
+    }
 }
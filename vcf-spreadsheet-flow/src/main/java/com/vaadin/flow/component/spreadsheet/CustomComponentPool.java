@@ -0,0 +1,162 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import com.vaadin.flow.component.Component;
+
+/**
+ * Pool of the custom components created by a
+ * {@link SpreadsheetColumnComponentFactory}. Keeps the components bound to the
+ * visible cells and the released components of each column, so that the
+ * components of cells scrolled out of view are reused for the cells scrolled
+ * into view.
+ * <p>
+ * The visible cells are collected with {@link #addVisibleCell(int, int)}
+ * while loading the visible area, after which {@link #update} binds them.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+class CustomComponentPool implements Serializable {
+
+    private final HashMap<Long, Component> bound = new HashMap<Long, Component>();
+    private final HashMap<Integer, ArrayDeque<Component>> released = new HashMap<Integer, ArrayDeque<Component>>();
+    private final LinkedHashSet<Long> visibleCells = new LinkedHashSet<Long>();
+    private boolean rebind;
+
+    /**
+     * Adds a cell to the visible cells of the current update.
+     *
+     * @param rowIndex
+     *            0-based
+     * @param columnIndex
+     *            0-based
+     */
+    void addVisibleCell(int rowIndex, int columnIndex) {
+        visibleCells.add(cellKey(rowIndex, columnIndex));
+    }
+
+    /**
+     * Binds components to the visible cells added since the previous update.
+     * Components of cells that are no longer visible are released first, so
+     * that they can be reused for the newly visible cells of the same column.
+     * Components are created only when there are no released components of
+     * the column left.
+     *
+     * @param factory
+     *            Factory of the components
+     * @param spreadsheet
+     *            The target Spreadsheet component
+     * @param sheet
+     *            The active sheet
+     */
+    void update(SpreadsheetColumnComponentFactory factory,
+            Spreadsheet spreadsheet, Sheet sheet) {
+        for (Iterator<Map.Entry<Long, Component>> i = bound.entrySet()
+                .iterator(); i.hasNext();) {
+            final Map.Entry<Long, Component> entry = i.next();
+            if (!visibleCells.contains(entry.getKey())) {
+                final int column = getColumn(entry.getKey());
+                factory.unbindColumnComponent(entry.getValue(),
+                        getRow(entry.getKey()), column, spreadsheet);
+                released.computeIfAbsent(column, c -> new ArrayDeque<>())
+                        .push(entry.getValue());
+                i.remove();
+            }
+        }
+        for (Long key : visibleCells) {
+            Component component = bound.get(key);
+            if (component != null && !rebind) {
+                continue;
+            }
+            final int rowIndex = getRow(key);
+            final int columnIndex = getColumn(key);
+            if (component == null) {
+                final ArrayDeque<Component> columnComponents = released
+                        .get(columnIndex);
+                if (columnComponents != null && !columnComponents.isEmpty()) {
+                    component = columnComponents.pop();
+                } else {
+                    component = factory.createColumnComponent(columnIndex,
+                            spreadsheet, sheet);
+                }
+                bound.put(key, component);
+            }
+            final Row row = sheet.getRow(rowIndex);
+            final Cell cell = row == null ? null : row.getCell(columnIndex);
+            factory.bindColumnComponent(component, cell, rowIndex,
+                    columnIndex, spreadsheet, sheet);
+        }
+        visibleCells.clear();
+        rebind = false;
+    }
+
+    /**
+     * Makes the next update bind the components of all visible cells again,
+     * e.g. after the cell contents have changed.
+     */
+    void invalidate() {
+        rebind = true;
+    }
+
+    /**
+     * @return the components bound to the visible cells, keyed by the cell
+     *         keys of {@link #cellKey(int, int)}
+     */
+    Map<Long, Component> getBoundComponents() {
+        return bound;
+    }
+
+    /**
+     * @return the components that are not bound to any cell
+     */
+    List<Component> getReleasedComponents() {
+        final List<Component> result = new ArrayList<Component>();
+        for (ArrayDeque<Component> columnComponents : released.values()) {
+            result.addAll(columnComponents);
+        }
+        return result;
+    }
+
+    /**
+     * Forgets all components, e.g. when the factory or the active sheet is
+     * changed.
+     */
+    void clear() {
+        bound.clear();
+        released.clear();
+        visibleCells.clear();
+        rebind = false;
+    }
+
+    static long cellKey(int rowIndex, int columnIndex) {
+        return ((long) rowIndex << 32) | columnIndex;
+    }
+
+    static int getRow(long cellKey) {
+        return (int) (cellKey >>> 32);
+    }
+
+    static int getColumn(long cellKey) {
+        return (int) cellKey;
+    }
+}
@@ -57,13 +57,37 @@ class CustomDataFormatter extends VDataFormatter implements Serializable {
     private final int ZERO_FORMAT_INDEX = 2;
     private final int TEXT_FORMAT_INDEX = 3;
     private Locale locale;
+    /** Metadata of the cell styles, or null to read it for every cell */
+    private final CellStyleMetadata cellStyleMetadata;
 
     public CustomDataFormatter() {
+        this((CellStyleMetadata) null);
     }
 
     public CustomDataFormatter(Locale locale) {
+        this(locale, null);
+    }
+
+    /**
+     * @param cellStyleMetadata
+     *            Metadata of the cell styles of the formatted cells, or
+     *            <code>null</code> to read it from the style of every cell
+     */
+    CustomDataFormatter(CellStyleMetadata cellStyleMetadata) {
+        this.cellStyleMetadata = cellStyleMetadata;
+    }
+
+    /**
+     * @param locale
+     *            Locale of the formatted values
+     * @param cellStyleMetadata
+     *            Metadata of the cell styles of the formatted cells, or
+     *            <code>null</code> to read it from the style of every cell
+     */
+    CustomDataFormatter(Locale locale, CellStyleMetadata cellStyleMetadata) {
         super(locale);
         this.locale = locale;
+        this.cellStyleMetadata = cellStyleMetadata;
     }
 
     /**
@@ -81,22 +105,21 @@ class CustomDataFormatter extends VDataFormatter implements Serializable {
             return super.formatCellValue(cell, evaluator, cfEvaluator);
         }
 
-        final String dataFormatString = cell.getCellStyle()
-                .getDataFormatString();
+        final CellStyleMetadata.Entry style = getCellStyleMetadata(cell);
+        final String[] parts = style.getDataFormatParts();
 
-        if (isGeneralFormat(dataFormatString)) {
+        if (parts == null) {
+            // General format
             return super.formatCellValue(cell, evaluator, cfEvaluator);
         }
 
-        final String[] parts = dataFormatString.split(";", -1);
-
         final CellType cellType = getCellType(cell, evaluator);
 
         if (cellType == CellType.NUMERIC) {
             return formatNumericValueUsingFormatPart(cell, evaluator,
                     cfEvaluator, parts);
         } else if (cellType == CellType.STRING && parts.length == 4) {
-            return formatStringCellValue(cell, dataFormatString, parts);
+            return formatStringCellValue(cell, style, parts);
         } else {
             return super.formatCellValue(cell, evaluator, cfEvaluator);
         }
@@ -144,6 +167,13 @@ class CustomDataFormatter extends VDataFormatter implements Serializable {
         return VCellFormat.getInstance(locale, format).apply(cell);
     }
 
+    private CellStyleMetadata.Entry getCellStyleMetadata(Cell cell) {
+        if (cellStyleMetadata == null) {
+            return new CellStyleMetadata.Entry(cell.getCellStyle());
+        }
+        return cellStyleMetadata.get(cell.getCellStyle());
+    }
+
     /**
      * Get the applicable text color for the cell. This uses Apache POI's
      * CellFormat logic, which parses and evaluates the cell's format string
@@ -157,12 +187,13 @@ class CustomDataFormatter extends VDataFormatter implements Serializable {
      */
     public String getCellTextColor(Cell cell) {
         try {
-            final String format = cell.getCellStyle().getDataFormatString();
-            if (format == null || format.isEmpty() || isGeneralFormat(format)) {
+            final CellStyleMetadata.Entry style = getCellStyleMetadata(cell);
+            final String format = style.getDataFormatString();
+            if (format == null || format.isEmpty() || style.isGeneral()) {
                 return null;
             }
 
-            CellFormatResult result = formatTextUsingCellFormat(cell, format);
+            CellFormatResult result = style.getCellFormat(locale).apply(cell);
 
             if (result.textColor == null) {
                 return null;
@@ -219,19 +250,15 @@ class CustomDataFormatter extends VDataFormatter implements Serializable {
         return !NUMBER_PATTERN.matcher(format).find();
     }
 
-    private boolean isGeneralFormat(String format) {
-        return "General".equals(format);
-    }
-
     /**
      * DataFormatter cannot format strings, but CellFormat can.
      */
-    private String formatStringCellValue(Cell cell, String formatString,
-            String[] parts) {
+    private String formatStringCellValue(Cell cell,
+            CellStyleMetadata.Entry style, String[] parts) {
         if (parts[TEXT_FORMAT_INDEX].isEmpty()) {
             return "";
         }
 
-        return formatTextUsingCellFormat(cell, formatString).text;
+        return style.getCellFormat(locale).apply(cell).text;
     }
 }
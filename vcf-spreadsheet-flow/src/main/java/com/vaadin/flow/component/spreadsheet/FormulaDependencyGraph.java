@@ -0,0 +1,740 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.hssf.usermodel.HSSFEvaluationWorkbook;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.EvaluationName;
+import org.apache.poi.ss.formula.EvaluationWorkbook;
+import org.apache.poi.ss.formula.FormulaParser;
+import org.apache.poi.ss.formula.FormulaParsingWorkbook;
+import org.apache.poi.ss.formula.FormulaType;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.Area3DPtg;
+import org.apache.poi.ss.formula.ptg.AreaPtgBase;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.NameXPtg;
+import org.apache.poi.ss.formula.ptg.NameXPxg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.Pxg;
+import org.apache.poi.ss.formula.ptg.Pxg3D;
+import org.apache.poi.ss.formula.ptg.Ref3DPtg;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Precedent/dependent index over the formula cells of a workbook.
+ * <p>
+ * Each formula cell is parsed once and the cells and ranges it references are
+ * stored, so that the cells affected by a change can be resolved without
+ * evaluating or re-parsing any formulas. Single cell references are kept in a
+ * hash index, ranges are bucketed by column unless they are very wide.
+ * <p>
+ * Formulas that can't be resolved statically (volatile functions such as
+ * INDIRECT or NOW, external references, parse errors) are considered to
+ * depend on every cell.
+ * <p>
+ * All row and column indexes used by this class are 0-based.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+class FormulaDependencyGraph implements Serializable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(FormulaDependencyGraph.class);
+
+    static final Set<String> VOLATILE_FUNCTIONS = new HashSet<>(
+            Arrays.asList("INDIRECT", "OFFSET", "NOW", "TODAY", "RAND",
+                    "RANDBETWEEN", "CELL", "INFO"));
+
+    /** Functions that can reference cells not visible in the formula. */
+    private static final Set<String> DYNAMIC_REFERENCE_FUNCTIONS = new HashSet<>(
+            Arrays.asList("INDIRECT", "OFFSET"));
+
+    /** Ranges wider than this are not bucketed by column. */
+    private static final int MAX_BUCKETED_AREA_WIDTH = 64;
+
+    /** Limit for names that refer to other names. */
+    private static final int MAX_NAME_DEPTH = 8;
+
+    /**
+     * A range referenced by a formula cell.
+     */
+    private static final class Area implements Serializable {
+        private final int sheet;
+        private final int firstRow;
+        private final int lastRow;
+        private final int firstCol;
+        private final int lastCol;
+        private final long dependent;
+
+        private Area(int sheet, int firstRow, int lastRow, int firstCol,
+                int lastCol, long dependent) {
+            this.sheet = sheet;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.firstCol = firstCol;
+            this.lastCol = lastCol;
+            this.dependent = dependent;
+        }
+
+        private boolean contains(int sheet, int row, int col) {
+            return this.sheet == sheet && row >= firstRow && row <= lastRow
+                    && col >= firstCol && col <= lastCol;
+        }
+
+        private boolean isBucketed() {
+            return lastCol - firstCol < MAX_BUCKETED_AREA_WIDTH;
+        }
+    }
+
+    /**
+     * The parsed precedents of a single formula cell.
+     */
+    private static final class FormulaNode implements Serializable {
+        private final String formula;
+        private final List<Long> cells = new ArrayList<>();
+        private final List<Area> areas = new ArrayList<>();
+        private boolean isVolatile;
+        private boolean isUnresolved;
+
+        private FormulaNode(String formula) {
+            this.formula = formula;
+        }
+    }
+
+    private final Workbook workbook;
+    private transient EvaluationWorkbook evaluationWorkbook;
+
+    private final Map<Long, FormulaNode> formulaCells = new HashMap<>();
+    private final Map<Long, Set<Long>> cellDependents = new HashMap<>();
+    private final Map<Long, Set<Area>> columnAreas = new HashMap<>();
+    private final Set<Area> wideAreas = new LinkedHashSet<>();
+    private final Set<Long> volatileCells = new HashSet<>();
+    private boolean built;
+    private boolean enabled = true;
+
+    /**
+     * Creates a new, not yet built, dependency graph for the given workbook.
+     *
+     * @param workbook
+     *            Workbook to index
+     */
+    FormulaDependencyGraph(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    /**
+     * Returns whether the workbook type is supported. For unsupported
+     * workbooks (e.g. streaming workbooks) callers should assume every formula
+     * cell may have changed.
+     *
+     * @return <code>true</code> if the graph can be used
+     */
+    boolean isEnabled() {
+        return enabled && (workbook instanceof XSSFWorkbook
+                || workbook instanceof HSSFWorkbook);
+    }
+
+    /**
+     * Enables or disables the graph. A disabled graph is not built, e.g. while
+     * the workbook doesn't contain all of its cells yet.
+     *
+     * @param enabled
+     *            <code>false</code> to disable the graph
+     */
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        clear();
+    }
+
+    /**
+     * Parses all formula cells in the workbook and rebuilds the graph.
+     */
+    void rebuild() {
+        clear();
+        if (!isEnabled()) {
+            return;
+        }
+        for (int s = 0; s < workbook.getNumberOfSheets(); s++) {
+            addSheet(s);
+        }
+        built = true;
+    }
+
+    /**
+     * Drops the graph. It is rebuilt on next use.
+     */
+    void invalidate() {
+        clear();
+    }
+
+    /**
+     * Re-indexes the formula cells of the given sheet and all formula cells
+     * that reference it. Should be called after rows of the sheet have been
+     * shifted, since that moves formula cells and rewrites references.
+     *
+     * @param sheetIndex
+     *            POI index of the sheet, 0-based
+     */
+    void rebuildSheet(int sheetIndex) {
+        if (!built) {
+            return;
+        }
+        final List<Long> referencing = new ArrayList<>();
+        for (Map.Entry<Long, FormulaNode> entry : new ArrayList<>(
+                formulaCells.entrySet())) {
+            long key = entry.getKey();
+            if (getSheet(key) == sheetIndex) {
+                removeNode(key);
+            } else if (references(entry.getValue(), sheetIndex)) {
+                removeNode(key);
+                referencing.add(key);
+            }
+        }
+        for (long key : referencing) {
+            Sheet sheet = workbook.getSheetAt(getSheet(key));
+            Row row = sheet.getRow(getRow(key));
+            Cell cell = row == null ? null : row.getCell(getCol(key));
+            if (cell != null) {
+                update(cell);
+            }
+        }
+        addSheet(sheetIndex);
+    }
+
+    /**
+     * Updates the graph for the given cell after its content has changed.
+     * Formulas are only re-parsed if the formula text differs from the indexed
+     * one.
+     *
+     * @param cell
+     *            Changed cell
+     */
+    void update(Cell cell) {
+        if (!built) {
+            return;
+        }
+        final long key = toKey(cell);
+        final FormulaNode old = formulaCells.get(key);
+        if (cell.getCellType() != CellType.FORMULA) {
+            if (old != null) {
+                removeNode(key);
+            }
+            return;
+        }
+        final String formula = cell.getCellFormula();
+        if (old != null) {
+            if (old.formula.equals(formula)) {
+                return;
+            }
+            removeNode(key);
+        }
+        addNode(key, formula);
+    }
+
+    /**
+     * Removes the given cell from the graph.
+     *
+     * @param cell
+     *            Deleted cell
+     */
+    void remove(Cell cell) {
+        if (built) {
+            removeNode(toKey(cell));
+        }
+    }
+
+    /**
+     * Resolves the formula cells of the given sheet that directly or
+     * transitively depend on any of the given changed cells. Volatile formula
+     * cells of the sheet are always included.
+     *
+     * @param sheetIndex
+     *            POI index of the sheet, 0-based
+     * @param changedCells
+     *            Changed cells of the sheet, with 1-based coordinates
+     * @return Affected formula cells of the sheet, with 1-based coordinates
+     */
+    CellCoordinateSet getDependentFormulaCells(int sheetIndex,
+            CellCoordinateSet changedCells) {
+        ensureBuilt();
+        final Set<Long> visited = new HashSet<>();
+        final Deque<Long> queue = new ArrayDeque<>();
+        changedCells.forEach((col, row) -> queue
+                .add(toKey(sheetIndex, row - 1, col - 1)));
+        return resolveDependents(sheetIndex, queue, visited);
+    }
+
+    /**
+     * Resolves the formula cells of the given sheet that directly or
+     * transitively depend on any cell in the given rows, e.g. after the rows
+     * have been shifted. Volatile formula cells of the sheet are always
+     * included.
+     *
+     * @param sheetIndex
+     *            POI index of the sheet, 0-based
+     * @param firstRow
+     *            First changed row, 0-based
+     * @param lastRow
+     *            Last changed row, 0-based
+     * @return Affected formula cells of the sheet, with 1-based coordinates
+     */
+    CellCoordinateSet getDependentFormulaCells(int sheetIndex, int firstRow,
+            int lastRow) {
+        ensureBuilt();
+        final Set<Long> visited = new HashSet<>();
+        final Deque<Long> queue = new ArrayDeque<>();
+        for (Map.Entry<Long, FormulaNode> entry : formulaCells.entrySet()) {
+            if (references(entry.getValue(), sheetIndex, firstRow, lastRow)
+                    && visited.add(entry.getKey())) {
+                queue.add(entry.getKey());
+            }
+        }
+        return resolveDependents(sheetIndex, queue, visited);
+    }
+
+    /**
+     * Adds the dependents of the cells in the queue to the visited cells until
+     * the queue is empty, and returns the visited cells of the given sheet
+     * together with its volatile cells.
+     */
+    private CellCoordinateSet resolveDependents(int sheetIndex,
+            Deque<Long> queue, Set<Long> visited) {
+        while (!queue.isEmpty()) {
+            long key = queue.poll();
+            for (long dependent : getDirectDependents(key)) {
+                if (visited.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        visited.addAll(volatileCells);
+
+        final CellCoordinateSet result = new CellCoordinateSet();
+        for (long key : visited) {
+            if (getSheet(key) == sheetIndex) {
+                result.add(getCol(key) + 1, getRow(key) + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the existing cells that the formula in the given cell directly
+     * references.
+     *
+     * @param sheetIndex
+     *            POI index of the sheet of the cell
+     * @param row
+     *            Row index, 0-based
+     * @param col
+     *            Column index, 0-based
+     * @return referenced cells, empty if the cell doesn't contain a formula
+     */
+    Set<CellReference> getPrecedents(int sheetIndex, int row, int col) {
+        ensureBuilt();
+        final FormulaNode node = formulaCells.get(toKey(sheetIndex, row, col));
+        if (node == null) {
+            return Collections.emptySet();
+        }
+        final Set<CellReference> precedents = new LinkedHashSet<>();
+        for (long key : node.cells) {
+            precedents.add(toCellReference(key));
+        }
+        for (Area area : node.areas) {
+            final Sheet sheet = workbook.getSheetAt(area.sheet);
+            final int lastRow = Math.min(area.lastRow, sheet.getLastRowNum());
+            for (int r = area.firstRow; r <= lastRow; r++) {
+                final Row precedentRow = sheet.getRow(r);
+                if (precedentRow == null) {
+                    continue;
+                }
+                final int lastCol = Math.min(area.lastCol,
+                        precedentRow.getLastCellNum() - 1);
+                for (int c = area.firstCol; c <= lastCol; c++) {
+                    if (precedentRow.getCell(c) != null) {
+                        precedents.add(new CellReference(
+                                sheet.getSheetName(), r, c, false, false));
+                    }
+                }
+            }
+        }
+        return precedents;
+    }
+
+    /**
+     * Returns the formula cells that directly reference the given cell.
+     *
+     * @param sheetIndex
+     *            POI index of the sheet of the cell
+     * @param row
+     *            Row index, 0-based
+     * @param col
+     *            Column index, 0-based
+     * @return the dependent formula cells
+     */
+    Set<CellReference> getDependents(int sheetIndex, int row, int col) {
+        ensureBuilt();
+        final Set<CellReference> dependents = new LinkedHashSet<>();
+        for (long key : getDirectDependents(toKey(sheetIndex, row, col))) {
+            dependents.add(toCellReference(key));
+        }
+        return dependents;
+    }
+
+    /**
+     * Parses the given formula without adding it to the graph and returns the
+     * ranges it references, as <code>{sheet, firstRow, lastRow, firstCol,
+     * lastCol}</code> arrays.
+     *
+     * @param sheetIndex
+     *            POI index of the sheet of the formula
+     * @param row
+     *            Row index of the formula, 0-based
+     * @param formula
+     *            Formula to parse
+     * @return the referenced ranges, or <code>null</code> if the formula can
+     *         reference cells that can't be resolved statically
+     */
+    List<int[]> parsePrecedentAreas(int sheetIndex, int row, String formula) {
+        final FormulaNode node = new FormulaNode(formula);
+        try {
+            final Ptg[] ptgs = FormulaParser.parse(formula,
+                    (FormulaParsingWorkbook) getEvaluationWorkbook(),
+                    FormulaType.CELL, sheetIndex, row);
+            collectPrecedents(node, ptgs, sheetIndex,
+                    toKey(sheetIndex, row, 0), 0);
+        } catch (RuntimeException e) {
+            LOGGER.trace(e.getMessage(), e);
+            return null;
+        }
+        if (node.isUnresolved) {
+            return null;
+        }
+        final List<int[]> areas = new ArrayList<>();
+        for (long key : node.cells) {
+            areas.add(new int[] { getSheet(key), getRow(key), getRow(key),
+                    getCol(key), getCol(key) });
+        }
+        for (Area area : node.areas) {
+            areas.add(new int[] { area.sheet, area.firstRow, area.lastRow,
+                    area.firstCol, area.lastCol });
+        }
+        return areas;
+    }
+
+    private Set<Long> getDirectDependents(long key) {
+        final int sheet = getSheet(key);
+        final int row = getRow(key);
+        final int col = getCol(key);
+        final Set<Long> dependents = new HashSet<>();
+        final Set<Long> direct = cellDependents.get(key);
+        if (direct != null) {
+            dependents.addAll(direct);
+        }
+        final Set<Area> bucket = columnAreas.get(toColumnKey(sheet, col));
+        if (bucket != null) {
+            for (Area area : bucket) {
+                if (area.contains(sheet, row, col)) {
+                    dependents.add(area.dependent);
+                }
+            }
+        }
+        for (Area area : wideAreas) {
+            if (area.contains(sheet, row, col)) {
+                dependents.add(area.dependent);
+            }
+        }
+        return dependents;
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            rebuild();
+        }
+    }
+
+    private void clear() {
+        formulaCells.clear();
+        cellDependents.clear();
+        columnAreas.clear();
+        wideAreas.clear();
+        volatileCells.clear();
+        evaluationWorkbook = null;
+        built = false;
+    }
+
+    private void addSheet(int sheetIndex) {
+        for (Row row : workbook.getSheetAt(sheetIndex)) {
+            for (Cell cell : row) {
+                if (cell.getCellType() == CellType.FORMULA) {
+                    addNode(toKey(cell), cell.getCellFormula());
+                }
+            }
+        }
+    }
+
+    private void addNode(long key, String formula) {
+        final FormulaNode node = new FormulaNode(formula);
+        try {
+            final Ptg[] ptgs = FormulaParser.parse(formula,
+                    (FormulaParsingWorkbook) getEvaluationWorkbook(),
+                    FormulaType.CELL, getSheet(key), getRow(key));
+            collectPrecedents(node, ptgs, getSheet(key), key, 0);
+        } catch (RuntimeException e) {
+            // POI throws RuntimeExceptions for formulas it can't parse
+            LOGGER.trace(e.getMessage(), e);
+            node.isVolatile = true;
+        }
+        formulaCells.put(key, node);
+        if (node.isVolatile) {
+            volatileCells.add(key);
+        }
+        for (long precedent : node.cells) {
+            cellDependents.computeIfAbsent(precedent, k -> new HashSet<>())
+                    .add(key);
+        }
+        for (Area area : node.areas) {
+            if (area.isBucketed()) {
+                for (int c = area.firstCol; c <= area.lastCol; c++) {
+                    columnAreas.computeIfAbsent(toColumnKey(area.sheet, c),
+                            k -> new LinkedHashSet<>()).add(area);
+                }
+            } else {
+                wideAreas.add(area);
+            }
+        }
+    }
+
+    private void removeNode(long key) {
+        final FormulaNode node = formulaCells.remove(key);
+        if (node == null) {
+            return;
+        }
+        volatileCells.remove(key);
+        for (long precedent : node.cells) {
+            Set<Long> dependents = cellDependents.get(precedent);
+            if (dependents != null) {
+                dependents.remove(key);
+                if (dependents.isEmpty()) {
+                    cellDependents.remove(precedent);
+                }
+            }
+        }
+        for (Area area : node.areas) {
+            if (area.isBucketed()) {
+                for (int c = area.firstCol; c <= area.lastCol; c++) {
+                    long columnKey = toColumnKey(area.sheet, c);
+                    Set<Area> bucket = columnAreas.get(columnKey);
+                    if (bucket != null) {
+                        bucket.remove(area);
+                        if (bucket.isEmpty()) {
+                            columnAreas.remove(columnKey);
+                        }
+                    }
+                }
+            } else {
+                wideAreas.remove(area);
+            }
+        }
+    }
+
+    private void collectPrecedents(FormulaNode node, Ptg[] ptgs,
+            int formulaSheet, long dependent, int depth) {
+        for (Ptg ptg : ptgs) {
+            if (ptg instanceof NameXPtg || ptg instanceof NameXPxg) {
+                // external names can't be resolved
+                node.isVolatile = true;
+                node.isUnresolved = true;
+            } else if (ptg instanceof NamePtg) {
+                EvaluationName name = getEvaluationWorkbook()
+                        .getName((NamePtg) ptg);
+                if (name == null || depth >= MAX_NAME_DEPTH) {
+                    node.isVolatile = true;
+                    node.isUnresolved = true;
+                } else if (name.hasFormula()) {
+                    collectPrecedents(node, name.getNameDefinition(),
+                            formulaSheet, dependent, depth + 1);
+                }
+            } else if (ptg instanceof AbstractFunctionPtg) {
+                String function = ((AbstractFunctionPtg) ptg).getName();
+                if (VOLATILE_FUNCTIONS.contains(function)) {
+                    node.isVolatile = true;
+                }
+                if (DYNAMIC_REFERENCE_FUNCTIONS.contains(function)) {
+                    node.isUnresolved = true;
+                }
+            } else if (ptg instanceof RefPtgBase) {
+                RefPtgBase ref = (RefPtgBase) ptg;
+                int[] sheets = resolveSheets(ptg, formulaSheet);
+                if (sheets == null) {
+                    node.isVolatile = true;
+                    node.isUnresolved = true;
+                    continue;
+                }
+                for (int s = sheets[0]; s <= sheets[1]; s++) {
+                    node.cells.add(toKey(s, ref.getRow(), ref.getColumn()));
+                }
+            } else if (ptg instanceof AreaPtgBase) {
+                AreaPtgBase area = (AreaPtgBase) ptg;
+                int[] sheets = resolveSheets(ptg, formulaSheet);
+                if (sheets == null) {
+                    node.isVolatile = true;
+                    node.isUnresolved = true;
+                    continue;
+                }
+                for (int s = sheets[0]; s <= sheets[1]; s++) {
+                    node.areas.add(new Area(s, area.getFirstRow(),
+                            area.getLastRow(), area.getFirstColumn(),
+                            area.getLastColumn(), dependent));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return first and last POI sheet index the reference points to, or
+     *         <code>null</code> if the reference can't be resolved within this
+     *         workbook
+     */
+    private int[] resolveSheets(Ptg ptg, int formulaSheet) {
+        if (ptg instanceof Pxg) {
+            Pxg pxg = (Pxg) ptg;
+            if (pxg.getExternalWorkbookNumber() > 0) {
+                return null;
+            }
+            int first = pxg.getSheetName() == null ? formulaSheet
+                    : workbook.getSheetIndex(pxg.getSheetName());
+            int last = first;
+            if (pxg instanceof Pxg3D
+                    && ((Pxg3D) pxg).getLastSheetName() != null) {
+                last = workbook.getSheetIndex(((Pxg3D) pxg).getLastSheetName());
+            }
+            return first < 0 || last < first ? null : new int[] { first, last };
+        }
+        int externSheetIndex;
+        if (ptg instanceof Ref3DPtg) {
+            externSheetIndex = ((Ref3DPtg) ptg).getExternSheetIndex();
+        } else if (ptg instanceof Area3DPtg) {
+            externSheetIndex = ((Area3DPtg) ptg).getExternSheetIndex();
+        } else {
+            return new int[] { formulaSheet, formulaSheet };
+        }
+        if (getEvaluationWorkbook()
+                .getExternalSheet(externSheetIndex) != null) {
+            return null;
+        }
+        int sheet = getEvaluationWorkbook()
+                .convertFromExternSheetIndex(externSheetIndex);
+        return sheet < 0 ? null : new int[] { sheet, sheet };
+    }
+
+    private static boolean references(FormulaNode node, int sheetIndex) {
+        for (long key : node.cells) {
+            if (getSheet(key) == sheetIndex) {
+                return true;
+            }
+        }
+        for (Area area : node.areas) {
+            if (area.sheet == sheetIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean references(FormulaNode node, int sheetIndex,
+            int firstRow, int lastRow) {
+        if (node.isUnresolved) {
+            return true;
+        }
+        for (long key : node.cells) {
+            if (getSheet(key) == sheetIndex && getRow(key) >= firstRow
+                    && getRow(key) <= lastRow) {
+                return true;
+            }
+        }
+        for (Area area : node.areas) {
+            if (area.sheet == sheetIndex && area.firstRow <= lastRow
+                    && area.lastRow >= firstRow) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private EvaluationWorkbook getEvaluationWorkbook() {
+        if (evaluationWorkbook == null) {
+            if (workbook instanceof HSSFWorkbook) {
+                evaluationWorkbook = HSSFEvaluationWorkbook
+                        .create((HSSFWorkbook) workbook);
+            } else {
+                evaluationWorkbook = XSSFEvaluationWorkbook
+                        .create((XSSFWorkbook) workbook);
+            }
+        }
+        return evaluationWorkbook;
+    }
+
+    private CellReference toCellReference(long key) {
+        return new CellReference(
+                workbook.getSheetAt(getSheet(key)).getSheetName(), getRow(key),
+                getCol(key), false, false);
+    }
+
+    private long toKey(Cell cell) {
+        final Sheet sheet = cell.getSheet();
+        return toKey(workbook.getSheetIndex(sheet), cell.getRowIndex(),
+                cell.getColumnIndex());
+    }
+
+    private static long toKey(int sheet, int row, int col) {
+        return ((long) sheet << 40) | ((long) row << 20) | col;
+    }
+
+    private static long toColumnKey(int sheet, int col) {
+        return ((long) sheet << 20) | col;
+    }
+
+    private static int getSheet(long key) {
+        return (int) (key >>> 40);
+    }
+
+    private static int getRow(long key) {
+        return (int) ((key >>> 20) & 0xFFFFF);
+    }
+
+    private static int getCol(long key) {
+        return (int) (key & 0xFFFFF);
+    }
+}
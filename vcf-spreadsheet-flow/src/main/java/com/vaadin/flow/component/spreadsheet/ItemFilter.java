@@ -9,6 +9,7 @@
 package com.vaadin.flow.component.spreadsheet;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -18,6 +19,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
 
 import com.vaadin.flow.component.checkbox.Checkbox;
@@ -36,6 +38,10 @@ import com.vaadin.flow.data.provider.ListDataProvider;
  * <p>
  * Has a check box for selecting all items (cell values), and one check box per
  * unique cell value that can be found within the cells of the table column.
+ * <p>
+ * The distinct values of the column are indexed to row bitmaps once, so
+ * changing the selection doesn't re-read the cells. The index is rebuilt when
+ * cells of the column change.
  */
 @SuppressWarnings("serial")
 public class ItemFilter extends Div implements SpreadsheetFilter {
@@ -53,6 +59,8 @@ public class ItemFilter extends Div implements SpreadsheetFilter {
     private boolean firstUpdate = true;
     private boolean cancelValueChangeUpdate;
     private SpreadsheetFilterTable filterTable;
+    private ColumnValueIndex valueIndex;
+    private BitSet filteredRowBitmap;
     private Set<Integer> filteredRows;
 
     /**
@@ -76,7 +84,9 @@ public class ItemFilter extends Div implements SpreadsheetFilter {
         this.filterTable = filterTable;
 
         allCellValues = new ArrayList<>();
-        filteredRows = new HashSet<>();
+        valueIndex = new ColumnValueIndex(spreadsheet, filterTable.getSheet(),
+                filterRange);
+        filteredRowBitmap = new BitSet();
         latestFilteredValues = new LinkedHashSet<>();
         initComponents();
         updateOptions();
@@ -257,12 +267,20 @@ public class ItemFilter extends Div implements SpreadsheetFilter {
      *         column
      */
     protected Set<String> getVisibleValues() {
+        final int firstRow = filterRange.getFirstRow();
+        final BitSet visibleRows = new BitSet(valueIndex.getRowCount());
+        visibleRows.set(0, valueIndex.getRowCount());
+        visibleRows.andNot(filteredRowBitmap);
+        for (int i = visibleRows.nextSetBit(0); i >= 0; i = visibleRows
+                .nextSetBit(i + 1)) {
+            if (spreadsheet.isRowHidden(firstRow + i)) {
+                visibleRows.clear(i);
+            }
+        }
         Set<String> values = new HashSet<>();
-        for (int r = filterRange.getFirstRow(); r <= filterRange
-                .getLastRow(); r++) {
-            if (!filteredRows.contains(r) && !spreadsheet.isRowHidden(r)) {
-                values.add(spreadsheet.getCellValue(
-                        spreadsheet.getCell(r, filterRange.getFirstColumn())));
+        for (String value : valueIndex.getValues()) {
+            if (valueIndex.getRows(value).intersects(visibleRows)) {
+                values.add(value);
             }
         }
         return values;
@@ -274,13 +292,7 @@ public class ItemFilter extends Div implements SpreadsheetFilter {
      * @return All unique values within this column
      */
     protected Set<String> getAllValues() {
-        Set<String> values = new HashSet<>();
-        for (int r = filterRange.getFirstRow(); r <= filterRange
-                .getLastRow(); r++) {
-            values.add(spreadsheet.getCellValue(
-                    spreadsheet.getCell(r, filterRange.getFirstColumn())));
-        }
-        return values;
+        return new HashSet<>(valueIndex.getValues());
     }
 
     /**
@@ -290,31 +302,65 @@ public class ItemFilter extends Div implements SpreadsheetFilter {
      *            the values that are NOT filtered
      */
     protected void updateFilteredItems(Collection<String> visibleValues) {
-        filteredRows.clear();
-        for (int r = filterRange.getFirstRow(); r <= filterRange
-                .getLastRow(); r++) {
-            String cellValue = spreadsheet.getCellValue(
-                    spreadsheet.getCell(r, filterRange.getFirstColumn()));
-            if (!visibleValues.contains(cellValue)) {
-                filteredRows.add(r);
-            }
-        }
+        final BitSet rows = valueIndex.getRows(visibleValues);
+        rows.flip(0, valueIndex.getRowCount());
+        filteredRowBitmap = rows;
+        filteredRows = null;
         latestFilteredValues = new ArrayList<>(visibleValues);
 
         filterTable.onFiltersUpdated();
     }
 
+    /**
+     * Notifies this filter that the given cell has changed, so that the
+     * indexed column values are rebuilt when needed.
+     *
+     * @param sheet
+     *            Sheet of the changed cell
+     * @param row
+     *            Row index, 0-based
+     * @param col
+     *            Column index, 0-based
+     */
+    void cellChanged(Sheet sheet, int row, int col) {
+        valueIndex.cellChanged(sheet, row, col);
+    }
+
+    /**
+     * Drops the indexed column values, they are rebuilt on next use.
+     */
+    void invalidateValueIndex() {
+        valueIndex.invalidate();
+    }
+
     @Override
     public Set<Integer> getFilteredRows() {
+        if (filteredRows == null) {
+            filteredRows = new HashSet<>();
+            final int firstRow = filterRange.getFirstRow();
+            for (int i = filteredRowBitmap.nextSetBit(0); i >= 0; i = filteredRowBitmap
+                    .nextSetBit(i + 1)) {
+                filteredRows.add(firstRow + i);
+            }
+        }
         return filteredRows;
     }
 
+    @Override
+    public BitSet getFilteredRowBitmap(int firstRow) {
+        if (firstRow == filterRange.getFirstRow()) {
+            return filteredRowBitmap;
+        }
+        return SpreadsheetFilter.super.getFilteredRowBitmap(firstRow);
+    }
+
     @Override
     public void clearFilter() {
         cancelValueChangeUpdate = true;
         allItems.setValue(true);
         filterCheckbox.setValue(new HashSet<>(allCellValues));
-        filteredRows.clear();
+        filteredRowBitmap = new BitSet();
+        filteredRows = null;
         cancelValueChangeUpdate = false;
     }
 }
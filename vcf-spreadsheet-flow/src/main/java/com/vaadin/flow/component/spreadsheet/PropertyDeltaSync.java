@@ -0,0 +1,419 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Synchronizes large Spreadsheet element properties, such as the row heights
+ * and the style maps, to the client with deltas instead of re-sending the
+ * whole value on every change.
+ * <p>
+ * The changes of a property are collected until the response is written.
+ * Then the value is compared to the one the client already has, and either a
+ * versioned delta is sent or, when the delta would not be smaller or no
+ * previous value exists, a full snapshot is set as the element property. Array
+ * and list deltas are splices of <code>[start, deleteCount, [values]]</code>,
+ * map deltas consist of removed keys and put key-value pairs, and set deltas
+ * of removed and added values.
+ * <p>
+ * The client checks that a delta is based on the version it has. If not, it
+ * requests a new snapshot with a <code>property-resync</code> event.
+ * <p>
+ * Only a compact form of the sent values is kept for computing the deltas:
+ * list elements and map values are replaced by hashes, while map keys and set
+ * elements are kept as the deltas refer to them. See
+ * {@link #fingerprint(Object)}.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+class PropertyDeltaSync implements Serializable {
+
+    /**
+     * Unchanged elements between two changed runs of an array that still get
+     * merged into the same splice.
+     */
+    private static final int MAX_SPLICE_GAP = 8;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Spreadsheet spreadsheet;
+
+    private final Map<String, Object> current = new HashMap<>();
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+    /** Fingerprints of the values the client has, by property name */
+    private final Map<String, Object> sent = new HashMap<>();
+    private final Map<String, Integer> versions = new HashMap<>();
+    private final Map<String, Long> sentBytes = new HashMap<>();
+    private final Set<String> snapshotRequired = new HashSet<>();
+    private final Set<String> staleProperties = new HashSet<>();
+
+    private boolean flushScheduled;
+
+    PropertyDeltaSync(Spreadsheet spreadsheet) {
+        this.spreadsheet = spreadsheet;
+    }
+
+    /**
+     * Sets the value of the given property. When the Spreadsheet is attached,
+     * the value is synchronized to the client before the response is written.
+     * The value is compared to the previously sent one at that point, so
+     * arrays and collections modified in place are also handled.
+     *
+     * @param name
+     *            Property name
+     * @param value
+     *            New value, an array, a list, a set or a map
+     */
+    void set(String name, Object value) {
+        current.put(name, value);
+        if (spreadsheet.isAttached()) {
+            pending.put(name, value);
+            scheduleFlush();
+        } else {
+            pending.remove(name);
+            sendSnapshot(name, value);
+        }
+    }
+
+    /**
+     * Records that the client has already been updated to the given value of
+     * the property by other means, e.g. by a dedicated client RPC.
+     *
+     * @param name
+     *            Property name
+     * @param value
+     *            Value the client now has
+     */
+    void markSent(String name, Object value) {
+        current.put(name, value);
+        if (!pending.containsKey(name)) {
+            sent.put(name, fingerprint(value));
+            staleProperties.add(name);
+        }
+    }
+
+    /**
+     * Makes the next update of every property a full snapshot, e.g. when the
+     * sheet is reloaded.
+     */
+    void requestSnapshot() {
+        snapshotRequired.addAll(current.keySet());
+    }
+
+    /**
+     * Sends a full snapshot of the given property, as requested by the client
+     * after it has missed a delta.
+     *
+     * @param name
+     *            Property name
+     */
+    void resync(String name) {
+        if (current.containsKey(name)) {
+            snapshotRequired.add(name);
+            set(name, current.get(name));
+        }
+    }
+
+    /**
+     * Called when the Spreadsheet is attached. The new client element gets
+     * its state from the element properties, so pending and delta-updated
+     * properties are written there and the delta versions start over.
+     */
+    void attached() {
+        flushScheduled = false;
+        versions.clear();
+        Set<String> names = new HashSet<>(staleProperties);
+        names.addAll(pending.keySet());
+        pending.clear();
+        for (String name : names) {
+            sendSnapshot(name, current.get(name));
+        }
+    }
+
+    /**
+     * @param name
+     *            Property name
+     * @return the total number of bytes sent to the client for the property,
+     *         both in snapshots and deltas
+     */
+    long getSentBytes(String name) {
+        return sentBytes.getOrDefault(name, 0L);
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            spreadsheet.getUI().ifPresent(ui -> {
+                flushScheduled = true;
+                ui.beforeClientResponse(spreadsheet, context -> flush());
+            });
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        pending.forEach(this::sync);
+        pending.clear();
+    }
+
+    private void sync(String name, Object value) {
+        final Object previous = sent.get(name);
+        final Object fingerprint = fingerprint(value);
+        if (previous != null && value != null
+                && !snapshotRequired.contains(name)) {
+            if (contentEquals(previous, fingerprint)) {
+                return;
+            }
+            final Object delta = diff(previous, fingerprint, value);
+            if (delta != null) {
+                final int version = versions.getOrDefault(name, 0);
+                final String json = Serializer.serialize(delta);
+                spreadsheet.getElement().callJsFunction("applyPropertyDelta",
+                        name, version, json);
+                versions.put(name, version + 1);
+                sent.put(name, fingerprint);
+                staleProperties.add(name);
+                sentBytes.merge(name, (long) json.length(), Long::sum);
+                return;
+            }
+        }
+        sendSnapshot(name, value, fingerprint);
+    }
+
+    private void sendSnapshot(String name, Object value) {
+        sendSnapshot(name, value, fingerprint(value));
+    }
+
+    private void sendSnapshot(String name, Object value, Object fingerprint) {
+        final String json = Serializer.serialize(value);
+        // make sure the value is sent even if the element property was left
+        // behind by deltas and happens to match the new value
+        spreadsheet.getElement().removeProperty(name);
+        spreadsheet.getElement().setProperty(name, json);
+        versions.put(name, 0);
+        sent.put(name, fingerprint);
+        staleProperties.remove(name);
+        snapshotRequired.remove(name);
+        sentBytes.merge(name, json == null ? 0L : json.length(), Long::sum);
+    }
+
+    /**
+     * Returns the compact form of a value that is kept to compute the delta
+     * to the next value. Primitive arrays are copied, the elements of a list
+     * are replaced by their hashes, and the values of a map by their hashes
+     * keyed by the map keys. Sets are copied, as the removed elements are
+     * sent in the deltas.
+     *
+     * @param value
+     *            Value sent to the client, may be <code>null</code>
+     * @return the fingerprint of the value
+     */
+    private static Object fingerprint(Object value) {
+        if (value instanceof float[]) {
+            return ((float[]) value).clone();
+        } else if (value instanceof int[]) {
+            return ((int[]) value).clone();
+        } else if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            final long[] hashes = new long[list.size()];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = hash(list.get(i));
+            }
+            return hashes;
+        } else if (value instanceof Set) {
+            return new HashSet<>((Set<?>) value);
+        } else if (value instanceof Map) {
+            final Map<Object, Long> hashes = new HashMap<>();
+            for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                hashes.put(entry.getKey(), hash(entry.getValue()));
+            }
+            return hashes;
+        }
+        return value;
+    }
+
+    /**
+     * Returns a 64-bit FNV-1a hash of the string form of the given value, so
+     * that different values practically never have the same hash.
+     */
+    private static long hash(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        final String string = value.toString();
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < string.length(); i++) {
+            hash ^= string.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static boolean contentEquals(Object previous, Object fingerprint) {
+        if (previous instanceof float[] && fingerprint instanceof float[]) {
+            return Arrays.equals((float[]) previous, (float[]) fingerprint);
+        } else if (previous instanceof int[] && fingerprint instanceof int[]) {
+            return Arrays.equals((int[]) previous, (int[]) fingerprint);
+        } else if (previous instanceof long[]
+                && fingerprint instanceof long[]) {
+            return Arrays.equals((long[]) previous, (long[]) fingerprint);
+        }
+        return Objects.equals(previous, fingerprint);
+    }
+
+    /**
+     * @param previous
+     *            Fingerprint of the previous value
+     * @param fingerprint
+     *            Fingerprint of the new value
+     * @param value
+     *            New value
+     * @return the delta from the previous to the new value, or
+     *         <code>null</code> if a snapshot should be sent instead
+     */
+    @SuppressWarnings("unchecked")
+    private static Object diff(Object previous, Object fingerprint,
+            Object value) {
+        if (previous instanceof float[] && value instanceof float[]) {
+            final float[] a = (float[]) previous;
+            final float[] b = (float[]) value;
+            return diffSequence(a.length, b.length, (i, j) -> a[i] == b[j],
+                    (from, to) -> Arrays.copyOfRange(b, from, to));
+        } else if (previous instanceof int[] && value instanceof int[]) {
+            final int[] a = (int[]) previous;
+            final int[] b = (int[]) value;
+            return diffSequence(a.length, b.length, (i, j) -> a[i] == b[j],
+                    (from, to) -> Arrays.copyOfRange(b, from, to));
+        } else if (previous instanceof long[] && value instanceof List) {
+            final long[] a = (long[]) previous;
+            final long[] b = (long[]) fingerprint;
+            final List<?> list = (List<?>) value;
+            return diffSequence(a.length, b.length, (i, j) -> a[i] == b[j],
+                    (from, to) -> new ArrayList<>(list.subList(from, to)));
+        } else if (previous instanceof Set && value instanceof Set) {
+            return diffSet((Set<?>) previous, (Set<?>) value);
+        } else if (previous instanceof Map && value instanceof Map) {
+            return diffMap((Map<Object, Long>) previous,
+                    (Map<Object, Long>) fingerprint, (Map<?, ?>) value);
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ElementComparator {
+        boolean equal(int previousIndex, int index);
+    }
+
+    @FunctionalInterface
+    private interface Slicer {
+        Object slice(int from, int to);
+    }
+
+    private static List<Object> diffSequence(int previousSize, int size,
+            ElementComparator comparator, Slicer slicer) {
+        final List<Object> splices = new ArrayList<>();
+        int changed = 0;
+        if (previousSize == size) {
+            int i = 0;
+            while (i < size) {
+                if (comparator.equal(i, i)) {
+                    i++;
+                    continue;
+                }
+                final int start = i;
+                int end = i + 1;
+                int j = end;
+                while (j < size && j - end <= MAX_SPLICE_GAP) {
+                    if (!comparator.equal(j, j)) {
+                        end = j + 1;
+                    }
+                    j++;
+                }
+                splices.add(Arrays.asList(start, end - start,
+                        slicer.slice(start, end)));
+                changed += end - start + 3;
+                i = j;
+            }
+        } else {
+            final int min = Math.min(previousSize, size);
+            int prefix = 0;
+            while (prefix < min && comparator.equal(prefix, prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < min - prefix && comparator
+                    .equal(previousSize - 1 - suffix, size - 1 - suffix)) {
+                suffix++;
+            }
+            splices.add(Arrays.asList(prefix, previousSize - prefix - suffix,
+                    slicer.slice(prefix, size - suffix)));
+            changed += size - prefix - suffix + 3;
+        }
+        return changed * 2 < size ? splices : null;
+    }
+
+    private static Object diffMap(Map<Object, Long> previous,
+            Map<Object, Long> hashes, Map<?, ?> value) {
+        final List<String> remove = new ArrayList<>();
+        for (Object key : previous.keySet()) {
+            if (!value.containsKey(key)) {
+                remove.add(String.valueOf(key));
+            }
+        }
+        final List<Object> put = new ArrayList<>();
+        for (Entry<?, ?> entry : value.entrySet()) {
+            if (!Objects.equals(previous.get(entry.getKey()),
+                    hashes.get(entry.getKey()))) {
+                put.add(Arrays.asList(String.valueOf(entry.getKey()),
+                        entry.getValue()));
+            }
+        }
+        if ((remove.size() + put.size()) * 2 >= value.size()) {
+            return null;
+        }
+        final Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("remove", remove);
+        delta.put("put", put);
+        return delta;
+    }
+
+    private static Object diffSet(Set<?> previous, Set<?> value) {
+        final List<Object> remove = new ArrayList<>();
+        for (Object element : previous) {
+            if (!value.contains(element)) {
+                remove.add(element);
+            }
+        }
+        final List<Object> add = new ArrayList<>();
+        for (Object element : value) {
+            if (!previous.contains(element)) {
+                add.add(element);
+            }
+        }
+        if ((remove.size() + add.size()) * 2 >= value.size()) {
+            return null;
+        }
+        final Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("remove", remove);
+        delta.put("add", add);
+        return delta;
+    }
+}
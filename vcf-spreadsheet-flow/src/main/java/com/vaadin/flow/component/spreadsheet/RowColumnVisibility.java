@@ -0,0 +1,146 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Hidden rows and columns of the active sheet of a {@link Spreadsheet}.
+ * <p>
+ * The visibility is read from the sheet when it is loaded and kept up to date
+ * by the methods of {@link Spreadsheet} that hide, show, resize, group, filter
+ * or shift rows and columns, so that it can be queried in constant time instead
+ * of looking up the POI rows and column definitions. Changes made directly to
+ * the POI sheet are visible only after the sheet has been reloaded with
+ * {@link Spreadsheet#reload()}.
+ * <p>
+ * Indexes are 0-based.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+public final class RowColumnVisibility implements Serializable {
+
+    private final BitSet hiddenRows = new BitSet();
+    private final BitSet hiddenColumns = new BitSet();
+
+    RowColumnVisibility() {
+    }
+
+    /**
+     * @param rowIndex
+     *            0-based
+     * @return <code>true</code> if the given row is hidden
+     */
+    public boolean isRowHidden(int rowIndex) {
+        return rowIndex >= 0 && hiddenRows.get(rowIndex);
+    }
+
+    /**
+     * @param columnIndex
+     *            0-based
+     * @return <code>true</code> if the given column is hidden
+     */
+    public boolean isColumnHidden(int columnIndex) {
+        return columnIndex >= 0 && hiddenColumns.get(columnIndex);
+    }
+
+    /**
+     * Gets the first visible row at or after the given row.
+     *
+     * @param rowIndex
+     *            0-based
+     * @return the 0-based index of the visible row
+     */
+    public int getNextVisibleRow(int rowIndex) {
+        return hiddenRows.nextClearBit(Math.max(0, rowIndex));
+    }
+
+    /**
+     * Gets the last visible row at or before the given row.
+     *
+     * @param rowIndex
+     *            0-based
+     * @return the 0-based index of the visible row, or -1 if there is none
+     */
+    public int getPreviousVisibleRow(int rowIndex) {
+        return rowIndex < 0 ? -1 : hiddenRows.previousClearBit(rowIndex);
+    }
+
+    /**
+     * Gets the first visible column at or after the given column.
+     *
+     * @param columnIndex
+     *            0-based
+     * @return the 0-based index of the visible column
+     */
+    public int getNextVisibleColumn(int columnIndex) {
+        return hiddenColumns.nextClearBit(Math.max(0, columnIndex));
+    }
+
+    /**
+     * Gets the last visible column at or before the given column.
+     *
+     * @param columnIndex
+     *            0-based
+     * @return the 0-based index of the visible column, or -1 if there is none
+     */
+    public int getPreviousVisibleColumn(int columnIndex) {
+        return columnIndex < 0 ? -1
+                : hiddenColumns.previousClearBit(columnIndex);
+    }
+
+    /**
+     * @return a copy of the 0-based indexes of the hidden rows
+     */
+    public BitSet getHiddenRows() {
+        return (BitSet) hiddenRows.clone();
+    }
+
+    /**
+     * @return a copy of the 0-based indexes of the hidden columns
+     */
+    public BitSet getHiddenColumns() {
+        return (BitSet) hiddenColumns.clone();
+    }
+
+    /**
+     * Replaces the hidden rows.
+     *
+     * @param rowIndexes
+     *            1-based indexes of the hidden rows, may be <code>null</code>
+     */
+    void setHiddenRows(Collection<Integer> rowIndexes) {
+        set(hiddenRows, rowIndexes);
+    }
+
+    /**
+     * Replaces the hidden columns.
+     *
+     * @param columnIndexes
+     *            1-based indexes of the hidden columns, may be
+     *            <code>null</code>
+     */
+    void setHiddenColumns(Collection<Integer> columnIndexes) {
+        set(hiddenColumns, columnIndexes);
+    }
+
+    private static void set(BitSet bits, Collection<Integer> indexes) {
+        bits.clear();
+        if (indexes != null) {
+            for (Integer index : indexes) {
+                if (index != null && index > 0) {
+                    bits.set(index - 1);
+                }
+            }
+        }
+    }
+}
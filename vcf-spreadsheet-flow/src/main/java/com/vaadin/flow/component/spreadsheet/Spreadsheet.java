@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,9 +32,14 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleConsumer;
 import java.util.stream.Collectors;
 
 import org.apache.poi.hssf.usermodel.HSSFSheet;
@@ -87,7 +93,9 @@ import com.vaadin.flow.component.spreadsheet.action.SpreadsheetDefaultActionHand
 import com.vaadin.flow.component.spreadsheet.client.CellData;
 import com.vaadin.flow.component.spreadsheet.client.MergedRegion;
 import com.vaadin.flow.component.spreadsheet.client.MergedRegionUtil.MergedRegionContainer;
+import com.vaadin.flow.component.spreadsheet.client.MergedRegionUtil.MergedRegionIndex;
 import com.vaadin.flow.component.spreadsheet.client.OverlayInfo;
+import com.vaadin.flow.component.spreadsheet.client.SparseSizeModel;
 import com.vaadin.flow.component.spreadsheet.client.SpreadsheetActionDetails;
 import com.vaadin.flow.component.spreadsheet.command.SizeChangeCommand;
 import com.vaadin.flow.component.spreadsheet.command.SizeChangeCommand.Type;
@@ -176,8 +184,12 @@ public class Spreadsheet extends Component
     private float defRowH;
     private int defColW;
 
-    private float[] rowH;
-    private int[] colW;
+    private SparseSizeModel rowH;
+    private SparseSizeModel colW;
+
+    /** dense copies of the sizes, only built for sizing overlays */
+    private float[] rowHArray;
+    private int[] colWArray;
 
     /** should the sheet be reloaded on client side */
     private boolean reload;
@@ -188,6 +200,8 @@ public class Spreadsheet extends Component
     private String[] sheetNames = null;
 
     protected HashMap<Integer, String> cellStyleToCSSStyle = null;
+    /** Formatting metadata of the cell styles of the workbook */
+    private final CellStyleMetadata cellStyleMetadata = new CellStyleMetadata();
     private HashMap<Integer, Integer> rowIndexToStyleIndex = null;
     private HashMap<Integer, Integer> columnIndexToStyleIndex = null;
     private Set<Integer> lockedColumnIndexes = null;
@@ -206,6 +220,12 @@ public class Spreadsheet extends Component
     /** 1-based */
     private ArrayList<Integer> hiddenRowIndexes = null;
 
+    /**
+     * The hidden rows and columns of {@link #hiddenRowIndexes} and
+     * {@link #hiddenColumnIndexes} as bitsets
+     */
+    private final RowColumnVisibility rowColumnVisibility = new RowColumnVisibility();
+
     private int[] verticalScrollPositions;
 
     private int[] horizontalScrollPositions;
@@ -271,14 +291,28 @@ public class Spreadsheet extends Component
         return defColW;
     }
 
-    private float[] getRowH() {
+    private SparseSizeModel getRowH() {
         return rowH;
     }
 
-    int[] getColW() {
+    SparseSizeModel getColW() {
         return colW;
     }
 
+    private float[] getRowHArray() {
+        if (rowHArray == null) {
+            rowHArray = rowH.toArray();
+        }
+        return rowHArray;
+    }
+
+    private int[] getColWArray() {
+        if (colWArray == null) {
+            colWArray = colW.toIntArray();
+        }
+        return colWArray;
+    }
+
     private int getSheetIndex() {
         return sheetIndex;
     }
@@ -291,6 +325,10 @@ public class Spreadsheet extends Component
         return cellStyleToCSSStyle;
     }
 
+    CellStyleMetadata getCellStyleMetadata() {
+        return cellStyleMetadata;
+    }
+
     HashMap<Integer, Integer> getRowIndexToStyleIndex() {
         return rowIndexToStyleIndex;
     }
@@ -438,14 +476,16 @@ public class Spreadsheet extends Component
         getElement().setProperty("defColW", defColW);
     }
 
-    void setRowH(float[] rowH) {
+    void setRowH(SparseSizeModel rowH) {
         this.rowH = rowH;
-        getElement().setProperty("rowH", Serializer.serialize(rowH));
+        rowHArray = null;
+        propertySync.set("rowH", rowH.encode());
     }
 
-    void setColW(int[] colW) {
+    void setColW(SparseSizeModel colW) {
         this.colW = colW;
-        getElement().setProperty("colW", Serializer.serialize(colW));
+        colWArray = null;
+        propertySync.set("colW", colW.encodeAsInts());
     }
 
     private void setReload(boolean reload) {
@@ -466,22 +506,20 @@ public class Spreadsheet extends Component
 
     void setCellStyleToCSSStyle(HashMap<Integer, String> cellStyleToCSSStyle) {
         this.cellStyleToCSSStyle = cellStyleToCSSStyle;
-        getElement().setProperty("cellStyleToCSSStyle",
-                Serializer.serialize(cellStyleToCSSStyle));
+        propertySync.set("cellStyleToCSSStyle", cellStyleToCSSStyle);
     }
 
     void setRowIndexToStyleIndex(
             HashMap<Integer, Integer> rowIndexToStyleIndex) {
         this.rowIndexToStyleIndex = rowIndexToStyleIndex;
-        getElement().setProperty("rowIndexToStyleIndex",
-                Serializer.serialize(rowIndexToStyleIndex));
+        propertySync.set("rowIndexToStyleIndex", rowIndexToStyleIndex);
     }
 
     void setColumnIndexToStyleIndex(
             HashMap<Integer, Integer> columnIndexToStyleIndex) {
         this.columnIndexToStyleIndex = columnIndexToStyleIndex;
-        getElement().setProperty("columnIndexToStyleIndex",
-                Serializer.serialize(columnIndexToStyleIndex));
+        propertySync.set("columnIndexToStyleIndex",
+                columnIndexToStyleIndex);
     }
 
     void setLockedColumnIndexes(Set<Integer> lockedColumnIndexes) {
@@ -498,27 +536,27 @@ public class Spreadsheet extends Component
 
     void setShiftedCellBorderStyles(ArrayList<String> shiftedCellBorderStyles) {
         this.shiftedCellBorderStyles = shiftedCellBorderStyles;
-        getElement().setProperty("shiftedCellBorderStyles",
-                Serializer.serialize(shiftedCellBorderStyles));
+        propertySync.set("shiftedCellBorderStyles",
+                shiftedCellBorderStyles);
     }
 
     void setConditionalFormattingStyles(
             HashMap<Integer, String> conditionalFormattingStyles) {
         this.conditionalFormattingStyles = conditionalFormattingStyles;
-        getElement().setProperty("conditionalFormattingStyles",
-                Serializer.serialize(conditionalFormattingStyles));
+        propertySync.set("conditionalFormattingStyles",
+                conditionalFormattingStyles);
     }
 
     void setHiddenColumnIndexes(ArrayList<Integer> hiddenColumnIndexes) {
         this.hiddenColumnIndexes = hiddenColumnIndexes;
-        getElement().setProperty("hiddenColumnIndexes",
-                Serializer.serialize(hiddenColumnIndexes));
+        rowColumnVisibility.setHiddenColumns(hiddenColumnIndexes);
+        propertySync.set("hiddenColumnIndexes", hiddenColumnIndexes);
     }
 
     void setHiddenRowIndexes(ArrayList<Integer> hiddenRowIndexes) {
         this.hiddenRowIndexes = hiddenRowIndexes;
-        getElement().setProperty("hiddenRowIndexes",
-                Serializer.serialize(hiddenRowIndexes));
+        rowColumnVisibility.setHiddenRows(hiddenRowIndexes);
+        propertySync.set("hiddenRowIndexes", hiddenRowIndexes);
     }
 
     void setVerticalScrollPositions(int[] verticalScrollPositions) {
@@ -545,15 +583,13 @@ public class Spreadsheet extends Component
     private void setCellKeysToEditorIdMap(
             HashMap<String, String> cellKeysToEditorIdMap) {
         this.cellKeysToEditorIdMap = cellKeysToEditorIdMap;
-        getElement().setProperty("cellKeysToEditorIdMap",
-                Serializer.serialize(cellKeysToEditorIdMap));
+        propertySync.set("cellKeysToEditorIdMap", cellKeysToEditorIdMap);
     }
 
     private void setComponentIDtoCellKeysMap(
             HashMap<String, String> componentIDtoCellKeysMap) {
         this.componentIDtoCellKeysMap = componentIDtoCellKeysMap;
-        getElement().setProperty("componentIDtoCellKeysMap",
-                Serializer.serialize(componentIDtoCellKeysMap));
+        propertySync.set("componentIDtoCellKeysMap", componentIDtoCellKeysMap);
     }
 
     private void setHyperlinksTooltips(
@@ -565,27 +601,23 @@ public class Spreadsheet extends Component
 
     private void setCellComments(HashMap<String, String> cellComments) {
         this.cellComments = cellComments;
-        getElement().setProperty("cellComments",
-                Serializer.serialize(cellComments));
+        propertySync.set("cellComments", cellComments);
     }
 
     private void setCellCommentAuthors(
             HashMap<String, String> cellCommentAuthors) {
         this.cellCommentAuthors = cellCommentAuthors;
-        getElement().setProperty("cellCommentAuthors",
-                Serializer.serialize(cellCommentAuthors));
+        propertySync.set("cellCommentAuthors", cellCommentAuthors);
     }
 
     private void setVisibleCellComments(ArrayList<String> visibleCellComments) {
         this.visibleCellComments = visibleCellComments;
-        getElement().setProperty("visibleCellComments",
-                Serializer.serialize(visibleCellComments));
+        propertySync.set("visibleCellComments", visibleCellComments);
     }
 
     private void setInvalidFormulaCells(Set<String> invalidFormulaCells) {
         this.invalidFormulaCells = invalidFormulaCells;
-        getElement().setProperty("invalidFormulaCells",
-                Serializer.serialize(invalidFormulaCells));
+        propertySync.set("invalidFormulaCells", invalidFormulaCells);
     }
 
     private void setHasActions(boolean hasActions) {
@@ -599,6 +631,7 @@ public class Spreadsheet extends Component
 
     void setMergedRegions(ArrayList<MergedRegion> mergedRegions) {
         this.mergedRegions = mergedRegions;
+        mergedRegionIndex.setRegions(mergedRegions);
         getElement().setProperty("mergedRegions",
                 Serializer.serialize(mergedRegions));
     }
@@ -815,6 +848,18 @@ public class Spreadsheet extends Component
         public void editCellComment(int col, int row) {
             getElement().callJsFunction("editCellComment", col, row);
         }
+
+        @Override
+        public void updateHiddenRows(float[] ranges) {
+            getElement().callJsFunction("updateHiddenRows",
+                    Serializer.serialize(ranges));
+        }
+
+        @Override
+        public void updateHiddenColumns(float[] ranges) {
+            getElement().callJsFunction("updateHiddenColumns",
+                    Serializer.serialize(ranges));
+        }
     };
 
     /**
@@ -980,6 +1025,10 @@ public class Spreadsheet extends Component
             this);
     private ConditionalFormatter conditionalFormatter;
 
+    private FormulaDependencyGraph formulaDependencyGraph;
+
+    private final PropertyDeltaSync propertySync = new PropertyDeltaSync(this);
+
     /**
      * caches data, so it needs to be stable for the life of a given workbook
      */
@@ -1008,12 +1057,31 @@ public class Spreadsheet extends Component
 
     private boolean topLeftCellCommentsLoaded;
 
+    /**
+     * Comments of the active sheet, read from the sheet when the comments are
+     * loaded next time if <code>null</code>
+     */
+    private CellCommentIndex cellCommentIndex;
+
     private SpreadsheetDefaultActionHandler defaultActionHandler;
 
     protected int mergedRegionCounter;
 
     private Workbook workbook;
 
+    /**
+     * The cells of a workbook read with {@link #readStreaming(File)} that
+     * haven't been created yet, <code>null</code> when all cells are in the
+     * workbook
+     */
+    private StreamingWorkbook streamingWorkbook;
+
+    /**
+     * Incremented when a workbook is read, so that an asynchronous read
+     * finishing after a newer one can be discarded
+     */
+    private int readGeneration;
+
     /** are tables for currently active sheet loaded */
     private boolean tablesLoaded;
 
@@ -1028,6 +1096,11 @@ public class Spreadsheet extends Component
 
     private Set<Component> customComponents = new HashSet<Component>();
 
+    private final CustomComponentPool customComponentPool = new CustomComponentPool();
+
+    /** columns of the current load that have pooled components, 0-based */
+    private final HashMap<Integer, Boolean> pooledComponentColumns = new HashMap<Integer, Boolean>();
+
     private Map<CellReference, PopupButton> sheetPopupButtons = new HashMap<CellReference, PopupButton>();
 
     private HashSet<PopupButton> attachedPopupButtons = new HashSet<PopupButton>();
@@ -1043,6 +1116,12 @@ public class Spreadsheet extends Component
 
     private final Map<Integer, HashSet<String>> invalidFormulas = new HashMap<Integer, HashSet<String>>();
 
+    /**
+     * Index of the merged regions of the currently active sheet, kept in sync
+     * with {@link #setMergedRegions(ArrayList)}.
+     */
+    private final MergedRegionIndex mergedRegionIndex = new MergedRegionIndex();
+
     /**
      * Container for merged regions for the currently active sheet.
      */
@@ -1056,15 +1135,7 @@ public class Spreadsheet extends Component
          */
         @Override
         public MergedRegion getMergedRegionStartingFrom(int column, int row) {
-            List<MergedRegion> mergedRegions = getMergedRegions();
-            if (mergedRegions != null) {
-                for (MergedRegion region : mergedRegions) {
-                    if (region.col1 == column && region.row1 == row) {
-                        return region;
-                    }
-                }
-            }
-            return null;
+            return mergedRegionIndex.getMergedRegionStartingFrom(column, row);
         }
 
         /*
@@ -1075,16 +1146,7 @@ public class Spreadsheet extends Component
          */
         @Override
         public MergedRegion getMergedRegion(int column, int row) {
-            List<MergedRegion> mergedRegions = getMergedRegions();
-            if (mergedRegions != null) {
-                for (MergedRegion region : mergedRegions) {
-                    if (region.col1 <= column && region.row1 <= row
-                            && region.col2 >= column && region.row2 >= row) {
-                        return region;
-                    }
-                }
-            }
-            return null;
+            return mergedRegionIndex.getMergedRegion(column, row);
         }
     };
 
@@ -1176,6 +1238,13 @@ public class Spreadsheet extends Component
         defaultActionHandler = new SpreadsheetDefaultActionHandler();
         hyperlinkCellClickHandler = new DefaultHyperlinkCellClickHandler(this);
         addActionHandler(defaultActionHandler);
+        addCellValueChangeListener(
+                event -> notifyFilterTables(event.getChangedCells()));
+        getElement()
+                .addEventListener("property-resync",
+                        event -> propertySync.resync(event.getEventData()
+                                .getString("event.detail.name")))
+                .addEventData("event.detail.name");
         setId(UUID.randomUUID().toString());
         customInit();
     }
@@ -1673,6 +1742,7 @@ public class Spreadsheet extends Component
     @Override
     protected void onAttach(AttachEvent attachEvent) {
         super.onAttach(attachEvent);
+        propertySync.attached();
         valueManager.updateLocale(getLocale());
 
         updateAppId();
@@ -1749,7 +1819,7 @@ public class Spreadsheet extends Component
                 SpreadsheetFactory.reloadSpreadsheetData(this,
                         getActiveSheet());
 
-                reloadSheetStyles(false, false);
+                reloadActiveSheetStyles();
             }
         }
     }
@@ -1872,6 +1942,8 @@ public class Spreadsheet extends Component
         // if the currently active sheet was protected, the protection for the
         // currently selected cell might have changed
         if (sheetPOIIndex == workbook.getActiveSheetIndex()) {
+            // the cell data tells whether the cells are locked
+            valueManager.clearRenderCache();
             loadCustomComponents();
             selectionManager.reSelectSelectedCell();
         }
@@ -1962,6 +2034,7 @@ public class Spreadsheet extends Component
         // need to reload everything because there is a ALWAYS chance that the
         // removed sheet effects the currently visible sheet (via cell formulas
         // etc.)
+        formulaDependencyGraph.invalidate();
         reloadActiveSheetData();
     }
 
@@ -2244,6 +2317,7 @@ public class Spreadsheet extends Component
      * @return The cell at the given coordinates, or null if not defined
      */
     public Cell getCell(int row, int col, Sheet sheet) {
+        hydrateRows(sheet, row, row);
         Row r = sheet.getRow(row);
         if (r != null) {
             return r.getCell(col);
@@ -2317,6 +2391,7 @@ public class Spreadsheet extends Component
     public void deleteCell(int row, int col) {
         final Sheet activeSheet = workbook
                 .getSheetAt(workbook.getActiveSheetIndex());
+        hydrateRows(activeSheet, row, row);
         final Cell cell = activeSheet.getRow(row).getCell(col);
         if (cell != null) {
             // cell.setCellStyle(null); // TODO NPE on HSSF
@@ -2341,6 +2416,7 @@ public class Spreadsheet extends Component
     public void refreshCells(Cell... cells) {
         if (cells != null) {
             for (Cell cell : cells) {
+                notifyFilterTables(cell);
                 markCellAsUpdated(cell, true);
             }
             updateMarkedCells();
@@ -2361,12 +2437,46 @@ public class Spreadsheet extends Component
     public void refreshCells(Collection<Cell> cells) {
         if (cells != null && !cells.isEmpty()) {
             for (Cell cell : cells) {
+                notifyFilterTables(cell);
                 markCellAsUpdated(cell, true);
             }
             updateMarkedCells();
         }
     }
 
+    /**
+     * Notifies the registered filter tables that the value of the given cell
+     * has changed.
+     *
+     * @param cell
+     *            The changed cell
+     */
+    private void notifyFilterTables(Cell cell) {
+        for (SpreadsheetTable table : tables) {
+            if (table instanceof SpreadsheetFilterTable) {
+                ((SpreadsheetFilterTable) table).cellChanged(cell.getSheet(),
+                        cell.getRowIndex(), cell.getColumnIndex());
+            }
+        }
+    }
+
+    private void notifyFilterTables(Set<CellReference> changedCells) {
+        if (tables.isEmpty()) {
+            return;
+        }
+        for (CellReference cellReference : changedCells) {
+            Sheet sheet = cellReference.getSheetName() == null
+                    ? getActiveSheet()
+                    : workbook.getSheet(cellReference.getSheetName());
+            for (SpreadsheetTable table : tables) {
+                if (table instanceof SpreadsheetFilterTable) {
+                    ((SpreadsheetFilterTable) table).cellChanged(sheet,
+                            cellReference.getRow(), cellReference.getCol());
+                }
+            }
+        }
+    }
+
     /**
      * Marks the cell as updated. Should be called when the cell
      * value/formatting/style/etc. updating is done.
@@ -2394,6 +2504,7 @@ public class Spreadsheet extends Component
      *            The cell that has been deleted.
      */
     public void markCellAsDeleted(Cell cell, boolean cellStyleUpdated) {
+        notifyFilterTables(cell);
         valueManager.cellDeleted(cell);
         if (cellStyleUpdated) {
             styler.cellStyleUpdated(cell, true);
@@ -2420,6 +2531,7 @@ public class Spreadsheet extends Component
         selectionManager.reSelectSelectedCell();
         // Update the cell comments as well to show them instantly after adding
         // them
+        invalidateCellComments();
         loadCellComments();
 
         // update custom components, editors
@@ -2448,6 +2560,7 @@ public class Spreadsheet extends Component
             throws IllegalArgumentException {
         final Sheet activeSheet = workbook
                 .getSheetAt(workbook.getActiveSheetIndex());
+        hydrateRows(activeSheet, row, row);
         Row r = activeSheet.getRow(row);
         if (r == null) {
             r = activeSheet.createRow(row);
@@ -2456,10 +2569,10 @@ public class Spreadsheet extends Component
         if (cell == null) {
             cell = r.createCell(col, CellType.FORMULA);
         } else {
-            final String key = SpreadsheetUtil.toKey(col + 1, row + 1);
-            valueManager.clearCellCache(key);
+            valueManager.clearCellCache(col + 1, row + 1);
         }
         cell.setCellFormula(formula);
+        notifyFilterTables(cell);
         valueManager.cellUpdated(cell);
         return cell;
     }
@@ -2491,6 +2604,7 @@ public class Spreadsheet extends Component
             throws IllegalArgumentException {
         final Sheet activeSheet = workbook
                 .getSheetAt(workbook.getActiveSheetIndex());
+        hydrateRows(activeSheet, row, row);
         Row r = activeSheet.getRow(row);
         if (r == null) {
             r = activeSheet.createRow(row);
@@ -2499,8 +2613,7 @@ public class Spreadsheet extends Component
         if (cell == null) {
             cell = r.createCell(col);
         } else {
-            final String key = SpreadsheetUtil.toKey(col + 1, row + 1);
-            valueManager.clearCellCache(key);
+            valueManager.clearCellCache(col + 1, row + 1);
         }
         if (value instanceof Double) {
             cell.setCellValue((Double) value);
@@ -2513,6 +2626,7 @@ public class Spreadsheet extends Component
         } else if (value != null) {
             cell.setCellValue(value.toString());
         }
+        notifyFilterTables(cell);
         valueManager.cellUpdated(cell);
         // if programmatically adding cells, need to make sure they display
         if (row > getRows()) {
@@ -2533,6 +2647,14 @@ public class Spreadsheet extends Component
         getFormulaEvaluator().clearAllCachedResultValues();
         getConditionalFormattingEvaluator().clearAllCachedValues();
         valueManager.clearCachedContent();
+        valueManager.clearRenderCache();
+        formulaDependencyGraph.invalidate();
+        conditionalFormatter.invalidate();
+        for (SpreadsheetTable table : tables) {
+            if (table instanceof SpreadsheetFilterTable) {
+                ((SpreadsheetFilterTable) table).invalidateValueIndexes();
+            }
+        }
 
         // only reload if the cells have been loaded once previously
         if (firstColumn == -1) {
@@ -2690,9 +2812,8 @@ public class Spreadsheet extends Component
         int columnPixelWidth = getColumnAutofitPixelWidth(columnIndex,
                 (int) activeSheet.getColumnWidthInPixels(columnIndex));
 
-        int[] _colW = Arrays.copyOf(getColW(), getColW().length);
-        _colW[columnIndex] = columnPixelWidth;
-        setColW(_colW);
+        getColW().setSize(columnIndex, columnPixelWidth);
+        setColW(getColW());
 
         getCellValueManager().clearCacheForColumn(columnIndex + 1);
         getCellValueManager().loadCellData(firstRow, columnIndex + 1, lastRow,
@@ -2750,99 +2871,67 @@ public class Spreadsheet extends Component
      */
     public void shiftRows(int startRow, int endRow, int n,
             boolean copyRowHeight, boolean resetOriginalRowHeight) {
+        materializeWorkbook();
         Sheet sheet = getActiveSheet();
-        int lastNonBlankRow = getLastNonBlankRow(sheet);
+        int firstAffectedRow = n < 0 ? startRow + n : startRow;
+        int lastAffectedRow = n < 0 ? endRow : endRow + n;
+        // resolved before the shift, which turns references to the removed
+        // rows into errors
+        final CellCoordinateSet dependentFormulaCells = formulaDependencyGraph
+                .isEnabled()
+                        ? formulaDependencyGraph.getDependentFormulaCells(
+                                getActiveSheetPOIIndex(), firstAffectedRow,
+                                lastAffectedRow)
+                        : null;
         sheet.shiftRows(startRow, endRow, n, copyRowHeight,
                 resetOriginalRowHeight);
-        // need to re-send the cell values to client
-        // remove all cached cell data that is now empty
+        // the evaluators look up cells by their position, so their caches
+        // are no longer valid
         getFormulaEvaluator().clearAllCachedResultValues();
         getConditionalFormattingEvaluator().clearAllCachedValues();
-        int start = n < 0 ? Math.max(lastNonBlankRow, startRow) : startRow;
-        int end = n < 0 ? endRow : startRow + n - 1;
-        valueManager.updateDeletedRowsInClientCache(start + 1, end + 1);
-        int firstAffectedRow = n < 0 ? startRow + n : startRow;
-        int lastAffectedRow = n < 0 ? endRow : endRow + n;
+        // shifting rewrites formulas and moves formula cells
+        formulaDependencyGraph.rebuildSheet(getActiveSheetPOIIndex());
+        // the affected rows are sent again as they are loaded, along with the
+        // formula cells depending on them
+        valueManager.updateShiftedRowsInClientCache(firstAffectedRow + 1,
+                lastAffectedRow + 1, dependentFormulaCells);
         if (copyRowHeight || resetOriginalRowHeight) {
-            // might need to increase the size of the row heights array
-            int oldLength = getRowH().length;
+            // might need to increase the number of rows in the size model
+            final SparseSizeModel _rowH = getRowH();
             int neededLength = endRow + n + 1;
-            float[] _rowH = Arrays.copyOf(getRowH(), getRowH().length);
-            if (n > 0 && oldLength < neededLength) {
-                _rowH = Arrays.copyOf(_rowH, neededLength);
+            if (n > 0 && _rowH.getCount() < neededLength) {
+                _rowH.setCount(neededLength);
             }
-            for (int i = firstAffectedRow; i <= lastAffectedRow; i++) {
-                Row row = sheet.getRow(i);
-                if (row != null) {
-                    if (row.getZeroHeight()) {
-                        _rowH[i] = 0f;
-                    } else {
-                        _rowH[i] = row.getHeightInPoints();
-                    }
+            if (copyRowHeight) {
+                // the heights move with the rows, only the rows left behind
+                // are read again
+                _rowH.shift(startRow, endRow, n);
+                if (n > 0) {
+                    updateRowSizes(_rowH, startRow,
+                            Math.min(startRow + n - 1, endRow));
                 } else {
-                    _rowH[i] = sheet.getDefaultRowHeightInPoints();
+                    updateRowSizes(_rowH, Math.max(endRow + n + 1, startRow),
+                            endRow);
                 }
+            } else {
+                updateRowSizes(_rowH, firstAffectedRow, lastAffectedRow);
             }
             setRowH(_rowH);
         }
+        shiftHiddenRowIndexes(startRow, endRow, n);
 
         if (hasSheetOverlays()) {
             reloadImageSizesFromPOI = true;
         }
-        // need to shift the cell styles, clear and update
-        // need to go -1 and +1 because of shifted borders..
-        final ArrayList<Cell> cellsToUpdate = new ArrayList<Cell>();
-        for (int r = (firstAffectedRow - 1); r <= (lastAffectedRow + 1); r++) {
-            if (r < 0) {
-                r = 0;
-            }
-            Row row = sheet.getRow(r);
-            final Integer rowIndex = new Integer(r + 1);
-            ArrayList<Integer> _hiddenRowIndexes = new ArrayList<>(
-                    getHiddenRowIndexes());
-            if (row == null) {
-                valueManager.updateDeletedRowsInClientCache(rowIndex, rowIndex);
-                if (_hiddenRowIndexes.contains(rowIndex)) {
-                    _hiddenRowIndexes.remove(rowIndex);
-                }
-                for (int c = 0; c < getCols(); c++) {
-                    styler.clearCellStyle(r, c);
-                }
-            } else {
-                if (row.getZeroHeight()) {
-                    _hiddenRowIndexes.add(rowIndex);
-                } else if (_hiddenRowIndexes.contains(rowIndex)) {
-                    _hiddenRowIndexes.remove(rowIndex);
-                }
-                for (int c = 0; c < getCols(); c++) {
-                    Cell cell = row.getCell(c);
-                    if (cell == null) {
-                        styler.clearCellStyle(r, c);
-                        if (r <= lastNonBlankRow + n) {
-                            // There might be a pre-shift value for this cell in
-                            // client-side and should be overwritten
-                            cell = row.createCell(c);
-                            cellsToUpdate.add(cell);
-                        }
-                    } else {
-                        cellsToUpdate.add(cell);
-                    }
-                }
-            }
-            setHiddenRowIndexes(_hiddenRowIndexes);
-        }
         rowsMoved(firstAffectedRow, lastAffectedRow, n);
-
-        for (Cell cell : cellsToUpdate) {
-            styler.cellStyleUpdated(cell, false);
-            markCellAsUpdated(cell, false);
-        }
-        styler.loadCustomBorderStylesToState();
+        updateMergedRegions();
+        // need to shift the custom borders, including the ones drawn in the
+        // neighbouring cells
+        styler.rowsShifted(startRow, endRow, n);
 
         updateMarkedCells(); // deleted and formula cells and style selectors
         updateRowAndColumnRangeCellData(firstRow, firstColumn, lastRow,
                 lastColumn); // shifted area values
-        updateMergedRegions();
 
         CellReference selectedCellReference = selectionManager
                 .getSelectedCellReference();
@@ -2855,6 +2944,65 @@ public class Spreadsheet extends Component
         }
     }
 
+    /**
+     * Reads the sizes of the given rows of the active sheet to the given size
+     * model.
+     *
+     * @param rowH
+     *            Row heights to update
+     * @param first
+     *            First row, 0-based
+     * @param last
+     *            Last row, 0-based
+     */
+    private void updateRowSizes(SparseSizeModel rowH, int first, int last) {
+        final Sheet sheet = getActiveSheet();
+        for (int i = first; i <= last; i++) {
+            Row row = sheet.getRow(i);
+            if (row != null) {
+                if (row.getZeroHeight()) {
+                    rowH.setSize(i, 0f);
+                } else {
+                    rowH.setSize(i, row.getHeightInPoints());
+                }
+            } else {
+                rowH.setSize(i, sheet.getDefaultRowHeightInPoints());
+            }
+        }
+    }
+
+    /**
+     * Moves the hidden row indexes of the shifted rows by the same offset.
+     * The hidden rows that the shift overwrites or leaves empty are removed.
+     *
+     * @param startRow
+     *            The first shifted row, 0-based
+     * @param endRow
+     *            The last shifted row, 0-based
+     * @param n
+     *            Number of rows the rows were shifted by
+     */
+    private void shiftHiddenRowIndexes(int startRow, int endRow, int n) {
+        if (getHiddenRowIndexes() == null) {
+            return;
+        }
+        final int firstAffectedRow = n < 0 ? startRow + n : startRow;
+        final int lastAffectedRow = n < 0 ? endRow : endRow + n;
+        final ArrayList<Integer> _hiddenRowIndexes = new ArrayList<Integer>();
+        for (Integer rowIndex : getHiddenRowIndexes()) {
+            final int r = rowIndex - 1;
+            if (r >= startRow && r <= endRow) {
+                if (r + n >= 0) {
+                    _hiddenRowIndexes.add(rowIndex + n);
+                }
+            } else if (r < firstAffectedRow || r > lastAffectedRow) {
+                _hiddenRowIndexes.add(rowIndex);
+            }
+        }
+        Collections.sort(_hiddenRowIndexes);
+        setHiddenRowIndexes(_hiddenRowIndexes);
+    }
+
     private boolean hasSheetOverlays() {
         return sheetOverlays != null && sheetOverlays.size() > 0;
     }
@@ -2989,22 +3137,6 @@ public class Spreadsheet extends Component
         return conditionalFormattingEvaluator;
     }
 
-    private int getLastNonBlankRow(Sheet sheet) {
-        for (int r = sheet.getLastRowNum(); r >= 0; r--) {
-            Row row = sheet.getRow(r);
-            if (row != null) {
-                for (short c = row.getFirstCellNum(); c < row
-                        .getLastCellNum(); c++) {
-                    Cell cell = row.getCell(c);
-                    if (cell != null && cell.getCellType() != CellType.BLANK) {
-                        return r;
-                    }
-                }
-            }
-        }
-        return 0;
-    }
-
     private void updateMergedRegions() {
         int regions = getActiveSheet().getNumMergedRegions();
         if (regions > 0) {
@@ -3046,6 +3178,7 @@ public class Spreadsheet extends Component
      *            Index of the ending row, 0-based
      */
     public void deleteRows(int startRow, int endRow) {
+        materializeWorkbook();
         Sheet sheet = getActiveSheet();
         for (int i = startRow; i <= endRow; i++) {
             Row row = sheet.getRow(i);
@@ -3053,9 +3186,9 @@ public class Spreadsheet extends Component
                 getActiveSheet().removeRow(row);
             }
         }
-        float[] _rowH = Arrays.copyOf(getRowH(), getRowH().length);
+        final SparseSizeModel _rowH = getRowH();
         for (int i = startRow; i <= endRow; i++) {
-            _rowH[i] = sheet.getDefaultRowHeightInPoints();
+            _rowH.setSize(i, sheet.getDefaultRowHeightInPoints());
         }
         setRowH(_rowH);
         updateMergedRegions();
@@ -3218,6 +3351,9 @@ public class Spreadsheet extends Component
         ArrayList<MergedRegion> _mergedRegions = new ArrayList<>(
                 getMergedRegions());
         MergedRegion mergedRegion = _mergedRegions.remove(index);
+        // the borders of the region cells are computed from the merged
+        // regions, so the region must be gone before restyling them
+        setMergedRegions(_mergedRegions);
         // update the style for the region cells, effects region + 1 row&col
         for (int r = mergedRegion.row1; r <= (mergedRegion.row2 + 1); r++) {
             Row row = sheet.getRow(r - 1);
@@ -3229,12 +3365,11 @@ public class Spreadsheet extends Component
                         styler.cellStyleUpdated(cell, false);
                         valueManager.markCellForUpdate(cell);
                     } else {
-                        styler.clearCellStyle(r, c);
+                        styler.clearCellStyle(r - 1, c - 1, false);
                     }
                 }
             }
         }
-        setMergedRegions(_mergedRegions);
         styler.loadCustomBorderStylesToState();
     }
 
@@ -3270,13 +3405,13 @@ public class Spreadsheet extends Component
      *            True to hide the target column, false to show it.
      */
     public void setColumnHidden(int columnIndex, boolean hidden) {
-        doSetColumnHidden(columnIndex, hidden);
-        reloadSheetStyles(false, true);
+        setColumnsHidden(Collections.singletonMap(columnIndex, hidden));
     }
 
     /**
-     * Hides or shows the given columns. Used internally in order to defer the
-     * style calculations until visibility of all columns are updated.
+     * Hides or shows the given columns in one go. Only the columns whose
+     * visibility actually changes are updated, and just the changed column
+     * ranges are sent to the client instead of all the column widths.
      *
      * @see #setColumnHidden(int, boolean)
      *
@@ -3284,24 +3419,75 @@ public class Spreadsheet extends Component
      *            Map of 0-based column indexes to the indicator whether the
      *            column should be hidden
      */
-    void setColumnsHidden(Map<Integer, Boolean> columnIndexToHidden) {
-        columnIndexToHidden.forEach(this::doSetColumnHidden);
-        reloadSheetStyles(false, true);
+    public void setColumnsHidden(Map<Integer, Boolean> columnIndexToHidden) {
+        final Sheet activeSheet = getActiveSheet();
+        final TreeMap<Integer, Boolean> changed = new TreeMap<>();
+        columnIndexToHidden.forEach((columnIndex, hidden) -> {
+            if (isColumnHidden(columnIndex) != hidden) {
+                changed.put(columnIndex, hidden);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+        final SparseSizeModel _colW = getColW();
+        if (_colW == null || changed.lastKey() >= _colW.getCount()) {
+            changed.forEach(this::doSetColumnHidden);
+            reloadSheetStyles(false, true);
+            return;
+        }
+        final Set<Integer> _hiddenColumnIndexes = new TreeSet<>();
+        if (getHiddenColumnIndexes() != null) {
+            _hiddenColumnIndexes.addAll(getHiddenColumnIndexes());
+        }
+        final float[] sizes = new float[changed.size()];
+        final int[] indexes = new int[changed.size()];
+        int i = 0;
+        for (Entry<Integer, Boolean> entry : changed.entrySet()) {
+            final int columnIndex = entry.getKey();
+            final boolean hidden = entry.getValue();
+            activeSheet.setColumnHidden(columnIndex, hidden);
+            if (hidden) {
+                _colW.setSize(columnIndex, 0);
+                _hiddenColumnIndexes.add(columnIndex + 1);
+            } else {
+                _colW.setSize(columnIndex,
+                        (int) activeSheet.getColumnWidthInPixels(columnIndex));
+                _hiddenColumnIndexes.remove(columnIndex + 1);
+            }
+            indexes[i] = columnIndex + 1;
+            sizes[i++] = _colW.getSize(columnIndex);
+        }
+        hiddenColumnIndexes = new ArrayList<>(_hiddenColumnIndexes);
+        rowColumnVisibility.setHiddenColumns(hiddenColumnIndexes);
+        colWArray = null;
+        propertySync.markSent("colW", _colW.encodeAsInts());
+        propertySync.markSent("hiddenColumnIndexes", hiddenColumnIndexes);
+        clientRpc.updateHiddenColumns(encodeSizeRanges(indexes, sizes));
+
+        changed.forEach((columnIndex, hidden) -> {
+            if (!hidden) {
+                getCellValueManager().clearCacheForColumn(columnIndex + 1);
+                getCellValueManager().loadCellData(firstRow, columnIndex + 1,
+                        lastRow, columnIndex + 1);
+            }
+        });
+        reloadVisibilityDependentStyles();
     }
 
     private void doSetColumnHidden(int columnIndex, boolean hidden) {
         getActiveSheet().setColumnHidden(columnIndex, hidden);
         ArrayList<Integer> _hiddenColumnIndexes = new ArrayList<>(
                 getHiddenColumnIndexes());
-        int[] _colW = Arrays.copyOf(getColW(), getColW().length);
+        final SparseSizeModel _colW = getColW();
         if (hidden && !_hiddenColumnIndexes.contains(columnIndex + 1)) {
             _hiddenColumnIndexes.add(columnIndex + 1);
-            _colW[columnIndex] = 0;
+            _colW.setSize(columnIndex, 0);
         } else if (!hidden && _hiddenColumnIndexes.contains(columnIndex + 1)) {
             _hiddenColumnIndexes
                     .remove(_hiddenColumnIndexes.indexOf(columnIndex + 1));
-            _colW[columnIndex] = (int) getActiveSheet()
-                    .getColumnWidthInPixels(columnIndex);
+            _colW.setSize(columnIndex, (int) getActiveSheet()
+                    .getColumnWidthInPixels(columnIndex));
             getCellValueManager().clearCacheForColumn(columnIndex + 1);
             getCellValueManager().loadCellData(firstRow, columnIndex + 1,
                     lastRow, columnIndex + 1);
@@ -3322,6 +3508,23 @@ public class Spreadsheet extends Component
         return getActiveSheet().isColumnHidden(columnIndex);
     }
 
+    /**
+     * Gets the hidden rows and columns of the active sheet. The returned
+     * object is kept up to date when rows and columns are hidden or shown
+     * through this component, e.g. with {@link #setRowHidden(int, boolean)},
+     * {@link #setColumnHidden(int, boolean)}, grouping or filtering, and when
+     * another sheet is activated. Unlike {@link #isRowHidden(int)} and
+     * {@link #isColumnHidden(int)}, which read the sheet, it doesn't see rows
+     * and columns hidden directly through the POI sheet until the sheet is
+     * reloaded.
+     *
+     * @return the read-only visibility of the rows and columns of the active
+     *         sheet
+     */
+    public RowColumnVisibility getRowColumnVisibility() {
+        return rowColumnVisibility;
+    }
+
     /**
      * Hides or shows the given row, see {@link Row#setZeroHeight(boolean)}.
      *
@@ -3331,13 +3534,13 @@ public class Spreadsheet extends Component
      *            True to hide the target row, false to show it.
      */
     public void setRowHidden(int rowIndex, boolean hidden) {
-        doSetRowHidden(rowIndex, hidden);
-        reloadSheetStyles(true, true);
+        setRowsHidden(Collections.singletonMap(rowIndex, hidden));
     }
 
     /**
-     * Hides or shows the given rows. Used internally in order to defer the
-     * style calculations until visibility of all rows are updated.
+     * Hides or shows the given rows in one go. Only the rows whose visibility
+     * actually changes are updated, and just the changed row ranges are sent
+     * to the client instead of all the row heights.
      *
      * @see #setRowHidden(int, boolean)
      *
@@ -3345,9 +3548,81 @@ public class Spreadsheet extends Component
      *            Map of 0-based row indexes to the indicator whether the row
      *            should be hidden
      */
-    void setRowsHidden(Map<Integer, Boolean> rowIndexToHidden) {
-        rowIndexToHidden.forEach(this::doSetRowHidden);
-        reloadSheetStyles(true, true);
+    public void setRowsHidden(Map<Integer, Boolean> rowIndexToHidden) {
+        final Sheet activeSheet = getActiveSheet();
+        final TreeMap<Integer, Boolean> changed = new TreeMap<>();
+        rowIndexToHidden.forEach((rowIndex, hidden) -> {
+            if (isRowHidden(rowIndex) != hidden) {
+                changed.put(rowIndex, hidden);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+        final SparseSizeModel _rowH = getRowH();
+        if (_rowH == null || changed.lastKey() >= _rowH.getCount()) {
+            changed.forEach(this::doSetRowHidden);
+            reloadSheetStyles(true, true);
+            return;
+        }
+        final Set<Integer> _hiddenRowIndexes = new TreeSet<>();
+        if (getHiddenRowIndexes() != null) {
+            _hiddenRowIndexes.addAll(getHiddenRowIndexes());
+        }
+        final float[] sizes = new float[changed.size()];
+        final int[] indexes = new int[changed.size()];
+        int i = 0;
+        for (Entry<Integer, Boolean> entry : changed.entrySet()) {
+            final int rowIndex = entry.getKey();
+            final boolean hidden = entry.getValue();
+            doSetRowHidden(rowIndex, hidden);
+            if (hidden) {
+                _rowH.setSize(rowIndex, 0.0F);
+                _hiddenRowIndexes.add(rowIndex + 1);
+            } else {
+                _rowH.setSize(rowIndex,
+                        activeSheet.getRow(rowIndex).getHeightInPoints());
+                _hiddenRowIndexes.remove(rowIndex + 1);
+            }
+            indexes[i] = rowIndex + 1;
+            sizes[i++] = _rowH.getSize(rowIndex);
+        }
+        hiddenRowIndexes = new ArrayList<>(_hiddenRowIndexes);
+        rowColumnVisibility.setHiddenRows(hiddenRowIndexes);
+        rowHArray = null;
+        propertySync.markSent("rowH", _rowH.encode());
+        propertySync.markSent("hiddenRowIndexes", hiddenRowIndexes);
+        clientRpc.updateHiddenRows(encodeSizeRanges(indexes, sizes));
+        reloadVisibilityDependentStyles();
+    }
+
+    /**
+     * Encodes the given sorted 1-based indexes and their new sizes as
+     * <code>[first, last, size]</code> triples, merging consecutive indexes
+     * that have the same size.
+     */
+    private static float[] encodeSizeRanges(int[] indexes, float[] sizes) {
+        final float[] ranges = new float[indexes.length * 3];
+        int length = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (length > 0 && ranges[length - 2] + 1 == indexes[i]
+                    && ranges[length - 1] == sizes[i]) {
+                ranges[length - 2] = indexes[i];
+            } else {
+                ranges[length++] = indexes[i];
+                ranges[length++] = indexes[i];
+                ranges[length++] = sizes[i];
+            }
+        }
+        return Arrays.copyOf(ranges, length);
+    }
+
+    private void reloadVisibilityDependentStyles() {
+        if (hasSheetOverlays()) {
+            reloadImageSizesFromPOI = true;
+            loadOrUpdateOverlays();
+        }
+        getSpreadsheetStyleFactory().updateVisibilityDependentStyles();
     }
 
     private void reloadSheetStyles(boolean calculateSheetSizes,
@@ -3362,7 +3637,7 @@ public class Spreadsheet extends Component
             reloadImageSizesFromPOI = true;
             loadOrUpdateOverlays();
         }
-        getSpreadsheetStyleFactory().reloadActiveSheetCellStyles();
+        getSpreadsheetStyleFactory().updateVisibilityDependentStyles();
     }
 
     private void doSetRowHidden(int rowIndex, boolean hidden) {
@@ -3414,6 +3689,276 @@ public class Spreadsheet extends Component
         SpreadsheetFactory.reloadSpreadsheetComponent(this, inputStream);
     }
 
+    /**
+     * Reinitializes the component from the given XLSX file, creating the
+     * cells of the workbook only when they are needed. This uses considerably
+     * less memory than {@link #read(File)} for large files, as only the cells
+     * that are shown or otherwise accessed through the component are created
+     * into the POI workbook. Files of other formats are read with
+     * {@link #read(File)}.
+     * <p>
+     * The cells of the workbook can be accessed through
+     * {@link #getCell(int, int, Sheet)} and the other methods of this
+     * component. Before accessing the cells directly through the POI
+     * workbook, call {@link #materializeWorkbook()}. Structural changes, such
+     * as shifting rows, and writing the workbook create all of the cells.
+     * <p>
+     * Until all of the cells have been created, conditional formatting rules
+     * and formulas are evaluated against the created cells and the cells
+     * referenced by the formulas of the created cells.
+     *
+     * @param file
+     *            Data source file. XLSX format is expected.
+     * @throws IOException
+     *             If the file can't be read, or the file is of an invalid
+     *             format.
+     */
+    public void readStreaming(File file) throws IOException {
+        SpreadsheetFactory.reloadSpreadsheetComponentStreaming(this, file);
+    }
+
+    /**
+     * Reinitializes the component from the given input stream, creating the
+     * cells of the workbook only when they are needed. The stream is copied
+     * to a temporary file for reading. See {@link #readStreaming(File)}.
+     *
+     * @param inputStream
+     *            Data source input stream. XLSX format is expected.
+     * @throws IOException
+     *             If handling the stream fails, or the data is in an invalid
+     *             format.
+     */
+    public void readStreaming(InputStream inputStream) throws IOException {
+        SpreadsheetFactory.reloadSpreadsheetComponentStreaming(this,
+                inputStream);
+    }
+
+    /**
+     * Reinitializes the component from the given file, reading the file with
+     * the given executor instead of the calling thread. The expected format
+     * is that of an Excel file.
+     * <p>
+     * The session lock isn't held while the file is read and the formulas of
+     * the workbook are parsed. After that, the active sheet is loaded with
+     * the lock of the UI of this component, and the cells of the sheet are
+     * shown as soon as the UI is updated. The overlays, tables, grouping and
+     * named ranges of the sheet are loaded in a separate access to the UI.
+     * Until then, {@link #isLoading()} returns <code>true</code> and the
+     * component has the <code>loading</code> attribute.
+     * <p>
+     * Updates are sent to the browser without waiting for the next request
+     * only if server push is enabled. If the component isn't attached, the
+     * workbook is loaded into the component by the executor.
+     * <p>
+     * If another workbook is read into the component before this one has
+     * been loaded, this one is discarded and the returned future is completed
+     * exceptionally with a {@link java.util.concurrent.CancellationException}.
+     *
+     * @param file
+     *            Data source file. Excel format is expected.
+     * @param executor
+     *            Executor for reading the file, not <code>null</code>
+     * @return future completed when the workbook has been loaded, or
+     *         completed exceptionally if reading it fails
+     */
+    public CompletableFuture<Void> readAsync(File file, Executor executor) {
+        return SpreadsheetFactory.reloadSpreadsheetComponentAsync(this, file,
+                false, executor);
+    }
+
+    /**
+     * Reinitializes the component from the given input stream, reading the
+     * stream with the given executor instead of the calling thread. The
+     * stream must not be closed before the returned future completes. See
+     * {@link #readAsync(File, Executor)}.
+     *
+     * @param inputStream
+     *            Data source input stream. Excel format is expected.
+     * @param executor
+     *            Executor for reading the stream, not <code>null</code>
+     * @return future completed when the workbook has been loaded, or
+     *         completed exceptionally if reading it fails
+     */
+    public CompletableFuture<Void> readAsync(InputStream inputStream,
+            Executor executor) {
+        return SpreadsheetFactory.reloadSpreadsheetComponentAsync(this,
+                inputStream, false, executor);
+    }
+
+    /**
+     * Reinitializes the component from the given XLSX file like
+     * {@link #readStreaming(File)}, reading the file with the given executor
+     * like {@link #readAsync(File, Executor)}.
+     *
+     * @param file
+     *            Data source file. XLSX format is expected.
+     * @param executor
+     *            Executor for reading the file, not <code>null</code>
+     * @return future completed when the workbook has been loaded, or
+     *         completed exceptionally if reading it fails
+     */
+    public CompletableFuture<Void> readStreamingAsync(File file,
+            Executor executor) {
+        return SpreadsheetFactory.reloadSpreadsheetComponentAsync(this, file,
+                true, executor);
+    }
+
+    /**
+     * Reinitializes the component from the given input stream like
+     * {@link #readStreaming(InputStream)}, reading the stream with the given
+     * executor like {@link #readAsync(InputStream, Executor)}.
+     *
+     * @param inputStream
+     *            Data source input stream. XLSX format is expected.
+     * @param executor
+     *            Executor for reading the stream, not <code>null</code>
+     * @return future completed when the workbook has been loaded, or
+     *         completed exceptionally if reading it fails
+     */
+    public CompletableFuture<Void> readStreamingAsync(InputStream inputStream,
+            Executor executor) {
+        return SpreadsheetFactory.reloadSpreadsheetComponentAsync(this,
+                inputStream, true, executor);
+    }
+
+    /**
+     * Returns whether a workbook is being loaded with
+     * {@link #readAsync(File, Executor)} or the other asynchronous read
+     * methods.
+     *
+     * @return <code>true</code> if a workbook is being loaded
+     */
+    public boolean isLoading() {
+        return getElement().hasAttribute("loading");
+    }
+
+    void setLoading(boolean loading) {
+        getElement().setAttribute("loading", loading);
+    }
+
+    /**
+     * Starts a new read, making the reads started before it out of date.
+     *
+     * @return the generation of the new read
+     */
+    int nextReadGeneration() {
+        return ++readGeneration;
+    }
+
+    /**
+     * @param generation
+     *            Generation of a read, see {@link #nextReadGeneration()}
+     * @return <code>true</code> if no newer read has been started
+     */
+    boolean isCurrentRead(int generation) {
+        return readGeneration == generation;
+    }
+
+    /**
+     * Creates all cells of a workbook read with {@link #readStreaming(File)}
+     * into the POI workbook. Does nothing if all cells have already been
+     * created.
+     */
+    public void materializeWorkbook() {
+        if (streamingWorkbook == null) {
+            return;
+        }
+        StreamingWorkbook cells = streamingWorkbook;
+        streamingWorkbook = null;
+        cells.hydrateAll();
+        formulaDependencyGraph.setEnabled(true);
+        formulaDependencyGraph.rebuild();
+        getFormulaEvaluator().clearAllCachedResultValues();
+        getConditionalFormattingEvaluator().clearAllCachedValues();
+        conditionalFormatter.invalidate();
+        styler.reloadActiveSheetCellStyles();
+    }
+
+    StreamingWorkbook getStreamingWorkbook() {
+        return streamingWorkbook;
+    }
+
+    void setStreamingWorkbook(StreamingWorkbook streamingWorkbook) {
+        this.streamingWorkbook = streamingWorkbook;
+    }
+
+    /**
+     * Creates the not yet created cells of the given rows of a workbook read
+     * with {@link #readStreaming(File)}, including the cells their formulas
+     * reference.
+     *
+     * @param sheet
+     *            Sheet of the rows
+     * @param firstRow
+     *            Index of the first row, 0-based
+     * @param lastRow
+     *            Index of the last row, 0-based
+     */
+    void hydrateRows(Sheet sheet, int firstRow, int lastRow) {
+        if (streamingWorkbook == null || sheet == null) {
+            return;
+        }
+        cellsHydrated(streamingWorkbook.hydrateRows(sheet, firstRow, lastRow));
+    }
+
+    /**
+     * Creates the not yet created cells referenced by the formula of the
+     * given cell, of a workbook read with {@link #readStreaming(File)}.
+     *
+     * @param formulaCell
+     *            Formula cell
+     */
+    void hydrateFormulaPrecedents(Cell formulaCell) {
+        if (streamingWorkbook != null) {
+            cellsHydrated(streamingWorkbook.hydratePrecedents(formulaCell));
+        }
+    }
+
+    private void cellsHydrated(List<Cell> cells) {
+        if (cells == null) {
+            // the referenced cells aren't known
+            materializeWorkbook();
+        } else if (!cells.isEmpty()) {
+            // POI caches the last row of the sheets for evaluation
+            getFormulaEvaluator().clearAllCachedResultValues();
+            getConditionalFormattingEvaluator().clearAllCachedValues();
+            Sheet activeSheet = getActiveSheet();
+            List<Cell> activeSheetCells = new ArrayList<>();
+            for (Cell cell : cells) {
+                if (cell.getSheet() == activeSheet) {
+                    activeSheetCells.add(cell);
+                }
+            }
+            if (!activeSheetCells.isEmpty() && styler != null) {
+                styler.loadCellStyles(activeSheetCells);
+            }
+        }
+    }
+
+    /**
+     * Creates the not yet created cells of the given range of the active
+     * sheet that are visible, and of the frozen rows.
+     *
+     * @param firstRow
+     *            Index of the starting row, 1-based
+     * @param lastRow
+     *            Index of the ending row, 1-based
+     */
+    private void hydrateCellData(int firstRow, int lastRow) {
+        if (streamingWorkbook == null) {
+            return;
+        }
+        if (getLastFrozenRow() > 0) {
+            hydrateRows(getActiveSheet(), 0, getLastFrozenRow() - 1);
+        }
+        if (this.firstRow > 0) {
+            // only the visible cells are sent to the client
+            firstRow = Math.max(firstRow, this.firstRow);
+            lastRow = Math.min(lastRow, this.lastRow);
+        }
+        hydrateRows(getActiveSheet(), firstRow - 1, lastRow - 1);
+    }
+
     /**
      * Exports current spreadsheet into a File with the given name.
      *
@@ -3444,6 +3989,40 @@ public class Spreadsheet extends Component
         SpreadsheetFactory.write(this, outputStream);
     }
 
+    /**
+     * Exports current spreadsheet as an output stream, copying the rows to
+     * the stream with the given executor.
+     * <p>
+     * The workbook is first written to a temporary file in the calling
+     * thread, which should hold the lock of the session. The rows are then
+     * copied from the file to the stream with the executor, without needing
+     * the lock. The workbook can be modified again as soon as this method
+     * returns. Workbooks in the XLS format are written in the calling thread.
+     * The stream is closed after writing.
+     * <p>
+     * POI keeps the parts of the workbook in memory while writing it. For
+     * large workbooks, call
+     * <code>ZipPackage.setUseTempFilePackageParts(true)</code> once when the
+     * application starts to keep them in temporary files instead. The
+     * setting applies to the whole JVM, so it isn't changed by this method.
+     *
+     * @param outputStream
+     *            The target stream
+     * @param executor
+     *            Executor for copying the rows to the stream, or
+     *            <code>null</code> to copy them in the calling thread
+     * @param progressListener
+     *            Called in the thread of the executor with the share of the
+     *            written rows, from 0 to 1, or <code>null</code>
+     * @return future completed when the stream has been written, or
+     *         completed exceptionally if writing fails
+     */
+    public CompletableFuture<Void> write(OutputStream outputStream,
+            Executor executor, DoubleConsumer progressListener) {
+        return SpreadsheetFactory.write(this, outputStream, executor,
+                progressListener);
+    }
+
     /**
      * The row buffer size determines the amount of content rendered outside the
      * top and bottom edges of the visible cell area, for smoother scrolling.
@@ -3549,6 +4128,8 @@ public class Spreadsheet extends Component
      * comments and cells' contents. Also updates styles for the visible area.
      */
     public void reloadVisibleCellContents() {
+        customComponentPool.invalidate();
+        valueManager.clearRenderCache();
         loadCustomComponents();
         updateRowAndColumnRangeCellData(firstRow, firstColumn, lastRow,
                 lastColumn);
@@ -3580,6 +4161,7 @@ public class Spreadsheet extends Component
         styler = null;
 
         valueManager.clearCachedContent();
+        valueManager.clearRenderCache();
         selectionManager.clear();
         historyManager.clear();
         invalidFormulas.clear();
@@ -3597,6 +4179,10 @@ public class Spreadsheet extends Component
 
     void setInternalWorkbook(Workbook workbook) {
         this.workbook = workbook;
+        if (streamingWorkbook != null
+                && streamingWorkbook.getWorkbook() != workbook) {
+            streamingWorkbook = null;
+        }
         formulaEvaluator = workbook.getCreationHelper()
                 .createFormulaEvaluator();
         // currently all formula implementations extend BaseFormulaEvaluator
@@ -3604,6 +4190,9 @@ public class Spreadsheet extends Component
                 workbook, (BaseFormulaEvaluator) formulaEvaluator);
 
         styler = createSpreadsheetStyleFactory();
+        formulaDependencyGraph = new FormulaDependencyGraph(workbook);
+        // the graph needs all formula cells
+        formulaDependencyGraph.setEnabled(streamingWorkbook == null);
 
         reloadActiveSheetData();
         if (workbook instanceof HSSFWorkbook) {
@@ -3649,10 +4238,13 @@ public class Spreadsheet extends Component
     protected void reloadActiveSheetData() {
         selectionManager.clear();
         valueManager.clearCachedContent();
+        valueManager.clearRenderCache();
 
         firstColumn = lastColumn = firstRow = lastRow = -1;
         clearSheetOverlays();
         topLeftCellCommentsLoaded = false;
+        cellCommentIndex = null;
+        propertySync.requestSnapshot();
 
         Optional.ofNullable(UI.getCurrent()).ifPresent(ui -> {
             ui.beforeClientResponse(this, e -> {
@@ -3681,6 +4273,7 @@ public class Spreadsheet extends Component
             unRegisterCustomComponent(c);
         }
         customComponents.clear();
+        customComponentPool.clear();
 
         if (attachedPopupButtons != null && !attachedPopupButtons.isEmpty()) {
             for (PopupButton sf : new ArrayList<PopupButton>(
@@ -3934,7 +4527,10 @@ public class Spreadsheet extends Component
             int c2) {
         // FIXME should be optimized, should not go through all links, comments
         // etc. always
+        hydrateCellData(r1, r2);
         loadHyperLinks();
+        // comments may have been shifted
+        invalidateCellComments();
         loadCellComments();
         loadOrUpdateOverlays();
         loadPopupButtons();
@@ -3958,6 +4554,7 @@ public class Spreadsheet extends Component
      */
     protected void loadCells(int firstRow, int firstColumn, int lastRow,
             int lastColumn) {
+        hydrateCellData(firstRow, lastRow);
         loadCustomComponents();
         loadHyperLinks();
         loadCellComments();
@@ -4106,14 +4703,14 @@ public class Spreadsheet extends Component
         } else {
             ArrayList<Integer> _hiddenColumnIndexes = new ArrayList<>(
                     getHiddenColumnIndexes());
-            int[] _colW = Arrays.copyOf(getColW(), getColW().length);
+            final SparseSizeModel _colW = getColW();
             if (_hiddenColumnIndexes.contains(Integer.valueOf(index + 1))) {
                 _hiddenColumnIndexes.remove(Integer.valueOf(index + 1));
             }
             if (getActiveSheet().isColumnHidden(index)) {
                 getActiveSheet().setColumnHidden(index, false);
             }
-            _colW[index] = width;
+            _colW.setSize(index, width);
             setColW(_colW);
             setHiddenColumnIndexes(_hiddenColumnIndexes);
             getActiveSheet().setColumnWidth(index,
@@ -4403,8 +5000,9 @@ public class Spreadsheet extends Component
         info.col = col + 1; // 1-based
         info.row = row + 1; // 1-based
 
-        info.height = overlayWrapper.getHeight(sheet, getRowH());
-        info.width = overlayWrapper.getWidth(sheet, getColW(), getDefColW());
+        info.height = overlayWrapper.getHeight(sheet, getRowHArray());
+        info.width = overlayWrapper.getWidth(sheet, getColWArray(),
+                getDefColW());
 
         // FIXME: height and width can be -1, it is never handled anywhere
 
@@ -4426,46 +5024,17 @@ public class Spreadsheet extends Component
             // Spreadsheet not loaded. This method will be called again.
             return;
         }
-
-        HashMap<String, String> _cellComments = getCellComments() != null
-                ? new HashMap<>(getCellComments())
-                : null;
-        if (_cellComments == null) {
-            _cellComments = new HashMap<>();
-        } else {
-            _cellComments.clear();
-        }
-        setCellComments(_cellComments);
-
-        HashMap<String, String> _cellCommentAuthors = getCellCommentAuthors() != null
-                ? new HashMap<>(getCellCommentAuthors())
-                : null;
-        if (_cellCommentAuthors == null) {
-            _cellCommentAuthors = new HashMap<String, String>();
-        } else {
-            _cellCommentAuthors.clear();
-        }
-        setCellCommentAuthors(_cellCommentAuthors);
-
-        ArrayList<String> _visibleCellComments = getVisibleCellComments() != null
-                ? new ArrayList<>(getVisibleCellComments())
-                : null;
-        if (_visibleCellComments == null) {
-            _visibleCellComments = new ArrayList<String>();
-        } else {
-            _visibleCellComments.clear();
+        if (cellCommentIndex == null) {
+            cellCommentIndex = new CellCommentIndex(getActiveSheet());
         }
-        setVisibleCellComments(_visibleCellComments);
 
-        Set<String> _invalidFormulaCells = getInvalidFormulaCells() != null
-                ? new HashSet<>(getInvalidFormulaCells())
-                : null;
-        if (_invalidFormulaCells == null) {
-            _invalidFormulaCells = new HashSet<String>();
-        } else {
-            _invalidFormulaCells.clear();
-        }
-        setInvalidFormulaCells(_invalidFormulaCells);
+        // the comments of the previously loaded area are replaced; only the
+        // comments entering or leaving the area are sent to the client
+        final ArrayList<String> oldVisibleCellComments = getVisibleCellComments();
+        cellComments = new HashMap<String, String>();
+        cellCommentAuthors = new HashMap<String, String>();
+        visibleCellComments = new ArrayList<String>();
+        invalidFormulaCells = new HashSet<String>();
 
         if (getLastFrozenRow() > 0 && getLastFrozenColumn() > 0
                 && !topLeftCellCommentsLoaded) {
@@ -4478,67 +5047,94 @@ public class Spreadsheet extends Component
             loadCellComments(firstRow, 1, lastRow, getLastFrozenColumn());
         }
         loadCellComments(firstRow, firstColumn, lastRow, lastColumn);
-    }
 
-    private void loadCellComments(int r1, int c1, int r2, int c2) {
-        Sheet sheet = getActiveSheet();
-        HashMap<String, String> _cellComments = new HashMap<>(
-                getCellComments());
-        HashMap<String, String> _cellCommentAuthors = new HashMap<>(
-                getCellCommentAuthors());
-        ArrayList<String> _visibleCellComments = new ArrayList<>(
-                getVisibleCellComments());
-        Set<String> _invalidFormulaCells = new HashSet<>(
-                getInvalidFormulaCells());
-        for (int r = r1 - 1; r < r2; r++) {
-            Row row = sheet.getRow(r);
-            if (row != null && row.getZeroHeight()) {
-                continue;
-            }
-            for (int c = c1 - 1; c < c2; c++) {
-                if (sheet.isColumnHidden(c)) {
-                    continue;
+        // keep the order of the comments that stay visible
+        final ArrayList<String> _visibleCellComments = new ArrayList<String>();
+        if (oldVisibleCellComments != null) {
+            for (String key : oldVisibleCellComments) {
+                if (visibleCellComments.contains(key)
+                        && !_visibleCellComments.contains(key)) {
+                    _visibleCellComments.add(key);
                 }
+            }
+        }
+        for (String key : visibleCellComments) {
+            if (!_visibleCellComments.contains(key)) {
+                _visibleCellComments.add(key);
+            }
+        }
 
-                int c_one_based = c + 1;
-                int row_one_based = r + 1;
-
-                MergedRegion region = mergedRegionContainer
-                        .getMergedRegion(c_one_based, row_one_based);
-                // do not add comments that are "below" merged regions.
-                // client side handles cases where comment "moves" (because
-                // shifting etc.) from merged cell into basic or vice versa.
-                if (region == null || region.col1 == c_one_based
-                        && region.row1 == row_one_based) {
-                    Comment comment = sheet
-                            .getCellComment(new CellAddress(r, c));
-                    String key = SpreadsheetUtil.toKey(c_one_based,
-                            row_one_based);
-                    if (comment != null) {
-                        // by default comments are shown when mouse is over the
-                        // red
-                        // triangle on the cell's top right corner. the comment
-                        // position is calculated so that it is completely
-                        // visible.
-                        _cellComments.put(key, comment.getString().getString());
-                        _cellCommentAuthors.put(key, comment.getAuthor());
-                        if (comment.isVisible()) {
-                            _visibleCellComments.add(key);
-                        }
-                    }
-                    if (isMarkedAsInvalidFormula(c_one_based, row_one_based)) {
-                        _invalidFormulaCells.add(key);
-                    }
+        setCellComments(cellComments);
+        setCellCommentAuthors(cellCommentAuthors);
+        setVisibleCellComments(_visibleCellComments);
+        setInvalidFormulaCells(invalidFormulaCells);
+    }
 
-                } else {
-                    c = region.col2 - 1;
+    /**
+     * Adds the comments and invalid formula indicators of the given area to
+     * the ones being loaded.
+     */
+    private void loadCellComments(int r1, int c1, int r2, int c2) {
+        for (Comment comment : cellCommentIndex.getComments(r1 - 1, c1 - 1,
+                r2 - 1, c2 - 1)) {
+            final CellAddress address = comment.getAddress();
+            if (isCellCommentShown(address.getRow(), address.getColumn())) {
+                // by default comments are shown when mouse is over the red
+                // triangle on the cell's top right corner. the comment
+                // position is calculated so that it is completely visible.
+                final String key = SpreadsheetUtil.toKey(
+                        address.getColumn() + 1, address.getRow() + 1);
+                cellComments.put(key, comment.getString().getString());
+                cellCommentAuthors.put(key, comment.getAuthor());
+                if (comment.isVisible()) {
+                    visibleCellComments.add(key);
+                }
+            }
+        }
+        final HashSet<String> invalidFormulaKeys = invalidFormulas
+                .get(workbook.getActiveSheetIndex());
+        if (invalidFormulaKeys != null) {
+            for (String key : invalidFormulaKeys) {
+                final int col = SpreadsheetUtil.getColumnIndexFromKey(key);
+                final int row = SpreadsheetUtil.getRowFromKey(key);
+                if (col >= c1 && col <= c2 && row >= r1 && row <= r2
+                        && isCellCommentShown(row - 1, col - 1)) {
+                    invalidFormulaCells.add(key);
                 }
             }
         }
-        setCellComments(_cellComments);
-        setCellCommentAuthors(_cellCommentAuthors);
-        setVisibleCellComments(_visibleCellComments);
-        setInvalidFormulaCells(_invalidFormulaCells);
+    }
+
+    /**
+     * Tells whether the comment and the invalid formula indicator of the given
+     * cell are shown. Those of hidden cells aren't, and neither are those of
+     * cells "below" merged regions. The client side handles cases where a
+     * comment "moves" (because of shifting etc.) from a merged cell into a
+     * basic cell or vice versa.
+     *
+     * @param rowIndex
+     *            0-based
+     * @param columnIndex
+     *            0-based
+     */
+    private boolean isCellCommentShown(int rowIndex, int columnIndex) {
+        if (rowColumnVisibility.isRowHidden(rowIndex)
+                || rowColumnVisibility.isColumnHidden(columnIndex)) {
+            return false;
+        }
+        final MergedRegion region = mergedRegionContainer
+                .getMergedRegion(columnIndex + 1, rowIndex + 1);
+        return region == null || region.col1 == columnIndex + 1
+                && region.row1 == rowIndex + 1;
+    }
+
+    /**
+     * Makes the next update of the cell comments read them from the sheet
+     * again. Must be called when comments are added to or removed from the
+     * active sheet.
+     */
+    void invalidateCellComments() {
+        cellCommentIndex = null;
     }
 
     /**
@@ -4547,24 +5143,11 @@ public class Spreadsheet extends Component
      */
     private void loadCustomComponents() {
         if (customComponentFactory != null) {
-            HashMap<String, String> _cellKeysToEditorIdMap = getCellKeysToEditorIdMap() != null
-                    ? new HashMap<>(getCellKeysToEditorIdMap())
-                    : null;
-            if (_cellKeysToEditorIdMap == null) {
-                _cellKeysToEditorIdMap = new HashMap<String, String>();
-            } else {
-                _cellKeysToEditorIdMap.clear();
-            }
-            setCellKeysToEditorIdMap(_cellKeysToEditorIdMap);
-            HashMap<String, String> _componentIDtoCellKeysMap = getComponentIDtoCellKeysMap() != null
-                    ? new HashMap<>(getComponentIDtoCellKeysMap())
-                    : null;
-            if (_componentIDtoCellKeysMap == null) {
-                _componentIDtoCellKeysMap = new HashMap<String, String>();
-            } else {
-                _componentIDtoCellKeysMap.clear();
-            }
-            setComponentIDtoCellKeysMap(_componentIDtoCellKeysMap);
+            // the maps are sent as deltas, so building them again only sends
+            // the cells that have changed
+            setCellKeysToEditorIdMap(new HashMap<String, String>());
+            setComponentIDtoCellKeysMap(new HashMap<String, String>());
+            pooledComponentColumns.clear();
             if (customComponents == null) {
                 customComponents = new HashSet<Component>();
             }
@@ -4590,6 +5173,9 @@ public class Spreadsheet extends Component
             }
             loadRangeComponents(newCustomComponents, rowsWithComponents,
                     firstRow, firstColumn, lastRow, lastColumn);
+            if (customComponentFactory instanceof SpreadsheetColumnComponentFactory) {
+                loadPooledComponents(newCustomComponents, rowsWithComponents);
+            }
             // unregister old
             for (Iterator<Component> i = customComponents.iterator(); i
                     .hasNext();) {
@@ -4614,6 +5200,7 @@ public class Spreadsheet extends Component
                 }
                 customComponents.clear();
             }
+            customComponentPool.clear();
             handleRowSizes(new HashSet<Integer>());
         }
     }
@@ -4631,6 +5218,14 @@ public class Spreadsheet extends Component
                         .getMergedRegion(c + 1, r + 1);
                 if (region == null
                         || (region.col1 == (c + 1) && region.row1 == (r + 1))) {
+                    if (isPooledComponentColumn(c)) {
+                        // bound after all ranges have been loaded
+                        customComponentPool.addVisibleCell(r, c);
+                        if (region != null) {
+                            c = region.col2 - 1;
+                        }
+                        continue;
+                    }
                     Cell cell = null;
                     if (row != null) {
                         cell = row.getCell(c);
@@ -4678,20 +5273,64 @@ public class Spreadsheet extends Component
         setComponentIDtoCellKeysMap(_componentIDtoCellKeysMap);
     }
 
+    /**
+     * Binds the pooled components of a {@link SpreadsheetColumnComponentFactory}
+     * to the visible cells collected by
+     * {@link #loadRangeComponents(HashSet, Set, int, int, int, int)}. The
+     * components released by the pool stay registered, so that reusing them
+     * for another cell doesn't need to attach them again.
+     */
+    private void loadPooledComponents(HashSet<Component> newCustomComponents,
+            Set<Integer> rowsWithComponents) {
+        customComponentPool.update(
+                (SpreadsheetColumnComponentFactory) customComponentFactory,
+                this, getActiveSheet());
+        HashMap<String, String> _componentIDtoCellKeysMap = getComponentIDtoCellKeysMap();
+        for (Map.Entry<Long, Component> entry : customComponentPool
+                .getBoundComponents().entrySet()) {
+            final Component component = entry.getValue();
+            final int r = CustomComponentPool.getRow(entry.getKey());
+            final int c = CustomComponentPool.getColumn(entry.getKey());
+            registerCustomComponent(component);
+            _componentIDtoCellKeysMap.put(getComponentNodeId(component),
+                    SpreadsheetUtil.toKey(c + 1, r + 1));
+            newCustomComponents.add(component);
+            rowsWithComponents.add(r);
+        }
+        newCustomComponents
+                .addAll(customComponentPool.getReleasedComponents());
+        setComponentIDtoCellKeysMap(_componentIDtoCellKeysMap);
+    }
+
+    /**
+     * @param columnIndex
+     *            0-based
+     * @return <code>true</code> if the cells of the column display pooled
+     *         components of a {@link SpreadsheetColumnComponentFactory}
+     */
+    private boolean isPooledComponentColumn(int columnIndex) {
+        if (!(customComponentFactory instanceof SpreadsheetColumnComponentFactory)) {
+            return false;
+        }
+        return pooledComponentColumns.computeIfAbsent(columnIndex,
+                c -> ((SpreadsheetColumnComponentFactory) customComponentFactory)
+                        .hasColumnComponents(c, this, getActiveSheet()));
+    }
+
     private String getComponentNodeId(Component component) {
         return Integer.toString(component.getElement().getNode().getId());
     }
 
     private void handleRowSizes(Set<Integer> rowsWithComponents) {
         // Set larger height for new rows with components
-        float[] _rowH = Arrays.copyOf(getRowH(), getRowH().length);
+        final SparseSizeModel _rowH = getRowH();
         for (Integer row : rowsWithComponents) {
             if (isRowHidden(row)) {
                 continue;
             }
-            float currentHeight = _rowH[row];
+            float currentHeight = _rowH.getSize(row);
             if (currentHeight < getMinimumRowHeightForComponents()) {
-                _rowH[row] = getMinimumRowHeightForComponents();
+                _rowH.setSize(row, getMinimumRowHeightForComponents());
             }
         }
         // Reset row height for rows which no longer have components
@@ -4700,14 +5339,14 @@ public class Spreadsheet extends Component
             for (Integer row : this.rowsWithComponents) {
                 if (!rowsWithComponents.contains(row)) {
                     if (isRowHidden(row)) {
-                        _rowH[row] = 0;
+                        _rowH.setSize(row, 0);
                     } else {
                         Row r = activeSheet.getRow(row);
                         if (r == null) {
-                            _rowH[row] = activeSheet
-                                    .getDefaultRowHeightInPoints();
+                            _rowH.setSize(row,
+                                    activeSheet.getDefaultRowHeightInPoints());
                         } else {
-                            _rowH[row] = r.getHeightInPoints();
+                            _rowH.setSize(row, r.getHeightInPoints());
                         }
                     }
                 }
@@ -4792,6 +5431,7 @@ public class Spreadsheet extends Component
     public void setSpreadsheetComponentFactory(
             SpreadsheetComponentFactory customComponentFactory) {
         this.customComponentFactory = customComponentFactory;
+        customComponentPool.clear();
         if (firstRow != -1) {
             loadCustomComponents();
             loadCustomEditorOnSelectedCell();
@@ -5673,6 +6313,88 @@ public class Spreadsheet extends Component
         return conditionalFormatter;
     }
 
+    /**
+     * Gets the formula dependency graph of the current workbook.
+     *
+     * @return the dependency graph, never <code>null</code> once a workbook
+     *         has been loaded
+     */
+    FormulaDependencyGraph getFormulaDependencyGraph() {
+        return formulaDependencyGraph;
+    }
+
+    /**
+     * Replaces the formula dependency graph of the current workbook, e.g.
+     * with a graph built while reading the workbook.
+     *
+     * @param formulaDependencyGraph
+     *            Dependency graph for the current workbook
+     */
+    void setFormulaDependencyGraph(
+            FormulaDependencyGraph formulaDependencyGraph) {
+        this.formulaDependencyGraph = formulaDependencyGraph;
+    }
+
+    /**
+     * Returns the cells directly referenced by the formula in the given cell.
+     * Referenced ranges are expanded to the cells that exist in the workbook.
+     *
+     * @param cellReference
+     *            Reference to a formula cell. If no sheet name is given, the
+     *            active sheet is used.
+     * @return the referenced cells with sheet names, or an empty set if the
+     *         cell doesn't contain a formula
+     */
+    public Set<CellReference> getPrecedents(CellReference cellReference) {
+        materializeWorkbook();
+        return formulaDependencyGraph.getPrecedents(
+                getSheetPOIIndex(cellReference), cellReference.getRow(),
+                cellReference.getCol());
+    }
+
+    /**
+     * Returns the formula cells that directly reference the given cell, either
+     * as a single cell or as part of a range.
+     *
+     * @param cellReference
+     *            Reference to a cell. If no sheet name is given, the active
+     *            sheet is used.
+     * @return the dependent formula cells with sheet names
+     */
+    public Set<CellReference> getDependents(CellReference cellReference) {
+        materializeWorkbook();
+        return formulaDependencyGraph.getDependents(
+                getSheetPOIIndex(cellReference), cellReference.getRow(),
+                cellReference.getCol());
+    }
+
+    private int getSheetPOIIndex(CellReference cellReference) {
+        if (cellReference.getSheetName() == null) {
+            return getActiveSheetPOIIndex();
+        }
+        int index = workbook.getSheetIndex(cellReference.getSheetName());
+        if (index < 0) {
+            throw new IllegalArgumentException(
+                    "No sheet named " + cellReference.getSheetName());
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of bytes that have been sent to the client for the
+     * given sheet layout or style property, such as <code>rowH</code> or
+     * <code>cellStyleToCSSStyle</code>. Changes to these properties are sent
+     * as deltas where possible, and the count includes both the deltas and
+     * the full snapshots.
+     *
+     * @param propertyName
+     *            Name of the property
+     * @return the number of bytes sent, or 0 if the property hasn't been sent
+     */
+    public long getSentPropertyBytes(String propertyName) {
+        return propertySync.getSentBytes(propertyName);
+    }
+
     /**
      * Disposes the current {@link Workbook}, if any, and loads a new empty XSLX
      * Workbook.
@@ -5866,7 +6588,7 @@ public class Spreadsheet extends Component
         }
         SpreadsheetFactory.calculateSheetSizes(this, activeSheet);
         SpreadsheetFactory.loadGrouping(this);
-        reloadActiveSheetStyles();
+        styler.updateVisibilityDependentStyles();
         if (hasSheetOverlays()) {
             reloadImageSizesFromPOI = true;
             loadOrUpdateOverlays();
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import com.vaadin.flow.component.Component;
+
+/**
+ * A {@link SpreadsheetComponentFactory} for sheets where whole columns show
+ * the same kind of custom component, e.g. a ComboBox in every cell of a
+ * column. Use it with
+ * {@link Spreadsheet#setSpreadsheetComponentFactory(SpreadsheetComponentFactory)}
+ * .
+ * <p>
+ * Instead of asking for a component for each visible cell, the Spreadsheet
+ * asks once per column whether it has components with
+ * {@link #hasColumnComponents(int, Spreadsheet, Sheet)}. The components of
+ * those columns are kept in a pool and recycled: when a cell scrolls out of
+ * view, its component is reused for a cell of the same column that scrolls
+ * into view, and
+ * {@link #bindColumnComponent(Component, Cell, int, int, Spreadsheet, Sheet)}
+ * is called to update it for the new cell. New components are created with
+ * {@link #createColumnComponent(int, Spreadsheet, Sheet)} only when the pool
+ * of the column is empty, so the number of components stays close to the
+ * number of visible cells.
+ * <p>
+ * The cells of the other columns are handled as with any
+ * {@link SpreadsheetComponentFactory}. By default, they don't have custom
+ * components or editors.
+ *
+ * @author Vaadin Ltd.
+ */
+public interface SpreadsheetColumnComponentFactory
+        extends SpreadsheetComponentFactory {
+
+    /**
+     * Returns whether the cells of the given column display a pooled custom
+     * component. Called once for each visible column when the visible cells
+     * are loaded. For merged regions, the component is only displayed in the
+     * first cell of the region.
+     *
+     * @param columnIndex
+     *            0-based
+     * @param spreadsheet
+     *            The target Spreadsheet component
+     * @param sheet
+     *            The active sheet of the workbook (never <code>null</code>)
+     * @return <code>true</code> if the cells of the column display a component
+     *         created with {@link #createColumnComponent(int, Spreadsheet, Sheet)},
+     *         <code>false</code> if the column is handled with the per-cell
+     *         methods of {@link SpreadsheetComponentFactory}
+     */
+    boolean hasColumnComponents(int columnIndex, Spreadsheet spreadsheet,
+            Sheet sheet);
+
+    /**
+     * Creates a new component for a cell of the given column. Called only when
+     * there is no released component of the column to reuse. The component is
+     * bound to its cell with
+     * {@link #bindColumnComponent(Component, Cell, int, int, Spreadsheet, Sheet)}
+     * before it is displayed.
+     *
+     * @param columnIndex
+     *            0-based
+     * @param spreadsheet
+     *            The target Spreadsheet component
+     * @param sheet
+     *            The active sheet of the workbook (never <code>null</code>)
+     * @return a new component, never <code>null</code>
+     */
+    Component createColumnComponent(int columnIndex, Spreadsheet spreadsheet,
+            Sheet sheet);
+
+    /**
+     * Updates a component of the column to display the given cell. Called when
+     * the cell becomes visible, and again for visible cells when the cell
+     * contents are reloaded, e.g. after
+     * {@link Spreadsheet#reloadVisibleCellContents()}. The component may have
+     * been displaying another cell of the same column before.
+     *
+     * @param component
+     *            Component created for the column
+     * @param cell
+     *            Cell that displays the component or <code>null</code> if the
+     *            cell doesn't yet exist inside POI
+     * @param rowIndex
+     *            0-based
+     * @param columnIndex
+     *            0-based
+     * @param spreadsheet
+     *            The target Spreadsheet component
+     * @param sheet
+     *            The active sheet of the workbook (never <code>null</code>)
+     */
+    void bindColumnComponent(Component component, Cell cell, int rowIndex,
+            int columnIndex, Spreadsheet spreadsheet, Sheet sheet);
+
+    /**
+     * Called when the cell of a component is no longer visible and the
+     * component is released for reuse. The default implementation does
+     * nothing.
+     *
+     * @param component
+     *            Component created for the column
+     * @param rowIndex
+     *            0-based index of the row of the previous cell
+     * @param columnIndex
+     *            0-based
+     * @param spreadsheet
+     *            The target Spreadsheet component
+     */
+    default void unbindColumnComponent(Component component, int rowIndex,
+            int columnIndex, Spreadsheet spreadsheet) {
+    }
+
+    @Override
+    default Component getCustomComponentForCell(Cell cell, int rowIndex,
+            int columnIndex, Spreadsheet spreadsheet, Sheet sheet) {
+        return null;
+    }
+
+    @Override
+    default Component getCustomEditorForCell(Cell cell, int rowIndex,
+            int columnIndex, Spreadsheet spreadsheet, Sheet sheet) {
+        return null;
+    }
+
+    @Override
+    default void onCustomEditorDisplayed(Cell cell, int rowIndex,
+            int columnIndex, Spreadsheet spreadsheet, Sheet sheet,
+            Component customEditor) {
+    }
+}
@@ -15,12 +15,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -33,6 +40,7 @@ import org.apache.poi.hssf.usermodel.HSSFShape;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.Drawing;
 import org.apache.poi.ss.usermodel.Name;
 import org.apache.poi.ss.usermodel.Row;
@@ -69,8 +77,12 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.spreadsheet.client.MergedRegion;
+import com.vaadin.flow.component.spreadsheet.client.SparseSizeModel;
 import com.vaadin.flow.component.spreadsheet.shared.GroupingData;
+import com.vaadin.flow.server.Command;
 
 /**
  * SpreadsheetFactory is an utility class of the Spreadsheet component. It is
@@ -146,6 +158,7 @@ public class SpreadsheetFactory implements Serializable {
             reloadSpreadsheetData(spreadsheet, sheet);
         }
         loadWorkbookStyles(spreadsheet);
+        loadFormulaDependencies(spreadsheet);
     }
 
     /**
@@ -168,6 +181,7 @@ public class SpreadsheetFactory implements Serializable {
                 DEFAULT_COLUMNS);
         setDefaultRowHeight(spreadsheet, sheet);
         loadWorkbookStyles(spreadsheet);
+        loadFormulaDependencies(spreadsheet);
     }
 
     /**
@@ -244,6 +258,304 @@ public class SpreadsheetFactory implements Serializable {
                 WorkbookFactory.create(inputStream));
     }
 
+    /**
+     * Reloads the Spreadsheet component from the given file, creating the
+     * cells only when they are needed. Files that aren't XLSX files are read
+     * normally.
+     *
+     * @param spreadsheet
+     *            Target Spreadsheet
+     * @param spreadsheetFile
+     *            Source file. Should be of XLSX format.
+     * @throws IOException
+     *             If file has invalid format
+     */
+    static void reloadSpreadsheetComponentStreaming(Spreadsheet spreadsheet,
+            final File spreadsheetFile) throws IOException {
+        if (FileMagic.valueOf(spreadsheetFile) != FileMagic.OOXML) {
+            reloadSpreadsheetComponent(spreadsheet, spreadsheetFile);
+            return;
+        }
+        try {
+            reloadSpreadsheetComponent(spreadsheet,
+                    StreamingWorkbookReader.read(spreadsheetFile));
+        } catch (POIXMLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reloads the Spreadsheet component from the given InputStream, creating
+     * the cells only when they are needed. Streams that don't contain an XLSX
+     * file are read normally.
+     *
+     * @param spreadsheet
+     *            Target Spreadsheet
+     * @param inputStream
+     *            Source stream. Stream content should be of XLSX format.
+     * @throws IOException
+     *             If data in the stream has invalid format
+     */
+    static void reloadSpreadsheetComponentStreaming(Spreadsheet spreadsheet,
+            final InputStream inputStream) throws IOException {
+        InputStream stream = FileMagic.prepareToCheckMagic(inputStream);
+        if (FileMagic.valueOf(stream) != FileMagic.OOXML) {
+            reloadSpreadsheetComponent(spreadsheet, stream);
+            return;
+        }
+        try {
+            reloadSpreadsheetComponent(spreadsheet,
+                    StreamingWorkbookReader.read(stream));
+        } catch (POIXMLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void reloadSpreadsheetComponent(Spreadsheet spreadsheet,
+            final StreamingWorkbook streamingWorkbook) {
+        spreadsheet.setStreamingWorkbook(streamingWorkbook);
+        reloadSpreadsheetComponent(spreadsheet,
+                streamingWorkbook.getWorkbook());
+    }
+
+    /**
+     * Reloads the Spreadsheet component from the given file, reading the
+     * workbook with the given executor. See
+     * {@link Spreadsheet#readAsync(File, Executor)}.
+     *
+     * @param spreadsheet
+     *            Target Spreadsheet
+     * @param spreadsheetFile
+     *            Source file. Should be of XLS or XLSX format.
+     * @param streaming
+     *            <code>true</code> to create the cells of an XLSX file only
+     *            when they are needed
+     * @param executor
+     *            Executor for reading the workbook
+     * @return future completed when the workbook has been loaded
+     */
+    static CompletableFuture<Void> reloadSpreadsheetComponentAsync(
+            Spreadsheet spreadsheet, final File spreadsheetFile,
+            boolean streaming, Executor executor) {
+        return reloadSpreadsheetComponentAsync(spreadsheet, () -> {
+            if (streaming
+                    && FileMagic.valueOf(spreadsheetFile) == FileMagic.OOXML) {
+                return StreamingWorkbookReader.read(spreadsheetFile);
+            }
+            return WorkbookFactory.create(spreadsheetFile);
+        }, executor);
+    }
+
+    /**
+     * Reloads the Spreadsheet component from the given InputStream, reading
+     * the workbook with the given executor. See
+     * {@link Spreadsheet#readAsync(InputStream, Executor)}.
+     *
+     * @param spreadsheet
+     *            Target Spreadsheet
+     * @param inputStream
+     *            Source stream. Stream content be of XLS or XLSX format.
+     * @param streaming
+     *            <code>true</code> to create the cells of an XLSX file only
+     *            when they are needed
+     * @param executor
+     *            Executor for reading the workbook
+     * @return future completed when the workbook has been loaded
+     */
+    static CompletableFuture<Void> reloadSpreadsheetComponentAsync(
+            Spreadsheet spreadsheet, final InputStream inputStream,
+            boolean streaming, Executor executor) {
+        return reloadSpreadsheetComponentAsync(spreadsheet, () -> {
+            if (!streaming) {
+                return WorkbookFactory.create(inputStream);
+            }
+            InputStream stream = FileMagic.prepareToCheckMagic(inputStream);
+            if (FileMagic.valueOf(stream) == FileMagic.OOXML) {
+                return StreamingWorkbookReader.read(stream);
+            }
+            return WorkbookFactory.create(stream);
+        }, executor);
+    }
+
+    /**
+     * Reloads the Spreadsheet component from a workbook read with the given
+     * executor, without holding the session lock while the workbook is read.
+     * <p>
+     * The workbook and its formula dependencies are read by the executor. The
+     * active sheet is then loaded in one access to the UI of the component,
+     * so that its cells can be shown as soon as possible, and the overlays,
+     * tables, grouping and named ranges of the sheet in another. The
+     * component is marked as loading until the last step has been done. If
+     * the component isn't attached to a UI, all steps are done by the
+     * executor. If another workbook is read before the steps are done, the
+     * remaining steps are skipped and the returned future is cancelled.
+     *
+     * @param spreadsheet
+     *            Target Spreadsheet
+     * @param reader
+     *            Reads the workbook
+     * @param executor
+     *            Executor for reading the workbook
+     * @return future completed when the workbook has been loaded
+     */
+    private static CompletableFuture<Void> reloadSpreadsheetComponentAsync(
+            final Spreadsheet spreadsheet, final WorkbookReader reader,
+            final Executor executor) {
+        Objects.requireNonNull(executor, "Executor must not be null");
+        final UI ui = spreadsheet.getUI().orElse(null);
+        final int generation = spreadsheet.nextReadGeneration();
+        spreadsheet.setLoading(true);
+        CompletableFuture<LoadedWorkbook> read;
+        try {
+            read = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new LoadedWorkbook(reader.read());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (POIXMLException e) {
+                    throw new UncheckedIOException(new IOException(e));
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            read = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Void> loaded = read
+                .thenCompose(workbook -> access(ui, () -> {
+                    checkCurrentRead(spreadsheet, generation);
+                    loadActiveSheet(spreadsheet, workbook);
+                }).thenCompose(v -> access(ui, () -> {
+                    checkCurrentRead(spreadsheet, generation);
+                    loadActiveSheetMetadata(spreadsheet, workbook);
+                })));
+        loaded.whenComplete((v, e) -> {
+            if (e != null) {
+                access(ui, () -> {
+                    if (spreadsheet.isCurrentRead(generation)) {
+                        spreadsheet.setLoading(false);
+                    }
+                });
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Reads a workbook in the executor of an asynchronous reload.
+     */
+    @FunctionalInterface
+    private interface WorkbookReader {
+
+        /**
+         * @return a {@link Workbook} or a {@link StreamingWorkbook}
+         * @throws IOException
+         *             If reading fails
+         */
+        Object read() throws IOException;
+    }
+
+    /**
+     * A workbook read by the executor, with its formula dependencies.
+     */
+    private static final class LoadedWorkbook {
+        private final Workbook workbook;
+        private final StreamingWorkbook streamingWorkbook;
+        private final FormulaDependencyGraph formulaDependencyGraph;
+
+        private LoadedWorkbook(Object read) {
+            if (read instanceof StreamingWorkbook) {
+                streamingWorkbook = (StreamingWorkbook) read;
+                workbook = streamingWorkbook.getWorkbook();
+            } else {
+                streamingWorkbook = null;
+                workbook = (Workbook) read;
+            }
+            int activeSheetIndex = workbook.getActiveSheetIndex();
+            if (workbook.isSheetHidden(activeSheetIndex)
+                    || workbook.isSheetVeryHidden(activeSheetIndex)) {
+                workbook.setActiveSheet(
+                        SpreadsheetUtil.getFirstVisibleSheetPOIIndex(workbook));
+            }
+            // the workbook isn't shared yet, so the graph can be built here
+            formulaDependencyGraph = new FormulaDependencyGraph(workbook);
+            formulaDependencyGraph.setEnabled(streamingWorkbook == null);
+            formulaDependencyGraph.rebuild();
+        }
+    }
+
+    private static void loadActiveSheet(Spreadsheet spreadsheet,
+            LoadedWorkbook loaded) {
+        Workbook oldWorkbook = spreadsheet.getWorkbook();
+        if (oldWorkbook != null) {
+            spreadsheet.clearSheetServerSide();
+            if (oldWorkbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) oldWorkbook).dispose();
+            }
+        }
+        final Workbook workbook = loaded.workbook;
+        if (loaded.streamingWorkbook != null) {
+            spreadsheet.setStreamingWorkbook(loaded.streamingWorkbook);
+        }
+        spreadsheet.setInternalWorkbook(workbook);
+        spreadsheet.setFormulaDependencyGraph(loaded.formulaDependencyGraph);
+        try {
+            loadSheetLayout(spreadsheet,
+                    workbook.getSheetAt(workbook.getActiveSheetIndex()));
+        } catch (NullPointerException npe) {
+            LOGGER.warn(npe.getMessage(), npe);
+        }
+        loadWorkbookStyles(spreadsheet);
+    }
+
+    /**
+     * Throws if another workbook has been read into the given Spreadsheet
+     * after the read of the given generation was started.
+     */
+    private static void checkCurrentRead(Spreadsheet spreadsheet,
+            int generation) {
+        if (!spreadsheet.isCurrentRead(generation)) {
+            throw new CancellationException(
+                    "Another workbook has been read into the Spreadsheet");
+        }
+    }
+
+    private static void loadActiveSheetMetadata(Spreadsheet spreadsheet,
+            LoadedWorkbook loaded) {
+        // the workbook may have been set with setWorkbook in between
+        if (spreadsheet.getWorkbook() == loaded.workbook) {
+            try {
+                loadSheetMetadata(spreadsheet);
+            } catch (NullPointerException npe) {
+                LOGGER.warn(npe.getMessage(), npe);
+            }
+        }
+        spreadsheet.setLoading(false);
+    }
+
+    /**
+     * Runs the given command with the lock of the UI, or directly if there is
+     * no UI.
+     */
+    private static CompletableFuture<Void> access(UI ui, Command command) {
+        if (ui == null) {
+            command.execute();
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            ui.access(() -> {
+                try {
+                    command.execute();
+                    future.complete(null);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (UIDetachedException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Reloads the Spreadsheet component using the given Workbook as data
      * source.
@@ -255,6 +567,11 @@ public class SpreadsheetFactory implements Serializable {
      */
     static void reloadSpreadsheetComponent(Spreadsheet spreadsheet,
             final Workbook workbook) {
+        if (spreadsheet.isLoading()) {
+            // discards an asynchronous read that hasn't been loaded yet
+            spreadsheet.nextReadGeneration();
+            spreadsheet.setLoading(false);
+        }
         Workbook oldWorkbook = spreadsheet.getWorkbook();
         if (oldWorkbook != null) {
             spreadsheet.clearSheetServerSide();
@@ -266,6 +583,7 @@ public class SpreadsheetFactory implements Serializable {
         spreadsheet.setInternalWorkbook(workbook);
         reloadSpreadsheetData(spreadsheet, sheet);
         loadWorkbookStyles(spreadsheet);
+        loadFormulaDependencies(spreadsheet);
     }
 
     /**
@@ -297,10 +615,18 @@ public class SpreadsheetFactory implements Serializable {
             // If the file exists beforehand, it needs to be deleted first
             file.delete();
         }
+        final StreamingWorkbook streamingWorkbook = spreadsheet
+                .getStreamingWorkbook();
         FileOutputStream fos = null;
         try {
             fos = new FileOutputStream(file);
-            workbook.write(fos);
+            if (workbook instanceof XSSFWorkbook) {
+                StreamingWorkbookWriter
+                        .prepare((XSSFWorkbook) workbook, streamingWorkbook)
+                        .writeTo(fos, null);
+            } else {
+                workbook.write(fos);
+            }
             fos.close();
             if (workbook instanceof SXSSFWorkbook) {
                 ((SXSSFWorkbook) workbook).dispose();
@@ -312,8 +638,14 @@ public class SpreadsheetFactory implements Serializable {
                 fos.close();
             }
         }
-        Workbook wb = WorkbookFactory.create(file);
-        spreadsheet.setInternalWorkbook(wb);
+        if (streamingWorkbook != null) {
+            StreamingWorkbook wb = StreamingWorkbookReader.read(file);
+            spreadsheet.setStreamingWorkbook(wb);
+            spreadsheet.setInternalWorkbook(wb.getWorkbook());
+        } else {
+            Workbook wb = WorkbookFactory.create(file);
+            spreadsheet.setInternalWorkbook(wb);
+        }
         return file;
     }
 
@@ -331,6 +663,18 @@ public class SpreadsheetFactory implements Serializable {
     static void write(Spreadsheet spreadsheet, OutputStream stream)
             throws IOException {
         final Workbook workbook = spreadsheet.getWorkbook();
+        if (workbook instanceof XSSFWorkbook) {
+            try {
+                StreamingWorkbookWriter
+                        .prepare((XSSFWorkbook) workbook,
+                                spreadsheet.getStreamingWorkbook())
+                        .writeTo(stream, null);
+            } catch (IOException | RuntimeException e) {
+                stream.close();
+                throw e;
+            }
+            return;
+        }
         try {
             workbook.write(stream);
             stream.close();
@@ -345,6 +689,75 @@ public class SpreadsheetFactory implements Serializable {
         }
     }
 
+    /**
+     * Writes the current Workbook state from the given Spreadsheet to the given
+     * output stream, streaming the rows to the stream with the given executor.
+     * <p>
+     * An XLSX workbook is first written to a temporary file in the calling
+     * thread, and then copied to the stream by the executor, adding the cells
+     * of a workbook read with
+     * {@link Spreadsheet#readStreaming(InputStream)} that haven't been loaded
+     * yet. Other workbooks are written in the calling thread. The stream will
+     * be closed after writing.
+     *
+     * @param spreadsheet
+     *            Source Spreadsheet
+     * @param stream
+     *            Output stream to write to
+     * @param executor
+     *            Executor for copying the rows to the stream, or
+     *            <code>null</code> to copy them in the calling thread
+     * @param progressListener
+     *            Receives the share of the written rows, from 0 to 1, or
+     *            <code>null</code>
+     * @return future completed when the stream has been written and closed
+     */
+    static CompletableFuture<Void> write(Spreadsheet spreadsheet,
+            OutputStream stream, Executor executor,
+            DoubleConsumer progressListener) {
+        final Workbook workbook = spreadsheet.getWorkbook();
+        if (!(workbook instanceof XSSFWorkbook)) {
+            try {
+                write(spreadsheet, stream);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            if (progressListener != null) {
+                progressListener.accept(1);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        final StreamingWorkbookWriter writer;
+        try {
+            writer = StreamingWorkbookWriter.prepare((XSSFWorkbook) workbook,
+                    spreadsheet.getStreamingWorkbook());
+        } catch (IOException | RuntimeException e) {
+            return failed(stream, e);
+        }
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    writer.writeTo(stream, progressListener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor == null ? Runnable::run : executor);
+        } catch (RejectedExecutionException e) {
+            writer.discard();
+            return failed(stream, e);
+        }
+    }
+
+    private static CompletableFuture<Void> failed(OutputStream stream,
+            Exception e) {
+        try {
+            stream.close();
+        } catch (IOException closeException) {
+            e.addSuppressed(closeException);
+        }
+        return CompletableFuture.failedFuture(e);
+    }
+
     /**
      * Loads styles for the Workbook and the currently active sheet.
      *
@@ -356,6 +769,17 @@ public class SpreadsheetFactory implements Serializable {
         spreadsheet.getSpreadsheetStyleFactory().reloadActiveSheetCellStyles();
     }
 
+    /**
+     * Parses the formulas of all sheets in the workbook of the given
+     * Spreadsheet into its formula dependency graph.
+     *
+     * @param spreadsheet
+     *            Target Spreadsheet
+     */
+    static void loadFormulaDependencies(Spreadsheet spreadsheet) {
+        spreadsheet.getFormulaDependencyGraph().rebuild();
+    }
+
     /**
      * Sets the size, default row height and default column width for the given
      * new Sheet in the target Spreadsheet. Finally loads the sheet.
@@ -390,21 +814,38 @@ public class SpreadsheetFactory implements Serializable {
             final Sheet sheet) {
         logMemoryUsage();
         try {
-            setDefaultRowHeight(spreadsheet, sheet);
-            setDefaultColumnWidth(spreadsheet, sheet);
-            calculateSheetSizes(spreadsheet, sheet);
-            loadSheetOverlays(spreadsheet);
-            loadSheetTables(spreadsheet);
-            loadMergedRegions(spreadsheet);
-            loadFreezePane(spreadsheet);
-            loadGrouping(spreadsheet);
-            loadNamedRanges(spreadsheet);
+            loadSheetLayout(spreadsheet, sheet);
+            loadSheetMetadata(spreadsheet);
         } catch (NullPointerException npe) {
             LOGGER.warn(npe.getMessage(), npe);
         }
         logMemoryUsage();
     }
 
+    /**
+     * Loads the sizes, merged regions and freeze panes of the given sheet,
+     * which are needed for showing the cells of the sheet.
+     */
+    private static void loadSheetLayout(final Spreadsheet spreadsheet,
+            final Sheet sheet) {
+        setDefaultRowHeight(spreadsheet, sheet);
+        setDefaultColumnWidth(spreadsheet, sheet);
+        calculateSheetSizes(spreadsheet, sheet);
+        loadMergedRegions(spreadsheet);
+        loadFreezePane(spreadsheet);
+    }
+
+    /**
+     * Loads the overlays, tables, grouping and named ranges of the active
+     * sheet.
+     */
+    private static void loadSheetMetadata(final Spreadsheet spreadsheet) {
+        loadSheetOverlays(spreadsheet);
+        loadSheetTables(spreadsheet);
+        loadGrouping(spreadsheet);
+        loadNamedRanges(spreadsheet);
+    }
+
     static void loadNamedRanges(Spreadsheet spreadsheet) {
         final List<? extends Name> namedRanges = spreadsheet.getWorkbook()
                 .getAllNames();
@@ -518,49 +959,58 @@ public class SpreadsheetFactory implements Serializable {
      */
     static void calculateSheetSizes(final Spreadsheet spreadsheet,
             final Sheet sheet) {
+        final StreamingWorkbook streamingWorkbook = spreadsheet
+                .getStreamingWorkbook();
         // Always have at least the default amount of rows
         int rows = sheet.getLastRowNum() + 1;
+        if (streamingWorkbook != null) {
+            // the rows of the not yet created cells
+            rows = Math.max(rows,
+                    streamingWorkbook.getLastRowIndex(sheet) + 1);
+        }
         if (rows < spreadsheet.getDefaultRowCount()) {
             rows = spreadsheet.getDefaultRowCount();
         }
         spreadsheet.setRows(rows);
 
-        final float[] rowHeights = new float[rows];
+        // only the rows that exist can have a height of their own, the rows
+        // after the last row have the default height of the sheet and the
+        // empty rows before it the default height of the spreadsheet
+        final int lastRowNum = sheet.getLastRowNum();
+        final float defaultRowHeightInPoints = sheet
+                .getDefaultRowHeightInPoints();
+        final SparseSizeModel rowHeights = new SparseSizeModel(rows,
+                defaultRowHeightInPoints);
+        final boolean emptyRowsHaveOwnHeight = spreadsheet
+                .getDefRowH() != defaultRowHeightInPoints;
         int cols = 0;
         int tempRowIndex = -1;
         final ArrayList<Integer> hiddenRowIndexes = new ArrayList<Integer>();
         for (Row row : sheet) {
             int rIndex = row.getRowNum();
-            // set the empty rows to have the default row width
-            while (++tempRowIndex != rIndex) {
-                rowHeights[tempRowIndex] = spreadsheet.getDefRowH();
+            if (emptyRowsHaveOwnHeight) {
+                while (++tempRowIndex < rIndex) {
+                    rowHeights.setSize(tempRowIndex, spreadsheet.getDefRowH());
+                }
+                tempRowIndex = rIndex;
             }
             if (row.getZeroHeight()) {
-                rowHeights[rIndex] = 0.0F;
+                rowHeights.setSize(rIndex, 0.0F);
                 hiddenRowIndexes.add(rIndex + 1);
             } else {
-                rowHeights[rIndex] = row.getHeightInPoints();
+                rowHeights.setSize(rIndex, row.getHeightInPoints());
             }
             int c = row.getLastCellNum();
             if (c > cols) {
                 cols = c;
             }
         }
-        if (rows > sheet.getLastRowNum() + 1) {
-            float defaultRowHeightInPoints = sheet
-                    .getDefaultRowHeightInPoints();
-
-            int lastRowNum = sheet.getLastRowNum();
-            // if sheet is empty, also set height for 'last row' (index
-            // zero)
-            if (lastRowNum == 0) {
-                rowHeights[0] = defaultRowHeightInPoints;
-            }
-
-            // set default height for the rest
-            for (int i = lastRowNum + 1; i < rows; i++) {
-                rowHeights[i] = defaultRowHeightInPoints;
-            }
+        if (streamingWorkbook != null) {
+            cols = Math.max(cols, streamingWorkbook.getColumnCount(sheet));
+        }
+        // if sheet is empty, also set height for 'last row' (index zero)
+        if (lastRowNum == 0 && rows > 1) {
+            rowHeights.setSize(0, defaultRowHeightInPoints);
         }
         spreadsheet.setHiddenRowIndexes(hiddenRowIndexes);
         spreadsheet.setRowH(rowHeights);
@@ -571,14 +1021,15 @@ public class SpreadsheetFactory implements Serializable {
         }
         spreadsheet.setCols(cols);
 
-        final int[] colWidths = new int[cols];
+        final SparseSizeModel colWidths = new SparseSizeModel(cols,
+                spreadsheet.getDefColW());
         final ArrayList<Integer> hiddenColumnIndexes = new ArrayList<Integer>();
         for (int i = 0; i < cols; i++) {
             if (sheet.isColumnHidden(i)) {
-                colWidths[i] = 0;
+                colWidths.setSize(i, 0);
                 hiddenColumnIndexes.add(i + 1);
             } else {
-                colWidths[i] = (int) sheet.getColumnWidthInPixels(i);
+                colWidths.setSize(i, (int) sheet.getColumnWidthInPixels(i));
             }
         }
         spreadsheet.setHiddenColumnIndexes(hiddenColumnIndexes);
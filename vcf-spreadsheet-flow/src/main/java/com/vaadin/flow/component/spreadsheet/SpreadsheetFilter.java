@@ -9,6 +9,7 @@
 package com.vaadin.flow.component.spreadsheet;
 
 import java.io.Serializable;
+import java.util.BitSet;
 import java.util.Set;
 
 /**
@@ -41,4 +42,24 @@ public interface SpreadsheetFilter extends Serializable {
      * @return Row indexes of the filtered rows, 0-based
      */
     public Set<Integer> getFilteredRows();
+
+    /**
+     * Returns the rows that should be filtered by this filter as a bitmap. The
+     * returned bitmap must not be modified.
+     *
+     * @param firstRow
+     *            Row index that the first bit of the bitmap corresponds to,
+     *            0-based
+     * @return Bitmap of the filtered rows, bit {@code i} is set if row
+     *         {@code firstRow + i} is filtered
+     */
+    public default BitSet getFilteredRowBitmap(int firstRow) {
+        BitSet rows = new BitSet();
+        for (Integer row : getFilteredRows()) {
+            if (row >= firstRow) {
+                rows.set(row - firstRow);
+            }
+        }
+        return rows;
+    }
 }
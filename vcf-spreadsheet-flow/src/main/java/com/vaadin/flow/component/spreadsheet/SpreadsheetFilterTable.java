@@ -8,14 +8,11 @@
  */
 package com.vaadin.flow.component.spreadsheet;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
@@ -151,11 +148,7 @@ public class SpreadsheetFilterTable extends SpreadsheetTable {
             popupButtonToClearButtonMap.get(popupButton).setEnabled(false);
             popupButton.markActive(false);
         }
-        getSpreadsheet().setRowsHidden(IntStream
-                .range(filteringRegion.getFirstRow(),
-                        filteringRegion.getLastRow() + 1)
-                .boxed().collect(
-                        Collectors.toMap(Function.identity(), index -> false)));
+        setFilteredRows(new BitSet());
     }
 
     /**
@@ -241,25 +234,80 @@ public class SpreadsheetFilterTable extends SpreadsheetTable {
      * added your own SpreadsheetFilter.
      */
     public void onFiltersUpdated() {
-        Set<Integer> filteredRows = new HashSet<>();
+        final int firstRow = filteringRegion.getFirstRow();
+        final BitSet filteredRows = new BitSet();
         for (Entry<PopupButton, HashSet<SpreadsheetFilter>> entry : popupButtonToFiltersMap
                 .entrySet()) {
             PopupButton popupButton = entry.getKey();
             HashSet<SpreadsheetFilter> filters = entry.getValue();
-            HashSet<Integer> temp = new HashSet<Integer>();
+            BitSet temp = new BitSet();
             for (SpreadsheetFilter filter : filters) {
-                temp.addAll(filter.getFilteredRows());
+                temp.or(filter.getFilteredRowBitmap(firstRow));
             }
             popupButtonToClearButtonMap.get(popupButton)
                     .setEnabled(!temp.isEmpty());
             popupButton.markActive(!temp.isEmpty());
-            filteredRows.addAll(temp);
+            filteredRows.or(temp);
+        }
+        setFilteredRows(filteredRows);
+    }
+
+    /**
+     * Hides the given rows of the filtering region and shows the rest. Only
+     * the rows whose visibility changes are updated.
+     *
+     * @param filteredRows
+     *            Rows to hide, bit {@code i} corresponds to the row
+     *            {@code i} of the filtering region
+     */
+    private void setFilteredRows(BitSet filteredRows) {
+        final Spreadsheet spreadsheet = getSpreadsheet();
+        final int firstRow = filteringRegion.getFirstRow();
+        final Map<Integer, Boolean> changedRows = new HashMap<>();
+        for (int r = firstRow; r <= filteringRegion.getLastRow(); r++) {
+            boolean hidden = filteredRows.get(r - firstRow);
+            if (hidden != spreadsheet.isRowHidden(r)) {
+                changedRows.put(r, hidden);
+            }
+        }
+        if (!changedRows.isEmpty()) {
+            spreadsheet.setRowsHidden(changedRows);
+        }
+    }
+
+    /**
+     * Notifies the item filters of this table that the given cell has changed.
+     *
+     * @param sheet
+     *            Sheet of the changed cell
+     * @param row
+     *            Row index, 0-based
+     * @param col
+     *            Column index, 0-based
+     */
+    void cellChanged(Sheet sheet, int row, int col) {
+        for (HashSet<SpreadsheetFilter> filters : popupButtonToFiltersMap
+                .values()) {
+            for (SpreadsheetFilter filter : filters) {
+                if (filter instanceof ItemFilter) {
+                    ((ItemFilter) filter).cellChanged(sheet, row, col);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the indexed column values of the item filters of this table.
+     */
+    void invalidateValueIndexes() {
+        for (HashSet<SpreadsheetFilter> filters : popupButtonToFiltersMap
+                .values()) {
+            for (SpreadsheetFilter filter : filters) {
+                if (filter instanceof ItemFilter) {
+                    ((ItemFilter) filter).invalidateValueIndex();
+                }
+            }
         }
-        getSpreadsheet().setRowsHidden(IntStream
-                .range(filteringRegion.getFirstRow(),
-                        filteringRegion.getLastRow() + 1)
-                .boxed().collect(Collectors.toMap(Function.identity(),
-                        filteredRows::contains)));
     }
 
     /**
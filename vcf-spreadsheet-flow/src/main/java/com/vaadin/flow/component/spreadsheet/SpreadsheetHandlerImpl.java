@@ -472,6 +472,7 @@ public class SpreadsheetHandlerImpl implements SpreadsheetServerRpc {
             cell.setCellComment(comment);
         }
         comment.setString(str);
+        spreadsheet.invalidateCellComments();
     }
 
     public Cell getOrCreateCell(Sheet sheet, int rowIdx, int colIdx) {
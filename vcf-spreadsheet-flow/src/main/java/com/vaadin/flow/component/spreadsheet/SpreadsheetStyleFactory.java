@@ -10,14 +10,22 @@ package com.vaadin.flow.component.spreadsheet;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 
+import org.apache.poi.hssf.usermodel.HSSFCellStyle;
+import org.apache.poi.hssf.usermodel.HSSFFont;
+import org.apache.poi.hssf.usermodel.HSSFPalette;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Font;
@@ -28,11 +36,15 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.model.ThemesTable;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.xssf.usermodel.XSSFFont;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder.BorderSide;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorder;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTStylesheet;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTXf;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.STBorderStyle;
 import org.slf4j.Logger;
@@ -52,6 +64,14 @@ public class SpreadsheetStyleFactory implements Serializable {
     private static final Logger LOGGER = LoggerFactory
             .getLogger(SpreadsheetStyleFactory.class);
 
+    /** Number of colors in a workbook theme */
+    private static final int THEME_COLORS = 12;
+
+    /** Key prefixes of the custom border rules */
+    private static final String TOP_BORDER = "t";
+    private static final String LEFT_BORDER = "l";
+    private static final String MERGED_BORDER = "m";
+
     /**
      * Styling for cell borders
      *
@@ -104,6 +124,31 @@ public class SpreadsheetStyleFactory implements Serializable {
 
     }
 
+    /**
+     * The custom borders a cell adds to the sheet: the shifted left and top
+     * borders drawn on the previous visible cells, and the right and bottom
+     * borders of a cell inside a merged region drawn on the merged cell.
+     */
+    private static class CellBorders implements Serializable {
+        private final int styleIndex;
+        /** Key of the cell that shows the left border, or -1 */
+        private long leftTarget = -1;
+        /** Key of the cell that shows the top border, or -1 */
+        private long topTarget = -1;
+        /** Selector of the merged cell, or <code>null</code> */
+        private String mergedSelector;
+        private String borderRight;
+        private String borderBottom;
+
+        CellBorders(int styleIndex) {
+            this.styleIndex = styleIndex;
+        }
+
+        boolean isEmpty() {
+            return leftTarget < 0 && topTarget < 0 && mergedSelector == null;
+        }
+    }
+
     private static final Map<HorizontalAlignment, String> ALIGN = mapFor(
             HorizontalAlignment.LEFT, "left", HorizontalAlignment.CENTER,
             "center", HorizontalAlignment.RIGHT, "right",
@@ -143,24 +188,50 @@ public class SpreadsheetStyleFactory implements Serializable {
             org.apache.poi.ss.usermodel.BorderStyle.THIN,
             BorderStyle.SOLID_THIN);
 
-    /** CellStyle index to selector + style map */
+    /** CellStyle index to the rule block of the shifted top border */
     private final HashMap<Integer, String> shiftedBorderTopStyles = new HashMap<Integer, String>();
-    /** CellStyle index to selector + style map */
+    /** CellStyle index to the rule block of the shifted left border */
     private final HashMap<Integer, String> shiftedBorderLeftStyles = new HashMap<Integer, String>();
-    /** */
-    private final HashMap<String, String> mergedCellBorders = new HashMap<String, String>();
 
     /**
-     * Temp structure for shiftedBorderTopStyles that keeps track of the
-     * association between: StyleId to ColumnId to Rows
+     * The custom borders of the styled cells of the active sheet, by the key of
+     * the cell, see {@link #cellKey(int, int)}
+     */
+    private final TreeMap<Long, CellBorders> cellBorders = new TreeMap<Long, CellBorders>();
+
+    /**
+     * CellStyle index to the cells that show the shifted top border of the
+     * style, with the number of cells the border comes from
+     */
+    private final HashMap<Integer, TreeMap<Long, Integer>> shiftedBorderTopCells = new HashMap<Integer, TreeMap<Long, Integer>>();
+
+    /**
+     * CellStyle index to the cells that show the shifted left border of the
+     * style, with the number of cells the border comes from
+     */
+    private final HashMap<Integer, TreeMap<Long, Integer>> shiftedBorderLeftCells = new HashMap<Integer, TreeMap<Long, Integer>>();
+
+    /** Merged cell selector to the cells of the region that have borders */
+    private final HashMap<String, TreeMap<Long, CellBorders>> mergedCellBorders = new HashMap<String, TreeMap<Long, CellBorders>>();
+
+    /**
+     * The custom border CSS rules in the shared state, by {@link #TOP_BORDER}
+     * or {@link #LEFT_BORDER} and the CellStyle index, or by
+     * {@link #MERGED_BORDER} and the merged cell selector. Existing rules keep
+     * their position, so that only the changes are sent to the client.
      */
-    private final HashMap<Integer, HashMap<Integer, HashSet<Integer>>> shiftedBorderTopStylesMap = new HashMap<Integer, HashMap<Integer, HashSet<Integer>>>();
+    private final LinkedHashMap<String, String> customBorderStyles = new LinkedHashMap<String, String>();
+
+    /** Keys of the custom border rules that need to be rebuilt */
+    private final LinkedHashSet<String> changedBorderStyles = new LinkedHashSet<String>();
+
+    /** Hidden rows of the active sheet when the custom borders were updated */
+    private BitSet bordersHiddenRows;
 
     /**
-     * Temp structure for shiftedBorderLeftStyles that keeps track of the
-     * association between: StyleId to ColumnId to Rows
+     * Hidden columns of the active sheet when the custom borders were updated
      */
-    private final HashMap<Integer, HashMap<Integer, HashSet<Integer>>> shiftedBorderLeftStylesMap = new HashMap<Integer, HashMap<Integer, HashSet<Integer>>>();
+    private BitSet bordersHiddenColumns;
 
     private ColorConverter colorConverter;
 
@@ -174,6 +245,12 @@ public class SpreadsheetStyleFactory implements Serializable {
 
     private String defaultFontFamily;
 
+    /**
+     * Start of the {@link StyleCssCache} keys of the current workbook, built
+     * from the default style and the colors of the workbook
+     */
+    private String styleKeyPrefix;
+
     /**
      * Constructs a new SpreadsheetStyleFactory for the given Spreadsheet
      *
@@ -199,7 +276,8 @@ public class SpreadsheetStyleFactory implements Serializable {
         }
         shiftedBorderLeftStyles.clear();
         shiftedBorderTopStyles.clear();
-        mergedCellBorders.clear();
+        clearCellBorders();
+        spreadsheet.getCellStyleMetadata().clear();
 
         // get default text alignments
         CellStyle cellStyle = workbook.getCellStyleAt((short) 0);
@@ -213,11 +291,14 @@ public class SpreadsheetStyleFactory implements Serializable {
         colorConverter.defaultColorStyles(cellStyle, sb);
         spreadsheet.cellStyleToCSSStyle.put((int) cellStyle.getIndex(),
                 sb.toString());
+        // the CSS of the other styles depends on the default style
+        styleKeyPrefix = null;
 
         // 0 is default style, create all styles indexed from 1 and upwards
         for (short i = 1; i < workbook.getNumCellStyles(); i++) {
             cellStyle = workbook.getCellStyleAt(i);
-            addCellStyleCSS(cellStyle);
+            spreadsheet.cellStyleToCSSStyle.put((int) cellStyle.getIndex(),
+                    getCellStyleCSS(cellStyle));
         }
         spreadsheet.setCellStyleToCSSStyle(spreadsheet.cellStyleToCSSStyle);
         reloadActiveSheetColumnRowStyles();
@@ -315,92 +396,27 @@ public class SpreadsheetStyleFactory implements Serializable {
      *            0-based
      */
     public void clearCellStyle(int oldRowIndex, int oldColumnIndex) {
-        final String cssSelector = ".col" + (oldColumnIndex + 1) + ".row"
-                + (oldRowIndex + 1);
-        // remove/modify all possible old custom styles that the cell had (can
-        // be found from state)
-        ArrayList<String> add = new ArrayList<String>();
-        ArrayList<String> _shiftedCellBorderStyles = spreadsheet
-                .getShiftedCellBorderStyles();
-        Iterator<String> iterator = _shiftedCellBorderStyles.iterator();
-        while (iterator.hasNext()) {
-            String style = iterator.next();
-            // only cell with this style -> remove
-            if (style.startsWith(cssSelector + "{")) {
-                iterator.remove();
-            } else if (style.contains(cssSelector)) { // shifted borders
-                iterator.remove();
-                int index = style.indexOf(cssSelector);
-                if (index > 0) { // doesn't start with the selector
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the last
-                    style = style.replace("," + cssSelector + "{", "{");
-                } else {
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the last
-                    style = style.replace(cssSelector + "{", "{");
-                }
-                if (!style.startsWith("{")) {
-                    add.add(style);
-                }
-            }
-        }
-        for (String s : add) {
-            _shiftedCellBorderStyles.add(s);
-        }
-
-        HashMap<Integer, String> add2 = new HashMap<Integer, String>();
-        Iterator<Entry<Integer, String>> iterator2 = shiftedBorderLeftStyles
-                .entrySet().iterator();
-        while (iterator2.hasNext()) {
-            Entry<Integer, String> entry = iterator2.next();
-            String style = entry.getValue();
-            if (style.contains(cssSelector)) { // shifted borders
-                iterator2.remove();
-                int index = style.indexOf(cssSelector);
-                if (index > 0) { // doesn't start with the selector
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the last
-                    style = style.replace("," + cssSelector + "{", "{");
-                } else {
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the only
-                    style = style.replace(cssSelector + "{", "{");
-                }
-                add2.put(entry.getKey(), style);
-            }
-        }
-        shiftedBorderLeftStyles.putAll(add2);
-        add2.clear();
-
-        iterator2 = shiftedBorderTopStyles.entrySet().iterator();
-        while (iterator2.hasNext()) {
-            Entry<Integer, String> entry = iterator2.next();
-            String style = entry.getValue();
-            if (style.contains(cssSelector)) { // shifted borders
-                iterator2.remove();
-                int index = style.indexOf(cssSelector);
-                if (index > 0) { // doesn't start with the selector
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the last
-                    style = style.replace("," + cssSelector + "{", "{");
-                } else {
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the only
-                    style = style.replace(cssSelector + "{", "{");
-                }
-                add2.put(entry.getKey(), style);
-            }
-        }
-        shiftedBorderTopStyles.putAll(add2);
-        add2.clear();
+        clearCellStyle(oldRowIndex, oldColumnIndex, true);
+    }
 
-        if (mergedCellBorders.containsKey(cssSelector)) {
-            String rules = mergedCellBorders.remove(cssSelector);
-            _shiftedCellBorderStyles
-                    .remove(buildMergedCellBorderCSS(cssSelector, rules));
+    /**
+     * Clears all styles for the given cell.
+     *
+     * @param oldRowIndex
+     *            0-based
+     * @param oldColumnIndex
+     *            0-based
+     * @param updateCustomBorders
+     *            true to also send the changed custom borders to the client,
+     *            false to send them later with
+     *            {@link #loadCustomBorderStylesToState()}
+     */
+    void clearCellStyle(int oldRowIndex, int oldColumnIndex,
+            boolean updateCustomBorders) {
+        removeCellBorders(cellKey(oldRowIndex + 1, oldColumnIndex + 1));
+        if (updateCustomBorders) {
+            updateCustomBorderStyles();
         }
-        spreadsheet.setShiftedCellBorderStyles(_shiftedCellBorderStyles);
     }
 
     /**
@@ -410,180 +426,152 @@ public class SpreadsheetStyleFactory implements Serializable {
      * @param cell
      *            Target cell
      * @param updateCustomBorders
-     *            true to also update custom borders
+     *            true to also send the changed custom borders to the client,
+     *            false to send them later with
+     *            {@link #loadCustomBorderStylesToState()}
      */
     public void cellStyleUpdated(Cell cell, boolean updateCustomBorders) {
-        final String cssSelector = ".col" + (cell.getColumnIndex() + 1) + ".row"
-                + (cell.getRowIndex() + 1);
-        final Integer key = (int) cell.getCellStyle().getIndex();
-        // remove/modify all possible old custom styles that the cell had (can
-        // be found from state)
-        ArrayList<String> add = new ArrayList<String>();
-        ArrayList<String> _shiftedCellBorderStyles = spreadsheet
-                .getShiftedCellBorderStyles();
-        Iterator<String> iterator = _shiftedCellBorderStyles.iterator();
-        while (iterator.hasNext()) {
-            String style = iterator.next();
-            // only cell with this style -> remove
-            if (style.startsWith(cssSelector + "{")) {
-                iterator.remove();
-            } else if (style.contains(cssSelector)) { // shifted borders
-                iterator.remove();
-                int index = style.indexOf(cssSelector);
-                if (index > 0) { // doesn't start with the selector
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the last
-                    style = style.replace("," + cssSelector + "{", "{");
-                } else {
-                    style = style.replace(cssSelector + ",", "");
-                    // in case it is the only
-                    style = style.replace(cssSelector + "{", "{");
-                }
-                if (!style.startsWith(",") && !style.startsWith("{")) {
-                    add.add(style);
-                }
-            }
-        }
-
-        for (String s : add) {
-            _shiftedCellBorderStyles.add(s);
-        }
-        // remove the cell's new custom styles from state (will be added again
-        // as this cell is styled)
-        if (shiftedBorderLeftStyles.containsKey(key)) {
-            final String style = shiftedBorderLeftStyles.get(key);
-            _shiftedCellBorderStyles.remove(style);
-        }
-        if (shiftedBorderTopStyles.containsKey(key)) {
-            final String style = shiftedBorderTopStyles.get(key);
-            _shiftedCellBorderStyles.remove(style);
-        }
-        if (mergedCellBorders.containsKey(cssSelector)) {
-            final String style = buildMergedCellBorderCSS(cssSelector,
-                    mergedCellBorders.remove(cssSelector));
-            _shiftedCellBorderStyles.remove(style);
-        }
-
         // TODO May need optimizing since the client side might already have
         // this cell style
-        CellStyle cellStyle = cell.getCellStyle();
-        addCellStyleCSS(cellStyle);
-
-        shiftedBorderTopStylesMap.clear();
-        shiftedBorderLeftStylesMap.clear();
-        // custom styles
-        doCellCustomStyling(cell);
-        updateStyleMap(shiftedBorderLeftStylesMap, shiftedBorderLeftStyles);
-        updateStyleMap(shiftedBorderTopStylesMap, shiftedBorderTopStyles);
+        addCellStyleCSS(cell.getCellStyle());
+        spreadsheet.getCellStyleMetadata()
+                .cellStyleChanged(cell.getCellStyle().getIndex());
+
+        removeCellBorders(
+                cellKey(cell.getRowIndex() + 1, cell.getColumnIndex() + 1));
+        addCellBorders(cell);
         if (updateCustomBorders) {
-            if (shiftedBorderLeftStyles.containsKey(key)) {
-                final String style = shiftedBorderLeftStyles.get(key);
-                _shiftedCellBorderStyles.add(style);
-            }
-            if (shiftedBorderTopStyles.containsKey(key)) {
-                final String style = shiftedBorderTopStyles.get(key);
-                _shiftedCellBorderStyles.add(style);
-            }
-            if (mergedCellBorders.containsKey(cssSelector)) {
-                _shiftedCellBorderStyles.add(buildMergedCellBorderCSS(
-                        cssSelector, mergedCellBorders.get(cssSelector)));
-            }
+            updateCustomBorderStyles();
         }
-        spreadsheet.setShiftedCellBorderStyles(_shiftedCellBorderStyles);
     }
 
     /**
      * Sets the custom border styles to shared state for sending them to the
-     * client side.
+     * client side. Only the changed rules are sent.
      */
     public void loadCustomBorderStylesToState() {
-        ArrayList<String> _shiftedCellBorderStyles = spreadsheet
-                .getShiftedCellBorderStyles();
-        if (_shiftedCellBorderStyles != null) {
-            _shiftedCellBorderStyles.clear();
-        } else {
-            _shiftedCellBorderStyles = new ArrayList<String>();
+        updateCustomBorderStyles();
+    }
+
+    /**
+     * Checks whether the styles of the currently active sheet depend on the
+     * visibility of its rows and columns. Shifted borders and merged cell
+     * borders are painted on neighbouring cells, which change when rows or
+     * columns are hidden or shown.
+     *
+     * @return <code>true</code> if the styles need to be updated after a
+     *         visibility change
+     */
+    boolean hasVisibilityDependentStyles() {
+        return !shiftedBorderLeftStyles.isEmpty()
+                || !shiftedBorderTopStyles.isEmpty()
+                || spreadsheet.getActiveSheet().getNumMergedRegions() > 0;
+    }
+
+    /**
+     * Updates the custom borders after rows or columns of the active sheet
+     * have been hidden or shown. Only the cells next to the rows and columns
+     * whose visibility has changed since the last update are restyled, and
+     * only the changed rules are sent to the client.
+     */
+    void updateVisibilityDependentStyles() {
+        if (!hasVisibilityDependentStyles()) {
+            return;
         }
-        for (String value : shiftedBorderLeftStyles.values()) {
-            if (value.startsWith(".col")) {
-                _shiftedCellBorderStyles.add(value);
-            }
+        if (bordersHiddenRows == null || bordersHiddenColumns == null) {
+            reloadCellBorders();
+            return;
         }
-        for (String value : shiftedBorderTopStyles.values()) {
-            if (value.startsWith(".col")) {
-                _shiftedCellBorderStyles.add(value);
+        final BitSet hiddenRows = getHiddenRows();
+        final BitSet hiddenColumns = getHiddenColumns();
+        updateRowBorders(getVisibilityDependentIndexes(bordersHiddenRows,
+                hiddenRows, spreadsheet.getActiveSheet().getLastRowNum()));
+        updateColumnBorders(getVisibilityDependentIndexes(bordersHiddenColumns,
+                hiddenColumns, spreadsheet.getColumns() - 1));
+        bordersHiddenRows = hiddenRows;
+        bordersHiddenColumns = hiddenColumns;
+        updateCustomBorderStyles();
+    }
+
+    /**
+     * Updates the custom borders after rows of the active sheet have been
+     * shifted with {@link Sheet#shiftRows(int, int, int)}. Only the affected
+     * rows that have custom borders before or after the shift are restyled,
+     * instead of every cell of the affected rows, and only the changed rules
+     * are sent to the client.
+     *
+     * @param startRow
+     *            The first shifted row, 0-based
+     * @param endRow
+     *            The last shifted row, 0-based
+     * @param n
+     *            Number of rows the rows were shifted by
+     */
+    void rowsShifted(int startRow, int endRow, int n) {
+        final int firstAffectedRow = n < 0 ? startRow + n : startRow;
+        final int lastAffectedRow = n < 0 ? endRow : endRow + n;
+        final BitSet rows = new BitSet();
+        // the rows that had borders, and the rows their cells were moved to
+        Long key = cellBorders.ceilingKey(cellKey(firstAffectedRow + 1, 0));
+        while (key != null && (key >>> 32) <= lastAffectedRow + 1) {
+            final int row = (int) (key >>> 32) - 1;
+            rows.set(row);
+            if (row >= startRow && row <= endRow && row + n >= 0) {
+                rows.set(row + n);
             }
+            key = cellBorders.ceilingKey(cellKey(row + 2, 0));
         }
-        for (Entry<String, String> entry : mergedCellBorders.entrySet()) {
-            _shiftedCellBorderStyles.add(
-                    buildMergedCellBorderCSS(entry.getKey(), entry.getValue()));
-
+        // the cells below may draw their top borders in the affected rows
+        rows.set(lastAffectedRow + 1, spreadsheet.getRowColumnVisibility()
+                .getNextVisibleRow(lastAffectedRow + 1) + 1);
+        updateRowBorders(rows);
+        if (bordersHiddenRows != null) {
+            bordersHiddenRows = shiftIndexes(bordersHiddenRows, startRow,
+                    endRow, n);
         }
-        spreadsheet.setShiftedCellBorderStyles(_shiftedCellBorderStyles);
+        updateCustomBorderStyles();
     }
 
     /**
      * Reloads all styles for the currently active sheet.
      */
     public void reloadActiveSheetCellStyles() {
-        // need to remove the cell identifiers (css selectors from the shifted
-        // border style rules
-        for (Entry<Integer, String> entry : shiftedBorderLeftStyles
-                .entrySet()) {
-            String value = entry.getValue();
-            if (value.startsWith(".col")) {
-                shiftedBorderLeftStyles.put(entry.getKey(),
-                        value.substring(value.indexOf("{")));
-            }
-        }
-        for (Entry<Integer, String> entry : shiftedBorderTopStyles.entrySet()) {
-            String value = entry.getValue();
-            if (value.startsWith(".col")) {
-                shiftedBorderTopStyles.put(entry.getKey(),
-                        value.substring(value.indexOf("{")));
-            }
-        }
-        mergedCellBorders.clear();
+        reloadCellBorders();
 
-        ArrayList<String> _shiftedCellBorderStyles = spreadsheet
-                .getShiftedCellBorderStyles();
-        if (_shiftedCellBorderStyles == null) {
-            _shiftedCellBorderStyles = new ArrayList<String>();
-        } else {
-            _shiftedCellBorderStyles.clear();
-        }
+        // conditional formatting
+        spreadsheet.getConditionalFormatter().createConditionalFormatterRules();
+    }
 
-        shiftedBorderTopStylesMap.clear();
-        shiftedBorderLeftStylesMap.clear();
+    /**
+     * Adds the shifted border styles of the given cells of the active sheet,
+     * which have been created after the styles of the sheet were loaded.
+     *
+     * @param cells
+     *            New cells of the active sheet
+     */
+    void loadCellStyles(Collection<? extends Cell> cells) {
+        for (Cell cell : cells) {
+            removeCellBorders(
+                    cellKey(cell.getRowIndex() + 1, cell.getColumnIndex() + 1));
+            addCellBorders(cell);
+        }
+        updateCustomBorderStyles();
+    }
 
+    /**
+     * Rebuilds the custom borders of all cells of the active sheet. Rules that
+     * stay the same are not sent to the client again.
+     */
+    private void reloadCellBorders() {
+        clearCellBorders();
         for (Row row : spreadsheet.getActiveSheet()) {
             for (Cell cell : row) {
-                doCellCustomStyling(cell);
-            }
-        }
-        updateStyleMap(shiftedBorderLeftStylesMap, shiftedBorderLeftStyles);
-        updateStyleMap(shiftedBorderTopStylesMap, shiftedBorderTopStyles);
-
-        for (String value : shiftedBorderLeftStyles.values()) {
-            if (value.startsWith(".col")) {
-                _shiftedCellBorderStyles.add(value);
-            }
-        }
-        for (String value : shiftedBorderTopStyles.values()) {
-            if (value.startsWith(".col")) {
-                _shiftedCellBorderStyles.add(value);
+                addCellBorders(cell);
             }
         }
-        for (Entry<String, String> entry : mergedCellBorders.entrySet()) {
-            _shiftedCellBorderStyles.add(
-                    buildMergedCellBorderCSS(entry.getKey(), entry.getValue()));
-
-        }
-
-        // conditional formatting
-        spreadsheet.getConditionalFormatter().createConditionalFormatterRules();
-
-        spreadsheet.setShiftedCellBorderStyles(_shiftedCellBorderStyles);
+        bordersHiddenRows = getHiddenRows();
+        bordersHiddenColumns = getHiddenColumns();
+        updateCustomBorderStyles();
     }
 
     @SuppressWarnings({ "unchecked" })
@@ -602,6 +590,55 @@ public class SpreadsheetStyleFactory implements Serializable {
             return;
         }
 
+        HashMap<Integer, String> _cellStyleToCSSStyle = spreadsheet
+                .getCellStyleToCSSStyle();
+        _cellStyleToCSSStyle.put((int) cellStyle.getIndex(),
+                getCellStyleCSS(cellStyle));
+        spreadsheet.setCellStyleToCSSStyle(_cellStyleToCSSStyle);
+    }
+
+    /**
+     * Returns the CSS of the given cell style, from the shared
+     * {@link StyleCssCache} if an equal style has been converted before.
+     * Updates the shifted border styles of the cell style.
+     */
+    private String getCellStyleCSS(CellStyle cellStyle) {
+        final String key = getCellStyleKey(cellStyle);
+        StyleCssCache.Entry entry = key == null ? null
+                : StyleCssCache.SHARED.get(key);
+        if (entry == null) {
+            entry = buildCellStyleCSS(cellStyle);
+            if (key != null) {
+                StyleCssCache.SHARED.put(key, entry);
+            }
+        }
+        final Integer index = (int) cellStyle.getIndex();
+        if (!Objects.equals(entry.getShiftedBorderTop(),
+                shiftedBorderTopStyles.get(index))) {
+            changedBorderStyles.add(TOP_BORDER + index);
+        }
+        if (!Objects.equals(entry.getShiftedBorderLeft(),
+                shiftedBorderLeftStyles.get(index))) {
+            changedBorderStyles.add(LEFT_BORDER + index);
+        }
+        if (entry.getShiftedBorderTop() != null) {
+            shiftedBorderTopStyles.put(index, entry.getShiftedBorderTop());
+        } else {
+            shiftedBorderTopStyles.remove(index);
+        }
+        if (entry.getShiftedBorderLeft() != null) {
+            shiftedBorderLeftStyles.put(index, entry.getShiftedBorderLeft());
+        } else {
+            shiftedBorderLeftStyles.remove(index);
+        }
+        return entry.getCss();
+    }
+
+    private StyleCssCache.Entry buildCellStyleCSS(CellStyle cellStyle) {
+        final Integer index = (int) cellStyle.getIndex();
+        shiftedBorderTopStyles.remove(index);
+        shiftedBorderLeftStyles.remove(index);
+
         StringBuilder sb = new StringBuilder();
 
         fontStyle(sb, cellStyle);
@@ -629,11 +666,98 @@ public class SpreadsheetStyleFactory implements Serializable {
         if (cellStyle.getIndention() > 0) {
             sb.append("padding-left: " + cellStyle.getIndention() + "em;");
         }
+        return new StyleCssCache.Entry(sb.toString(),
+                shiftedBorderTopStyles.get(index),
+                shiftedBorderLeftStyles.get(index));
+    }
 
-        HashMap<Integer, String> _cellStyleToCSSStyle = spreadsheet
-                .getCellStyleToCSSStyle();
-        _cellStyleToCSSStyle.put((int) cellStyle.getIndex(), sb.toString());
-        spreadsheet.setCellStyleToCSSStyle(_cellStyleToCSSStyle);
+    /**
+     * Builds the key of the given cell style in the {@link StyleCssCache}
+     * from the records the style consists of, the default style and the
+     * colors of the workbook.
+     *
+     * @return the key, or <code>null</code> if the style can't be read
+     */
+    private String getCellStyleKey(CellStyle cellStyle) {
+        try {
+            if (styleKeyPrefix == null) {
+                final Workbook workbook = spreadsheet.getWorkbook();
+                StringBuilder prefix = new StringBuilder();
+                prefix.append(workbook.getClass().getSimpleName());
+                prefix.append('|').append(defaultTextAlign).append('|');
+                appendCellStyleKey(prefix, workbook.getCellStyleAt(0));
+                if (workbook instanceof XSSFWorkbook) {
+                    ThemesTable theme = ((XSSFWorkbook) workbook).getTheme();
+                    for (int i = 0; theme != null && i < THEME_COLORS; i++) {
+                        XSSFColor color = theme.getThemeColor(i);
+                        prefix.append(
+                                color == null ? "-" : color.getARGBHex());
+                        prefix.append(',');
+                    }
+                    CTStylesheet stylesheet = ((XSSFWorkbook) workbook)
+                            .getStylesSource().getCTStylesheet();
+                    if (stylesheet.isSetColors()) {
+                        prefix.append(stylesheet.getColors().xmlText());
+                    }
+                }
+                styleKeyPrefix = prefix.append('#').toString();
+            }
+            StringBuilder sb = new StringBuilder(styleKeyPrefix);
+            appendCellStyleKey(sb, cellStyle);
+            return sb.toString();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Cell style " + cellStyle.getIndex()
+                    + " not cached: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private void appendCellStyleKey(StringBuilder sb, CellStyle cellStyle) {
+        if (cellStyle instanceof XSSFCellStyle) {
+            XSSFCellStyle style = (XSSFCellStyle) cellStyle;
+            StylesTable stylesSource = ((XSSFWorkbook) spreadsheet
+                    .getWorkbook()).getStylesSource();
+            CTXf xf = style.getCoreXf();
+            sb.append(xf.xmlText()).append('|');
+            if (style.getStyleXf() != null) {
+                sb.append(style.getStyleXf().xmlText());
+            }
+            sb.append('|').append(style.getFont().getCTFont().xmlText());
+            sb.append('|').append(stylesSource.getFillAt((int) xf.getFillId())
+                    .getCTFill().xmlText());
+            sb.append('|')
+                    .append(stylesSource.getBorderAt((int) xf.getBorderId())
+                            .getCTBorder().xmlText());
+        } else {
+            HSSFWorkbook workbook = (HSSFWorkbook) spreadsheet.getWorkbook();
+            HSSFCellStyle style = (HSSFCellStyle) cellStyle;
+            HSSFFont font = style.getFont(workbook);
+            HSSFPalette palette = workbook.getCustomPalette();
+            Object[] values = { style.getAlignment(),
+                    style.getVerticalAlignment(), style.getWrapText(),
+                    style.getIndention(), style.getBorderTop(),
+                    style.getBorderRight(), style.getBorderBottom(),
+                    style.getBorderLeft(),
+                    hssfColor(palette, style.getTopBorderColor()),
+                    hssfColor(palette, style.getRightBorderColor()),
+                    hssfColor(palette, style.getBottomBorderColor()),
+                    hssfColor(palette, style.getLeftBorderColor()),
+                    style.getFillPattern(),
+                    hssfColor(palette, style.getFillForegroundColor()),
+                    hssfColor(palette, style.getFillBackgroundColor()),
+                    font.getFontName(), font.getFontHeight(), font.getBold(),
+                    font.getItalic(), font.getUnderline(),
+                    font.getStrikeout(),
+                    hssfColor(palette, font.getColor()) };
+            for (Object value : values) {
+                sb.append(value).append('|');
+            }
+        }
+    }
+
+    private static String hssfColor(HSSFPalette palette, short index) {
+        HSSFColor color = palette.getColor(index);
+        return index + (color == null ? "" : color.getHexString());
     }
 
     private String buildMergedCellBorderCSS(String selector, String rules) {
@@ -650,11 +774,15 @@ public class SpreadsheetStyleFactory implements Serializable {
         return sb.toString();
     }
 
-    private void doCellCustomStyling(final Cell cell) {
+    /**
+     * Returns the custom borders of the given cell, or <code>null</code> if it
+     * has none.
+     */
+    private CellBorders getCellBorders(final Cell cell) {
         CellStyle cellStyle = cell.getCellStyle();
         final Integer key = (int) cellStyle.getIndex();
         if (key == 0) { // default style
-            return;
+            return null;
         }
 
         // merged regions have their borders in edge cells that are "invisible"
@@ -663,11 +791,14 @@ public class SpreadsheetStyleFactory implements Serializable {
         final int columnIndex = cell.getColumnIndex();
         final int rowIndex = cell.getRowIndex();
 
-        if (spreadsheet.isColumnHidden(columnIndex)
-                || spreadsheet.isRowHidden(rowIndex)) {
-            return;
+        final RowColumnVisibility visibility = spreadsheet
+                .getRowColumnVisibility();
+        if (visibility.isColumnHidden(columnIndex)
+                || visibility.isRowHidden(rowIndex)) {
+            return null;
         }
 
+        final CellBorders borders = new CellBorders(key);
         MergedRegion region = spreadsheet.mergedRegionContainer
                 .getMergedRegion((columnIndex + 1), (rowIndex + 1));
         if (region != null) {
@@ -675,34 +806,11 @@ public class SpreadsheetStyleFactory implements Serializable {
             final String borderBottom = getBorderBottomStyle(cellStyle);
             if ((borderRight != null && !borderRight.isEmpty())
                     || (borderBottom != null && !borderBottom.isEmpty())) {
-                StringBuilder sb = new StringBuilder(".col");
-                sb.append(region.col1);
-                sb.append(".row");
-                sb.append(region.row1);
-                final String cssKey = sb.toString();
-                final String currentBorders = mergedCellBorders.get(cssKey);
-                StringBuilder style;
-                if (currentBorders != null && !currentBorders.isEmpty()) {
-                    style = new StringBuilder(currentBorders);
-                } else {
-                    style = new StringBuilder();
-                }
-                if (borderRight != null && !borderRight.isEmpty()
-                        && (currentBorders == null
-                                || !currentBorders.contains("border-right"))) {
-                    style.append(borderRight);
-                }
-                if (borderBottom != null && !borderBottom.isEmpty()
-                        && (currentBorders == null
-                                || !currentBorders.contains("border-bottom"))) {
-                    style.append(borderBottom);
-                }
-                final String newBorders = style.toString();
-                if (!newBorders.isEmpty()) {
-                    mergedCellBorders.put(cssKey, newBorders);
-                }
+                borders.mergedSelector = cellSelector(
+                        cellKey(region.row1, region.col1));
+                borders.borderRight = borderRight;
+                borders.borderBottom = borderBottom;
             }
-
         }
 
         // only take transfered borders into account on the (possible) merged
@@ -716,111 +824,344 @@ public class SpreadsheetStyleFactory implements Serializable {
                 // need to add the border right style to previous cell on
                 // left, which might be a merged cell
                 if (columnIndex > 0) {
-                    int row, col;
-
-                    int upperVisibleColumnIndex = columnIndex;
-                    while (spreadsheet
-                            .isColumnHidden(upperVisibleColumnIndex - 1)) {
-                        upperVisibleColumnIndex--;
-                    }
+                    int upperVisibleColumnIndex = spreadsheet
+                            .getRowColumnVisibility()
+                            .getPreviousVisibleColumn(columnIndex - 1) + 1;
 
                     MergedRegion previousRegion = spreadsheet.mergedRegionContainer
                             .getMergedRegion(upperVisibleColumnIndex,
                                     rowIndex + 1);
 
                     if (previousRegion != null) {
-                        col = previousRegion.col1;
-                        row = previousRegion.row1;
+                        borders.leftTarget = cellKey(previousRegion.row1,
+                                previousRegion.col1);
                     } else {
-                        col = upperVisibleColumnIndex;
-                        row = rowIndex + 1;
+                        borders.leftTarget = cellKey(rowIndex + 1,
+                                upperVisibleColumnIndex);
                     }
-                    insertMapEntryIfNeeded(shiftedBorderLeftStylesMap, key, row,
-                            col);
                 }
             }
             if (shiftedBorderTopStyles.containsKey(key)) {
                 // need to add the border bottom style to cell on previous
                 // row, which might be a merged cell
                 if (rowIndex > 0) {
-                    int row, col;
-
-                    int prevVisibleRowIndex = rowIndex;
-                    while (spreadsheet.isRowHidden(prevVisibleRowIndex - 1)) {
-                        prevVisibleRowIndex--;
-                    }
+                    int prevVisibleRowIndex = spreadsheet
+                            .getRowColumnVisibility()
+                            .getPreviousVisibleRow(rowIndex - 1) + 1;
 
                     MergedRegion previousRegion = spreadsheet.mergedRegionContainer
                             .getMergedRegion(columnIndex + 1,
                                     prevVisibleRowIndex);
 
                     if (previousRegion != null) {
-                        col = previousRegion.col1;
-                        row = previousRegion.row1;
+                        borders.topTarget = cellKey(previousRegion.row1,
+                                previousRegion.col1);
                     } else {
-                        col = columnIndex + 1;
-                        row = prevVisibleRowIndex;
+                        borders.topTarget = cellKey(prevVisibleRowIndex,
+                                columnIndex + 1);
                     }
-                    insertMapEntryIfNeeded(shiftedBorderTopStylesMap, key, row,
-                            col);
-
                 }
             }
+        }
+        return borders.isEmpty() ? null : borders;
+    }
+
+    /**
+     * Adds the custom borders of the given cell. The cell must not have any
+     * custom borders added before.
+     */
+    private void addCellBorders(Cell cell) {
+        final CellBorders borders = getCellBorders(cell);
+        if (borders == null) {
+            return;
+        }
+        final long key = cellKey(cell.getRowIndex() + 1,
+                cell.getColumnIndex() + 1);
+        cellBorders.put(key, borders);
+        if (borders.leftTarget >= 0) {
+            addShiftedBorder(shiftedBorderLeftCells, LEFT_BORDER,
+                    borders.styleIndex, borders.leftTarget);
+        }
+        if (borders.topTarget >= 0) {
+            addShiftedBorder(shiftedBorderTopCells, TOP_BORDER,
+                    borders.styleIndex, borders.topTarget);
+        }
+        if (borders.mergedSelector != null) {
+            TreeMap<Long, CellBorders> regionBorders = mergedCellBorders
+                    .get(borders.mergedSelector);
+            if (regionBorders == null) {
+                regionBorders = new TreeMap<Long, CellBorders>();
+                mergedCellBorders.put(borders.mergedSelector, regionBorders);
+            }
+            regionBorders.put(key, borders);
+            changedBorderStyles.add(MERGED_BORDER + borders.mergedSelector);
+        }
+    }
 
+    /**
+     * Removes the custom borders added for the cell with the given key.
+     */
+    private void removeCellBorders(long key) {
+        final CellBorders borders = cellBorders.remove(key);
+        if (borders == null) {
+            return;
+        }
+        if (borders.leftTarget >= 0) {
+            removeShiftedBorder(shiftedBorderLeftCells, LEFT_BORDER,
+                    borders.styleIndex, borders.leftTarget);
+        }
+        if (borders.topTarget >= 0) {
+            removeShiftedBorder(shiftedBorderTopCells, TOP_BORDER,
+                    borders.styleIndex, borders.topTarget);
+        }
+        if (borders.mergedSelector != null) {
+            TreeMap<Long, CellBorders> regionBorders = mergedCellBorders
+                    .get(borders.mergedSelector);
+            regionBorders.remove(key);
+            if (regionBorders.isEmpty()) {
+                mergedCellBorders.remove(borders.mergedSelector);
+            }
+            changedBorderStyles.add(MERGED_BORDER + borders.mergedSelector);
         }
     }
 
-    private void insertMapEntryIfNeeded(
-            HashMap<Integer, HashMap<Integer, HashSet<Integer>>> shiftedBorderStylesMap,
-            int key, int row, int col) {
-        HashMap<Integer, HashSet<Integer>> colToRowMap = shiftedBorderStylesMap
-                .get(key);
-        if (colToRowMap == null) {
-            colToRowMap = new HashMap<Integer, HashSet<Integer>>();
-            shiftedBorderStylesMap.put(key, colToRowMap);
-        }
-        HashSet<Integer> rows = colToRowMap.get(col);
-        if (rows == null) {
-            rows = new HashSet<Integer>();
-            colToRowMap.put(col, rows);
-        }
-        rows.add(row);
+    private void addShiftedBorder(
+            HashMap<Integer, TreeMap<Long, Integer>> shiftedBorderCells,
+            String side, int styleIndex, long target) {
+        TreeMap<Long, Integer> cells = shiftedBorderCells.get(styleIndex);
+        if (cells == null) {
+            cells = new TreeMap<Long, Integer>();
+            shiftedBorderCells.put(styleIndex, cells);
+        }
+        Integer count = cells.get(target);
+        if (count == null) {
+            cells.put(target, 1);
+            changedBorderStyles.add(side + styleIndex);
+        } else {
+            cells.put(target, count + 1);
+        }
     }
 
-    private void updateStyleMap(
-            HashMap<Integer, HashMap<Integer, HashSet<Integer>>> shiftedBorderStylesMap,
-            HashMap<Integer, String> shiftedBorderStyles) {
-        for (Entry<Integer, HashMap<Integer, HashSet<Integer>>> currentEntry : shiftedBorderStylesMap
-                .entrySet()) {
-            Integer key = currentEntry.getKey();
-            HashMap<Integer, HashSet<Integer>> colToRows = currentEntry
-                    .getValue();
-
-            if (colToRows != null) {
-                String value = shiftedBorderStyles.get(key);
-                StringBuilder sb = new StringBuilder();
-                boolean somethingAdded = false;
-                for (Entry<Integer, HashSet<Integer>> colToRowEntry : colToRows
-                        .entrySet()) {
-                    Integer col = colToRowEntry.getKey();
-                    for (Integer row : colToRowEntry.getValue()) {
-                        if (somethingAdded) {
-                            sb.append(",");
-                        } else {
-                            somethingAdded = true;
-                        }
-                        sb.append(".col").append(col);
-                        sb.append(".row").append(row);
-                    }
+    private void removeShiftedBorder(
+            HashMap<Integer, TreeMap<Long, Integer>> shiftedBorderCells,
+            String side, int styleIndex, long target) {
+        TreeMap<Long, Integer> cells = shiftedBorderCells.get(styleIndex);
+        int count = cells.get(target);
+        if (count > 1) {
+            cells.put(target, count - 1);
+            return;
+        }
+        cells.remove(target);
+        if (cells.isEmpty()) {
+            shiftedBorderCells.remove(styleIndex);
+        }
+        changedBorderStyles.add(side + styleIndex);
+    }
 
+    /**
+     * Removes all custom borders of the active sheet. The rules in the shared
+     * state are updated by {@link #updateCustomBorderStyles()}.
+     */
+    private void clearCellBorders() {
+        cellBorders.clear();
+        shiftedBorderTopCells.clear();
+        shiftedBorderLeftCells.clear();
+        mergedCellBorders.clear();
+        changedBorderStyles.addAll(customBorderStyles.keySet());
+        bordersHiddenRows = null;
+        bordersHiddenColumns = null;
+    }
+
+    /**
+     * Rebuilds the changed custom border rules and sends them to the client,
+     * if any rule has changed.
+     */
+    private void updateCustomBorderStyles() {
+        if (changedBorderStyles.isEmpty()
+                && spreadsheet.getShiftedCellBorderStyles() != null) {
+            return;
+        }
+        for (String key : changedBorderStyles) {
+            final String css = buildCustomBorderStyle(key);
+            if (css == null) {
+                customBorderStyles.remove(key);
+            } else {
+                customBorderStyles.put(key, css);
+            }
+        }
+        changedBorderStyles.clear();
+        spreadsheet.setShiftedCellBorderStyles(
+                new ArrayList<String>(customBorderStyles.values()));
+    }
+
+    /**
+     * Builds the custom border rule with the given key, see
+     * {@link #customBorderStyles}.
+     *
+     * @return the rule, or <code>null</code> if no cell has the border
+     */
+    private String buildCustomBorderStyle(String key) {
+        final String type = key.substring(0, 1);
+        if (MERGED_BORDER.equals(type)) {
+            final String selector = key.substring(1);
+            final TreeMap<Long, CellBorders> regionBorders = mergedCellBorders
+                    .get(selector);
+            if (regionBorders == null) {
+                return null;
+            }
+            // the first cell of the region in row order with a border wins
+            String rules = "";
+            for (CellBorders borders : regionBorders.values()) {
+                StringBuilder style = new StringBuilder(rules);
+                if (borders.borderRight != null
+                        && !borders.borderRight.isEmpty()
+                        && !rules.contains("border-right")) {
+                    style.append(borders.borderRight);
                 }
-                sb.append(value);
+                if (borders.borderBottom != null
+                        && !borders.borderBottom.isEmpty()
+                        && !rules.contains("border-bottom")) {
+                    style.append(borders.borderBottom);
+                }
+                rules = style.toString();
+            }
+            return rules.isEmpty() ? null
+                    : buildMergedCellBorderCSS(selector, rules);
+        }
+        final Integer styleIndex = Integer.valueOf(key.substring(1));
+        final boolean left = LEFT_BORDER.equals(type);
+        final String rule = (left ? shiftedBorderLeftStyles
+                : shiftedBorderTopStyles).get(styleIndex);
+        final TreeMap<Long, Integer> cells = (left ? shiftedBorderLeftCells
+                : shiftedBorderTopCells).get(styleIndex);
+        if (rule == null || cells == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Long cell : cells.keySet()) {
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            sb.append(cellSelector(cell));
+        }
+        sb.append(rule);
+        return sb.toString();
+    }
 
-                shiftedBorderStyles.put(key, sb.toString());
+    /**
+     * Updates the custom borders of the cells in the given rows of the active
+     * sheet.
+     */
+    private void updateRowBorders(BitSet rows) {
+        final Sheet sheet = spreadsheet.getActiveSheet();
+        for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+            for (Long key : new ArrayList<Long>(cellBorders
+                    .subMap(cellKey(r + 1, 0), cellKey(r + 2, 0)).keySet())) {
+                removeCellBorders(key);
+            }
+            final Row row = sheet.getRow(r);
+            if (row != null) {
+                for (Cell cell : row) {
+                    addCellBorders(cell);
+                }
             }
         }
     }
 
+    /**
+     * Updates the custom borders of the cells in the given columns of the
+     * active sheet.
+     */
+    private void updateColumnBorders(BitSet columns) {
+        if (columns.isEmpty()) {
+            return;
+        }
+        for (Row row : spreadsheet.getActiveSheet()) {
+            for (int c = columns.nextSetBit(0); c >= 0; c = columns
+                    .nextSetBit(c + 1)) {
+                removeCellBorders(cellKey(row.getRowNum() + 1, c + 1));
+                final Cell cell = row.getCell(c);
+                if (cell != null) {
+                    addCellBorders(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the rows or columns whose custom borders depend on the visibility
+     * of the changed ones: the changed ones and the following ones up to the
+     * next one that is visible both before and after the change.
+     */
+    private static BitSet getVisibilityDependentIndexes(BitSet oldHidden,
+            BitSet newHidden, int lastIndex) {
+        final BitSet changed = (BitSet) oldHidden.clone();
+        changed.xor(newHidden);
+        final BitSet dependent = new BitSet();
+        int covered = -1;
+        for (int i = changed.nextSetBit(0); i >= 0
+                && i <= lastIndex; i = changed.nextSetBit(i + 1)) {
+            dependent.set(i);
+            if (i < covered) {
+                continue;
+            }
+            int next = i + 1;
+            while (next <= lastIndex) {
+                dependent.set(next);
+                if (!oldHidden.get(next) && !newHidden.get(next)) {
+                    break;
+                }
+                next++;
+            }
+            covered = next;
+        }
+        return dependent;
+    }
+
+    /**
+     * Returns a copy of the given indexes with the indexes from startRow to
+     * endRow moved by n. The indexes that are overwritten or left empty by the
+     * move are cleared.
+     */
+    private static BitSet shiftIndexes(BitSet indexes, int startRow,
+            int endRow, int n) {
+        final BitSet shifted = (BitSet) indexes.clone();
+        shifted.clear(n < 0 ? Math.max(0, startRow + n) : startRow,
+                (n < 0 ? endRow : endRow + n) + 1);
+        final BitSet moved = indexes.get(startRow, endRow + 1);
+        for (int i = moved.nextSetBit(0); i >= 0; i = moved
+                .nextSetBit(i + 1)) {
+            if (startRow + i + n >= 0) {
+                shifted.set(startRow + i + n);
+            }
+        }
+        return shifted;
+    }
+
+    private BitSet getHiddenRows() {
+        return spreadsheet.getRowColumnVisibility().getHiddenRows();
+    }
+
+    private BitSet getHiddenColumns() {
+        final BitSet hidden = spreadsheet.getRowColumnVisibility()
+                .getHiddenColumns();
+        hidden.clear(spreadsheet.getColumns(), Math.max(
+                spreadsheet.getColumns(), hidden.length()));
+        return hidden;
+    }
+
+    /**
+     * Key of the cell with the given 1-based row and column, ordered by row
+     * and then by column.
+     */
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | col;
+    }
+
+    private static String cellSelector(long cellKey) {
+        return ".col" + (int) cellKey + ".row" + (cellKey >>> 32);
+    }
+
     private void defaultFontStyle(CellStyle cellStyle, StringBuilder sb) {
         if (cellStyle.getIndex() == 0) {
             defaultFont = spreadsheet.getWorkbook()
@@ -0,0 +1,277 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * A workbook read with {@link StreamingWorkbookReader}, whose cells are
+ * created into the POI workbook on demand, one row at a time.
+ * <p>
+ * When rows are created, the rows referenced by their formulas are created
+ * too, so that the formulas can be evaluated with the normal POI formula
+ * evaluator.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+class StreamingWorkbook implements Serializable {
+
+    /**
+     * The cells of a sheet that haven't been created into the workbook.
+     */
+    static final class PendingCells implements Serializable {
+        final ColumnarCellStore store;
+        /** Positions of the rows of the store that have been created */
+        final BitSet hydratedRows;
+        final int sheetIndex;
+
+        private PendingCells(ColumnarCellStore store, BitSet hydratedRows,
+                int sheetIndex) {
+            this.store = store;
+            this.hydratedRows = hydratedRows;
+            this.sheetIndex = sheetIndex;
+        }
+
+        /**
+         * @return the number of rows not created yet
+         */
+        int getRowCount() {
+            return store.getRowCount() - hydratedRows.cardinality();
+        }
+    }
+
+    private static final int LAST_ROW_INDEX = SpreadsheetVersion.EXCEL2007
+            .getLastRowIndex();
+
+    private final XSSFWorkbook workbook;
+    private final Map<Sheet, ColumnarCellStore> stores;
+    private final Map<Sheet, BitSet> hydratedRows = new IdentityHashMap<>();
+    private final XSSFEvaluationWorkbook evaluationWorkbook;
+    // used only for parsing the references of formulas
+    private final FormulaDependencyGraph formulaParser;
+
+    /**
+     * Creates a new streaming workbook.
+     *
+     * @param workbook
+     *            Workbook without the stored cells
+     * @param stores
+     *            Stored cells of each sheet
+     */
+    StreamingWorkbook(XSSFWorkbook workbook,
+            Map<Sheet, ColumnarCellStore> stores) {
+        this.workbook = workbook;
+        this.stores = stores;
+        evaluationWorkbook = XSSFEvaluationWorkbook.create(workbook);
+        formulaParser = new FormulaDependencyGraph(workbook);
+    }
+
+    /**
+     * @return the POI workbook
+     */
+    XSSFWorkbook getWorkbook() {
+        return workbook;
+    }
+
+    /**
+     * @return the evaluation workbook used for resolving shared formulas
+     */
+    XSSFEvaluationWorkbook getEvaluationWorkbook() {
+        return evaluationWorkbook;
+    }
+
+    /**
+     * Takes a snapshot of the cells that haven't been created yet, for
+     * writing them together with the workbook. Cells created after this call
+     * don't affect the snapshot.
+     *
+     * @return the cells of each sheet by the name of the worksheet part
+     */
+    Map<String, PendingCells> getPendingCells() {
+        Map<String, PendingCells> pending = new HashMap<>();
+        for (Map.Entry<Sheet, ColumnarCellStore> entry : stores.entrySet()) {
+            Sheet sheet = entry.getKey();
+            int sheetIndex = workbook.getSheetIndex(sheet);
+            if (sheetIndex < 0) {
+                // removed sheet
+                continue;
+            }
+            BitSet hydrated = hydratedRows.get(sheet);
+            pending.put(
+                    ((XSSFSheet) sheet).getPackagePart().getPartName()
+                            .getName(),
+                    new PendingCells(entry.getValue(),
+                            hydrated == null ? new BitSet()
+                                    : (BitSet) hydrated.clone(),
+                            sheetIndex));
+        }
+        return pending;
+    }
+
+    /**
+     * Creates the stored cells of the given rows, and of the rows their
+     * formulas reference.
+     *
+     * @param sheet
+     *            Sheet of the rows
+     * @param firstRow
+     *            First row index, 0-based
+     * @param lastRow
+     *            Last row index, 0-based, inclusive
+     * @return the created cells, or <code>null</code> if a formula references
+     *         cells that can't be resolved, in which case nothing was created
+     *         for the formula and the whole workbook should be created with
+     *         {@link #hydrateAll()}
+     */
+    List<Cell> hydrateRows(Sheet sheet, int firstRow, int lastRow) {
+        if (!hasStoredRows(sheet, firstRow, lastRow)) {
+            return Collections.emptyList();
+        }
+        List<XSSFCell> created = new ArrayList<>();
+        List<XSSFCell> formulaCells = new ArrayList<>();
+        hydrate(sheet, firstRow, lastRow, created, formulaCells);
+        return hydratePrecedents(created, formulaCells);
+    }
+
+    /**
+     * Creates the stored cells referenced by the formula of the given cell.
+     *
+     * @param formulaCell
+     *            Formula cell of this workbook
+     * @return the created cells, or <code>null</code> if the formula
+     *         references cells that can't be resolved
+     */
+    List<Cell> hydratePrecedents(Cell formulaCell) {
+        List<XSSFCell> formulaCells = new ArrayList<>();
+        formulaCells.add((XSSFCell) formulaCell);
+        return hydratePrecedents(new ArrayList<>(), formulaCells);
+    }
+
+    private List<Cell> hydratePrecedents(List<XSSFCell> created,
+            List<XSSFCell> formulaCells) {
+        // the list grows while the precedents are created
+        for (int i = 0; i < formulaCells.size(); i++) {
+            XSSFCell cell = formulaCells.get(i);
+            List<int[]> areas = formulaParser.parsePrecedentAreas(
+                    workbook.getSheetIndex(cell.getSheet()),
+                    cell.getRowIndex(), cell.getCellFormula());
+            if (areas == null) {
+                return null;
+            }
+            for (int[] area : areas) {
+                hydrate(workbook.getSheetAt(area[0]), area[1], area[2],
+                        created, formulaCells);
+            }
+        }
+        return new ArrayList<>(created);
+    }
+
+    /**
+     * @return <code>true</code> if some of the given rows have stored cells
+     *         that haven't been created yet
+     */
+    private boolean hasStoredRows(Sheet sheet, int firstRow, int lastRow) {
+        ColumnarCellStore store = stores.get(sheet);
+        if (store == null) {
+            return false;
+        }
+        int first = store.findRow(firstRow);
+        int end = store.findRow(Math.min(lastRow, LAST_ROW_INDEX) + 1);
+        BitSet hydrated = hydratedRows.get(sheet);
+        return first < end && (hydrated == null
+                || hydrated.previousClearBit(end - 1) >= first);
+    }
+
+    /**
+     * Creates all stored cells of the workbook.
+     */
+    void hydrateAll() {
+        List<XSSFCell> cells = new ArrayList<>();
+        for (Sheet sheet : stores.keySet()) {
+            hydrate(sheet, 0, LAST_ROW_INDEX, cells, cells);
+            cells.clear();
+        }
+    }
+
+    private void hydrate(Sheet sheet, int firstRow, int lastRow,
+            List<XSSFCell> created, List<XSSFCell> formulaCells) {
+        ColumnarCellStore store = stores.get(sheet);
+        int sheetIndex = workbook.getSheetIndex(sheet);
+        if (store == null || sheetIndex < 0) {
+            return;
+        }
+        BitSet hydrated = hydratedRows.computeIfAbsent(sheet,
+                s -> new BitSet());
+        int first = store.findRow(firstRow);
+        int end = store.findRow(Math.min(lastRow, LAST_ROW_INDEX) + 1);
+        // in descending order, so that XSSFSheet doesn't need to find the
+        // following rows for every created row
+        for (int block = hydrated.previousClearBit(end - 1); block >= first;
+                block = hydrated.previousClearBit(block - 1)) {
+            int rowIndex = store.getRowIndex(block);
+            XSSFRow row = (XSSFRow) sheet.getRow(rowIndex);
+            if (row == null) {
+                row = (XSSFRow) sheet.createRow(rowIndex);
+            }
+            store.hydrate(block, row, evaluationWorkbook, sheetIndex, created,
+                    formulaCells);
+            hydrated.set(block);
+        }
+    }
+
+    /**
+     * @param sheet
+     *            Sheet
+     * @return index of the last column with a stored cell plus one, 0 if
+     *         there are none
+     */
+    int getColumnCount(Sheet sheet) {
+        ColumnarCellStore store = stores.get(sheet);
+        return store == null ? 0 : store.getColumnCount();
+    }
+
+    /**
+     * @param sheet
+     *            Sheet
+     * @return index of the last row with stored cells, -1 if there are none
+     */
+    int getLastRowIndex(Sheet sheet) {
+        ColumnarCellStore store = stores.get(sheet);
+        return store == null || store.getRowCount() == 0 ? -1
+                : store.getRowIndex(store.getRowCount() - 1);
+    }
+
+    /**
+     * @return approximate heap size of the stored cells in bytes
+     */
+    long getEstimatedSize() {
+        long size = 0;
+        for (ColumnarCellStore store : stores.values()) {
+            size += store.getEstimatedSize();
+        }
+        return size;
+    }
+}
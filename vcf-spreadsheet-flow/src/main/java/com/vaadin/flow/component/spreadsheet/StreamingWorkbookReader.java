@@ -0,0 +1,552 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads an XLSX file without creating the POI cells of the worksheets.
+ * <p>
+ * The worksheet XML parts are streamed with SAX. Everything except the cells
+ * is copied to a skeleton copy of the file, which is then opened as a normal
+ * {@link XSSFWorkbook}; the cells are collected into a
+ * {@link ColumnarCellStore} per worksheet. This way sheets, styles, merged
+ * regions, conditional formatting, row heights and column widths are loaded
+ * by POI as usual, but the memory used for the cells is a fraction of the
+ * XML bean tree POI would create for them.
+ *
+ * @author Vaadin Ltd.
+ */
+class StreamingWorkbookReader {
+
+    private static final String SHEET_DATA = "sheetData";
+
+    private StreamingWorkbookReader() {
+    }
+
+    /**
+     * Reads the given XLSX file.
+     *
+     * @param file
+     *            XLSX file
+     * @return the read workbook
+     * @throws IOException
+     *             If the file can't be read or isn't a valid XLSX file
+     */
+    static StreamingWorkbook read(File file) throws IOException {
+        Map<String, ColumnarCellStore> stores = new HashMap<>();
+        ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Set<String> worksheets = readWorksheetPartNames(zipFile);
+            try (ZipOutputStream out = new ZipOutputStream(skeleton)) {
+                out.setLevel(Deflater.BEST_SPEED);
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    out.putNextEntry(new ZipEntry(entry.getName()));
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        String partName = "/" + entry.getName();
+                        if (worksheets.contains(partName)) {
+                            ColumnarCellStore store = new ColumnarCellStore();
+                            copyWorksheet(in, out, store);
+                            store.finish();
+                            stores.put(partName, store);
+                        } else {
+                            in.transferTo(out);
+                        }
+                    }
+                    out.closeEntry();
+                }
+            }
+        }
+
+        XSSFWorkbook workbook = new XSSFWorkbook(
+                new ByteArrayInputStream(skeleton.toByteArray()));
+        Map<Sheet, ColumnarCellStore> sheetStores = new IdentityHashMap<>();
+        for (Sheet sheet : workbook) {
+            ColumnarCellStore store = stores.get(((XSSFSheet) sheet)
+                    .getPackagePart().getPartName().getName());
+            if (store != null) {
+                sheetStores.put(sheet, store);
+            }
+        }
+        return new StreamingWorkbook(workbook, sheetStores);
+    }
+
+    /**
+     * Reads the given XLSX stream. The stream is first copied to a temporary
+     * file, which is deleted after reading.
+     *
+     * @param inputStream
+     *            XLSX stream
+     * @return the read workbook
+     * @throws IOException
+     *             If the stream can't be read or isn't a valid XLSX file
+     */
+    static StreamingWorkbook read(InputStream inputStream) throws IOException {
+        Path file = Files.createTempFile("spreadsheet", ".xlsx");
+        try {
+            Files.copy(inputStream, file,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return read(file.toFile());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Reads the names of the worksheet parts from the content types of the
+     * package.
+     */
+    private static Set<String> readWorksheetPartNames(ZipFile zipFile)
+            throws IOException {
+        Set<String> partNames = new HashSet<>();
+        ZipEntry contentTypes = zipFile.getEntry("[Content_Types].xml");
+        if (contentTypes == null) {
+            throw new IOException("Not a valid XLSX file");
+        }
+        String worksheetType = XSSFRelation.WORKSHEET.getContentType();
+        try (InputStream in = zipFile.getInputStream(contentTypes)) {
+            parse(in, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName,
+                        String qName, Attributes attributes) {
+                    if ("Override".equals(localName) && worksheetType
+                            .equals(attributes.getValue("ContentType"))) {
+                        partNames.add(attributes.getValue("PartName"));
+                    }
+                }
+            });
+        }
+        return partNames;
+    }
+
+    private static void copyWorksheet(InputStream in, OutputStream out,
+            ColumnarCellStore store) throws IOException {
+        copy(in, out, writer -> new WorksheetHandler(writer, store));
+    }
+
+    /**
+     * Copies XML from the given input to the given output with a SAX handler
+     * writing the copied content.
+     *
+     * @param in
+     *            XML input
+     * @param out
+     *            Output, not closed by this method
+     * @param handlerFactory
+     *            Creates the handler for the writer of the output
+     * @throws IOException
+     *             If reading or writing fails
+     */
+    static void copy(InputStream in, OutputStream out,
+            Function<XMLStreamWriter, ? extends XmlCopyHandler> handlerFactory)
+            throws IOException {
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance()
+                    .createXMLStreamWriter(out, "UTF-8");
+            parse(in, handlerFactory.apply(writer));
+            // closing the writer doesn't close the zip stream
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void parse(InputStream in, DefaultHandler handler)
+            throws IOException {
+        try {
+            XMLReader reader = XMLHelper.newXMLReader();
+            reader.setFeature(
+                    "http://xml.org/sax/features/namespace-prefixes", true);
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(in));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * SAX handler copying the parsed XML to a stream writer as is. Subclasses
+     * decide which parts of the document are copied.
+     */
+    static class XmlCopyHandler extends DefaultHandler {
+
+        protected final XMLStreamWriter writer;
+
+        XmlCopyHandler(XMLStreamWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            try {
+                writer.writeStartDocument("UTF-8", "1.0");
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            try {
+                writer.writeEndDocument();
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            try {
+                copyStartElement(qName, attributes);
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            try {
+                writer.writeEndElement();
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length)
+                throws SAXException {
+            try {
+                writer.writeCharacters(ch, start, length);
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length)
+                throws SAXException {
+            characters(ch, start, length);
+        }
+
+        protected void copyStartElement(String qName, Attributes attributes)
+                throws XMLStreamException {
+            writer.writeStartElement(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                writer.writeAttribute(attributes.getQName(i),
+                        attributes.getValue(i));
+            }
+        }
+    }
+
+    /**
+     * Copies a worksheet XML part without the cells, collecting the cells to
+     * the store. Rows are kept only when they have properties, such as a
+     * height or a style, of their own.
+     */
+    private static class WorksheetHandler extends XmlCopyHandler {
+
+        private enum Text {
+            NONE, VALUE, FORMULA, INLINE
+        }
+
+        private final ColumnarCellStore store;
+
+        private boolean inSheetData;
+        private boolean rowWritten;
+        private int rowIndex = -1;
+        private int columnIndex;
+
+        private String cellType;
+        private int cellStyle;
+        private boolean hasFormula;
+        private boolean sharedFormula;
+        private int sharedIndex;
+        private String sharedRef;
+        private boolean inInlineString;
+        private boolean inPhonetic;
+        private Text text = Text.NONE;
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+        private final StringBuilder inline = new StringBuilder();
+
+        WorksheetHandler(XMLStreamWriter writer, ColumnarCellStore store) {
+            super(writer);
+            this.store = store;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            try {
+                if (!inSheetData) {
+                    copyStartElement(qName, attributes);
+                    inSheetData = SHEET_DATA.equals(localName);
+                    return;
+                }
+                switch (localName) {
+                case "row":
+                    startRow(qName, attributes);
+                    break;
+                case "c":
+                    startCell(attributes);
+                    break;
+                case "v":
+                    text = Text.VALUE;
+                    break;
+                case "f":
+                    hasFormula = true;
+                    sharedFormula = "shared".equals(attributes.getValue("t"));
+                    if (sharedFormula) {
+                        sharedIndex = Integer
+                                .parseInt(attributes.getValue("si"));
+                        sharedRef = attributes.getValue("ref");
+                    }
+                    text = Text.FORMULA;
+                    break;
+                case "is":
+                    inInlineString = true;
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    if (inInlineString && !inPhonetic) {
+                        text = Text.INLINE;
+                    }
+                    break;
+                default:
+                    // other cell content is not supported
+                }
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        private void startRow(String qName, Attributes attributes)
+                throws XMLStreamException {
+            String r = attributes.getValue("r");
+            rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+            columnIndex = -1;
+            store.startRow(rowIndex);
+            rowWritten = false;
+            for (int i = 0; i < attributes.getLength() && !rowWritten; i++) {
+                String name = attributes.getQName(i);
+                rowWritten = !"r".equals(name) && !"spans".equals(name)
+                        && name.indexOf(':') < 0;
+            }
+            if (rowWritten) {
+                writer.writeStartElement(qName);
+                writer.writeAttribute("r", Integer.toString(rowIndex + 1));
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    String name = attributes.getQName(i);
+                    if (!"r".equals(name) && !"spans".equals(name)) {
+                        writer.writeAttribute(name, attributes.getValue(i));
+                    }
+                }
+            }
+        }
+
+        private void startCell(Attributes attributes) {
+            String r = attributes.getValue("r");
+            columnIndex = r != null ? parseColumn(r) : columnIndex + 1;
+            cellType = attributes.getValue("t");
+            String s = attributes.getValue("s");
+            cellStyle = s != null ? Integer.parseInt(s) : 0;
+            hasFormula = false;
+            sharedFormula = false;
+            sharedRef = null;
+            value.setLength(0);
+            formula.setLength(0);
+            inline.setLength(0);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length)
+                throws SAXException {
+            if (!inSheetData) {
+                super.characters(ch, start, length);
+                return;
+            }
+            switch (text) {
+            case VALUE:
+                value.append(ch, start, length);
+                break;
+            case FORMULA:
+                formula.append(ch, start, length);
+                break;
+            case INLINE:
+                inline.append(ch, start, length);
+                break;
+            default:
+                // whitespace between the elements
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            try {
+                if (!inSheetData) {
+                    writer.writeEndElement();
+                    return;
+                }
+                switch (localName) {
+                case SHEET_DATA:
+                    inSheetData = false;
+                    writer.writeEndElement();
+                    break;
+                case "row":
+                    if (rowWritten) {
+                        writer.writeEndElement();
+                        rowWritten = false;
+                    }
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "v":
+                case "f":
+                case "t":
+                    text = Text.NONE;
+                    break;
+                default:
+                    // other cell content is not supported
+                }
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        private void endCell() {
+            String v = value.toString();
+            byte type = ColumnarCellStore.BLANK;
+            double number = 0;
+            int textIndex = -1;
+            switch (cellType == null ? "n" : cellType) {
+            case "s":
+                if (!v.isEmpty()) {
+                    type = ColumnarCellStore.SHARED_STRING;
+                    textIndex = Integer.parseInt(v);
+                }
+                break;
+            case "inlineStr":
+                type = ColumnarCellStore.STRING;
+                textIndex = store.addString(inline.toString());
+                break;
+            case "str":
+            case "d":
+                type = ColumnarCellStore.STRING;
+                textIndex = store.addString(v);
+                break;
+            case "b":
+                if (!v.isEmpty()) {
+                    type = ColumnarCellStore.BOOLEAN;
+                    number = "1".equals(v) || "true".equals(v) ? 1 : 0;
+                }
+                break;
+            case "e":
+                if (!v.isEmpty()) {
+                    type = ColumnarCellStore.ERROR;
+                    textIndex = store.addString(v);
+                }
+                break;
+            default:
+                if (!v.isEmpty()) {
+                    type = ColumnarCellStore.NUMERIC;
+                    number = Double.parseDouble(v);
+                }
+            }
+
+            int formulaIndex = -1;
+            if (hasFormula) {
+                String f = formula.toString();
+                if (sharedFormula && f.isEmpty()) {
+                    type |= ColumnarCellStore.SHARED_FORMULA;
+                    formulaIndex = sharedIndex;
+                } else if (!f.isEmpty()) {
+                    if (sharedFormula) {
+                        int firstRow = rowIndex;
+                        int firstColumn = columnIndex;
+                        if (sharedRef != null) {
+                            CellRangeAddress ref = CellRangeAddress
+                                    .valueOf(sharedRef);
+                            firstRow = ref.getFirstRow();
+                            firstColumn = ref.getFirstColumn();
+                        }
+                        store.addSharedFormula(sharedIndex, firstRow,
+                                firstColumn, f);
+                    }
+                    type |= ColumnarCellStore.FORMULA;
+                    formulaIndex = store.addString(f);
+                }
+            }
+            store.addCell(columnIndex, type, cellStyle, number, textIndex,
+                    formulaIndex);
+        }
+
+        private static int parseColumn(String reference) {
+            int column = 0;
+            for (int i = 0; i < reference.length(); i++) {
+                char c = reference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + c - 'A' + 1;
+            }
+            return column - 1;
+        }
+    }
+}
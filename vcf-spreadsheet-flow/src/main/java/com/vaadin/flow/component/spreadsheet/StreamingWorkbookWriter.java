@@ -0,0 +1,286 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import com.vaadin.flow.component.spreadsheet.StreamingWorkbook.PendingCells;
+import com.vaadin.flow.component.spreadsheet.StreamingWorkbookReader.XmlCopyHandler;
+
+/**
+ * Writes an XLSX workbook to a stream in two steps, in the same way as
+ * {@link org.apache.poi.xssf.streaming.SXSSFWorkbook} does.
+ * <p>
+ * {@link #prepare(XSSFWorkbook, StreamingWorkbook)} writes the POI workbook
+ * to a temporary file. It reads the workbook, so it must be called while
+ * holding the lock of the component.
+ * {@link #writeTo(OutputStream, DoubleConsumer)} then streams the file to the
+ * target, row by row for the worksheets with cells that haven't been created
+ * into the POI workbook, see {@link StreamingWorkbook}. It only reads the
+ * temporary file and the stored cells, so it can run in a background thread.
+ * <p>
+ * POI buffers the package parts of the workbook in memory while writing it.
+ * To buffer them in temporary files instead, call
+ * {@link org.apache.poi.openxml4j.opc.ZipPackage#setUseTempFilePackageParts(boolean)}
+ * once when the application starts. It is a JVM wide setting, so it isn't
+ * changed here.
+ *
+ * @author Vaadin Ltd.
+ */
+class StreamingWorkbookWriter {
+
+    private static final String SHEET_DATA = "sheetData";
+
+    /** Progress is reported at most this many times */
+    private static final int PROGRESS_STEPS = 100;
+
+    private final Path template;
+    private final Map<String, PendingCells> pendingCells;
+    private final Map<String, Integer> rowCounts;
+    private final XSSFEvaluationWorkbook evaluationWorkbook;
+    private final long totalRows;
+
+    private long writtenRows;
+    private int reportedStep = -1;
+    private DoubleConsumer progressListener;
+
+    private StreamingWorkbookWriter(Path template,
+            Map<String, PendingCells> pendingCells,
+            Map<String, Integer> rowCounts,
+            XSSFEvaluationWorkbook evaluationWorkbook) {
+        this.template = template;
+        this.pendingCells = pendingCells;
+        this.rowCounts = rowCounts;
+        this.evaluationWorkbook = evaluationWorkbook;
+        long rows = 0;
+        for (int count : rowCounts.values()) {
+            rows += count;
+        }
+        for (PendingCells cells : pendingCells.values()) {
+            rows += cells.getRowCount();
+        }
+        totalRows = rows;
+    }
+
+    /**
+     * Writes the given workbook to a temporary file.
+     *
+     * @param workbook
+     *            Workbook to write
+     * @param streamingWorkbook
+     *            Cells of the workbook not created yet, or <code>null</code>
+     * @return writer for streaming the file to the target
+     * @throws IOException
+     *             If writing the temporary file fails
+     */
+    static StreamingWorkbookWriter prepare(XSSFWorkbook workbook,
+            StreamingWorkbook streamingWorkbook) throws IOException {
+        Map<String, Integer> rowCounts = new HashMap<>();
+        for (Sheet sheet : workbook) {
+            rowCounts.put(((XSSFSheet) sheet).getPackagePart().getPartName()
+                    .getName(), sheet.getPhysicalNumberOfRows());
+        }
+        Map<String, PendingCells> pendingCells = streamingWorkbook == null
+                ? Collections.emptyMap()
+                : streamingWorkbook.getPendingCells();
+
+        Path template = Files.createTempFile("spreadsheet-export", ".xlsx");
+        try (OutputStream out = new FileOutputStream(template.toFile())) {
+            workbook.write(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(template);
+            throw e;
+        }
+        return new StreamingWorkbookWriter(template, pendingCells, rowCounts,
+                streamingWorkbook == null ? null
+                        : streamingWorkbook.getEvaluationWorkbook());
+    }
+
+    /**
+     * Streams the prepared workbook to the given stream and deletes the
+     * temporary file. The stream is closed after writing.
+     *
+     * @param stream
+     *            Target stream
+     * @param progressListener
+     *            Receives the share of the written rows, from 0 to 1, or
+     *            <code>null</code>
+     * @throws IOException
+     *             If writing fails
+     */
+    void writeTo(OutputStream stream, DoubleConsumer progressListener)
+            throws IOException {
+        this.progressListener = progressListener;
+        rowsWritten(0);
+        try (ZipFile zipFile = new ZipFile(template.toFile());
+                ZipOutputStream out = new ZipOutputStream(stream)) {
+            out.setLevel(Deflater.BEST_SPEED);
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                String partName = "/" + entry.getName();
+                PendingCells cells = pendingCells.get(partName);
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    if (cells != null) {
+                        StreamingWorkbookReader.copy(in, out,
+                                writer -> new WorksheetHandler(writer, cells));
+                    } else {
+                        in.transferTo(out);
+                        rowsWritten(rowCounts.getOrDefault(partName, 0));
+                    }
+                }
+                out.closeEntry();
+            }
+        } finally {
+            Files.deleteIfExists(template);
+        }
+        if (progressListener != null && reportedStep < PROGRESS_STEPS) {
+            progressListener.accept(1);
+        }
+    }
+
+    /**
+     * Deletes the temporary file without writing it.
+     */
+    void discard() {
+        try {
+            Files.deleteIfExists(template);
+        } catch (IOException e) {
+            template.toFile().deleteOnExit();
+        }
+    }
+
+    private void rowsWritten(int rows) {
+        writtenRows += rows;
+        if (progressListener == null) {
+            return;
+        }
+        int step = totalRows == 0 ? 0
+                : (int) Math.min(PROGRESS_STEPS,
+                        writtenRows * PROGRESS_STEPS / totalRows);
+        if (step > reportedStep) {
+            reportedStep = step;
+            progressListener.accept((double) step / PROGRESS_STEPS);
+        }
+    }
+
+    /**
+     * Copies a worksheet XML part, adding the rows not created into the POI
+     * workbook to the written rows in row order.
+     */
+    private class WorksheetHandler extends XmlCopyHandler {
+
+        private final PendingCells cells;
+        private final Map<Integer, Ptg[]> parsedSharedFormulas = new HashMap<>();
+
+        private boolean inSheetData;
+        private String prefix = "";
+        /** Position of the next stored row to write */
+        private int next;
+        private int rowIndex;
+
+        WorksheetHandler(XMLStreamWriter writer, PendingCells cells) {
+            super(writer);
+            this.cells = cells;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            try {
+                if (SHEET_DATA.equals(localName)) {
+                    inSheetData = true;
+                    prefix = qName.substring(0, qName.indexOf(':') + 1);
+                } else if (inSheetData && "row".equals(localName)) {
+                    rowIndex = Integer.parseInt(attributes.getValue("r")) - 1;
+                    writeStoredRows(rowIndex - 1);
+                }
+                copyStartElement(qName, attributes);
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            try {
+                if (SHEET_DATA.equals(localName)) {
+                    inSheetData = false;
+                    writeStoredRows(Integer.MAX_VALUE);
+                } else if (inSheetData && "row".equals(localName)) {
+                    // a row element kept for its height or style
+                    if (next < cells.store.getRowCount()
+                            && cells.store.getRowIndex(next) == rowIndex) {
+                        writeStoredCells(next++);
+                    }
+                    rowsWritten(1);
+                }
+                writer.writeEndElement();
+            } catch (XMLStreamException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        /**
+         * Writes the stored rows up to the given row index as new row
+         * elements.
+         */
+        private void writeStoredRows(int lastRowIndex)
+                throws XMLStreamException {
+            ColumnarCellStore store = cells.store;
+            while (next < store.getRowCount()
+                    && store.getRowIndex(next) <= lastRowIndex) {
+                if (!cells.hydratedRows.get(next)) {
+                    writer.writeStartElement(prefix + "row");
+                    writer.writeAttribute("r",
+                            Integer.toString(store.getRowIndex(next) + 1));
+                    writeStoredCells(next);
+                    writer.writeEndElement();
+                    rowsWritten(1);
+                }
+                next++;
+            }
+        }
+
+        private void writeStoredCells(int block) throws XMLStreamException {
+            if (!cells.hydratedRows.get(block)) {
+                cells.store.writeCells(block, writer, prefix,
+                        evaluationWorkbook, cells.sheetIndex,
+                        parsedSharedFormulas);
+            }
+        }
+    }
+}
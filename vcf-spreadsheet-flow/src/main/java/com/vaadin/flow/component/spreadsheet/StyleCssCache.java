@@ -0,0 +1,145 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of the CSS built for cell styles, shared by all Spreadsheet
+ * components. Used by {@link SpreadsheetStyleFactory}, so that opening the
+ * same or a similar workbook again doesn't need to convert its cell styles to
+ * CSS again.
+ * <p>
+ * The keys describe everything the CSS of a style depends on, so that the
+ * cached CSS can be used for equal styles of any workbook regardless of their
+ * index. The least recently used entries are evicted when the cache is full.
+ * The cache is thread safe.
+ *
+ * @author Vaadin Ltd.
+ */
+final class StyleCssCache {
+
+    /**
+     * The CSS of a cell style. Immutable.
+     */
+    @SuppressWarnings("serial")
+    static final class Entry implements Serializable {
+        private final String css;
+        private final String shiftedBorderTop;
+        private final String shiftedBorderLeft;
+
+        /**
+         * @param css
+         *            CSS rules of the style
+         * @param shiftedBorderTop
+         *            CSS rule block for the top border, drawn as the bottom
+         *            border of the cell above, or <code>null</code>
+         * @param shiftedBorderLeft
+         *            CSS rule block for the left border, drawn as the right
+         *            border of the cell on the left, or <code>null</code>
+         */
+        Entry(String css, String shiftedBorderTop, String shiftedBorderLeft) {
+            this.css = css;
+            this.shiftedBorderTop = shiftedBorderTop;
+            this.shiftedBorderLeft = shiftedBorderLeft;
+        }
+
+        String getCss() {
+            return css;
+        }
+
+        String getShiftedBorderTop() {
+            return shiftedBorderTop;
+        }
+
+        String getShiftedBorderLeft() {
+            return shiftedBorderLeft;
+        }
+    }
+
+    /** The cache used by all Spreadsheet components */
+    static final StyleCssCache SHARED = new StyleCssCache(2048);
+
+    private final Map<String, Entry> entries;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize
+     *            Maximum number of styles kept in the cache
+     */
+    StyleCssCache(final int maxSize) {
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> e) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param key
+     *            Key describing the style
+     * @return the cached CSS, or <code>null</code> if not cached
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * @param key
+     *            Key describing the style
+     * @param entry
+     *            CSS of the style
+     */
+    synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * @return the number of cached styles
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups that found a cached style
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that didn't find a cached style
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes all cached styles and resets the counters.
+     */
+    synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+}
@@ -25,9 +25,6 @@ import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumDataSource;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTSerTx;
 
 import com.vaadin.flow.component.spreadsheet.Spreadsheet;
-import com.vaadin.flow.component.spreadsheet.Spreadsheet.CellValueChangeEvent;
-import com.vaadin.flow.component.spreadsheet.Spreadsheet.CellValueChangeListener;
-import com.vaadin.flow.component.spreadsheet.SpreadsheetUtil;
 import com.vaadin.flow.component.spreadsheet.charts.converter.Utils;
 import com.vaadin.flow.component.spreadsheet.charts.converter.chartdata.AbstractSeriesData;
 import com.vaadin.flow.component.spreadsheet.charts.converter.chartdata.AbstractSeriesData.DataSelectListener;
@@ -286,78 +283,23 @@ public abstract class AbstractSeriesReader<CT_SER_TYPE extends XmlObject, SERIES
         return decimalCount;
     }
 
-    void onValueChange(final List<CellReference> referencedCells,
-            final SERIES_DATA_TYPE seriesData, final ValueUpdateMode updateMode,
-            Spreadsheet.ValueChangeEvent event) {
-        if (seriesData.dataUpdateListener == null) {
-            return;
-        }
-
-        for (CellReference changedCell : event.getChangedCells()) {
-            // getChangedCell erroneously provides relative cell refs
-            // if this gets fixed, this conversion method should be
-            // removed
-            // https://dev.vaadin.com/ticket/19717
-            updatePoint(referencedCells, seriesData, updateMode, changedCell);
-        }
-    }
-
-    @SuppressWarnings("serial")
+    /**
+     * Keeps the points of the given series up to date with the values of the
+     * referenced cells.
+     *
+     * @param referencedCells
+     *            Cells referenced by the points of the series, in point order
+     * @param seriesData
+     *            Series showing the values
+     * @param updateMode
+     *            Which values of the points the cells are shown as
+     */
     protected void handleReferencedValueUpdates(
             final List<CellReference> referencedCells,
             final SERIES_DATA_TYPE seriesData,
             final ValueUpdateMode updateMode) {
-
-        spreadsheet.addCellValueChangeListener(new CellValueChangeListener() {
-            @Override
-            public void onCellValueChange(CellValueChangeEvent event) {
-                onValueChange(referencedCells, seriesData, updateMode, event);
-            }
-        });
-
-        spreadsheet.addFormulaValueChangeListener(
-                new Spreadsheet.FormulaValueChangeListener() {
-                    @Override
-                    public void onFormulaValueChange(
-                            Spreadsheet.FormulaValueChangeEvent event) {
-                        onValueChange(referencedCells, seriesData, updateMode,
-                                event);
-                    }
-                });
-    }
-
-    private void updatePoint(List<CellReference> referencedCells,
-            SERIES_DATA_TYPE seriesData, ValueUpdateMode updateMode,
-            CellReference changedCell) {
-        CellReference absoluteChangedCell = SpreadsheetUtil
-                .relativeToAbsolute(spreadsheet, changedCell);
-        if (!referencedCells.contains(absoluteChangedCell)) {
-            return;
-        }
-
-        final int index = referencedCells.indexOf(absoluteChangedCell);
-
-        if (updateMode != ValueUpdateMode.CATEGORIES) {
-            final SeriesPoint item = seriesData.seriesData.get(index);
-            final Double cellValue = Utils.getNumericValue(absoluteChangedCell,
-                    spreadsheet);
-            if (updateMode == ValueUpdateMode.X_VALUES) {
-                item.xValue = cellValue;
-                seriesData.dataUpdateListener.xDataModified(index, cellValue);
-            }
-            if (updateMode == ValueUpdateMode.Y_VALUES) {
-                item.yValue = cellValue;
-                seriesData.dataUpdateListener.yDataModified(index, cellValue);
-            }
-            if (updateMode == ValueUpdateMode.Z_VALUES) {
-                item.zValue = cellValue;
-                seriesData.dataUpdateListener.zDataModified(index, cellValue);
-            }
-        } else {
-            final String cellValue = Utils.getStringValue(absoluteChangedCell,
-                    spreadsheet);
-            seriesData.dataUpdateListener.categoryModified(index, cellValue);
-        }
+        ChartReferenceIndex.get(spreadsheet).register(referencedCells,
+                seriesData, updateMode);
     }
 
     protected String tryGetSeriesName(CTSerTx tx) {
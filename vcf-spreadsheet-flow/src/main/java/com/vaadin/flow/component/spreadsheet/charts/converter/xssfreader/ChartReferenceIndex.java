@@ -0,0 +1,200 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.charts.converter.xssfreader;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.poi.ss.util.CellReference;
+
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.SpreadsheetUtil;
+import com.vaadin.flow.component.spreadsheet.charts.converter.Utils;
+import com.vaadin.flow.component.spreadsheet.charts.converter.chartdata.AbstractSeriesData;
+import com.vaadin.flow.component.spreadsheet.charts.converter.chartdata.AbstractSeriesData.SeriesPoint;
+import com.vaadin.flow.component.spreadsheet.charts.converter.xssfreader.AbstractSeriesReader.ValueUpdateMode;
+
+/**
+ * Maps the cells referenced by the charts of a {@link Spreadsheet} to the
+ * series points showing their values. There is one index per Spreadsheet, it
+ * listens to the cell and formula value changes of the Spreadsheet once for
+ * all series, instead of each series going through the changed cells.
+ * <p>
+ * The points of the changed cells are collected and updated once before the
+ * response is sent to the client, so that a point changed several times
+ * during a round trip, e.g. by both a cell and a formula value change, is
+ * only sent once. If the Spreadsheet is not attached, the points are updated
+ * right away.
+ */
+@SuppressWarnings("serial")
+class ChartReferenceIndex implements Serializable {
+
+    /**
+     * A point of a series showing the value of a cell. Used as a key for the
+     * pending updates, two references are equal if they refer to the same
+     * point of the same series data object.
+     */
+    private static final class PointReference implements Serializable {
+        private final AbstractSeriesData seriesData;
+        private final ValueUpdateMode updateMode;
+        private final int index;
+
+        PointReference(AbstractSeriesData seriesData,
+                ValueUpdateMode updateMode, int index) {
+            this.seriesData = seriesData;
+            this.updateMode = updateMode;
+            this.index = index;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(seriesData),
+                    updateMode, index);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PointReference)) {
+                return false;
+            }
+            PointReference other = (PointReference) obj;
+            return seriesData == other.seriesData
+                    && updateMode == other.updateMode && index == other.index;
+        }
+    }
+
+    private final Spreadsheet spreadsheet;
+
+    private final Map<CellReference, List<PointReference>> points = new HashMap<>();
+
+    /** Points to update before the next response, with their cells */
+    private final Map<PointReference, CellReference> pendingUpdates = new LinkedHashMap<>();
+
+    private boolean updateScheduled;
+
+    private ChartReferenceIndex(Spreadsheet spreadsheet) {
+        this.spreadsheet = spreadsheet;
+        spreadsheet.addCellValueChangeListener(this::onValueChange);
+        spreadsheet.addFormulaValueChangeListener(this::onValueChange);
+    }
+
+    /**
+     * Gets the index of the given Spreadsheet, creating it if needed.
+     *
+     * @param spreadsheet
+     *            Target Spreadsheet
+     * @return the index of the Spreadsheet
+     */
+    static ChartReferenceIndex get(Spreadsheet spreadsheet) {
+        ChartReferenceIndex index = ComponentUtil.getData(spreadsheet,
+                ChartReferenceIndex.class);
+        if (index == null) {
+            index = new ChartReferenceIndex(spreadsheet);
+            ComponentUtil.setData(spreadsheet, ChartReferenceIndex.class,
+                    index);
+        }
+        return index;
+    }
+
+    /**
+     * Adds the points of a series to the index. The point at index
+     * <code>i</code> shows the value of the cell at index <code>i</code>.
+     *
+     * @param referencedCells
+     *            Cells referenced by the points, absolute
+     * @param seriesData
+     *            Series showing the values
+     * @param updateMode
+     *            Which values of the points the cells are shown as
+     */
+    void register(List<CellReference> referencedCells,
+            AbstractSeriesData seriesData, ValueUpdateMode updateMode) {
+        for (int i = 0; i < referencedCells.size(); i++) {
+            points.computeIfAbsent(referencedCells.get(i),
+                    cell -> new ArrayList<>(1))
+                    .add(new PointReference(seriesData, updateMode, i));
+        }
+    }
+
+    private void onValueChange(Spreadsheet.ValueChangeEvent event) {
+        for (CellReference changedCell : event.getChangedCells()) {
+            // getChangedCell erroneously provides relative cell refs
+            // if this gets fixed, this conversion method should be
+            // removed
+            // https://dev.vaadin.com/ticket/19717
+            CellReference absoluteChangedCell = SpreadsheetUtil
+                    .relativeToAbsolute(spreadsheet, changedCell);
+            List<PointReference> cellPoints = points.get(absoluteChangedCell);
+            if (cellPoints != null) {
+                for (PointReference point : cellPoints) {
+                    pendingUpdates.put(point, absoluteChangedCell);
+                }
+            }
+        }
+        if (pendingUpdates.isEmpty() || updateScheduled) {
+            return;
+        }
+        Optional<UI> ui = spreadsheet.getUI();
+        if (ui.isPresent()) {
+            updateScheduled = true;
+            ui.get().beforeClientResponse(spreadsheet,
+                    context -> updatePoints());
+        } else {
+            updatePoints();
+        }
+    }
+
+    private void updatePoints() {
+        updateScheduled = false;
+        List<Map.Entry<PointReference, CellReference>> updates = new ArrayList<>(
+                pendingUpdates.entrySet());
+        pendingUpdates.clear();
+        for (Map.Entry<PointReference, CellReference> update : updates) {
+            updatePoint(update.getKey(), update.getValue());
+        }
+    }
+
+    private void updatePoint(PointReference point, CellReference cell) {
+        final AbstractSeriesData seriesData = point.seriesData;
+        if (seriesData.dataUpdateListener == null) {
+            return;
+        }
+        final int index = point.index;
+        if (point.updateMode != ValueUpdateMode.CATEGORIES) {
+            final SeriesPoint item = seriesData.seriesData.get(index);
+            final Double cellValue = Utils.getNumericValue(cell, spreadsheet);
+            if (point.updateMode == ValueUpdateMode.X_VALUES) {
+                item.xValue = cellValue;
+                seriesData.dataUpdateListener.xDataModified(index, cellValue);
+            }
+            if (point.updateMode == ValueUpdateMode.Y_VALUES) {
+                item.yValue = cellValue;
+                seriesData.dataUpdateListener.yDataModified(index, cellValue);
+            }
+            if (point.updateMode == ValueUpdateMode.Z_VALUES) {
+                item.zValue = cellValue;
+                seriesData.dataUpdateListener.zDataModified(index, cellValue);
+            }
+        } else {
+            final String cellValue = Utils.getStringValue(cell, spreadsheet);
+            seriesData.dataUpdateListener.categoryModified(index, cellValue);
+        }
+    }
+}
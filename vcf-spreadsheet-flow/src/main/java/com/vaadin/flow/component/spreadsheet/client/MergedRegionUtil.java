@@ -9,6 +9,10 @@
 package com.vaadin.flow.component.spreadsheet.client;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class MergedRegionUtil {
 
@@ -37,6 +41,172 @@ public class MergedRegionUtil {
 
     }
 
+    /**
+     * Spatial index for the merged regions of a sheet, used for implementing
+     * {@link MergedRegionContainer} without going through all regions on each
+     * lookup.
+     * <p>
+     * Regions are bucketed by the rows they span, each bucket sorted by the
+     * first column of the regions. As regions don't overlap, a lookup is a
+     * binary search within one bucket. Regions taller than
+     * {@link #MAX_BUCKETED_REGION_HEIGHT} rows are kept in a separate list
+     * that is always scanned.
+     * <p>
+     * All coordinates are 1-based, like in {@link MergedRegion}.
+     */
+    @SuppressWarnings("serial")
+    public static class MergedRegionIndex implements Serializable {
+
+        static final int MAX_BUCKETED_REGION_HEIGHT = 64;
+
+        private final Map<Integer, List<MergedRegion>> rowBuckets = new HashMap<Integer, List<MergedRegion>>();
+        private final List<MergedRegion> tallRegions = new ArrayList<MergedRegion>();
+        private int size;
+
+        /**
+         * Replaces the indexed regions with the given ones.
+         *
+         * @param regions
+         *            the regions to index, may be <code>null</code>
+         */
+        public void setRegions(List<MergedRegion> regions) {
+            clear();
+            if (regions != null) {
+                for (MergedRegion region : regions) {
+                    add(region);
+                }
+            }
+        }
+
+        /**
+         * Adds the given region to the index.
+         *
+         * @param region
+         *            the region to add
+         */
+        public void add(MergedRegion region) {
+            if (isTall(region)) {
+                tallRegions.add(region);
+            } else {
+                for (int row = region.row1; row <= region.row2; row++) {
+                    List<MergedRegion> bucket = rowBuckets.get(row);
+                    if (bucket == null) {
+                        bucket = new ArrayList<MergedRegion>(2);
+                        rowBuckets.put(row, bucket);
+                    }
+                    bucket.add(indexAfter(bucket, region.col1), region);
+                }
+            }
+            size++;
+        }
+
+        /**
+         * Removes the given region from the index.
+         *
+         * @param region
+         *            the region to remove, compared by identity
+         */
+        public void remove(MergedRegion region) {
+            boolean removed = false;
+            if (isTall(region)) {
+                removed = tallRegions.remove(region);
+            } else {
+                for (int row = region.row1; row <= region.row2; row++) {
+                    List<MergedRegion> bucket = rowBuckets.get(row);
+                    if (bucket != null && bucket.remove(region)) {
+                        removed = true;
+                        if (bucket.isEmpty()) {
+                            rowBuckets.remove(row);
+                        }
+                    }
+                }
+            }
+            if (removed) {
+                size--;
+            }
+        }
+
+        /**
+         * Removes all regions from the index.
+         */
+        public void clear() {
+            rowBuckets.clear();
+            tallRegions.clear();
+            size = 0;
+        }
+
+        /**
+         * @return the number of indexed regions
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * See {@link MergedRegionContainer#getMergedRegion(int, int)}.
+         */
+        public MergedRegion getMergedRegion(int column, int row) {
+            List<MergedRegion> bucket = rowBuckets.get(row);
+            if (bucket != null) {
+                int index = indexAfter(bucket, column) - 1;
+                if (index >= 0 && bucket.get(index).col2 >= column) {
+                    return bucket.get(index);
+                }
+            }
+            for (MergedRegion region : tallRegions) {
+                if (region.col1 <= column && region.row1 <= row
+                        && region.col2 >= column && region.row2 >= row) {
+                    return region;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * See {@link MergedRegionContainer#getMergedRegionStartingFrom(int, int)}.
+         */
+        public MergedRegion getMergedRegionStartingFrom(int column, int row) {
+            List<MergedRegion> bucket = rowBuckets.get(row);
+            if (bucket != null) {
+                int index = indexAfter(bucket, column) - 1;
+                if (index >= 0) {
+                    MergedRegion region = bucket.get(index);
+                    if (region.col1 == column && region.row1 == row) {
+                        return region;
+                    }
+                }
+            }
+            for (MergedRegion region : tallRegions) {
+                if (region.col1 == column && region.row1 == row) {
+                    return region;
+                }
+            }
+            return null;
+        }
+
+        private static boolean isTall(MergedRegion region) {
+            return region.row2 - region.row1 >= MAX_BUCKETED_REGION_HEIGHT;
+        }
+
+        /**
+         * Finds the position after the last region in the bucket starting at
+         * or before the given column.
+         */
+        private static int indexAfter(List<MergedRegion> bucket, int column) {
+            int low = 0;
+            int high = bucket.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (bucket.get(mid).col1 <= column) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
     /**
      * Goes through the given selection and checks that the cells on the edges
      * of the selection are not in "the beginning / middle / end" of a merged
@@ -0,0 +1,426 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.client;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Sizes of the rows or columns of a sheet, storing only the sizes that differ
+ * from the default size.
+ * <p>
+ * The non-default sizes are kept sorted by index together with their running
+ * difference to the default size, so the offset of an index and the index at
+ * an offset are resolved with a binary search instead of summing every size.
+ * <p>
+ * The model is sent to the client in the encoded form
+ * <code>[count, defaultSize, index0, size0, index1, size1, ...]</code>, see
+ * {@link #encode()}.
+ * <p>
+ * Indexes are 0-based. Indexes outside of <code>[0, count)</code> have the
+ * default size.
+ *
+ * @author Vaadin Ltd.
+ */
+@SuppressWarnings("serial")
+public class SparseSizeModel implements Serializable {
+
+    private static final int HEADER_LENGTH = 2;
+
+    private int count;
+    private float defaultSize;
+
+    private int[] indexes = new int[0];
+    private float[] sizes = new float[0];
+    private int entries;
+
+    /**
+     * prefix[k] is the sum of (size - defaultSize) of the first k entries,
+     * rebuilt lazily after changes
+     */
+    private double[] prefix;
+
+    /**
+     * Creates a new model where all indexes have the given default size.
+     *
+     * @param count
+     *            Number of rows or columns
+     * @param defaultSize
+     *            Size of every index without a size of its own
+     */
+    public SparseSizeModel(int count, float defaultSize) {
+        this.count = Math.max(0, count);
+        this.defaultSize = defaultSize;
+    }
+
+    /**
+     * @return the number of rows or columns in this model
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the number of rows or columns. Sizes at or after the new count are
+     * dropped.
+     *
+     * @param count
+     *            New number of rows or columns
+     */
+    public void setCount(int count) {
+        this.count = Math.max(0, count);
+        final int keep = lowerBound(this.count);
+        if (keep < entries) {
+            entries = keep;
+            prefix = null;
+        }
+    }
+
+    /**
+     * @return the size of the indexes without a size of their own
+     */
+    public float getDefaultSize() {
+        return defaultSize;
+    }
+
+    /**
+     * Gets the size of the given index.
+     *
+     * @param index
+     *            0-based index
+     * @return the size of the index
+     */
+    public float getSize(int index) {
+        final int k = lowerBound(index);
+        if (k < entries && indexes[k] == index) {
+            return sizes[k];
+        }
+        return defaultSize;
+    }
+
+    /**
+     * Sets the size of the given index. Setting the default size removes the
+     * stored size of the index. Indexes at or after the count are ignored.
+     *
+     * @param index
+     *            0-based index
+     * @param size
+     *            New size
+     */
+    public void setSize(int index, float size) {
+        if (index < 0 || index >= count) {
+            return;
+        }
+        final int k = lowerBound(index);
+        final boolean exists = k < entries && indexes[k] == index;
+        if (size == defaultSize) {
+            if (exists) {
+                System.arraycopy(indexes, k + 1, indexes, k, entries - k - 1);
+                System.arraycopy(sizes, k + 1, sizes, k, entries - k - 1);
+                entries--;
+                prefix = null;
+            }
+        } else if (exists) {
+            if (sizes[k] != size) {
+                sizes[k] = size;
+                prefix = null;
+            }
+        } else {
+            if (entries == indexes.length) {
+                final int capacity = Math.max(8, entries * 2);
+                indexes = Arrays.copyOf(indexes, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            System.arraycopy(indexes, k, indexes, k + 1, entries - k);
+            System.arraycopy(sizes, k, sizes, k + 1, entries - k);
+            indexes[k] = index;
+            sizes[k] = size;
+            entries++;
+            prefix = null;
+        }
+    }
+
+    /**
+     * Moves the sizes of the indexes from first to last by the given offset,
+     * like shifting rows in a sheet. The indexes that are overwritten or left
+     * empty by the move get the default size. Sizes moved outside of
+     * <code>[0, count)</code> are dropped.
+     *
+     * @param first
+     *            First index to move, 0-based
+     * @param last
+     *            Last index to move, 0-based
+     * @param n
+     *            Offset, negative to move towards the start
+     */
+    public void shift(int first, int last, int n) {
+        if (n == 0 || first > last) {
+            return;
+        }
+        final int firstAffected = n < 0 ? first + n : first;
+        final int lastAffected = n < 0 ? last : last + n;
+        final int start = lowerBound(firstAffected);
+        final int end = lowerBound(lastAffected + 1);
+        final int[] movedIndexes = new int[end - start];
+        final float[] movedSizes = new float[end - start];
+        int moved = 0;
+        for (int k = start; k < end; k++) {
+            final int index = indexes[k] + n;
+            if (indexes[k] >= first && indexes[k] <= last && index >= 0
+                    && index < count) {
+                movedIndexes[moved] = index;
+                movedSizes[moved] = sizes[k];
+                moved++;
+            }
+        }
+        // the moved entries stay sorted and between the unaffected ones
+        System.arraycopy(indexes, end, indexes, start + moved, entries - end);
+        System.arraycopy(sizes, end, sizes, start + moved, entries - end);
+        System.arraycopy(movedIndexes, 0, indexes, start, moved);
+        System.arraycopy(movedSizes, 0, sizes, start, moved);
+        entries = entries - (end - start) + moved;
+        prefix = null;
+    }
+
+    /**
+     * Resets every index to the default size.
+     */
+    public void clear() {
+        entries = 0;
+        prefix = null;
+    }
+
+    /**
+     * Gets the sum of the sizes of the indexes before the given index, i.e.
+     * the offset where the index starts.
+     *
+     * @param index
+     *            0-based index
+     * @return the offset of the index
+     */
+    public double getOffset(int index) {
+        if (index <= 0) {
+            return 0;
+        }
+        return (double) index * defaultSize + getPrefix()[lowerBound(index)];
+    }
+
+    /**
+     * Gets the sum of the sizes of the indexes in the given range.
+     *
+     * @param from
+     *            First index, inclusive, 0-based
+     * @param to
+     *            Last index, exclusive, 0-based
+     * @return the sum of the sizes
+     */
+    public double getSum(int from, int to) {
+        if (to <= from) {
+            return 0;
+        }
+        return getOffset(to) - getOffset(from);
+    }
+
+    /**
+     * Gets the index that contains the given offset, i.e. the smallest index
+     * whose end is after the offset. Indexes with zero size are skipped. The
+     * result may be at or after the count if the offset is after the last
+     * index.
+     *
+     * @param offset
+     *            Offset from the start of the first index
+     * @return the 0-based index at the offset
+     */
+    public int getIndexAt(double offset) {
+        if (offset < 0) {
+            return 0;
+        }
+        final double[] prefix = getPrefix();
+        // last entry starting at or before the offset
+        int low = 0;
+        int high = entries - 1;
+        int k = -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if ((double) indexes[mid] * defaultSize + prefix[mid] <= offset) {
+                k = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (k < 0) {
+            return indexInDefaultRun(0, offset);
+        }
+        final double start = (double) indexes[k] * defaultSize + prefix[k];
+        if (offset < start + sizes[k]) {
+            return indexes[k];
+        }
+        return indexInDefaultRun(indexes[k] + 1, offset - start - sizes[k]);
+    }
+
+    private int indexInDefaultRun(int first, double offset) {
+        if (defaultSize <= 0) {
+            return first;
+        }
+        final double index = first + Math.floor(offset / defaultSize);
+        return index > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) index;
+    }
+
+    /**
+     * @return the number of indexes that have a size of their own
+     */
+    public int getEntryCount() {
+        return entries;
+    }
+
+    /**
+     * @param entry
+     *            Entry number, from 0 to {@link #getEntryCount()} - 1
+     * @return the index of the entry
+     */
+    public int getEntryIndex(int entry) {
+        return indexes[entry];
+    }
+
+    /**
+     * @param entry
+     *            Entry number, from 0 to {@link #getEntryCount()} - 1
+     * @return the size of the entry
+     */
+    public float getEntrySize(int entry) {
+        return sizes[entry];
+    }
+
+    /**
+     * @return the sizes of all indexes as an array with one item per index
+     */
+    public float[] toArray() {
+        final float[] array = new float[count];
+        Arrays.fill(array, defaultSize);
+        for (int k = 0; k < entries; k++) {
+            array[indexes[k]] = sizes[k];
+        }
+        return array;
+    }
+
+    /**
+     * @return the sizes of all indexes as an integer array with one item per
+     *         index
+     */
+    public int[] toIntArray() {
+        final int[] array = new int[count];
+        Arrays.fill(array, (int) defaultSize);
+        for (int k = 0; k < entries; k++) {
+            array[indexes[k]] = (int) sizes[k];
+        }
+        return array;
+    }
+
+    /**
+     * Encodes this model as
+     * <code>[count, defaultSize, index0, size0, ...]</code>.
+     *
+     * @return the encoded model
+     */
+    public float[] encode() {
+        final float[] encoded = new float[HEADER_LENGTH + entries * 2];
+        encoded[0] = count;
+        encoded[1] = defaultSize;
+        for (int k = 0; k < entries; k++) {
+            encoded[HEADER_LENGTH + k * 2] = indexes[k];
+            encoded[HEADER_LENGTH + k * 2 + 1] = sizes[k];
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes this model with integer sizes, in the same layout as
+     * {@link #encode()}.
+     *
+     * @return the encoded model
+     */
+    public int[] encodeAsInts() {
+        final int[] encoded = new int[HEADER_LENGTH + entries * 2];
+        encoded[0] = count;
+        encoded[1] = (int) defaultSize;
+        for (int k = 0; k < entries; k++) {
+            encoded[HEADER_LENGTH + k * 2] = indexes[k];
+            encoded[HEADER_LENGTH + k * 2 + 1] = (int) sizes[k];
+        }
+        return encoded;
+    }
+
+    /**
+     * Decodes a model encoded with {@link #encode()}.
+     *
+     * @param encoded
+     *            Encoded model, may be <code>null</code>
+     * @return the decoded model, or an empty model if the given value is
+     *         <code>null</code> or too short
+     */
+    public static SparseSizeModel decode(float[] encoded) {
+        if (encoded == null || encoded.length < HEADER_LENGTH) {
+            return new SparseSizeModel(0, 0);
+        }
+        final SparseSizeModel model = new SparseSizeModel((int) encoded[0],
+                encoded[1]);
+        for (int i = HEADER_LENGTH; i + 1 < encoded.length; i += 2) {
+            model.setSize((int) encoded[i], encoded[i + 1]);
+        }
+        return model;
+    }
+
+    /**
+     * Decodes a model encoded with {@link #encodeAsInts()}.
+     *
+     * @param encoded
+     *            Encoded model, may be <code>null</code>
+     * @return the decoded model, or an empty model if the given value is
+     *         <code>null</code> or too short
+     */
+    public static SparseSizeModel decode(int[] encoded) {
+        if (encoded == null || encoded.length < HEADER_LENGTH) {
+            return new SparseSizeModel(0, 0);
+        }
+        final SparseSizeModel model = new SparseSizeModel(encoded[0],
+                encoded[1]);
+        for (int i = HEADER_LENGTH; i + 1 < encoded.length; i += 2) {
+            model.setSize(encoded[i], encoded[i + 1]);
+        }
+        return model;
+    }
+
+    /**
+     * @return the number of entries with an index smaller than the given one
+     */
+    private int lowerBound(int index) {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (indexes[mid] < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private double[] getPrefix() {
+        if (prefix == null) {
+            prefix = new double[entries + 1];
+            for (int k = 0; k < entries; k++) {
+                prefix[k + 1] = prefix[k] + sizes[k] - defaultSize;
+            }
+        }
+        return prefix;
+    }
+}
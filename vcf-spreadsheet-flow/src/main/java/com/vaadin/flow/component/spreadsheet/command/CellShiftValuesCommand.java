@@ -48,8 +48,9 @@ public class CellShiftValuesCommand extends CellValueCommand {
     public CellReference getSelectedCellReference() {
         CellReference selectedCellReference = super.getSelectedCellReference();
         CellRangeAddress paintedCellRange = getPaintedCellRange();
-        if (paintedCellRange == null || SpreadsheetUtil
-                .isCellInRange(selectedCellReference, paintedCellRange)) {
+        if (paintedCellRange == null || selectedCellReference != null
+                && SpreadsheetUtil.isCellInRange(selectedCellReference,
+                        paintedCellRange)) {
             return selectedCellReference;
         } else {
             return new CellReference(paintedCellRange.getFirstRow(),
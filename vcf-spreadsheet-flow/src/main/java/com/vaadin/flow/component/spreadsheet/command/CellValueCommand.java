@@ -74,7 +74,9 @@ public class CellValueCommand extends SpreadsheetCommand
 
     /**
      * Sets the currently selected cell of the spreadsheet as the selected cell
-     * and possible painted range for this command.
+     * and possible painted range for this command. If no cell has been
+     * selected yet, e.g. when the value is changed before the client has
+     * sent the initial selection, the command has no selected cell.
      *
      * @param spreadsheet
      *            Target spreadsheet
@@ -83,8 +85,13 @@ public class CellValueCommand extends SpreadsheetCommand
         super(spreadsheet);
         CellReference selectedCellReference = spreadsheet
                 .getSelectedCellReference();
-        selectedCellRow = selectedCellReference.getRow();
-        selectedcellCol = selectedCellReference.getCol();
+        if (selectedCellReference != null) {
+            selectedCellRow = selectedCellReference.getRow();
+            selectedcellCol = selectedCellReference.getCol();
+        } else {
+            selectedCellRow = -1;
+            selectedcellCol = -1;
+        }
         CellRangeAddress paintedCellRange = spreadsheet
                 .getCellSelectionManager().getSelectedCellRange();
         if (paintedCellRange != null && (paintedCellRange
@@ -148,6 +155,9 @@ public class CellValueCommand extends SpreadsheetCommand
 
     @Override
     public CellReference getSelectedCellReference() {
+        if (selectedCellRow < 0) {
+            return null;
+        }
         return new CellReference(selectedCellRow, selectedcellCol);
     }
 
@@ -320,17 +330,8 @@ public class CellValueCommand extends SpreadsheetCommand
      * @return Cell at the given coordinates, null if not found
      */
     protected Cell getCell(int r, int c) {
-        Row row = getSheet().getRow(r);
-        if (row == null) {
-            return null;
-        } else {
-            Cell cell = row.getCell(c);
-            if (cell == null) {
-                return null;
-            } else {
-                return cell;
-            }
-        }
+        // creates the cells of the row if it was read with readStreaming
+        return spreadsheet.getCell(r, c, getSheet());
     }
 
     @Override
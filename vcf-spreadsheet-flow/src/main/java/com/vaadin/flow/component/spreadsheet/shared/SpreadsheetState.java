@@ -94,8 +94,10 @@ public class SpreadsheetState {
     // @DelegateToWidget
     public int defColW;
 
+    /** row heights in points, encoded by SparseSizeModel */
     // @DelegateToWidget
     public float[] rowH;
+    /** column widths in pixels, encoded by SparseSizeModel */
     // @DelegateToWidget
     public int[] colW;
 
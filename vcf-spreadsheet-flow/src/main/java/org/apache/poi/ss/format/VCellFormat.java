@@ -19,10 +19,13 @@ package org.apache.poi.ss.format;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -131,9 +134,65 @@ public class VCellFormat {
         };
     }
 
-    /** Maps a format string to its parsed version for efficiencies sake. */
-    private static final Map<Locale, Map<String, VCellFormat>> formatCache =
-            new WeakHashMap<>();
+    /**
+     * Maximum number of parsed formats kept in the cache, can be set with the
+     * {@code vaadin.spreadsheet.cellFormatCacheSize} system property.
+     */
+    private static final int MAX_CACHE_SIZE = Math.max(1,
+            Integer.getInteger("vaadin.spreadsheet.cellFormatCacheSize", 1024));
+
+    /**
+     * Maps a locale and a format string to its parsed version for efficiencies
+     * sake. Lookups don't lock. When the cache grows over its maximum size,
+     * the formats that haven't been used since the previous eviction are
+     * evicted, see {@link #evict()}.
+     */
+    private static final ConcurrentHashMap<CacheKey, CacheEntry> formatCache =
+            new ConcurrentHashMap<>();
+    private static final AtomicBoolean evicting = new AtomicBoolean();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+    private static final LongAdder cacheEvictions = new LongAdder();
+
+    private static final class CacheKey {
+        private final Locale locale;
+        private final String format;
+        private final int hash;
+
+        private CacheKey(Locale locale, String format) {
+            this.locale = locale;
+            this.format = format;
+            this.hash = 31 * Objects.hashCode(locale) + format.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return hash == other.hash && format.equals(other.format)
+                    && Objects.equals(locale, other.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class CacheEntry {
+        private final VCellFormat format;
+        /** Whether the format has been used since the previous eviction */
+        private volatile boolean used;
+
+        private CacheEntry(VCellFormat format) {
+            this.format = format;
+        }
+    }
 
     /**
      * Returns a VCellFormat that applies the given format.  Two calls
@@ -150,25 +209,121 @@ public class VCellFormat {
     /**
      * Returns a VCellFormat that applies the given format.  Two calls
      * with the same format may or may not return the same object.
+     * <p>
+     * The returned formats are immutable and can be used by several threads
+     * at the same time.
      *
      * @param locale The locale.
      * @param format The format.
      *
      * @return A VCellFormat that applies the given format.
      */
-    public static synchronized VCellFormat getInstance(Locale locale, String format) {
-        Map<String, VCellFormat> formatMap = formatCache.computeIfAbsent(locale, k -> new WeakHashMap<>());
-        VCellFormat fmt = formatMap.get(format);
-        if (fmt == null) {
-            if (format.equals("General") || format.equals("@"))
-                fmt = createGeneralFormat(locale);
-            else
-                fmt = new VCellFormat(locale, format);
-            formatMap.put(format, fmt);
+    public static VCellFormat getInstance(Locale locale, String format) {
+        CacheKey key = new CacheKey(locale, format);
+        CacheEntry entry = formatCache.get(key);
+        if (entry != null) {
+            cacheHits.increment();
+            if (!entry.used) {
+                entry.used = true;
+            }
+            return entry.format;
+        }
+        cacheMisses.increment();
+        VCellFormat fmt;
+        if (format.equals("General") || format.equals("@"))
+            fmt = createGeneralFormat(locale);
+        else
+            fmt = new VCellFormat(locale, format);
+        // the formats are immutable, so a format parsed concurrently by
+        // another thread can be used instead of this one
+        entry = formatCache.putIfAbsent(key, new CacheEntry(fmt));
+        if (entry != null) {
+            return entry.format;
+        }
+        if (formatCache.size() > MAX_CACHE_SIZE) {
+            evict();
         }
         return fmt;
     }
 
+    /**
+     * Evicts formats until the cache is at three quarters of its maximum
+     * size. The formats used since the previous eviction get a second chance:
+     * they are only marked as unused, unless there are not enough unused
+     * formats to evict. Only one thread evicts at a time, the others skip
+     * the eviction.
+     */
+    private static void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = formatCache.size() - MAX_CACHE_SIZE * 3 / 4;
+            for (int pass = 0; pass < 2 && excess > 0; pass++) {
+                Iterator<CacheEntry> i = formatCache.values().iterator();
+                while (excess > 0 && i.hasNext()) {
+                    CacheEntry entry = i.next();
+                    if (entry.used) {
+                        entry.used = false;
+                    } else {
+                        i.remove();
+                        cacheEvictions.increment();
+                        excess--;
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * @return the number of {@link #getInstance(Locale, String)} calls that
+     *         found the format in the cache
+     */
+    public static long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return the number of {@link #getInstance(Locale, String)} calls that
+     *         parsed the format
+     */
+    public static long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @return the number of formats evicted from the cache
+     */
+    public static long getCacheEvictionCount() {
+        return cacheEvictions.sum();
+    }
+
+    /**
+     * @return the number of formats in the cache
+     */
+    public static int getCacheSize() {
+        return formatCache.size();
+    }
+
+    /**
+     * @return the maximum number of formats kept in the cache
+     */
+    public static int getMaxCacheSize() {
+        return MAX_CACHE_SIZE;
+    }
+
+    /**
+     * Removes all formats from the cache and resets the counters.
+     */
+    public static void clearCache() {
+        formatCache.clear();
+        cacheHits.reset();
+        cacheMisses.reset();
+        cacheEvictions.reset();
+    }
+
     /**
      * Creates a new object.
      *
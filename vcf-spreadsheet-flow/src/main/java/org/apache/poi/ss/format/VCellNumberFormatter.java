@@ -563,7 +563,10 @@ public class VCellNumberFormatter extends VCellFormatter {
 
         StringBuffer result = new StringBuffer();
         FieldPosition fractionPos = new FieldPosition(NumberFormat.FRACTION_FIELD);
-        decimalFmt.format(value, result, fractionPos);
+        // DecimalFormat isn't thread safe, and the formatters are shared
+        synchronized (decimalFmt) {
+            decimalFmt.format(value, result, fractionPos);
+        }
         writeInteger(result, output, integerSpecials, mods, showGroupingSeparator);
         writeFractional(result, output);
 
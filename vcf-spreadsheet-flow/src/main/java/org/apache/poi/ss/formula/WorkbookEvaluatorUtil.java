@@ -28,6 +28,15 @@ public class WorkbookEvaluatorUtil {
      */
     public static ValueEval evaluate(Spreadsheet spreadsheet, Ptg[] ptgs,
             Cell cell) {
+        return evaluate(spreadsheet, ptgs, cell, new SharedEvaluationCache());
+    }
+
+    /**
+     * Evaluate formula Ptg[] tokens, reusing the values of the referenced
+     * cells from the given cache
+     */
+    public static ValueEval evaluate(Spreadsheet spreadsheet, Ptg[] ptgs,
+            Cell cell, SharedEvaluationCache cache) {
         // allow for reuse of evaluation caches for performance - see POI #57840
         // for an example
         final WorkbookEvaluator workbookEvaluator = ((BaseXSSFFormulaEvaluator) spreadsheet
@@ -35,7 +44,7 @@ public class WorkbookEvaluatorUtil {
         final OperationEvaluationContext ec = new OperationEvaluationContext(
                 workbookEvaluator, workbookEvaluator.getWorkbook(),
                 getSheetIndex(cell), cell.getRowIndex(), cell.getColumnIndex(),
-                new EvaluationTracker(new EvaluationCache(null)));
+                cache.tracker);
         return workbookEvaluator.evaluateFormula(ec, ptgs);
     }
 
@@ -45,6 +54,16 @@ public class WorkbookEvaluatorUtil {
                 .getFormulaEvaluator())._getWorkbookEvaluator().getWorkbook();
     }
 
+    /**
+     * Cache of the referenced cell values, shared by several evaluations of
+     * formula tokens. Must not be used after any cell values have changed.
+     */
+    public static final class SharedEvaluationCache {
+
+        private final EvaluationTracker tracker = new EvaluationTracker(
+                new EvaluationCache(null));
+    }
+
     private static int getSheetIndex(Cell cell) {
         Sheet sheet = cell.getSheet();
         return sheet.getWorkbook().getSheetIndex(sheet);
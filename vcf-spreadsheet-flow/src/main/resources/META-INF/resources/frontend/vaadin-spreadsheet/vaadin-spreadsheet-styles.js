@@ -27,6 +27,15 @@ export const spreadsheetStyles = css`
     cursor: default !important;
   }
 
+  :host([loading]) {
+    cursor: progress;
+  }
+
+  :host([loading]) .v-spreadsheet .sheet {
+    opacity: 0.6;
+    pointer-events: none;
+  }
+
   .v-spreadsheet {
     box-sizing: border-box;
     min-height: 100px;
@@ -15,6 +15,11 @@ const spreadsheetResizeObserver = new ResizeObserver((entries) => {
   entries.forEach((entry) => entry.target.api.resize());
 });
 
+// Properties that the server may also update with deltas, see
+// applyPropertyDelta. A snapshot may equal a stale property value left behind
+// by deltas, so it must always be treated as a change.
+const deltaProperty = { type: Object, hasChanged: () => true };
+
 const overlayStyles = (() => {
   const $tpl = document.createElement('template');
   $tpl.innerHTML = `<style>${spreadsheetOverlayStyles.toString()}</style>`;
@@ -64,9 +69,9 @@ export class VaadinSpreadsheet extends LitElement {
 
       defColW: { type: Number },
 
-      rowH: { type: Object },
+      rowH: deltaProperty,
 
-      colW: { type: Object },
+      colW: deltaProperty,
 
       reload: { type: Number },
 
@@ -74,23 +79,23 @@ export class VaadinSpreadsheet extends LitElement {
 
       sheetNames: { type: Object },
 
-      cellStyleToCSSStyle: { type: Object },
+      cellStyleToCSSStyle: deltaProperty,
 
-      rowIndexToStyleIndex: { type: Object },
+      rowIndexToStyleIndex: deltaProperty,
 
-      columnIndexToStyleIndex: { type: Object },
+      columnIndexToStyleIndex: deltaProperty,
 
       lockedColumnIndexes: { type: Object },
 
       lockedRowIndexes: { type: Object },
 
-      shiftedCellBorderStyles: { type: Object },
+      shiftedCellBorderStyles: deltaProperty,
 
-      conditionalFormattingStyles: { type: Object },
+      conditionalFormattingStyles: deltaProperty,
 
-      hiddenColumnIndexes: { type: Object },
+      hiddenColumnIndexes: deltaProperty,
 
-      hiddenRowIndexes: { type: Object },
+      hiddenRowIndexes: deltaProperty,
 
       verticalScrollPositions: { type: Object },
 
@@ -304,11 +309,20 @@ export class VaadinSpreadsheet extends LitElement {
         console.error('<vaadin-spreadsheet> unsupported property received from server: property=' + name);
       }
       propNames.push(name);
+      if (this._deltaVersions) {
+        // a snapshot, following deltas are based on it
+        delete this._deltaVersions[name];
+      }
     });
     this.api.notifyStateChanges(propNames, initial);
     if (initial) {
       this.api.relayout();
     }
+    if (this._pendingApiCalls) {
+      const calls = this._pendingApiCalls;
+      this._pendingApiCalls = undefined;
+      calls.forEach((call) => call());
+    }
   }
 
   /* CLIENT SIDE RPC METHODS */
@@ -360,6 +374,43 @@ export class VaadinSpreadsheet extends LitElement {
     this.api.editCellComment(col, row);
   }
 
+  updateHiddenRows(ranges) {
+    this._whenApiReady(() => this.api.updateHiddenRows(ranges));
+  }
+
+  updateHiddenColumns(ranges) {
+    this._whenApiReady(() => this.api.updateHiddenColumns(ranges));
+  }
+
+  applyPropertyDelta(name, version, delta) {
+    this._whenApiReady(() => {
+      const versions = (this._deltaVersions = this._deltaVersions || {});
+      const expected = versions[name] || 0;
+      if (expected < 0) {
+        // already waiting for a snapshot
+        return;
+      }
+      if (expected !== version) {
+        versions[name] = -1;
+        this.dispatchEvent(new CustomEvent('property-resync', { detail: { name } }));
+        return;
+      }
+      versions[name] = version + 1;
+      this.api.applyPropertyDelta(name, delta);
+    });
+  }
+
+  _whenApiReady(call) {
+    if (this.api) {
+      call();
+    } else {
+      // the server already counts the change as part of the property values,
+      // so it must be applied once the api has been created
+      this._pendingApiCalls = this._pendingApiCalls || [];
+      this._pendingApiCalls.push(call);
+    }
+  }
+
   onPopupButtonOpen(row, column, contentId, appId) {
     this.api.onPopupButtonOpened(row, column, contentId, appId);
   }
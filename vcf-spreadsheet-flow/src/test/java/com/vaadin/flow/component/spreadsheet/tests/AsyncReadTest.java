@@ -0,0 +1,276 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.poi.ss.util.CellReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.VaadinSession;
+
+public class AsyncReadTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final Executor queue = tasks::add;
+
+    private ExecutorService executor;
+    private Spreadsheet spreadsheet;
+
+    @Before
+    public void init() {
+        executor = Executors.newSingleThreadExecutor();
+        spreadsheet = new Spreadsheet();
+    }
+
+    @After
+    public void cleanup() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void readAsync_sameAsRead() throws Exception {
+        File file = TestHelper.getTestSheetFile("Groupingtest.xlsx");
+        Spreadsheet expected = new Spreadsheet(file);
+
+        spreadsheet.readAsync(file, executor).get();
+
+        Assert.assertEquals(expected.getActiveSheet().getSheetName(),
+                spreadsheet.getActiveSheet().getSheetName());
+        Assert.assertEquals(expected.getRows(), spreadsheet.getRows());
+        Assert.assertEquals(expected.getColumns(), spreadsheet.getColumns());
+        for (int r = 0; r < expected.getRows(); r++) {
+            Assert.assertEquals(expected.isRowHidden(r),
+                    spreadsheet.isRowHidden(r));
+        }
+        Assert.assertFalse(spreadsheet.isLoading());
+    }
+
+    @Test
+    public void readAsync_loadingUntilRead() {
+        File file = TestHelper.getTestSheetFile("Groupingtest.xlsx");
+        Object oldWorkbook = spreadsheet.getWorkbook();
+
+        CompletableFuture<Void> future = spreadsheet.readAsync(file, queue);
+
+        Assert.assertTrue(spreadsheet.isLoading());
+        Assert.assertSame(oldWorkbook, spreadsheet.getWorkbook());
+        Assert.assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+
+        Assert.assertTrue(future.isDone());
+        Assert.assertNotSame(oldWorkbook, spreadsheet.getWorkbook());
+        Assert.assertFalse(spreadsheet.isLoading());
+    }
+
+    @Test
+    public void readAsyncTwice_firstFinishesLast_firstDiscarded()
+            throws Exception {
+        File first = createFile("first");
+        File second = createFile("second");
+        try {
+            CompletableFuture<Void> firstFuture = spreadsheet.readAsync(first,
+                    queue);
+            CompletableFuture<Void> secondFuture = spreadsheet
+                    .readAsync(second, queue);
+
+            tasks.remove(1).run();
+            tasks.remove(0).run();
+
+            Assert.assertTrue(secondFuture.isDone());
+            Assert.assertFalse(secondFuture.isCompletedExceptionally());
+            Assert.assertTrue(firstFuture.isCompletedExceptionally());
+            Assert.assertEquals("second",
+                    spreadsheet.getCell(0, 0).getStringCellValue());
+            Assert.assertFalse(spreadsheet.isLoading());
+        } finally {
+            first.delete();
+            second.delete();
+        }
+    }
+
+    @Test
+    public void readAsync_thenRead_asyncResultDiscarded() throws Exception {
+        File first = createFile("first");
+        File second = createFile("second");
+        try {
+            CompletableFuture<Void> future = spreadsheet.readAsync(first,
+                    queue);
+            spreadsheet.read(second);
+
+            Assert.assertFalse(spreadsheet.isLoading());
+
+            tasks.remove(0).run();
+
+            Assert.assertTrue(future.isCompletedExceptionally());
+            Assert.assertEquals("second",
+                    spreadsheet.getCell(0, 0).getStringCellValue());
+            Assert.assertFalse(spreadsheet.isLoading());
+        } finally {
+            first.delete();
+            second.delete();
+        }
+    }
+
+    @Test
+    public void readAsync_attached_loadedInUiAccess() throws Exception {
+        List<Command> accessTasks = new ArrayList<>();
+        UI ui = createUI(accessTasks);
+        ui.add(spreadsheet);
+        File file = createFile("attached");
+        try {
+            Object oldWorkbook = spreadsheet.getWorkbook();
+
+            CompletableFuture<Void> future = spreadsheet.readAsync(file,
+                    queue);
+            tasks.remove(0).run();
+
+            Assert.assertSame(oldWorkbook, spreadsheet.getWorkbook());
+            Assert.assertEquals(1, accessTasks.size());
+
+            // the active sheet, then the metadata of the sheet
+            accessTasks.remove(0).execute();
+
+            Assert.assertEquals("attached",
+                    spreadsheet.getCell(0, 0).getStringCellValue());
+            Assert.assertTrue(spreadsheet.isLoading());
+            Assert.assertEquals(1, accessTasks.size());
+
+            accessTasks.remove(0).execute();
+
+            Assert.assertTrue(future.isDone());
+            Assert.assertFalse(future.isCompletedExceptionally());
+            Assert.assertFalse(spreadsheet.isLoading());
+        } finally {
+            file.delete();
+            UI.setCurrent(null);
+        }
+    }
+
+    @Test
+    public void readAsync_invalidStream_completedExceptionally()
+            throws InterruptedException {
+        byte[] invalid = "Not a workbook".getBytes();
+        Object oldWorkbook = spreadsheet.getWorkbook();
+
+        CompletableFuture<Void> future = spreadsheet
+                .readAsync(new ByteArrayInputStream(invalid), executor);
+
+        try {
+            future.get();
+            Assert.fail("Reading should fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RuntimeException);
+        }
+        Assert.assertSame(oldWorkbook, spreadsheet.getWorkbook());
+        Assert.assertFalse(spreadsheet.isLoading());
+    }
+
+    @Test
+    public void readAsync_formulasUpdated() throws Exception {
+        File file = File.createTempFile("asyncRead", ".xlsx");
+        try {
+            Spreadsheet source = new Spreadsheet();
+            source.createCell(0, 0, 1.0);
+            source.createFormulaCell(0, 1, "A1*2");
+            source.write(file.getPath());
+
+            spreadsheet.readAsync(file, executor).get();
+            spreadsheet.createCell(0, 0, 5.0);
+
+            Assert.assertEquals("10",
+                    spreadsheet.getCellValue(spreadsheet.getCell(0, 1)));
+            Assert.assertEquals(
+                    Collections.singleton(new CellReference(
+                            spreadsheet.getActiveSheet().getSheetName(), 0, 1,
+                            false, false)),
+                    spreadsheet.getDependents(new CellReference("A1")));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void readStreamingAsync_cellsNotCreatedBeforeNeeded()
+            throws Exception {
+        File file = File.createTempFile("asyncRead", ".xlsx");
+        try {
+            Spreadsheet source = new Spreadsheet();
+            for (int r = 0; r < 200; r++) {
+                source.createCell(r, 0, (double) r);
+            }
+            source.write(file.getPath());
+
+            spreadsheet.readStreamingAsync(file, executor).get();
+
+            Assert.assertNull(spreadsheet.getActiveSheet().getRow(150));
+            Assert.assertEquals(150,
+                    spreadsheet.getCell(150, 0).getNumericCellValue(), 0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File createFile(String value) throws IOException {
+        File file = File.createTempFile("asyncRead", ".xlsx");
+        Spreadsheet source = new Spreadsheet();
+        source.createCell(0, 0, value);
+        source.write(file.getPath());
+        return file;
+    }
+
+    /**
+     * Creates a UI whose access tasks are collected to the given list
+     * instead of being run.
+     */
+    @SuppressWarnings("serial")
+    private static UI createUI(List<Command> accessTasks) {
+        UI ui = new UI();
+        ui.getInternals().setSession(new VaadinSession(null) {
+            @Override
+            public boolean hasLock() {
+                return true;
+            }
+
+            @Override
+            public void lock() {
+            }
+
+            @Override
+            public void unlock() {
+            }
+
+            @Override
+            public Future<Void> access(Command command) {
+                accessTasks.add(command);
+                return new CompletableFuture<>();
+            }
+        });
+        UI.setCurrent(ui);
+        return ui;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+/**
+ * Measurements shared by the benchmarks of this package.
+ * <p>
+ * The benchmarks are named <code>*Benchmark</code> and are excluded from the
+ * test run. Run one with e.g.
+ * <code>mvn test -Dtest=MergedRegionBenchmark</code>. They log their results
+ * at info level.
+ */
+public class BenchmarkHelper {
+
+    private BenchmarkHelper() {
+    }
+
+    /**
+     * Runs the given task the given number of times without measuring, to
+     * let the JIT compile it, and then the given number of times measuring the
+     * time taken.
+     *
+     * @param warmupRounds
+     *            Number of rounds before measuring
+     * @param rounds
+     *            Number of measured rounds, at least one
+     * @param task
+     *            Task to measure
+     * @return the average time of a measured round in nanoseconds
+     */
+    public static long measure(int warmupRounds, int rounds, Runnable task) {
+        for (int i = 0; i < warmupRounds; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / rounds;
+    }
+
+    /**
+     * Gets the used heap after running the garbage collector, to compare the
+     * memory retained by objects created in between two calls.
+     *
+     * @return the used heap in bytes
+     */
+    public static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @param nanos
+     *            Duration in nanoseconds
+     * @return the duration in milliseconds
+     */
+    public static long millis(long nanos) {
+        return nanos / 1000000;
+    }
+
+    /**
+     * @param baselineNanos
+     *            Duration of the baseline
+     * @param nanos
+     *            Duration of the measured alternative
+     * @return how many times faster the alternative is, with one decimal
+     */
+    public static String speedup(long baselineNanos, long nanos) {
+        return String.format("%.1fx",
+                (double) baselineNanos / Math.max(1, nanos));
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.SpreadsheetHandlerImpl;
+
+public class CellCommentsTest {
+
+    private static final int ROWS = 500;
+
+    private UI ui;
+    private Spreadsheet spreadsheet;
+    private SpreadsheetHandlerImpl handler;
+
+    @Before
+    public void init() {
+        ui = TestHelper.createUI();
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet();
+        for (int r = 0; r < ROWS; r++) {
+            addComment(sheet, sheet.createRow(r).createCell(0),
+                    "Comment " + r);
+        }
+        spreadsheet = new Spreadsheet(workbook);
+        handler = new SpreadsheetHandlerImpl(spreadsheet);
+        ui.add(spreadsheet);
+    }
+
+    @After
+    public void tearDown() {
+        UI.setCurrent(null);
+    }
+
+    @Test
+    public void scroll_onlyCommentsOfLoadedAreaSent() {
+        handler.onSheetScroll(1, 1, 50, 10);
+
+        Map<String, String> comments = getCellComments();
+        Assert.assertEquals(50, comments.size());
+        Assert.assertEquals("Comment 0", comments.get("col1 row1"));
+        Assert.assertEquals("Comment 49", comments.get("col1 row50"));
+
+        handler.onSheetScroll(41, 1, 90, 10);
+
+        comments = getCellComments();
+        Assert.assertEquals(50, comments.size());
+        Assert.assertNull(comments.get("col1 row40"));
+        Assert.assertEquals("Comment 89", comments.get("col1 row90"));
+    }
+
+    @Test
+    public void scroll_deltaSent() {
+        handler.onSheetScroll(1, 1, 50, 10);
+        runBeforeClientResponse();
+        long snapshotBytes = spreadsheet.getSentPropertyBytes("cellComments");
+
+        handler.onSheetScroll(6, 1, 55, 10);
+        runBeforeClientResponse();
+        long deltaBytes = spreadsheet.getSentPropertyBytes("cellComments")
+                - snapshotBytes;
+
+        Assert.assertTrue(deltaBytes > 0);
+        Assert.assertTrue(deltaBytes < snapshotBytes / 2);
+    }
+
+    @Test
+    public void hiddenRow_commentNotLoaded() {
+        spreadsheet.setRowHidden(4, true);
+
+        handler.onSheetScroll(1, 1, 50, 10);
+
+        Assert.assertFalse(getCellComments().containsKey("col1 row5"));
+        Assert.assertTrue(getCellComments().containsKey("col1 row6"));
+    }
+
+    @Test
+    public void commentEdited_newTextLoaded() {
+        handler.onSheetScroll(1, 1, 50, 10);
+
+        handler.updateCellComment("Edited", 2, 3);
+        handler.updateCellComment("Changed", 1, 3);
+        handler.onSheetScroll(2, 1, 51, 10);
+
+        Assert.assertEquals("Edited", getCellComments().get("col2 row3"));
+        Assert.assertEquals("Changed", getCellComments().get("col1 row3"));
+    }
+
+    @Test
+    public void commentAddedToSheet_loadedAfterRefresh() {
+        handler.onSheetScroll(1, 1, 50, 10);
+        Sheet sheet = spreadsheet.getActiveSheet();
+        Cell cell = spreadsheet.createCell(9, 3, "Value");
+
+        addComment(sheet, cell, "Added");
+        spreadsheet.refreshCells(cell);
+
+        Assert.assertEquals("Added", getCellComments().get("col4 row10"));
+    }
+
+    @Test
+    public void invalidFormulaCells_onlyLoadedAreaSent() {
+        handler.onSheetScroll(1, 1, 50, 10);
+        handler.cellValueEdited(2, 2, "=A1+");
+        handler.cellValueEdited(100, 2, "=A1+");
+        handler.onSheetScroll(2, 1, 51, 10);
+
+        Set<String> invalidFormulaCells = getProperty("getInvalidFormulaCells");
+        Assert.assertTrue(invalidFormulaCells.contains("col2 row2"));
+        Assert.assertFalse(invalidFormulaCells.contains("col2 row100"));
+    }
+
+    private static void addComment(Sheet sheet, Cell cell, String text) {
+        CreationHelper factory = sheet.getWorkbook().getCreationHelper();
+        Drawing<?> drawing = sheet.createDrawingPatriarch();
+        ClientAnchor anchor = factory.createClientAnchor();
+        anchor.setCol1(cell.getColumnIndex());
+        anchor.setCol2(cell.getColumnIndex() + 2);
+        anchor.setRow1(cell.getRowIndex());
+        anchor.setRow2(cell.getRowIndex() + 2);
+        Comment comment = drawing.createCellComment(anchor);
+        comment.setString(factory.createRichTextString(text));
+        cell.setCellComment(comment);
+    }
+
+    private Map<String, String> getCellComments() {
+        return getProperty("getCellComments");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getProperty(String getter) {
+        try {
+            Method method = Spreadsheet.class.getDeclaredMethod(getter);
+            method.setAccessible(true);
+            return (T) method.invoke(spreadsheet);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Could not call " + getter, e);
+        }
+    }
+
+    private void runBeforeClientResponse() {
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+    }
+}
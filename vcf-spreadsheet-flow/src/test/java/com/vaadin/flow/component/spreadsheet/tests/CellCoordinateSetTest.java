@@ -0,0 +1,102 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.CellCoordinateSet;
+
+public class CellCoordinateSetTest {
+
+    @Test
+    public void addContainsRemove() {
+        CellCoordinateSet set = new CellCoordinateSet();
+        Assert.assertTrue(set.isEmpty());
+
+        Assert.assertTrue(set.add(3, 7));
+        Assert.assertFalse(set.add(3, 7));
+        Assert.assertTrue(set.contains(3, 7));
+        Assert.assertFalse(set.contains(7, 3));
+        Assert.assertEquals(1, set.size());
+
+        Assert.assertTrue(set.remove(3, 7));
+        Assert.assertFalse(set.remove(3, 7));
+        Assert.assertFalse(set.contains(3, 7));
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void packedKey_roundTrip() {
+        long key = CellCoordinateSet.pack(16384, 1048576);
+        Assert.assertEquals(16384, CellCoordinateSet.getCol(key));
+        Assert.assertEquals(1048576, CellCoordinateSet.getRow(key));
+    }
+
+    @Test
+    public void manyCells_growAndRemove() {
+        CellCoordinateSet set = new CellCoordinateSet();
+        for (int r = 1; r <= 500; r++) {
+            for (int c = 1; c <= 20; c++) {
+                set.add(c, r);
+            }
+        }
+        Assert.assertEquals(10000, set.size());
+
+        for (int r = 1; r <= 500; r += 2) {
+            for (int c = 1; c <= 20; c++) {
+                Assert.assertTrue(set.remove(c, r));
+            }
+        }
+        Assert.assertEquals(5000, set.size());
+        for (int r = 1; r <= 500; r++) {
+            for (int c = 1; c <= 20; c++) {
+                Assert.assertEquals(r % 2 == 0, set.contains(c, r));
+            }
+        }
+    }
+
+    @Test
+    public void removeRows_reportsAndRemovesOnlyGivenRows() {
+        CellCoordinateSet set = new CellCoordinateSet();
+        for (int r = 1; r <= 10; r++) {
+            set.add(1, r);
+            set.add(2, r);
+        }
+        List<String> removed = new ArrayList<>();
+        int count = set.removeRows(4, 5,
+                (col, row) -> removed.add(col + ":" + row));
+
+        Assert.assertEquals(4, count);
+        Assert.assertEquals(4, removed.size());
+        Assert.assertTrue(removed.contains("1:4"));
+        Assert.assertTrue(removed.contains("2:5"));
+        Assert.assertEquals(16, set.size());
+        Assert.assertFalse(set.contains(1, 4));
+        Assert.assertFalse(set.contains(2, 5));
+        Assert.assertTrue(set.contains(1, 3));
+        Assert.assertTrue(set.contains(2, 6));
+    }
+
+    @Test
+    public void removeColumn_keepsOtherColumns() {
+        CellCoordinateSet set = new CellCoordinateSet();
+        for (int r = 1; r <= 10; r++) {
+            set.add(1, r);
+            set.add(2, r);
+        }
+        Assert.assertEquals(10, set.removeColumn(1));
+        Assert.assertEquals(10, set.size());
+        Assert.assertFalse(set.contains(1, 1));
+        Assert.assertTrue(set.contains(2, 1));
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.HashMap;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.spreadsheet.CellValueManager;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+/**
+ * Measures creating the cell data of 100 000 cells with mixed values, styles
+ * and formulas. The style dependent attributes of the cells come from the
+ * style metadata table shared with the data formatter, so the first pass
+ * fills the table and the measured passes reuse it.
+ * <p>
+ * Excluded from the test run, see {@link BenchmarkHelper}.
+ */
+public class CellDataRenderingBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(CellDataRenderingBenchmark.class);
+
+    private static final int ROWS = 10000;
+    private static final int COLUMNS = 10;
+
+    @Test
+    public void createCellData_100kMixedCells() {
+        BenchmarkSpreadsheet spreadsheet = new BenchmarkSpreadsheet(
+                createWorkbook());
+        BenchmarkValueManager valueManager = (BenchmarkValueManager) spreadsheet
+                .getCellValueManager();
+        // no client side to measure the styles, all values fit
+        valueManager.onCellStyleWidthRatioUpdate(new HashMap<>());
+        Sheet sheet = spreadsheet.getActiveSheet();
+
+        long nanos = BenchmarkHelper.measure(3, 5,
+                () -> valueManager.createAllCellData(sheet));
+        int cells = valueManager.createAllCellData(sheet);
+
+        LOGGER.info("{} cells: {} ms per pass, {} ns per cell", cells,
+                BenchmarkHelper.millis(nanos), nanos / Math.max(1, cells));
+        Assert.assertEquals(ROWS * COLUMNS, cells);
+    }
+
+    /**
+     * Numbers, negative zeros, percentages, dates, strings, formulas and
+     * right aligned numbers, one kind per column.
+     */
+    private static XSSFWorkbook createWorkbook() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        CreationHelper helper = workbook.getCreationHelper();
+        CellStyle twoDecimals = workbook.createCellStyle();
+        twoDecimals.setDataFormat(helper.createDataFormat().getFormat("0.00"));
+        CellStyle percentage = workbook.createCellStyle();
+        percentage.setDataFormat(helper.createDataFormat().getFormat("0%"));
+        CellStyle date = workbook.createCellStyle();
+        date.setDataFormat(
+                helper.createDataFormat().getFormat("yyyy-mm-dd"));
+        CellStyle right = workbook.createCellStyle();
+        right.setAlignment(HorizontalAlignment.RIGHT);
+        CellStyle wrap = workbook.createCellStyle();
+        wrap.setWrapText(true);
+
+        Sheet sheet = workbook.createSheet();
+        for (int r = 0; r < ROWS; r++) {
+            Row row = sheet.createRow(r);
+            row.createCell(0).setCellValue(r);
+            Cell negativeZero = row.createCell(1);
+            negativeZero.setCellValue(-0.001);
+            negativeZero.setCellStyle(twoDecimals);
+            Cell percent = row.createCell(2);
+            percent.setCellValue(r / 100.0);
+            percent.setCellStyle(percentage);
+            Cell dateCell = row.createCell(3);
+            dateCell.setCellValue(40000 + r);
+            dateCell.setCellStyle(date);
+            row.createCell(4).setCellValue("text " + r);
+            row.createCell(5).setCellFormula("A" + (r + 1) + "*2");
+            row.createCell(6).setCellFormula("E" + (r + 1) + "&\"!\"");
+            Cell rightCell = row.createCell(7);
+            rightCell.setCellValue(r * 1.5);
+            rightCell.setCellStyle(right);
+            Cell wrapCell = row.createCell(8);
+            wrapCell.setCellValue("wrapped text " + r);
+            wrapCell.setCellStyle(wrap);
+            row.createCell(9).setCellValue(r % 2 == 0);
+        }
+        return workbook;
+    }
+
+    private static class BenchmarkSpreadsheet extends Spreadsheet {
+
+        BenchmarkSpreadsheet(XSSFWorkbook workbook) {
+            super(workbook);
+        }
+
+        @Override
+        protected CellValueManager createCellValueManager() {
+            return new BenchmarkValueManager(this);
+        }
+    }
+
+    private static class BenchmarkValueManager extends CellValueManager {
+
+        BenchmarkValueManager(Spreadsheet spreadsheet) {
+            super(spreadsheet);
+        }
+
+        /**
+         * @return the number of cells
+         */
+        int createAllCellData(Sheet sheet) {
+            int cells = 0;
+            for (Row row : sheet) {
+                for (Cell cell : row) {
+                    if (createCellDataForCell(cell) != null) {
+                        cells++;
+                    }
+                }
+            }
+            return cells;
+        }
+    }
+}
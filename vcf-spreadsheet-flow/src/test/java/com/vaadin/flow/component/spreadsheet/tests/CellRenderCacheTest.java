@@ -0,0 +1,188 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.CellValueManager;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.client.CellData;
+
+public class CellRenderCacheTest {
+
+    private TestSpreadsheet spreadsheet;
+    private TestValueManager valueManager;
+
+    @Before
+    public void init() {
+        spreadsheet = new TestSpreadsheet();
+        valueManager = (TestValueManager) spreadsheet.getCellValueManager();
+        valueManager.onCellStyleWidthRatioUpdate(new HashMap<>());
+        valueManager.setRenderCacheMemoryBudget(1024 * 1024);
+        for (int r = 0; r < 10; r++) {
+            for (int c = 0; c < 5; c++) {
+                spreadsheet.createCell(r, c, r * 10.0 + c);
+            }
+        }
+        valueManager.clearCachedContent();
+        valueManager.clearRenderCache();
+        valueManager.created = 0;
+    }
+
+    @Test
+    public void cellsLoadedAgain_notCreatedAgain() {
+        Assert.assertEquals(50, valueManager.load().size());
+        Assert.assertEquals(50, valueManager.created);
+
+        valueManager.clearCachedContent();
+        List<CellData> cellData = valueManager.load();
+
+        Assert.assertEquals(50, cellData.size());
+        Assert.assertEquals(50, valueManager.created);
+        Assert.assertTrue(valueManager.getRenderCacheMemoryUsage() > 0);
+    }
+
+    @Test
+    public void cellUpdated_cellCreatedAgain() {
+        valueManager.load();
+        spreadsheet.createCell(2, 3, "changed");
+        valueManager.updateMarkedCellValues();
+        valueManager.clearCachedContent();
+        valueManager.created = 0;
+
+        List<CellData> cellData = valueManager.load();
+
+        Assert.assertEquals(0, valueManager.created);
+        Assert.assertEquals("changed", find(cellData, 4, 3).value);
+    }
+
+    @Test
+    public void styleChanged_cellsWithStyleCreatedAgain() {
+        CellStyle style = spreadsheet.getWorkbook().createCellStyle();
+        Cell cell = spreadsheet.getCell(1, 1);
+        cell.setCellStyle(style);
+        spreadsheet.refreshCells(cell);
+        valueManager.load();
+        valueManager.clearCachedContent();
+        valueManager.created = 0;
+
+        style.setDataFormat(spreadsheet.getWorkbook().createDataFormat()
+                .getFormat("0.00"));
+        spreadsheet.getSpreadsheetStyleFactory().cellStyleUpdated(cell, true);
+        List<CellData> cellData = valueManager.load();
+
+        Assert.assertEquals(1, valueManager.created);
+        Assert.assertEquals("11.00", find(cellData, 2, 2).value);
+    }
+
+    @Test
+    public void formulaCell_notCached() {
+        spreadsheet.createFormulaCell(0, 5, "A1+1");
+        valueManager.load();
+        valueManager.clearCachedContent();
+        valueManager.created = 0;
+
+        valueManager.load();
+
+        Assert.assertEquals(1, valueManager.created);
+    }
+
+    @Test
+    public void memoryBudgetExceeded_leastRecentlyUsedEvicted() {
+        valueManager.load();
+        long usage = valueManager.getRenderCacheMemoryUsage();
+
+        valueManager.setRenderCacheMemoryBudget(usage / 2);
+
+        Assert.assertTrue(valueManager.getRenderCacheMemoryUsage() <= usage
+                / 2);
+        valueManager.clearCachedContent();
+        valueManager.created = 0;
+        valueManager.load();
+        Assert.assertTrue(valueManager.created > 0);
+    }
+
+    @Test
+    public void cacheDisabled_cellsCreatedAgain() {
+        valueManager.setRenderCacheMemoryBudget(0);
+        valueManager.load();
+        valueManager.clearCachedContent();
+
+        valueManager.load();
+
+        Assert.assertEquals(100, valueManager.created);
+        Assert.assertEquals(0, valueManager.getRenderCacheMemoryUsage());
+    }
+
+    @Test
+    public void refreshAllCellValues_cacheCleared() {
+        valueManager.load();
+        spreadsheet.getCell(0, 0).setCellValue(123);
+
+        spreadsheet.refreshAllCellValues();
+        valueManager.created = 0;
+        List<CellData> cellData = valueManager.load();
+
+        Assert.assertEquals(50, valueManager.created);
+        Assert.assertEquals("123", find(cellData, 1, 1).value);
+    }
+
+    private static CellData find(List<CellData> cellData, int col, int row) {
+        for (CellData cd : cellData) {
+            if (cd.col == col && cd.row == row) {
+                return cd;
+            }
+        }
+        throw new AssertionError(
+                "No cell data for col " + col + " row " + row);
+    }
+
+    private static class TestSpreadsheet extends Spreadsheet {
+
+        TestSpreadsheet() {
+            super();
+        }
+
+        @Override
+        protected CellValueManager createCellValueManager() {
+            return new TestValueManager(this);
+        }
+    }
+
+    private static class TestValueManager extends CellValueManager {
+
+        int created;
+
+        TestValueManager(Spreadsheet spreadsheet) {
+            super(spreadsheet);
+        }
+
+        @Override
+        protected CellData createCellDataForCell(Cell cell) {
+            created++;
+            return super.createCellDataForCell(cell);
+        }
+
+        @Override
+        protected void updateMarkedCellValues() {
+            super.updateMarkedCellValues();
+        }
+
+        List<CellData> load() {
+            return loadCellDataForRowAndColumnRange(1, 1, 10, 10);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.CellValueManager;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.client.CellData;
+
+public class CellStyleMetadataTest {
+
+    private TestSpreadsheet spreadsheet;
+    private TestValueManager valueManager;
+    private CellStyle style;
+    private Cell cell;
+
+    @Before
+    public void init() {
+        spreadsheet = new TestSpreadsheet();
+        valueManager = (TestValueManager) spreadsheet.getCellValueManager();
+        valueManager.onCellStyleWidthRatioUpdate(new HashMap<>());
+        style = spreadsheet.getWorkbook().createCellStyle();
+        style.setDataFormat(spreadsheet.getWorkbook().createDataFormat()
+                .getFormat("0.00"));
+        cell = spreadsheet.createCell(0, 0, 0.5);
+        cell.setCellStyle(style);
+        spreadsheet.refreshCells(cell);
+    }
+
+    @Test
+    public void styleFormatChanged_cellFormattedWithNewFormat() {
+        Assert.assertEquals("0.50", valueManager.createCellData(cell).value);
+
+        style.setDataFormat(spreadsheet.getWorkbook().createDataFormat()
+                .getFormat("0%"));
+        spreadsheet.refreshCells(cell);
+
+        CellData cellData = valueManager.createCellData(cell);
+        Assert.assertEquals("50%", cellData.value);
+        Assert.assertTrue(cellData.isPercentage);
+    }
+
+    @Test
+    public void styleFormatChangedInPlace_cellValueUsesNewFormat() {
+        Assert.assertEquals("0.50", spreadsheet.getCellValue(cell));
+
+        style.setDataFormat(spreadsheet.getWorkbook().createDataFormat()
+                .getFormat("0%"));
+
+        Assert.assertEquals("50%", spreadsheet.getCellValue(cell));
+    }
+
+    @Test
+    public void styleAlignmentChanged_styleClassUpdated() {
+        style.setAlignment(HorizontalAlignment.LEFT);
+        spreadsheet.refreshCells(cell);
+        Assert.assertFalse(
+                valueManager.createCellData(cell).cellStyle.endsWith(" r"));
+
+        style.setAlignment(HorizontalAlignment.RIGHT);
+        spreadsheet.refreshCells(cell);
+
+        Assert.assertEquals("cs" + style.getIndex() + " r",
+                valueManager.createCellData(cell).cellStyle);
+    }
+
+    @Test
+    public void negativeValueRoundedToZero_formattedWithoutSign() {
+        cell.setCellValue(-0.001);
+        spreadsheet.refreshCells(cell);
+
+        Assert.assertEquals("0.00", valueManager.createCellData(cell).value);
+    }
+
+    @Test
+    public void percentageFormat_rightAligned() {
+        style.setDataFormat(spreadsheet.getWorkbook().createDataFormat()
+                .getFormat("0%"));
+        spreadsheet.refreshCells(cell);
+
+        CellData cellData = valueManager.createCellData(cell);
+        Assert.assertTrue(cellData.isPercentage);
+        Assert.assertTrue(cellData.cellStyle.endsWith(" r"));
+    }
+
+    @Test
+    public void formulaCell_formulaAndValueSent() {
+        spreadsheet.createCell(1, 0, 1.0);
+        Cell formulaCell = spreadsheet.createFormulaCell(1, 5, "A2*2");
+
+        CellData cellData = valueManager.createCellData(formulaCell);
+        Assert.assertEquals("A2*2", cellData.formulaValue);
+        Assert.assertEquals("2", cellData.value);
+    }
+
+    @Test
+    public void dateFormat_originalValueIsFormattedValue() {
+        style.setDataFormat(spreadsheet.getWorkbook().createDataFormat()
+                .getFormat("yyyy-mm-dd"));
+        cell.setCellValue(44927);
+        spreadsheet.refreshCells(cell);
+
+        CellData cellData = valueManager.createCellData(cell);
+        Assert.assertEquals("2023-01-01", cellData.value);
+        Assert.assertEquals(cellData.value, cellData.originalValue);
+    }
+
+    @Test
+    public void customTextFormat_textSectionApplied() {
+        style.setDataFormat(spreadsheet.getWorkbook().createDataFormat()
+                .getFormat("0;-0;0;\"text: \"@"));
+        cell.setCellValue("value");
+        spreadsheet.refreshCells(Collections.singleton(cell));
+
+        Assert.assertEquals("text: value",
+                valueManager.createCellData(cell).value);
+    }
+
+    private static class TestSpreadsheet extends Spreadsheet {
+
+        TestSpreadsheet() {
+            super();
+        }
+
+        @Override
+        protected CellValueManager createCellValueManager() {
+            return new TestValueManager(this);
+        }
+    }
+
+    private static class TestValueManager extends CellValueManager {
+
+        TestValueManager(Spreadsheet spreadsheet) {
+            super(spreadsheet);
+        }
+
+        CellData createCellData(Cell cell) {
+            return createCellDataForCell(cell);
+        }
+    }
+}
@@ -9,6 +9,7 @@
 package com.vaadin.flow.component.spreadsheet.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -64,4 +65,21 @@ public class CellValueChangeEventOnFormulaChangeTest {
                 new CellReference("Sheet0!C1"), changedCells.get(0));
     }
 
+    /**
+     * Verify that a value can be changed and undone before the client has
+     * sent the initial selection.
+     */
+    @Test
+    public void valueChangeWithoutSelection_canBeUndone() {
+        assertNull(spreadsheet.getSelectedCellReference());
+
+        spreadsheet.getCellValueManager().onCellValueChange(1, 1, "5");
+        assertEquals(5, spreadsheet.getCell(0, 0).getNumericCellValue(), 0);
+        assertNull(spreadsheet.getSpreadsheetHistoryManager()
+                .getCommand(0).getSelectedCellReference());
+
+        spreadsheet.getSpreadsheetHistoryManager().undo();
+        assertEquals(1, spreadsheet.getCell(0, 0).getNumericCellValue(), 0);
+    }
+
 }
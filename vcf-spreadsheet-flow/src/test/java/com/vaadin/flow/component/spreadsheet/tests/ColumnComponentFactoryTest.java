@@ -0,0 +1,171 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.SpreadsheetColumnComponentFactory;
+
+public class ColumnComponentFactoryTest {
+
+    private UI ui;
+    private Spreadsheet spreadsheet;
+    private List<Span> created;
+    private int binds;
+    private int perCellCalls;
+
+    @Before
+    public void init() {
+        ui = new UI();
+        UI.setCurrent(ui);
+        created = new ArrayList<>();
+        spreadsheet = new Spreadsheet();
+        // the components are mapped to their cells by state node id, which
+        // only attached components have
+        ui.add(spreadsheet);
+        spreadsheet.setSpreadsheetComponentFactory(new TestFactory());
+
+        TestHelper.fireClientEvent(spreadsheet, "onSheetScroll",
+                "[1, 1, 20, 10]");
+    }
+
+    @After
+    public void tearDown() {
+        UI.setCurrent(null);
+    }
+
+    @Test
+    public void initialScroll_componentPerVisibleCell() {
+        Assert.assertEquals(20, created.size());
+        Assert.assertEquals(20, getComponentIDtoCellKeysMap().size());
+        Assert.assertTrue(getComponentIDtoCellKeysMap().values().stream()
+                .allMatch(key -> key.startsWith("col2 ")));
+        for (Span span : created) {
+            Assert.assertEquals(spreadsheet, span.getParent().get());
+        }
+    }
+
+    @Test
+    public void scroll_componentsReused() {
+        TestHelper.fireClientEvent(spreadsheet, "onSheetScroll",
+                "[21, 1, 40, 10]");
+
+        Assert.assertEquals(20, created.size());
+        Assert.assertTrue(getComponentIDtoCellKeysMap()
+                .containsValue("col2 row40"));
+        Assert.assertFalse(getComponentIDtoCellKeysMap()
+                .containsValue("col2 row1"));
+        Assert.assertTrue(
+                created.stream().anyMatch(s -> "row 39".equals(s.getText())));
+        for (Span span : created) {
+            Assert.assertEquals(spreadsheet, span.getParent().get());
+        }
+    }
+
+    @Test
+    public void scrollPartially_onlyNewCellsBound() {
+        int bindsBefore = binds;
+
+        TestHelper.fireClientEvent(spreadsheet, "onSheetScroll",
+                "[2, 1, 21, 10]");
+
+        Assert.assertEquals(20, created.size());
+        Assert.assertEquals(bindsBefore + 1, binds);
+        Assert.assertTrue(
+                created.stream().anyMatch(s -> "row 20".equals(s.getText())));
+        Assert.assertTrue(
+                created.stream().noneMatch(s -> "row 0".equals(s.getText())));
+    }
+
+    @Test
+    public void reloadVisibleCellContents_componentsBoundAgain() {
+        created.forEach(span -> span.setText(""));
+
+        spreadsheet.reloadVisibleCellContents();
+
+        Assert.assertEquals(20, created.size());
+        Assert.assertTrue(
+                created.stream().noneMatch(s -> s.getText().isEmpty()));
+    }
+
+    @Test
+    public void factoryRemoved_componentsDetached() {
+        spreadsheet.setSpreadsheetComponentFactory(null);
+
+        for (Span span : created) {
+            Assert.assertFalse(span.getParent().isPresent());
+        }
+    }
+
+    @Test
+    public void pooledColumn_noPerCellCalls() {
+        // column 1 is asserted in the factory
+        Assert.assertTrue(perCellCalls > 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> getComponentIDtoCellKeysMap() {
+        try {
+            Method method = Spreadsheet.class
+                    .getDeclaredMethod("getComponentIDtoCellKeysMap");
+            method.setAccessible(true);
+            return (Map<String, String>) method.invoke(spreadsheet);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Could not get the component map", e);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class TestFactory implements SpreadsheetColumnComponentFactory {
+
+        @Override
+        public boolean hasColumnComponents(int columnIndex,
+                Spreadsheet spreadsheet, Sheet sheet) {
+            return columnIndex == 1;
+        }
+
+        @Override
+        public Component createColumnComponent(int columnIndex,
+                Spreadsheet spreadsheet, Sheet sheet) {
+            Span span = new Span();
+            created.add(span);
+            return span;
+        }
+
+        @Override
+        public void bindColumnComponent(Component component, Cell cell,
+                int rowIndex, int columnIndex, Spreadsheet spreadsheet,
+                Sheet sheet) {
+            binds++;
+            ((Span) component).setText("row " + rowIndex);
+        }
+
+        @Override
+        public Component getCustomComponentForCell(Cell cell, int rowIndex,
+                int columnIndex, Spreadsheet spreadsheet, Sheet sheet) {
+            Assert.assertNotEquals(1, columnIndex);
+            perCellCalls++;
+            return null;
+        }
+    }
+}
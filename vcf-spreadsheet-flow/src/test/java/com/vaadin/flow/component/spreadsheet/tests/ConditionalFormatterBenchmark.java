@@ -0,0 +1,178 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import org.apache.poi.ss.formula.FormulaParser;
+import org.apache.poi.ss.formula.FormulaType;
+import org.apache.poi.ss.formula.WorkbookEvaluatorUtil;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.ConditionalFormatting;
+import org.apache.poi.ss.usermodel.ConditionalFormattingRule;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.spreadsheet.ConditionalFormatter;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+/**
+ * Measures a conditional formatting matcher pass over a sheet with 100 rules
+ * and 100 000 cells, compared to parsing the rule formula and creating a new
+ * evaluation cache for every cell.
+ * <p>
+ * Excluded from the test run, see {@link BenchmarkHelper}.
+ */
+public class ConditionalFormatterBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ConditionalFormatterBenchmark.class);
+
+    private static final int RULES = 100;
+    private static final int ROWS = 1000;
+
+    @Test
+    public void matcherPass_100Rules_100kCells() {
+        BenchmarkSpreadsheet spreadsheet = new BenchmarkSpreadsheet(
+                createWorkbook());
+        BenchmarkFormatter formatter = (BenchmarkFormatter) spreadsheet
+                .getConditionalFormatter();
+        formatter.createConditionalFormatterRules();
+
+        long reparseNanos = BenchmarkHelper.measure(2, 5,
+                () -> reparseEveryCell(spreadsheet));
+        long compiledNanos = BenchmarkHelper.measure(2, 5,
+                formatter::runAllCellMatchers);
+
+        LOGGER.info(
+                "{} rules, {} cells: parse per cell {} ms, compiled {} ms, speedup {}",
+                RULES, RULES * ROWS, BenchmarkHelper.millis(reparseNanos),
+                BenchmarkHelper.millis(compiledNanos),
+                BenchmarkHelper.speedup(reparseNanos, compiledNanos));
+        // every other row matches
+        Assert.assertEquals(RULES * ROWS / 2, reparseEveryCell(spreadsheet));
+        Cell matching = spreadsheet.getCell(1, 0);
+        Assert.assertNotNull(formatter.getCellFormattingIndex(matching));
+    }
+
+    /**
+     * Evaluates the rules the way they were evaluated before the formulas
+     * were compiled: parsing the formula and creating a new evaluation cache
+     * for each cell.
+     *
+     * @return the number of matching cells
+     */
+    private static int reparseEveryCell(Spreadsheet spreadsheet) {
+        int matches = 0;
+        SheetConditionalFormatting cfs = spreadsheet.getActiveSheet()
+                .getSheetConditionalFormatting();
+        for (int i = 0; i < cfs.getNumConditionalFormattings(); i++) {
+            ConditionalFormatting cf = cfs.getConditionalFormattingAt(i);
+            ConditionalFormattingRule rule = cf.getRule(0);
+            CellRangeAddress range = cf.getFormattingRanges()[0];
+            for (int row = range.getFirstRow(); row <= range
+                    .getLastRow(); row++) {
+                Cell cell = spreadsheet.getCell(row, range.getFirstColumn());
+                Ptg[] ptgs = FormulaParser.parse(rule.getFormula1(),
+                        WorkbookEvaluatorUtil
+                                .getEvaluationWorkbook(spreadsheet),
+                        FormulaType.CELL, spreadsheet.getActiveSheetIndex());
+                for (Ptg ptg : ptgs) {
+                    if (ptg instanceof RefPtgBase
+                            && ((RefPtgBase) ptg).isRowRelative()) {
+                        RefPtgBase ref = (RefPtgBase) ptg;
+                        ref.setRow(ref.getRow() + row - range.getFirstRow());
+                    }
+                }
+                ValueEval eval = WorkbookEvaluatorUtil.evaluate(spreadsheet,
+                        ptgs, cell);
+                if (eval instanceof BoolEval
+                        && ((BoolEval) eval).getBooleanValue()) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * One rule per column, formatting the cells with an odd value.
+     */
+    private static XSSFWorkbook createWorkbook() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet();
+        for (int r = 0; r < ROWS; r++) {
+            Row row = sheet.createRow(r);
+            for (int c = 0; c < RULES; c++) {
+                row.createCell(c).setCellValue(r);
+            }
+        }
+        SheetConditionalFormatting cfs = sheet
+                .getSheetConditionalFormatting();
+        for (int c = 0; c < RULES; c++) {
+            String column = CellReference.convertNumToColString(c);
+            ConditionalFormattingRule rule = cfs
+                    .createConditionalFormattingRule(
+                            "MOD(" + column + "1,2)=1");
+            rule.createPatternFormatting()
+                    .setFillBackgroundColor(IndexedColors.RED.index);
+            cfs.addConditionalFormatting(
+                    new CellRangeAddress[] {
+                            new CellRangeAddress(0, ROWS - 1, c, c) },
+                    rule);
+        }
+        return workbook;
+    }
+
+    private static class BenchmarkSpreadsheet extends Spreadsheet {
+
+        BenchmarkSpreadsheet(XSSFWorkbook workbook) {
+            super(workbook);
+        }
+
+        @Override
+        protected ConditionalFormatter createConditionalFormatter() {
+            return new BenchmarkFormatter(this);
+        }
+    }
+
+    private static class BenchmarkFormatter extends ConditionalFormatter {
+
+        private final Spreadsheet spreadsheet;
+
+        BenchmarkFormatter(Spreadsheet spreadsheet) {
+            super(spreadsheet);
+            this.spreadsheet = spreadsheet;
+        }
+
+        /**
+         * Evaluates every rule for all of its cells, one pass per rule.
+         */
+        void runAllCellMatchers() {
+            SheetConditionalFormatting cfs = spreadsheet.getActiveSheet()
+                    .getSheetConditionalFormatting();
+            for (int i = 0; i < cfs.getNumConditionalFormattings(); i++) {
+                ConditionalFormatting cf = cfs.getConditionalFormattingAt(i);
+                // one rule without borders per formatting
+                runCellMatcher(cf, cf.getRule(0), i * 1000000);
+            }
+        }
+    }
+}
@@ -12,6 +12,10 @@ import java.time.LocalDate;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.ComparisonOperator;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -86,6 +90,23 @@ public class ConditionalFormatterTest {
                 sheet.getConditionalFormatter().getCellFormattingIndex(cell));
     }
 
+    @Test
+    public void cellDidntMatchFormula_valueIsChangedToMatch_cellHasFormatting() {
+        var sheet = createConditionalFormatterRulesForSheet(
+                "ConditionalFormatterSamples.xlsx", 1);
+        // D9 cell value is $560,40, so it doesn't meet the criteria until
+        // changed
+        var cell = sheet.getCell("D9");
+        Assert.assertNull(
+                sheet.getConditionalFormatter().getCellFormattingIndex(cell));
+
+        cell.setCellValue(100);
+        sheet.refreshCells(cell);
+
+        Assert.assertNotNull(
+                sheet.getConditionalFormatter().getCellFormattingIndex(cell));
+    }
+
     @Test
     public void cellValuesMatchedFormula_styleIsPresent() {
         var sheet = createConditionalFormatterRulesForSheet(
@@ -122,6 +143,58 @@ public class ConditionalFormatterTest {
         assertCellHasStyle(sheet, cell);
     }
 
+    @Test
+    public void wholeColumnRule_rulesCreated_cellsEvaluatedOnlyWhenNeeded() {
+        var spreadsheet = new Spreadsheet();
+        var cfs = spreadsheet.getActiveSheet().getSheetConditionalFormatting();
+        var rule = cfs.createConditionalFormattingRule(ComparisonOperator.GT,
+                "5");
+        rule.createPatternFormatting()
+                .setFillBackgroundColor(IndexedColors.RED.index);
+        cfs.addConditionalFormatting(new CellRangeAddress[] {
+                CellRangeAddress.valueOf("A1:A1048576") }, rule);
+        var cell = spreadsheet.createCell(100000, 0, 10.0);
+        // a new sheet also has its last row created to define its size
+        int rows = spreadsheet.getActiveSheet().getPhysicalNumberOfRows();
+
+        spreadsheet.getConditionalFormatter().createConditionalFormatterRules();
+
+        // no cells are created for the rest of the column
+        Assert.assertEquals(rows,
+                spreadsheet.getActiveSheet().getPhysicalNumberOfRows());
+        Assert.assertNotNull(spreadsheet.getConditionalFormatter()
+                .getCellFormattingIndex(cell));
+    }
+
+    @Test
+    public void relativeFormulaRules_eachCellMatchedWithItsOwnReference() {
+        var spreadsheet = new Spreadsheet();
+        var cfs = spreadsheet.getActiveSheet().getSheetConditionalFormatting();
+        for (int c = 0; c < 5; c++) {
+            for (int r = 0; r < 20; r++) {
+                spreadsheet.createCell(r, c, (double) r);
+            }
+            // one rule per column, formatting the cells with an odd value
+            var rule = cfs.createConditionalFormattingRule(
+                    "MOD(" + CellReference.convertNumToColString(c) + "1,2)=1");
+            rule.createPatternFormatting()
+                    .setFillBackgroundColor(IndexedColors.RED.index);
+            cfs.addConditionalFormatting(new CellRangeAddress[] {
+                    new CellRangeAddress(0, 19, c, c) }, rule);
+        }
+
+        spreadsheet.getConditionalFormatter().createConditionalFormatterRules();
+
+        for (int c = 0; c < 5; c++) {
+            for (int r = 0; r < 20; r++) {
+                var index = spreadsheet.getConditionalFormatter()
+                        .getCellFormattingIndex(spreadsheet.getCell(r, c));
+                Assert.assertEquals("row " + r + ", column " + c, r % 2 == 1,
+                        index != null && !index.isEmpty());
+            }
+        }
+    }
+
     @Test
     public void createConditionalFormatterRules_ruleWithNullBackgroundColor_rulesCreatedWithoutExceptions() {
         createConditionalFormatterRulesForSheet(
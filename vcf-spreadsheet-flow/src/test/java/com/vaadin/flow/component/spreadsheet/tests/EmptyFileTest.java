@@ -15,6 +15,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.client.SparseSizeModel;
 
 public class EmptyFileTest {
 
@@ -26,20 +27,22 @@ public class EmptyFileTest {
 
         Assert.assertTrue("Row heights not sent to client", rowH != null);
 
-        for (int i = 0; i < rowH.length; i++) {
+        for (int i = 0; i < rowH.getCount(); i++) {
             Assert.assertTrue("Row is zero height, should be default",
-                    rowH[i] > 0);
+                    rowH.getSize(i) > 0);
         }
+        Assert.assertEquals(s.getActiveSheet().getDefaultRowHeightInPoints(),
+                rowH.getSize(rowH.getCount() - 1), 0);
 
     }
 
-    private float[] getSpreadsheetRowH(Spreadsheet s) {
+    private SparseSizeModel getSpreadsheetRowH(Spreadsheet s) {
         Method method = null;
         try {
             method = s.getClass().getDeclaredMethod("getRowH");
             method.setAccessible(true);
             Object val = method.invoke(s);
-            return (float[]) val;
+            return (SparseSizeModel) val;
         } catch (NoSuchMethodException e) {
             e.printStackTrace();
         } catch (SecurityException e) {
@@ -156,6 +156,22 @@ public class FilterTableTest {
         Assert.assertFalse(spreadsheet.isRowHidden(3));
     }
 
+    @Test
+    public void cellValueChanged_openPopup_newValueFiltered() {
+        spreadsheet.createCell(2, 1, "foo");
+        getPopupButton().openPopup();
+
+        List<String> options = getFilterCheckboxGroup().getListDataView()
+                .getItems().collect(Collectors.toList());
+        Assert.assertTrue(options.contains("foo"));
+        Assert.assertFalse(options.contains("3"));
+
+        getFilterCheckboxGroup().deselect("foo");
+
+        Assert.assertTrue(spreadsheet.isRowHidden(2));
+        Assert.assertEquals(1, getItemFilter().getFilteredRows().size());
+    }
+
     private CheckboxGroup<String> getFilterCheckboxGroup() {
         return (CheckboxGroup<String>) getItemFilter().getChildren()
                 .filter(component -> component instanceof CheckboxGroup)
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.util.CellReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+public class FormulaDependencyGraphTest {
+
+    private Spreadsheet spreadsheet;
+    private String sheetName;
+
+    @Before
+    public void init() {
+        spreadsheet = new Spreadsheet();
+        UI.setCurrent(new UI());
+        sheetName = spreadsheet.getActiveSheet().getSheetName();
+    }
+
+    @After
+    public void tearDown() {
+        UI.setCurrent(null);
+    }
+
+    @Test
+    public void getPrecedents_singleCellsAndRanges() {
+        spreadsheet.createCell(0, 0, 1d);
+        spreadsheet.createCell(1, 0, 2d);
+        spreadsheet.createCell(2, 0, 3d);
+        spreadsheet.createFormulaCell(0, 1, "A1+SUM(A2:A3)");
+
+        Set<CellReference> precedents = spreadsheet
+                .getPrecedents(new CellReference("B1"));
+
+        Assert.assertEquals(3, precedents.size());
+        Assert.assertTrue(precedents.contains(ref("A1")));
+        Assert.assertTrue(precedents.contains(ref("A2")));
+        Assert.assertTrue(precedents.contains(ref("A3")));
+    }
+
+    @Test
+    public void getPrecedents_notFormulaCell_empty() {
+        spreadsheet.createCell(0, 0, 1d);
+
+        Assert.assertTrue(
+                spreadsheet.getPrecedents(new CellReference("A1")).isEmpty());
+    }
+
+    @Test
+    public void getDependents_singleCellsAndRanges() {
+        spreadsheet.createCell(0, 0, 1d);
+        spreadsheet.createFormulaCell(0, 1, "A1*2");
+        spreadsheet.createFormulaCell(0, 2, "SUM(A1:A10)");
+        spreadsheet.createFormulaCell(0, 3, "A2");
+
+        Set<CellReference> dependents = spreadsheet
+                .getDependents(new CellReference("A1"));
+
+        Assert.assertEquals(2, dependents.size());
+        Assert.assertTrue(dependents.contains(ref("B1")));
+        Assert.assertTrue(dependents.contains(ref("C1")));
+    }
+
+    @Test
+    public void changedFormula_dependenciesUpdated() {
+        spreadsheet.createFormulaCell(0, 1, "A1");
+        spreadsheet.createFormulaCell(0, 1, "A2");
+
+        Assert.assertTrue(
+                spreadsheet.getDependents(new CellReference("A1")).isEmpty());
+        Assert.assertEquals(1,
+                spreadsheet.getDependents(new CellReference("A2")).size());
+    }
+
+    @Test
+    public void removedFormula_noLongerDependent() {
+        Cell cell = spreadsheet.createFormulaCell(0, 1, "A1");
+        // setting a value on a formula cell only changes the cached result
+        cell.removeFormula();
+        spreadsheet.refreshCells(cell);
+
+        Assert.assertTrue(
+                spreadsheet.getDependents(new CellReference("A1")).isEmpty());
+    }
+
+    @Test
+    public void crossSheetReference_resolvedToOtherSheet() {
+        spreadsheet.createNewSheet("Other", 10, 10);
+        spreadsheet.setActiveSheetIndex(0);
+        spreadsheet.createFormulaCell(0, 0, "Other!B2+1");
+
+        Set<CellReference> dependents = spreadsheet
+                .getDependents(new CellReference("Other", 1, 1, false, false));
+
+        Assert.assertEquals(1, dependents.size());
+        Assert.assertTrue(dependents.contains(ref("A1")));
+    }
+
+    private CellReference ref(String cell) {
+        CellReference reference = new CellReference(cell);
+        return new CellReference(sheetName, reference.getRow(),
+                reference.getCol(), false, false);
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.spreadsheet.client.MergedRegion;
+import com.vaadin.flow.component.spreadsheet.client.MergedRegionUtil.MergedRegionIndex;
+
+/**
+ * Measures merged region lookups for every cell of a 200 x 200 area in a
+ * sheet with 10 000 merged regions, compared to going through all regions on
+ * each lookup.
+ * <p>
+ * Excluded from the test run, see {@link BenchmarkHelper}.
+ */
+public class MergedRegionBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(MergedRegionBenchmark.class);
+
+    private static final int REGIONS_PER_ROW = 100;
+    private static final int REGION_ROWS = 100;
+    private static final int AREA = 200;
+
+    @Test
+    public void lookups_10kRegions() {
+        List<MergedRegion> regions = createRegions();
+        MergedRegionIndex index = new MergedRegionIndex();
+        index.setRegions(regions);
+
+        long scanNanos = BenchmarkHelper.measure(2, 5, () -> scanAll(regions));
+        long indexNanos = BenchmarkHelper.measure(2, 5,
+                () -> lookUpAll(index));
+
+        LOGGER.info(
+                "{} regions, {} lookups: linear scan {} ms, index {} ms, speedup {}",
+                regions.size(), AREA * AREA * 2,
+                BenchmarkHelper.millis(scanNanos),
+                BenchmarkHelper.millis(indexNanos),
+                BenchmarkHelper.speedup(scanNanos, indexNanos));
+        Assert.assertEquals(10000, index.size());
+        Assert.assertEquals(scanAll(regions), lookUpAll(index));
+    }
+
+    /**
+     * Regions of 2 x 2 cells with a gap of one row and column between them.
+     */
+    private static List<MergedRegion> createRegions() {
+        List<MergedRegion> regions = new ArrayList<MergedRegion>();
+        for (int r = 0; r < REGION_ROWS; r++) {
+            for (int c = 0; c < REGIONS_PER_ROW; c++) {
+                int col1 = c * 3 + 1;
+                int row1 = r * 3 + 1;
+                regions.add(new MergedRegion(col1, row1, col1 + 1, row1 + 1));
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Looks up the regions the way the containers did before the index.
+     *
+     * @return the number of lookups that found a region
+     */
+    private static int scanAll(List<MergedRegion> regions) {
+        int found = 0;
+        for (int row = 1; row <= AREA; row++) {
+            for (int col = 1; col <= AREA; col++) {
+                for (MergedRegion region : regions) {
+                    if (region.col1 <= col && region.row1 <= row
+                            && region.col2 >= col && region.row2 >= row) {
+                        found++;
+                        break;
+                    }
+                }
+                for (MergedRegion region : regions) {
+                    if (region.col1 == col && region.row1 == row) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int lookUpAll(MergedRegionIndex index) {
+        int found = 0;
+        for (int row = 1; row <= AREA; row++) {
+            for (int col = 1; col <= AREA; col++) {
+                if (index.getMergedRegion(col, row) != null) {
+                    found++;
+                }
+                if (index.getMergedRegionStartingFrom(col, row) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+}
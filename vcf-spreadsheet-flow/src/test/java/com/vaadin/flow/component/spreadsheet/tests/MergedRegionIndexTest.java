@@ -0,0 +1,118 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.client.MergedRegion;
+import com.vaadin.flow.component.spreadsheet.client.MergedRegionUtil.MergedRegionIndex;
+
+public class MergedRegionIndexTest {
+
+    private MergedRegionIndex index;
+    private MergedRegion small;
+    private MergedRegion wide;
+    private MergedRegion tall;
+
+    @Before
+    public void init() {
+        small = new MergedRegion(2, 2, 3, 3);
+        wide = new MergedRegion(5, 2, 100, 2);
+        tall = new MergedRegion(1, 10, 1, 100000);
+        index = new MergedRegionIndex();
+        index.setRegions(Arrays.asList(small, wide, tall));
+    }
+
+    @Test
+    public void getMergedRegion_cellsInsideRegions_regionsFound() {
+        Assert.assertSame(small, index.getMergedRegion(2, 2));
+        Assert.assertSame(small, index.getMergedRegion(3, 3));
+        Assert.assertSame(wide, index.getMergedRegion(50, 2));
+        Assert.assertSame(tall, index.getMergedRegion(1, 50000));
+    }
+
+    @Test
+    public void getMergedRegion_cellsOutsideRegions_null() {
+        Assert.assertNull(index.getMergedRegion(4, 2));
+        Assert.assertNull(index.getMergedRegion(1, 2));
+        Assert.assertNull(index.getMergedRegion(101, 2));
+        Assert.assertNull(index.getMergedRegion(2, 4));
+        Assert.assertNull(index.getMergedRegion(1, 100001));
+    }
+
+    @Test
+    public void getMergedRegionStartingFrom_onlyTopLeftCellMatches() {
+        Assert.assertSame(small, index.getMergedRegionStartingFrom(2, 2));
+        Assert.assertSame(tall, index.getMergedRegionStartingFrom(1, 10));
+        Assert.assertNull(index.getMergedRegionStartingFrom(2, 3));
+        Assert.assertNull(index.getMergedRegionStartingFrom(3, 2));
+        Assert.assertNull(index.getMergedRegionStartingFrom(1, 11));
+    }
+
+    @Test
+    public void remove_regionsNotFoundAnymore() {
+        index.remove(small);
+        index.remove(tall);
+
+        Assert.assertEquals(1, index.size());
+        Assert.assertNull(index.getMergedRegion(2, 3));
+        Assert.assertNull(index.getMergedRegion(1, 50000));
+        Assert.assertSame(wide, index.getMergedRegion(5, 2));
+    }
+
+    @Test
+    public void add_regionBeforeExistingOnSameRow_bothFound() {
+        MergedRegion first = new MergedRegion(1, 1, 1, 2);
+        index.add(first);
+
+        Assert.assertEquals(4, index.size());
+        Assert.assertSame(first, index.getMergedRegion(1, 2));
+        Assert.assertSame(small, index.getMergedRegion(2, 2));
+        Assert.assertSame(wide, index.getMergedRegion(5, 2));
+    }
+
+    @Test
+    public void manyRegions_sameAsLinearScan() {
+        // regions of 2 x 2 cells with a gap of one row and column between them
+        List<MergedRegion> regions = new ArrayList<>();
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 20; c++) {
+                regions.add(new MergedRegion(c * 3 + 1, r * 3 + 1, c * 3 + 2,
+                        r * 3 + 2));
+            }
+        }
+        index.setRegions(regions);
+
+        Assert.assertEquals(400, index.size());
+        for (int row = 1; row <= 65; row++) {
+            for (int col = 1; col <= 65; col++) {
+                MergedRegion containing = null;
+                MergedRegion starting = null;
+                for (MergedRegion region : regions) {
+                    if (region.col1 <= col && region.row1 <= row
+                            && region.col2 >= col && region.row2 >= row) {
+                        containing = region;
+                    }
+                    if (region.col1 == col && region.row1 == row) {
+                        starting = region;
+                    }
+                }
+                Assert.assertSame(containing, index.getMergedRegion(col, row));
+                Assert.assertSame(starting,
+                        index.getMergedRegionStartingFrom(col, row));
+            }
+        }
+    }
+}
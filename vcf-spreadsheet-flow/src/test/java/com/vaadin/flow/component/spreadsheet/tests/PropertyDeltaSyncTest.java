@@ -0,0 +1,77 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+public class PropertyDeltaSyncTest {
+
+    private Spreadsheet spreadsheet;
+    private UI ui;
+
+    @Before
+    public void init() {
+        ui = TestHelper.createUI();
+        spreadsheet = new Spreadsheet();
+    }
+
+    @After
+    public void tearDown() {
+        UI.setCurrent(null);
+    }
+
+    @Test
+    public void detached_propertiesSentAsSnapshots() {
+        Assert.assertTrue(spreadsheet.getSentPropertyBytes("rowH") > 0);
+        Assert.assertTrue(spreadsheet.getSentPropertyBytes("colW") > 0);
+        Assert.assertEquals(0, spreadsheet.getSentPropertyBytes("unknown"));
+    }
+
+    @Test
+    public void attached_rowHeightChanged_deltaSent() {
+        // only custom row heights are sent, so give every row one
+        for (int row = 0; row < spreadsheet.getRows(); row++) {
+            spreadsheet.setRowHeight(row, 20 + row % 5);
+        }
+        ui.add(spreadsheet);
+        runBeforeClientResponse();
+        long snapshotBytes = spreadsheet.getSentPropertyBytes("rowH");
+
+        spreadsheet.setRowHeight(5, 40);
+        runBeforeClientResponse();
+        long deltaBytes = spreadsheet.getSentPropertyBytes("rowH")
+                - snapshotBytes;
+
+        Assert.assertTrue(deltaBytes > 0);
+        Assert.assertTrue(deltaBytes < snapshotBytes / 10);
+    }
+
+    @Test
+    public void attached_unchangedProperty_nothingSent() {
+        ui.add(spreadsheet);
+        runBeforeClientResponse();
+        long colWBytes = spreadsheet.getSentPropertyBytes("colW");
+
+        spreadsheet.setRowHeight(5, 40);
+        runBeforeClientResponse();
+
+        Assert.assertEquals(colWBytes,
+                spreadsheet.getSentPropertyBytes("colW"));
+    }
+
+    private void runBeforeClientResponse() {
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.RowColumnVisibility;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+public class RowColumnVisibilityTest {
+
+    private Spreadsheet spreadsheet;
+    private RowColumnVisibility visibility;
+
+    @Before
+    public void init() {
+        spreadsheet = new Spreadsheet();
+        visibility = spreadsheet.getRowColumnVisibility();
+    }
+
+    @Test
+    public void setRowsHidden_modelUpdated() {
+        Map<Integer, Boolean> rows = new HashMap<>();
+        rows.put(2, true);
+        rows.put(3, true);
+        spreadsheet.setRowsHidden(rows);
+        spreadsheet.setRowHidden(3, false);
+
+        Assert.assertTrue(visibility.isRowHidden(2));
+        Assert.assertFalse(visibility.isRowHidden(3));
+        Assert.assertTrue(spreadsheet.isRowHidden(2));
+        Assert.assertTrue(spreadsheet.getActiveSheet().getRow(2)
+                .getZeroHeight());
+    }
+
+    @Test
+    public void setColumnHidden_modelUpdated() {
+        spreadsheet.setColumnHidden(4, true);
+        spreadsheet.setColumnHidden(5, true);
+        spreadsheet.setColumnWidth(5, 40);
+
+        Assert.assertTrue(visibility.isColumnHidden(4));
+        Assert.assertFalse(visibility.isColumnHidden(5));
+        Assert.assertTrue(spreadsheet.getActiveSheet().isColumnHidden(4));
+    }
+
+    @Test
+    public void hiddenThroughPoi_reportedHiddenButModelUpdatedOnReload() {
+        spreadsheet.getActiveSheet().createRow(6).setZeroHeight(true);
+        spreadsheet.getActiveSheet().setColumnHidden(3, true);
+
+        Assert.assertTrue(spreadsheet.isRowHidden(6));
+        Assert.assertTrue(spreadsheet.isColumnHidden(3));
+        Assert.assertFalse(visibility.isRowHidden(6));
+        Assert.assertFalse(visibility.isColumnHidden(3));
+
+        spreadsheet.reload();
+
+        Assert.assertTrue(visibility.isRowHidden(6));
+        Assert.assertTrue(visibility.isColumnHidden(3));
+    }
+
+    @Test
+    public void setRowHeightZero_modelUpdated() {
+        spreadsheet.setRowHeight(7, 0);
+
+        Assert.assertTrue(visibility.isRowHidden(7));
+
+        spreadsheet.setRowHeight(7, 20);
+
+        Assert.assertFalse(visibility.isRowHidden(7));
+    }
+
+    @Test
+    public void nextAndPreviousVisible_skipHidden() {
+        spreadsheet.setRowHidden(3, true);
+        spreadsheet.setRowHidden(4, true);
+        spreadsheet.setColumnHidden(0, true);
+
+        Assert.assertEquals(5, visibility.getNextVisibleRow(3));
+        Assert.assertEquals(2, visibility.getPreviousVisibleRow(4));
+        Assert.assertEquals(-1, visibility.getPreviousVisibleColumn(0));
+        Assert.assertEquals(1, visibility.getNextVisibleColumn(0));
+    }
+
+    @Test
+    public void getHiddenRows_returnsCopy() {
+        spreadsheet.setRowHidden(1, true);
+
+        BitSet hidden = visibility.getHiddenRows();
+        hidden.clear(1);
+
+        Assert.assertTrue(visibility.isRowHidden(1));
+    }
+
+    @Test
+    public void sheetChanged_modelReloaded() {
+        spreadsheet.setRowHidden(1, true);
+        spreadsheet.createNewSheet("other", 10, 10);
+        spreadsheet.setActiveSheetIndex(1);
+
+        Assert.assertFalse(visibility.isRowHidden(1));
+
+        spreadsheet.setActiveSheetIndex(0);
+
+        Assert.assertTrue(visibility.isRowHidden(1));
+    }
+
+    @Test
+    public void shiftRows_hiddenRowMoved() {
+        spreadsheet.createCell(5, 0, "shifted");
+        spreadsheet.setRowHidden(5, true);
+
+        spreadsheet.shiftRows(5, 5, 2);
+
+        Assert.assertFalse(visibility.isRowHidden(5));
+        Assert.assertTrue(visibility.isRowHidden(7));
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.client.SparseSizeModel;
+
+public class ShiftRowsTest {
+
+    private Spreadsheet spreadsheet;
+
+    @Before
+    public void init() {
+        spreadsheet = new Spreadsheet();
+        CellStyle borderStyle = spreadsheet.getWorkbook().createCellStyle();
+        borderStyle.setBorderTop(BorderStyle.THIN);
+        borderStyle.setBorderLeft(BorderStyle.THIN);
+        List<Cell> cells = new ArrayList<>();
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 4; c++) {
+                Cell cell = spreadsheet.createCell(r, c, r * 4.0 + c);
+                if (r % 3 == 0) {
+                    cell.setCellStyle(borderStyle);
+                }
+                cells.add(cell);
+            }
+        }
+        spreadsheet.refreshCells(cells);
+    }
+
+    @Test
+    public void shiftDown_bordersSameAsReload() {
+        spreadsheet.shiftRows(4, 19, 2);
+
+        assertBordersSameAsReload();
+    }
+
+    @Test
+    public void shiftUp_bordersSameAsReload() {
+        spreadsheet.shiftRows(5, 19, -2);
+
+        assertBordersSameAsReload();
+    }
+
+    @Test
+    public void shiftDown_hiddenRowMoved() {
+        spreadsheet.setRowHidden(6, true);
+        spreadsheet.setRowHidden(2, true);
+
+        spreadsheet.shiftRows(4, 19, 2);
+
+        Assert.assertEquals(Arrays.asList(3, 9), getHiddenRowIndexes());
+        Assert.assertTrue(spreadsheet.isRowHidden(8));
+        assertBordersSameAsReload();
+    }
+
+    @Test
+    public void shiftUp_overwrittenHiddenRowRemoved() {
+        spreadsheet.setRowHidden(3, true);
+        spreadsheet.setRowHidden(10, true);
+
+        spreadsheet.shiftRows(5, 19, -2);
+
+        Assert.assertEquals(Arrays.asList(9), getHiddenRowIndexes());
+        Assert.assertFalse(spreadsheet.isRowHidden(3));
+        Assert.assertTrue(spreadsheet.isRowHidden(8));
+    }
+
+    @Test
+    public void shiftWithRowHeight_heightsMoved() {
+        spreadsheet.setRowHeight(5, 40);
+
+        spreadsheet.shiftRows(4, 19, 3, true, true);
+
+        SparseSizeModel rowH = getRowH();
+        Assert.assertEquals(40, rowH.getSize(8), 0);
+        Assert.assertEquals(
+                spreadsheet.getActiveSheet().getDefaultRowHeightInPoints(),
+                rowH.getSize(5), 0);
+    }
+
+    @Test
+    public void shiftDown_noCellsCreatedInEmptiedRows() {
+        spreadsheet.shiftRows(4, 19, 2);
+
+        for (int r = 4; r < 6; r++) {
+            Row row = spreadsheet.getActiveSheet().getRow(r);
+            Assert.assertTrue(row == null || row.getPhysicalNumberOfCells() == 0);
+        }
+        Assert.assertEquals(16.0, spreadsheet.getCell(6, 0)
+                .getNumericCellValue(), 0);
+    }
+
+    private void assertBordersSameAsReload() {
+        HashSet<String> incremental = new HashSet<>(
+                getProperty("getShiftedCellBorderStyles"));
+        spreadsheet.reloadActiveSheetStyles();
+        Assert.assertEquals(
+                new HashSet<>(getProperty("getShiftedCellBorderStyles")),
+                incremental);
+    }
+
+    private List<Integer> getHiddenRowIndexes() {
+        return getProperty("getHiddenRowIndexes");
+    }
+
+    private SparseSizeModel getRowH() {
+        return getProperty("getRowH");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getProperty(String getter) {
+        try {
+            Method method = Spreadsheet.class.getDeclaredMethod(getter);
+            method.setAccessible(true);
+            return (T) method.invoke(spreadsheet);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Could not call " + getter, e);
+        }
+    }
+}
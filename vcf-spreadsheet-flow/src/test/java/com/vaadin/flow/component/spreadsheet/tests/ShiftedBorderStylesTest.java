@@ -0,0 +1,158 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+public class ShiftedBorderStylesTest {
+
+    private Spreadsheet spreadsheet;
+    private CellStyle borderStyle;
+
+    @Before
+    public void init() {
+        spreadsheet = new Spreadsheet();
+        borderStyle = spreadsheet.getWorkbook().createCellStyle();
+        borderStyle.setBorderTop(BorderStyle.THIN);
+        borderStyle.setBorderLeft(BorderStyle.THIN);
+        borderStyle.setBorderRight(BorderStyle.THICK);
+        borderStyle.setBorderBottom(BorderStyle.THICK);
+        List<Cell> cells = new ArrayList<>();
+        for (int r = 0; r < 6; r++) {
+            for (int c = 0; c < 6; c++) {
+                Cell cell = spreadsheet.createCell(r, c, r * 6 + c);
+                cell.setCellStyle(borderStyle);
+                cells.add(cell);
+            }
+        }
+        spreadsheet.refreshCells(cells);
+    }
+
+    @Test
+    public void styledCells_sameAsReload() {
+        Assert.assertFalse(getShiftedCellBorderStyles().isEmpty());
+        assertSameAsReload();
+    }
+
+    @Test
+    public void hideAndShowRows_sameAsReload() {
+        spreadsheet.setRowHidden(2, true);
+        Assert.assertTrue(getShiftedCellBorderStyles().stream()
+                .noneMatch(style -> style.contains(".row3")));
+        assertSameAsReload();
+
+        spreadsheet.setRowHidden(3, true);
+        assertSameAsReload();
+
+        spreadsheet.setRowHidden(2, false);
+        assertSameAsReload();
+    }
+
+    @Test
+    public void hideAndShowColumns_sameAsReload() {
+        spreadsheet.setColumnHidden(1, true);
+        spreadsheet.setColumnHidden(2, true);
+        Assert.assertTrue(getShiftedCellBorderStyles().stream()
+                .noneMatch(style -> style.contains(".col2.")
+                        || style.contains(".col3.")));
+        assertSameAsReload();
+
+        spreadsheet.setColumnHidden(1, false);
+        assertSameAsReload();
+    }
+
+    @Test
+    public void rowHeightZero_sameAsReload() {
+        spreadsheet.setRowHeight(1, 0);
+        assertSameAsReload();
+
+        spreadsheet.setRowHeight(1, 20);
+        assertSameAsReload();
+    }
+
+    @Test
+    public void mergedRegions_sameAsReload() {
+        spreadsheet.addMergedRegion(1, 1, 2, 3);
+        Assert.assertTrue(getShiftedCellBorderStyles().stream()
+                .anyMatch(style -> style.startsWith(".col2.row2{")));
+        assertSameAsReload();
+
+        spreadsheet.setRowHidden(2, true);
+        assertSameAsReload();
+
+        spreadsheet.setRowHidden(2, false);
+        spreadsheet.removeMergedRegion(0);
+        assertSameAsReload();
+    }
+
+    @Test
+    public void mergedRegionRemoved_cellOutsideCleared() {
+        spreadsheet.getActiveSheet()
+                .addMergedRegion(new CellRangeAddress(7, 8, 7, 8));
+        spreadsheet.reloadAllMergedRegions();
+        Cell cell = spreadsheet.createCell(8, 8, "Merged");
+        cell.setCellStyle(borderStyle);
+        spreadsheet.refreshCells(cell);
+        Assert.assertTrue(getShiftedCellBorderStyles().stream()
+                .anyMatch(style -> style.startsWith(".col8.row8{")));
+
+        spreadsheet.getActiveSheet().getRow(8).removeCell(cell);
+        spreadsheet.removeMergedRegion(0);
+        assertSameAsReload();
+    }
+
+    @Test
+    public void cellStyleChanged_sameAsReload() {
+        Cell cell = spreadsheet.getCell(3, 3);
+        cell.setCellStyle(spreadsheet.getWorkbook().getCellStyleAt(0));
+        spreadsheet.refreshCells(cell);
+        assertSameAsReload();
+
+        CellStyle topOnly = spreadsheet.getWorkbook().createCellStyle();
+        topOnly.setBorderTop(BorderStyle.DOUBLE);
+        cell.setCellStyle(topOnly);
+        spreadsheet.refreshCells(cell);
+        assertSameAsReload();
+    }
+
+    private void assertSameAsReload() {
+        Set<String> incremental = new HashSet<>(getShiftedCellBorderStyles());
+        Assert.assertEquals("Duplicate rules",
+                getShiftedCellBorderStyles().size(), incremental.size());
+        spreadsheet.reloadActiveSheetStyles();
+        Assert.assertEquals(new HashSet<>(getShiftedCellBorderStyles()),
+                incremental);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getShiftedCellBorderStyles() {
+        try {
+            Method method = Spreadsheet.class
+                    .getDeclaredMethod("getShiftedCellBorderStyles");
+            method.setAccessible(true);
+            return (List<String>) method.invoke(spreadsheet);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Could not get the border styles", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.client.SparseSizeModel;
+
+public class SparseSizeModelTest {
+
+    private static final int MAX_ROWS = 1048576;
+
+    private SparseSizeModel model;
+
+    @Before
+    public void init() {
+        model = new SparseSizeModel(MAX_ROWS, 15);
+        model.setSize(2, 30);
+        model.setSize(3, 0);
+        model.setSize(1000000, 45);
+    }
+
+    @Test
+    public void setSize_onlyNonDefaultSizesStored() {
+        Assert.assertEquals(3, model.getEntryCount());
+
+        model.setSize(2, 15);
+
+        Assert.assertEquals(2, model.getEntryCount());
+        Assert.assertEquals(15, model.getSize(2), 0);
+    }
+
+    @Test
+    public void setSize_outsideModel_ignored() {
+        model.setSize(MAX_ROWS, 30);
+
+        Assert.assertEquals(3, model.getEntryCount());
+    }
+
+    @Test
+    public void getOffset_sumsAllPreviousSizes() {
+        Assert.assertEquals(0, model.getOffset(0), 0);
+        Assert.assertEquals(30, model.getOffset(2), 0);
+        Assert.assertEquals(60, model.getOffset(3), 0);
+        Assert.assertEquals(60, model.getOffset(4), 0);
+        Assert.assertEquals(1000000 * 15.0, model.getOffset(1000000), 0);
+        Assert.assertEquals(MAX_ROWS * 15.0 + 30, model.getOffset(MAX_ROWS), 0);
+    }
+
+    @Test
+    public void getSum_rangeOfSizes() {
+        Assert.assertEquals(30, model.getSum(2, 4), 0);
+        Assert.assertEquals(75, model.getSum(999999, 1000002), 0);
+        Assert.assertEquals(0, model.getSum(5, 5), 0);
+    }
+
+    @Test
+    public void getIndexAt_inverseOfOffset() {
+        Assert.assertEquals(0, model.getIndexAt(0));
+        Assert.assertEquals(1, model.getIndexAt(29));
+        Assert.assertEquals(2, model.getIndexAt(30));
+        Assert.assertEquals(2, model.getIndexAt(59));
+        // zero sized index 3 is skipped
+        Assert.assertEquals(4, model.getIndexAt(60));
+        for (int index : new int[] { 5, 999999, 1000000, 1000001,
+                MAX_ROWS - 1 }) {
+            Assert.assertEquals(index,
+                    model.getIndexAt(model.getOffset(index)));
+            Assert.assertEquals(index,
+                    model.getIndexAt(model.getOffset(index + 1) - 1));
+        }
+    }
+
+    @Test
+    public void encode_decode_sameSizes() {
+        SparseSizeModel decoded = SparseSizeModel.decode(model.encode());
+
+        Assert.assertEquals(MAX_ROWS, decoded.getCount());
+        Assert.assertEquals(3, decoded.getEntryCount());
+        Assert.assertEquals(model.getOffset(MAX_ROWS),
+                decoded.getOffset(MAX_ROWS), 0);
+        Assert.assertEquals(8, model.encode().length);
+    }
+
+    @Test
+    public void setCount_sizesAfterCountDropped() {
+        model.setCount(100);
+
+        Assert.assertEquals(2, model.getEntryCount());
+        Assert.assertEquals(15, model.getSize(1000000), 0);
+    }
+
+    @Test
+    public void shift_down_sizesMovedAndVacatedReset() {
+        model.shift(2, 10, 2);
+
+        Assert.assertEquals(3, model.getEntryCount());
+        Assert.assertEquals(15, model.getSize(2), 0);
+        Assert.assertEquals(15, model.getSize(3), 0);
+        Assert.assertEquals(30, model.getSize(4), 0);
+        Assert.assertEquals(0, model.getSize(5), 0);
+        Assert.assertEquals(45, model.getSize(1000000), 0);
+    }
+
+    @Test
+    public void shift_up_overwrittenSizesDropped() {
+        model.shift(3, 10, -1);
+
+        Assert.assertEquals(2, model.getEntryCount());
+        Assert.assertEquals(0, model.getSize(2), 0);
+        Assert.assertEquals(15, model.getSize(3), 0);
+        Assert.assertEquals(45, model.getSize(1000000), 0);
+        Assert.assertEquals(MAX_ROWS * 15.0 + 30 - 15, model.getOffset(MAX_ROWS),
+                0);
+    }
+}
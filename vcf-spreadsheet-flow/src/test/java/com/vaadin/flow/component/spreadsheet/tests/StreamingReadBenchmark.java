@@ -0,0 +1,113 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+/**
+ * Compares the retained heap and the time until the first screen of cells is
+ * loaded when reading a 200 000 row file normally and with streaming.
+ * <p>
+ * Excluded from the test run, see {@link BenchmarkHelper}. The normal read
+ * needs a heap of a few gigabytes, run with e.g.
+ * <code>mvn test -Dtest=StreamingReadBenchmark -DargLine=-Xmx4g</code>.
+ */
+public class StreamingReadBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(StreamingReadBenchmark.class);
+
+    private static final int ROWS = 200000;
+    private static final int COLUMNS = 10;
+
+    @Test
+    public void read_200kRows_heapAndFirstViewport() throws IOException {
+        File file = createFile();
+        try {
+            long[] normal = measure(file, false);
+            long[] streaming = measure(file, true);
+
+            LOGGER.info(
+                    "{} cells: read {} ms, {} MB; streaming read {} ms, {} MB",
+                    ROWS * COLUMNS, BenchmarkHelper.millis(normal[0]),
+                    normal[1] / (1024 * 1024),
+                    BenchmarkHelper.millis(streaming[0]),
+                    streaming[1] / (1024 * 1024));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Reads the file and loads the first screen of cells.
+     *
+     * @return the time taken in nanoseconds and the retained heap in bytes
+     */
+    private static long[] measure(File file, boolean streaming)
+            throws IOException {
+        long baseline = BenchmarkHelper.usedHeap();
+        long start = System.nanoTime();
+        BenchmarkSpreadsheet spreadsheet = new BenchmarkSpreadsheet();
+        if (streaming) {
+            spreadsheet.readStreaming(file);
+        } else {
+            spreadsheet.read(file);
+        }
+        spreadsheet.loadFirstViewport();
+        long nanos = System.nanoTime() - start;
+        long heap = BenchmarkHelper.usedHeap() - baseline;
+
+        Assert.assertEquals(ROWS - 1,
+                spreadsheet.getCell(ROWS - 1, 0).getNumericCellValue(), 0);
+        return new long[] { nanos, heap };
+    }
+
+    private static File createFile() throws IOException {
+        File file = File.createTempFile("streamingReadBenchmark", ".xlsx");
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            for (int r = 0; r < ROWS; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue(r);
+                for (int c = 1; c < COLUMNS; c++) {
+                    if (c % 2 == 0) {
+                        row.createCell(c).setCellValue(r * c);
+                    } else {
+                        row.createCell(c).setCellValue("Value " + (r % 100));
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return file;
+    }
+
+    private static class BenchmarkSpreadsheet extends Spreadsheet {
+
+        void loadFirstViewport() {
+            loadCells(1, 1, 50, COLUMNS);
+        }
+    }
+}
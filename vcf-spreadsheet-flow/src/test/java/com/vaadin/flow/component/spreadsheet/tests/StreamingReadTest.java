@@ -0,0 +1,220 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCellFormula;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellFormulaType;
+
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+public class StreamingReadTest {
+
+    private static final int ROWS = 1000;
+    private static final int FAR_ROW = 4999;
+
+    private File file;
+    private Spreadsheet spreadsheet;
+
+    @Before
+    public void init() throws IOException {
+        file = File.createTempFile("streamingRead", ".xlsx");
+        try (XSSFWorkbook workbook = createWorkbook();
+                FileOutputStream out = new FileOutputStream(file)) {
+            workbook.write(out);
+        }
+        spreadsheet = new Spreadsheet();
+        spreadsheet.readStreaming(file);
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void readStreaming_cellsAvailable() {
+        Assert.assertEquals(999,
+                spreadsheet.getCell(999, 0).getNumericCellValue(), 0);
+        Assert.assertEquals("Item 3",
+                spreadsheet.getCell(3, 1).getStringCellValue());
+        Assert.assertNull(spreadsheet.getCell(3, 10));
+        Assert.assertEquals(FAR_ROW + 1, spreadsheet.getRows());
+    }
+
+    @Test
+    public void readStreaming_sameValuesAsNormalRead() throws IOException {
+        Spreadsheet normal = new Spreadsheet();
+        normal.read(file);
+
+        TestHelper.fireClientEvent(spreadsheet, "onSheetScroll",
+                "[1, 1, 50, 10]");
+
+        Assert.assertEquals(normal.getRows(), spreadsheet.getRows());
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < 4; c++) {
+                Cell expected = normal.getCell(r, c);
+                Cell actual = spreadsheet.getCell(r, c);
+                Assert.assertEquals("row " + r + ", column " + c,
+                        expected == null ? null
+                                : normal.getCellValue(expected),
+                        actual == null ? null
+                                : spreadsheet.getCellValue(actual));
+            }
+        }
+    }
+
+    @Test
+    public void readStreaming_cellsNotCreatedBeforeNeeded() {
+        Assert.assertNull(spreadsheet.getActiveSheet().getRow(500));
+
+        spreadsheet.getCell(500, 0);
+
+        Assert.assertNotNull(spreadsheet.getActiveSheet().getRow(500));
+        Assert.assertNull(spreadsheet.getActiveSheet().getRow(501));
+    }
+
+    @Test
+    public void readStreaming_deleteRangePastViewport_cellsStayDeleted() {
+        TestHelper.fireClientEvent(spreadsheet, "onSheetScroll",
+                "[1, 1, 50, 10]");
+        spreadsheet.setSelection("A1:B" + ROWS);
+
+        TestHelper.fireClientEvent(spreadsheet, "deleteSelectedCells", "[]");
+
+        Assert.assertEquals(CellType.BLANK,
+                spreadsheet.getCell(900, 0).getCellType());
+        Assert.assertEquals(CellType.BLANK,
+                spreadsheet.getCell(900, 1).getCellType());
+        Assert.assertEquals("0",
+                spreadsheet.getCellValue(spreadsheet.getCell(900, 2)));
+
+        TestHelper.fireClientEvent(spreadsheet, "onUndo", "[]");
+
+        Assert.assertEquals(900,
+                spreadsheet.getCell(900, 0).getNumericCellValue(), 0);
+        Assert.assertEquals("Item 0",
+                spreadsheet.getCell(900, 1).getStringCellValue());
+    }
+
+    @Test
+    public void readStreaming_sharedFormula_relativeToCell() {
+        Cell cell = spreadsheet.getCell(9, 2);
+
+        Assert.assertEquals(CellType.FORMULA, cell.getCellType());
+        Assert.assertEquals("A10*2", cell.getCellFormula());
+        Assert.assertEquals("18", spreadsheet.getCellValue(cell));
+    }
+
+    @Test
+    public void readStreaming_formula_referencedRowsCreated() {
+        Cell cell = spreadsheet.getCell(0, 3);
+
+        Assert.assertEquals("43", spreadsheet.getCellValue(cell));
+    }
+
+    @Test
+    public void readStreaming_rowHeightAndStyleKept() {
+        Assert.assertEquals(30, spreadsheet.getActiveSheet().getRow(20)
+                .getHeightInPoints(), 0);
+        CellStyle style = spreadsheet.getCell(20, 0).getCellStyle();
+        Assert.assertTrue(spreadsheet.getWorkbook()
+                .getFontAt(style.getFontIndex()).getBold());
+    }
+
+    @Test
+    public void readStreaming_editAndWrite_allCellsWritten()
+            throws IOException {
+        spreadsheet.createCell(1, 0, 100.0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        spreadsheet.write(out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(
+                new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals(100,
+                    sheet.getRow(1).getCell(0).getNumericCellValue(), 0);
+            Assert.assertEquals(998,
+                    sheet.getRow(998).getCell(0).getNumericCellValue(), 0);
+            Assert.assertEquals("Item 7",
+                    sheet.getRow(997).getCell(1).getStringCellValue());
+            Assert.assertEquals("A500*2",
+                    sheet.getRow(499).getCell(2).getCellFormula());
+            Assert.assertEquals(42, sheet.getRow(FAR_ROW).getCell(0)
+                    .getNumericCellValue(), 0);
+        }
+    }
+
+    @Test
+    public void readStreaming_xls_readNormally() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+            workbook.createSheet().createRow(0).createCell(0).setCellValue(1);
+            workbook.write(out);
+        }
+
+        spreadsheet.readStreaming(new ByteArrayInputStream(out.toByteArray()));
+
+        Assert.assertTrue(spreadsheet.getWorkbook() instanceof HSSFWorkbook);
+        Assert.assertEquals(1,
+                spreadsheet.getCell(0, 0).getNumericCellValue(), 0);
+    }
+
+    /**
+     * One thousand rows with a number, a shared string and a shared formula,
+     * a formula referencing a far away row and a row with a height and a
+     * style of its own.
+     */
+    private static XSSFWorkbook createWorkbook() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        XSSFSheet sheet = workbook.createSheet("Data");
+        Font font = workbook.createFont();
+        font.setBold(true);
+        CellStyle bold = workbook.createCellStyle();
+        bold.setFont(font);
+        for (int r = 0; r < ROWS; r++) {
+            Row row = sheet.createRow(r);
+            row.createCell(0).setCellValue(r);
+            row.createCell(1).setCellValue("Item " + (r % 10));
+            XSSFCell cell = (XSSFCell) row.createCell(2);
+            CTCellFormula formula = cell.getCTCell().addNewF();
+            formula.setT(STCellFormulaType.SHARED);
+            formula.setSi(0);
+            if (r == 0) {
+                formula.setRef("C1:C" + ROWS);
+                formula.setStringValue("A1*2");
+            }
+            cell.getCTCell().setV(Integer.toString(r * 2));
+        }
+        sheet.getRow(0).createCell(3)
+                .setCellFormula("A" + (FAR_ROW + 1) + "+1");
+        sheet.getRow(20).setHeightInPoints(30);
+        sheet.getRow(20).getCell(0).setCellStyle(bold);
+        sheet.createRow(FAR_ROW).createCell(0).setCellValue(42);
+        return workbook;
+    }
+}
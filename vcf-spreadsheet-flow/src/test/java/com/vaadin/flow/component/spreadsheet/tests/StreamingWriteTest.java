@@ -0,0 +1,145 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+public class StreamingWriteTest {
+
+    private static final int ROWS = 1000;
+
+    private File file;
+
+    @Before
+    public void init() throws IOException {
+        file = File.createTempFile("streamingWrite", ".xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+                FileOutputStream out = new FileOutputStream(file)) {
+            XSSFSheet sheet = workbook.createSheet("Data");
+            for (int r = 0; r < ROWS; r++) {
+                sheet.createRow(r).createCell(0).setCellValue(r);
+                sheet.getRow(r).createCell(1)
+                        .setCellFormula("A" + (r + 1) + "*2");
+            }
+            workbook.write(out);
+        }
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void writeAsync_allRowsWritten_progressReported()
+            throws Exception {
+        Spreadsheet spreadsheet = new Spreadsheet(file);
+        spreadsheet.createCell(0, 2, "Edited");
+        List<Double> progress = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            spreadsheet.write(out, executor, progress::add).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertWritten(out, true);
+        Assert.assertEquals(0, progress.get(0), 0);
+        Assert.assertEquals(1, progress.get(progress.size() - 1), 0);
+        for (int i = 1; i < progress.size(); i++) {
+            Assert.assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+    }
+
+    @Test
+    public void writeAsync_streamingRead_cellsNotLoaded() throws Exception {
+        Spreadsheet spreadsheet = new Spreadsheet();
+        spreadsheet.readStreaming(file);
+        spreadsheet.createCell(0, 2, "Edited");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        spreadsheet.write(out, null, null).get();
+
+        Assert.assertNull(spreadsheet.getActiveSheet().getRow(500));
+        assertWritten(out, true);
+    }
+
+    @Test
+    public void write_streamingRead_cellsNotLoaded() throws IOException {
+        Spreadsheet spreadsheet = new Spreadsheet();
+        spreadsheet.readStreaming(file);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        spreadsheet.write(out);
+
+        Assert.assertNull(spreadsheet.getActiveSheet().getRow(500));
+        assertWritten(out, false);
+    }
+
+    @Test
+    public void writeAsync_failingStream_completedExceptionally()
+            throws IOException, InterruptedException {
+        Spreadsheet spreadsheet = new Spreadsheet(file);
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Failed");
+            }
+        };
+
+        CompletableFuture<Void> future = spreadsheet.write(out, null, null);
+
+        try {
+            future.get();
+            Assert.fail("Write should fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(future.isCompletedExceptionally());
+        }
+    }
+
+    private static void assertWritten(ByteArrayOutputStream out,
+            boolean edited) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(
+                new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals(ROWS - 1, sheet.getLastRowNum());
+            for (int r = 0; r < ROWS; r++) {
+                Assert.assertEquals(r,
+                        sheet.getRow(r).getCell(0).getNumericCellValue(), 0);
+                Assert.assertEquals("A" + (r + 1) + "*2",
+                        sheet.getRow(r).getCell(1).getCellFormula());
+            }
+            if (edited) {
+                Assert.assertEquals("Edited",
+                        sheet.getRow(0).getCell(2).getStringCellValue());
+            }
+        }
+    }
+}
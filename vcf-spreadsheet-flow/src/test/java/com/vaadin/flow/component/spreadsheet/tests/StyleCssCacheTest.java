@@ -0,0 +1,115 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+
+public class StyleCssCacheTest {
+
+    @Test
+    public void sameFileTwice_sameCss() {
+        Map<Integer, String> first = getCellStyleCss(TestHelper
+                .createSpreadsheet("StyleSample - Background and Border.xlsx"));
+        Map<Integer, String> second = getCellStyleCss(TestHelper
+                .createSpreadsheet("StyleSample - Background and Border.xlsx"));
+
+        Assert.assertEquals(first, second);
+    }
+
+    @Test
+    public void equalStylesAtDifferentIndex_sameCss() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        workbook.createSheet();
+        CellStyle style = createStyle(workbook, IndexedColors.RED);
+        XSSFWorkbook other = new XSSFWorkbook();
+        other.createSheet();
+        other.createCellStyle();
+        CellStyle otherStyle = createStyle(other, IndexedColors.RED);
+
+        String css = getCellStyleCss(new Spreadsheet(workbook))
+                .get((int) style.getIndex());
+        String otherCss = getCellStyleCss(new Spreadsheet(other))
+                .get((int) otherStyle.getIndex());
+
+        Assert.assertNotEquals(style.getIndex(), otherStyle.getIndex());
+        Assert.assertEquals(css, otherCss);
+    }
+
+    @Test
+    public void differentStylesAtSameIndex_differentCss() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        workbook.createSheet();
+        CellStyle style = createStyle(workbook, IndexedColors.RED);
+        XSSFWorkbook other = new XSSFWorkbook();
+        other.createSheet();
+        CellStyle otherStyle = createStyle(other, IndexedColors.BLUE);
+
+        String css = getCellStyleCss(new Spreadsheet(workbook))
+                .get((int) style.getIndex());
+        String otherCss = getCellStyleCss(new Spreadsheet(other))
+                .get((int) otherStyle.getIndex());
+
+        Assert.assertEquals(style.getIndex(), otherStyle.getIndex());
+        Assert.assertNotEquals(css, otherCss);
+    }
+
+    @Test
+    public void styleChanged_cssUpdated() {
+        Spreadsheet spreadsheet = new Spreadsheet();
+        CellStyle style = createStyle(spreadsheet.getWorkbook(),
+                IndexedColors.RED);
+        spreadsheet.createCell(0, 0, "Value").setCellStyle(style);
+        spreadsheet.refreshCells(spreadsheet.getCell(0, 0));
+        String css = getCellStyleCss(spreadsheet).get((int) style.getIndex());
+
+        style.setFillForegroundColor(IndexedColors.GREEN.getIndex());
+        spreadsheet.refreshCells(spreadsheet.getCell(0, 0));
+
+        Assert.assertNotEquals(css,
+                getCellStyleCss(spreadsheet).get((int) style.getIndex()));
+    }
+
+    private static CellStyle createStyle(
+            org.apache.poi.ss.usermodel.Workbook workbook,
+            IndexedColors fill) {
+        Font font = workbook.createFont();
+        font.setBold(true);
+        CellStyle style = workbook.createCellStyle();
+        style.setFont(font);
+        style.setFillForegroundColor(fill.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        style.setBorderTop(BorderStyle.THIN);
+        return style;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, String> getCellStyleCss(
+            Spreadsheet spreadsheet) {
+        try {
+            Method method = Spreadsheet.class
+                    .getDeclaredMethod("getCellStyleToCSSStyle");
+            method.setAccessible(true);
+            return (Map<Integer, String>) method.invoke(spreadsheet);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Could not get the cell style CSS", e);
+        }
+    }
+}
@@ -13,8 +13,10 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 
 import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.spreadsheet.Spreadsheet;
 import com.vaadin.flow.component.spreadsheet.Spreadsheet.SpreadsheetEvent;
+import com.vaadin.flow.server.VaadinSession;
 
 import elemental.json.impl.JsonUtil;
 
@@ -37,6 +39,27 @@ public class TestHelper {
                 true, eventName, JsonUtil.parse(jsonDataArray)));
     }
 
+    /**
+     * Creates a UI with a session that is always locked and sets it as the
+     * current UI. Can be used by tests that run the executions scheduled
+     * before the client response, as the JavaScript invocations they add need
+     * a session.
+     *
+     * @return the created UI
+     */
+    @SuppressWarnings("serial")
+    public static UI createUI() {
+        UI ui = new UI();
+        ui.getInternals().setSession(new VaadinSession(null) {
+            @Override
+            public boolean hasLock() {
+                return true;
+            }
+        });
+        UI.setCurrent(ui);
+        return ui;
+    }
+
     /**
      * Ceates a Spreadsheet component with the given Excel file as the data
      * source.
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.poi.ss.format.VCellFormat;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VCellFormatCacheTest {
+
+    @Before
+    @After
+    public void clearCache() {
+        VCellFormat.clearCache();
+    }
+
+    @Test
+    public void sameFormatTwice_sameInstanceAndHit() {
+        VCellFormat first = VCellFormat.getInstance(Locale.US, "0.00");
+        VCellFormat second = VCellFormat.getInstance(Locale.US, "0.00");
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, VCellFormat.getCacheMissCount());
+        Assert.assertEquals(1, VCellFormat.getCacheHitCount());
+    }
+
+    @Test
+    public void differentLocale_differentInstance() {
+        VCellFormat us = VCellFormat.getInstance(Locale.US, "#,##0.00");
+        VCellFormat german = VCellFormat.getInstance(Locale.GERMANY,
+                "#,##0.00");
+
+        Assert.assertNotSame(us, german);
+        Assert.assertEquals("1,234.50", us.apply(1234.5).text);
+        Assert.assertEquals("1.234,50", german.apply(1234.5).text);
+    }
+
+    @Test
+    public void moreFormatsThanMaxSize_cacheBounded() {
+        int max = VCellFormat.getMaxCacheSize();
+        for (int i = 0; i < max + 100; i++) {
+            VCellFormat.getInstance(Locale.US, "0.00\" " + i + "\"");
+        }
+
+        Assert.assertTrue(VCellFormat.getCacheSize() <= max);
+        Assert.assertTrue(VCellFormat.getCacheEvictionCount() > 0);
+    }
+
+    @Test
+    public void usedFormat_survivesEviction() {
+        int max = VCellFormat.getMaxCacheSize();
+        VCellFormat used = VCellFormat.getInstance(Locale.US, "0.0");
+        for (int i = 0; i < max * 2; i++) {
+            VCellFormat.getInstance(Locale.US, "0.00\" " + i + "\"");
+            VCellFormat.getInstance(Locale.US, "0.0");
+        }
+
+        Assert.assertSame(used, VCellFormat.getInstance(Locale.US, "0.0"));
+    }
+
+    @Test
+    public void concurrentFormatting_sameResults() throws Exception {
+        String[] formats = { "0.00E+00", "yyyy-mm-dd", "#,##0.00", "0%",
+                "[h]:mm:ss" };
+        List<String> expected = new ArrayList<>();
+        for (String format : formats) {
+            expected.add(VCellFormat.getInstance(Locale.US, format)
+                    .apply(40000.123).text);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        int f = i % formats.length;
+                        String text = VCellFormat
+                                .getInstance(Locale.US, formats[f])
+                                .apply(40000.123).text;
+                        if (!expected.get(f).equals(text)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(formats.length, VCellFormat.getCacheMissCount());
+    }
+}
@@ -50,8 +50,11 @@ public class ChartTestBase {
     protected Chart getChartFromSampleFile(String filename, String cell)
             throws Exception {
 
-        Spreadsheet spreadsheet = TestHelper.createSpreadsheet(filename);
+        return getChart(TestHelper.createSpreadsheet(filename), cell);
+    }
 
+    protected Chart getChart(Spreadsheet spreadsheet, String cell)
+            throws Exception {
         CellReference cellRef = new CellReference(cell);
 
         Set<SheetOverlayWrapper> sheetOverlays = getSheetOverlays(spreadsheet);
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See {@literal <https://vaadin.com/commercial-license-and-service-terms>} for the full
+ * license.
+ */
+package com.vaadin.flow.component.spreadsheet.tests.charts;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.poi.ss.util.CellReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.charts.Chart;
+import com.vaadin.flow.component.charts.model.DataSeries;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet.CellValueChangeEvent;
+import com.vaadin.flow.component.spreadsheet.Spreadsheet.FormulaValueChangeEvent;
+import com.vaadin.flow.component.spreadsheet.tests.TestHelper;
+
+public class ChartValueUpdateTest extends ChartTestBase {
+
+    private UI ui;
+    private Spreadsheet spreadsheet;
+    private Chart chart;
+
+    @Before
+    public void init() throws Exception {
+        ui = new UI();
+        UI.setCurrent(ui);
+        spreadsheet = TestHelper.createSpreadsheet("TypeSample - Line.xlsx");
+        chart = getChart(spreadsheet, "I10");
+    }
+
+    @After
+    public void tearDown() {
+        UI.setCurrent(null);
+    }
+
+    @Test
+    public void referencedCellChanged_pointUpdated() {
+        // the first series shows A1:E1
+        setValue("B1", 555);
+
+        Assert.assertEquals(555d, getY(0, 1), 0.1);
+        Assert.assertEquals(data[0][0], getY(0, 0), 0.1);
+        Assert.assertEquals(data[1][1], getY(1, 1), 0.1);
+    }
+
+    @Test
+    public void unreferencedCellChanged_pointsNotUpdated() {
+        setValue("F1", 555);
+
+        assertData(chart.getConfiguration().getSeries(), data);
+    }
+
+    @Test
+    public void attached_pointsUpdatedBeforeClientResponse() {
+        ui.add(spreadsheet);
+        runBeforeClientResponse();
+
+        setValue("C2", 123);
+        ComponentUtil.fireEvent(spreadsheet, new FormulaValueChangeEvent(
+                spreadsheet, cells("C2")));
+
+        Assert.assertEquals(data[1][2], getY(1, 2), 0.1);
+
+        runBeforeClientResponse();
+
+        Assert.assertEquals(123d, getY(1, 2), 0.1);
+    }
+
+    @Test
+    public void otherSpreadsheetChanged_pointsNotUpdated() throws Exception {
+        Chart otherChart = getChart(
+                TestHelper.createSpreadsheet("TypeSample - Line.xlsx"), "I10");
+
+        setValue("A3", 42);
+
+        Assert.assertEquals(42d, getY(2, 0), 0.1);
+        Assert.assertEquals(data[2][0],
+                ((DataSeries) otherChart.getConfiguration().getSeries().get(2))
+                        .get(0).getY().doubleValue(),
+                0.1);
+    }
+
+    private void setValue(String cell, double value) {
+        CellReference ref = new CellReference(cell);
+        spreadsheet.createCell(ref.getRow(), ref.getCol(), value);
+        ComponentUtil.fireEvent(spreadsheet,
+                new CellValueChangeEvent(spreadsheet, cells(cell)));
+    }
+
+    private static Set<CellReference> cells(String cell) {
+        return Collections.singleton(new CellReference(cell));
+    }
+
+    private double getY(int series, int point) {
+        return ((DataSeries) chart.getConfiguration().getSeries().get(series))
+                .get(point).getY().doubleValue();
+    }
+
+    private void runBeforeClientResponse() {
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+    }
+}